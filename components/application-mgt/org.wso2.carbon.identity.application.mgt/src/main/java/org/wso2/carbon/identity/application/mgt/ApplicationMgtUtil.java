@@ -52,6 +52,7 @@ import org.wso2.carbon.user.core.UserRealm;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.user.mgt.UserMgtConstants;
+import org.wso2.carbon.user.mgt.cache.UIPermissionTreeCache;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -313,6 +314,8 @@ public class ApplicationMgtUtil {
         } catch (RegistryException e) {
             throw new IdentityApplicationManagementException("Error while renaming permission node "
                     + oldName + "to " + newName, e);
+        } finally {
+            clearUIPermissionTreeCache();
         }
     }
 
@@ -386,6 +389,8 @@ public class ApplicationMgtUtil {
         } catch (Exception e) {
             throw new IdentityApplicationManagementException("Error while storing permissions for application " +
                     applicationName, e);
+        } finally {
+            clearUIPermissionTreeCache();
         }
     }
 
@@ -441,6 +446,8 @@ public class ApplicationMgtUtil {
 
         } catch (RegistryException e) {
             throw new IdentityApplicationManagementException("Error while storing permissions", e);
+        } finally {
+            clearUIPermissionTreeCache();
         }
 
     }
@@ -569,9 +576,19 @@ public class ApplicationMgtUtil {
 
         } catch (RegistryException e) {
             throw new IdentityApplicationManagementException("Error while storing permissions", e);
+        } finally {
+            clearUIPermissionTreeCache();
         }
     }
 
+    /**
+     * Drops the cached UI permission tree of the current tenant, as it includes the application permissions.
+     */
+    private static void clearUIPermissionTreeCache() {
+
+        UIPermissionTreeCache.getInstance().clearCacheEntry(CarbonContext.getThreadLocalCarbonContext().getTenantId());
+    }
+
     /**
      * @param o1
      * @param o2
@@ -71,6 +71,10 @@ import org.wso2.carbon.identity.application.mgt.dao.PaginatableFilterableApplica
 import org.wso2.carbon.identity.application.mgt.internal.ApplicationManagementServiceComponent;
 import org.wso2.carbon.identity.application.mgt.internal.ApplicationManagementServiceComponentHolder;
 import org.wso2.carbon.identity.core.CertificateRetrievingException;
+import org.wso2.carbon.identity.core.cache.CertificateCache;
+import org.wso2.carbon.identity.core.cache.CertificateCacheEntry;
+import org.wso2.carbon.identity.core.cache.CertificateCacheKey;
+import org.wso2.carbon.identity.core.cache.SAMLSSOServiceProviderCache;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
@@ -484,12 +488,15 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
             throws IdentityApplicationManagementException {
 
         int applicationId = serviceProvider.getApplicationID();
+        // Captured upfront since the reference is removed from the properties when the certificate is deleted.
+        String certificateReferenceId = getCertificateReferenceID(serviceProvider.getSpProperties());
         Connection connection = IdentityDatabaseUtil.getDBConnection(true);
         try {
             deleteApplicationConfigurations(connection, serviceProvider, applicationId);
             addApplicationConfigurations(connection, serviceProvider, tenantDomain);
 
             IdentityDatabaseUtil.commitTransaction(connection);
+            clearCertificateCache(IdentityTenantUtil.getTenantId(tenantDomain), certificateReferenceId);
         } catch (SQLException | UserStoreException e) {
             IdentityDatabaseUtil.rollbackTransaction(connection);
             throw new IdentityApplicationManagementException("Failed to update application id: " + applicationId, e);
@@ -697,7 +704,7 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
                             propertiesWithoutCertificateReference.length - certificateReferenceIdIndex);
 
                     serviceProvider.setSpProperties(propertiesWithoutCertificateReference);
-                    deleteCertificate(connection, Integer.parseInt(certificateReferenceId));
+                    deleteCertificate(connection, Integer.parseInt(certificateReferenceId), tenantID);
                 }
             }
         } else {
@@ -729,6 +736,31 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
                 persistApplicationCertificate(serviceProvider, tenantID, connection);
             }
         }
+        clearSAMLServiceProviderCache(serviceProvider, tenantID);
+    }
+
+    /**
+     * Clears the cached SAML service providers of the given application, since they carry the resolved application
+     * certificate.
+     *
+     * @param serviceProvider Service provider.
+     * @param tenantID        Tenant id of the service provider.
+     */
+    private void clearSAMLServiceProviderCache(ServiceProvider serviceProvider, int tenantID) {
+
+        InboundAuthenticationConfig inboundAuthenticationConfig = serviceProvider.getInboundAuthenticationConfig();
+        if (inboundAuthenticationConfig == null ||
+                inboundAuthenticationConfig.getInboundAuthenticationRequestConfigs() == null) {
+            return;
+        }
+        for (InboundAuthenticationRequestConfig requestConfig :
+                inboundAuthenticationConfig.getInboundAuthenticationRequestConfigs()) {
+            if ("samlsso".equalsIgnoreCase(requestConfig.getInboundAuthType()) &&
+                    StringUtils.isNotBlank(requestConfig.getInboundAuthKey())) {
+                SAMLSSOServiceProviderCache.getInstance().clearServiceProvider(tenantID,
+                        requestConfig.getInboundAuthKey());
+            }
+        }
     }
 
     /**
@@ -1838,11 +1870,12 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
      *
      * @param serviceProviderProperties
      * @param connection
+     * @param tenantID
      * @return
      * @throws CertificateRetrievingException
      */
-    private String getCertificateContent(List<ServiceProviderProperty> serviceProviderProperties, Connection connection)
-            throws CertificateRetrievingException {
+    private String getCertificateContent(List<ServiceProviderProperty> serviceProviderProperties, Connection connection,
+                                         int tenantID) throws CertificateRetrievingException {
 
         String certificateReferenceId = null;
         for (ServiceProviderProperty property : serviceProviderProperties) {
@@ -1853,6 +1886,13 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
 
         if (certificateReferenceId != null) {
 
+            CertificateCacheKey cacheKey = new CertificateCacheKey(tenantID, CertificateCache.SOURCE_DATABASE,
+                    certificateReferenceId);
+            CertificateCacheEntry cacheEntry = CertificateCache.getInstance().getValueFromCache(cacheKey);
+            if (cacheEntry != null && cacheEntry.getCertificateContent() != null) {
+                return cacheEntry.getCertificateContent();
+            }
+
             PreparedStatement statementForFetchingCertificate = null;
             ResultSet results = null;
             try {
@@ -1868,6 +1908,9 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
                 }
 
                 if (certificateContent != null) {
+                    // The parsed certificate is added lazily by the certificate retriever when it is needed.
+                    CertificateCache.getInstance().addToCache(cacheKey,
+                            new CertificateCacheEntry(null, certificateContent));
                     return certificateContent;
                 }
             } catch (SQLException | IOException e) {
@@ -2133,7 +2176,7 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
             serviceProvider.setRequestPathAuthenticatorConfigs(requestPathAuthenticators);
 
             serviceProvider.setSpProperties(propertyList.toArray(new ServiceProviderProperty[0]));
-            serviceProvider.setCertificateContent(getCertificateContent(propertyList, connection));
+            serviceProvider.setCertificateContent(getCertificateContent(propertyList, connection, tenantID));
 
             // Will be supported with 'Advance Consent Management Feature'.
             /*
@@ -3484,7 +3527,7 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
         try {
 
             // Delete the application certificate if there is any.
-            deleteCertificate(connection, appName, tenantID);
+            String certificateReferenceId = deleteCertificate(connection, appName, tenantID);
 
             // First, delete all the clients of the application
             int applicationID = getApplicationIDByName(appName, tenantID, connection);
@@ -3498,6 +3541,7 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
             deleteClientPrepStmt.setInt(2, tenantID);
             deleteClientPrepStmt.execute();
             IdentityDatabaseUtil.commitTransaction(connection);
+            clearCertificateCache(tenantID, certificateReferenceId);
         } catch (SQLException | UserStoreException | IdentityApplicationManagementException e) {
             IdentityDatabaseUtil.rollbackTransaction(connection);
             String errorMessege = "An error occured while delete the application : " + appName;
@@ -3586,6 +3630,9 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
                 deleteClientPrepStmt.setInt(1, tenantId);
                 deleteClientPrepStmt.execute();
                 IdentityDatabaseUtil.commitTransaction(connection);
+                // Entries are not indexed by tenant, hence the whole caches are cleared. Tenant deletion is rare.
+                CertificateCache.getInstance().clear();
+                SAMLSSOServiceProviderCache.getInstance().clear();
                 audit("Delete all applications of a tenant", auditData, AUDIT_SUCCESS);
             }
         } catch (SQLException e) {
@@ -3773,11 +3820,12 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
      * @param connection
      * @param appName
      * @param tenantID
+     * @return Database identifier of the deleted certificate, or null if the application has no certificate.
      * @throws UserStoreException
      * @throws IdentityApplicationManagementException
      * @throws SQLException
      */
-    private void deleteCertificate(Connection connection, String appName, int tenantID)
+    private String deleteCertificate(Connection connection, String appName, int tenantID)
             throws UserStoreException, IdentityApplicationManagementException, SQLException {
 
         String tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
@@ -3792,8 +3840,9 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
         String certificateReferenceID = getCertificateReferenceID(application.getSpProperties());
 
         if (certificateReferenceID != null) {
-            deleteCertificate(connection, Integer.parseInt(certificateReferenceID));
+            deleteCertificate(connection, Integer.parseInt(certificateReferenceID), tenantID);
         }
+        return certificateReferenceID;
     }
 
     /**
@@ -3801,8 +3850,9 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
      *
      * @param connection
      * @param id
+     * @param tenantId
      */
-    private void deleteCertificate(Connection connection, int id) throws SQLException {
+    private void deleteCertificate(Connection connection, int id, int tenantId) throws SQLException {
 
         PreparedStatement statementToRemoveCertificate = null;
         try {
@@ -4714,7 +4764,7 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
 
             if (application != null) {
                 // Delete the application certificate if there is any
-                deleteApplicationCertificate(connection, application);
+                deleteApplicationCertificate(connection, application, IdentityTenantUtil.getTenantId(tenantDomain));
 
                 try (NamedPreparedStatement deleteAppStatement =
                              new NamedPreparedStatement(connection, REMOVE_APP_FROM_SP_APP_WITH_UUID)) {
@@ -4725,6 +4775,7 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
                     deleteAppStatement.execute();
 
                     IdentityDatabaseUtil.commitTransaction(connection);
+                    clearCertificateCache(tenantId, getCertificateReferenceID(application.getSpProperties()));
                 } catch (SQLException ex) {
                     IdentityDatabaseUtil.rollbackTransaction(connection);
                     String msg = "Error occurred while deleting application with resourceId: %s in tenantDomain: %s.";
@@ -5090,11 +5141,26 @@ public class ApplicationDAOImpl extends AbstractApplicationDAOImpl implements Pa
         }
     }
 
-    private void deleteApplicationCertificate(Connection connection, ServiceProvider application) throws SQLException {
+    /**
+     * Clears the cached certificate of the given reference. This is done once the transaction which updated or
+     * deleted the certificate is committed, so that a concurrent read can not cache the old content again.
+     *
+     * @param tenantId               Id of the tenant.
+     * @param certificateReferenceId Database identifier of the certificate, can be null.
+     */
+    private void clearCertificateCache(int tenantId, String certificateReferenceId) {
+
+        if (certificateReferenceId != null) {
+            CertificateCache.getInstance().clearDatabaseCertificate(tenantId, Integer.parseInt(certificateReferenceId));
+        }
+    }
+
+    private void deleteApplicationCertificate(Connection connection, ServiceProvider application, int tenantId)
+            throws SQLException {
 
         String certificateReferenceID = getCertificateReferenceID(application.getSpProperties());
         if (certificateReferenceID != null) {
-            deleteCertificate(connection, Integer.parseInt(certificateReferenceID));
+            deleteCertificate(connection, Integer.parseInt(certificateReferenceID), tenantId);
         }
     }
 
@@ -88,6 +88,14 @@ public class Constants {
         public static final String MUTUAL_SSL_MANAGER_ENABLED = "mutualSSLManagerEnabled";
         public static final String TLS_PROTOCOL = "tls.protocol";
 
+        // Back-channel HTTP client related properties
+        public static final String HTTP_CLIENT_MAX_CONNECTIONS = "http.client.max.connections";
+        public static final String HTTP_CLIENT_MAX_CONNECTIONS_PER_ROUTE = "http.client.max.connections.per.route";
+        public static final String HTTP_CLIENT_CONNECT_TIMEOUT = "http.client.connect.timeout";
+        public static final String HTTP_CLIENT_SOCKET_TIMEOUT = "http.client.socket.timeout";
+        public static final String HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT = "http.client.connection.request.timeout";
+        public static final String HTTP_CLIENT_KEEP_ALIVE_TIMEOUT = "http.client.keep.alive.timeout";
+
         // Service URL constants
         public static final String TENANT_MGT_ADMIN_SERVICE_URL = "/TenantMgtAdminService/retrieveTenants";
 
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.endpoint.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Shared, pooled HTTP client used by the authentication endpoint for back-channel calls to the identity server with
+ * mutual ssl authentication. Connections are kept alive and reused across requests, and all of them are created
+ * from the SSL context of {@link MutualSSLManager} so TLS sessions are resumed. Pool sizes and timeouts are read from
+ * EndpointConfig.properties.
+ */
+public class MutualSSLHttpClient {
+
+    private static final Log log = LogFactory.getLog(MutualSSLHttpClient.class);
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    private static final int DEFAULT_SOCKET_TIMEOUT = 30000;
+    private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 10000;
+    private static final long DEFAULT_KEEP_ALIVE_TIMEOUT = 30000;
+
+    private static volatile MutualSSLHttpClient instance;
+
+    private final SSLContext sslContext;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final long keepAliveTimeout;
+    private volatile long lastEvictionTime = System.currentTimeMillis();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failedRequestCount = new AtomicLong();
+    private final AtomicLong totalRequestTime = new AtomicLong();
+
+    private MutualSSLHttpClient(SSLContext sslContext) {
+
+        this.sslContext = sslContext;
+        this.keepAliveTimeout = getLongProperty(Constants.TenantConstants.HTTP_CLIENT_KEEP_ALIVE_TIMEOUT,
+                DEFAULT_KEEP_ALIVE_TIMEOUT);
+
+        SSLConnectionSocketFactory sslSocketFactory;
+        if (sslContext == null) {
+            sslSocketFactory = SSLConnectionSocketFactory.getSocketFactory();
+        } else if (MutualSSLManager.isHostNameVerificationEnabled()) {
+            sslSocketFactory = new SSLConnectionSocketFactory(sslContext,
+                    SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+        } else {
+            sslSocketFactory = new SSLConnectionSocketFactory(sslContext,
+                    SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+        }
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory)
+                .build();
+
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(getIntProperty(Constants.TenantConstants.HTTP_CLIENT_MAX_CONNECTIONS,
+                DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(getIntProperty(
+                Constants.TenantConstants.HTTP_CLIENT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(getIntProperty(Constants.TenantConstants.HTTP_CLIENT_CONNECT_TIMEOUT,
+                        DEFAULT_CONNECT_TIMEOUT))
+                .setSocketTimeout(getIntProperty(Constants.TenantConstants.HTTP_CLIENT_SOCKET_TIMEOUT,
+                        DEFAULT_SOCKET_TIMEOUT))
+                .setConnectionRequestTimeout(getIntProperty(
+                        Constants.TenantConstants.HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT,
+                        DEFAULT_CONNECTION_REQUEST_TIMEOUT))
+                .build();
+
+        // Client certificate authentication makes the connection state user specific, which would stop requests
+        // without that state from leasing the pooled connections. All requests use the same client identity.
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new BoundedKeepAliveStrategy(keepAliveTimeout))
+                .disableConnectionState()
+                .build();
+    }
+
+    /**
+     * Returns the shared client. The client is rebuilt if the mutual SSL connection has been re-initialized since
+     * it was created.
+     *
+     * @return Shared mutual ssl http client.
+     */
+    public static MutualSSLHttpClient getInstance() {
+
+        SSLContext sslContext = MutualSSLManager.getSslContext();
+        MutualSSLHttpClient client = instance;
+        if (client == null || client.sslContext != sslContext) {
+            synchronized (MutualSSLHttpClient.class) {
+                client = instance;
+                if (client == null || client.sslContext != sslContext) {
+                    MutualSSLHttpClient previous = client;
+                    client = new MutualSSLHttpClient(sslContext);
+                    instance = client;
+                    if (previous != null) {
+                        previous.close();
+                    }
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Send mutual ssl https get request and return data. The response body is read up to the first empty line.
+     *
+     * @param backendURL URL of the service.
+     * @return Received data.
+     * @throws IOException If the request fails or the service responds with an error status.
+     */
+    public String get(String backendURL) throws IOException {
+
+        HttpGet httpGet;
+        try {
+            httpGet = new HttpGet(backendURL);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + backendURL, e);
+        }
+        evictIdleConnections();
+        long startTime = System.currentTimeMillis();
+        requestCount.incrementAndGet();
+        if (StringUtils.isNotEmpty(MutualSSLManager.getUsernameHeaderName())) {
+            httpGet.setHeader(MutualSSLManager.getUsernameHeaderName(), MutualSSLManager.getCarbonLogin());
+        }
+        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            HttpEntity entity = response.getEntity();
+            try {
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode >= HttpStatus.SC_BAD_REQUEST) {
+                    throw new IOException("Server returned HTTP response code: " + statusCode + " for URL: " +
+                            backendURL);
+                }
+                return readResponse(entity);
+            } finally {
+                // Fully consuming the entity returns the connection to the pool instead of closing it.
+                EntityUtils.consume(entity);
+            }
+        } catch (IOException e) {
+            failedRequestCount.incrementAndGet();
+            throw e;
+        } finally {
+            long requestTime = System.currentTimeMillis() - startTime;
+            totalRequestTime.addAndGet(requestTime);
+            if (log.isDebugEnabled()) {
+                log.debug("GET request to URL: " + backendURL + " completed in " + requestTime + "ms. " +
+                        "Connection pool stats: " + getPoolStats());
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of the connection pool.
+     *
+     * @return Total leased, pending, available and max connections of the pool.
+     */
+    public PoolStats getPoolStats() {
+
+        return connectionManager.getTotalStats();
+    }
+
+    public long getRequestCount() {
+
+        return requestCount.get();
+    }
+
+    public long getFailedRequestCount() {
+
+        return failedRequestCount.get();
+    }
+
+    /**
+     * Returns the average time taken by a request, including the time spent waiting for a pooled connection.
+     *
+     * @return Average request time in milliseconds.
+     */
+    public long getAverageRequestTime() {
+
+        long count = requestCount.get();
+        return count == 0 ? 0 : totalRequestTime.get() / count;
+    }
+
+    /**
+     * Closes the shared client and all pooled connections. A new client is created on the next call to
+     * {@link #getInstance()}.
+     */
+    public static synchronized void shutdown() {
+
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    private void close() {
+
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.error("Error while closing the mutual ssl http client.", e);
+        }
+    }
+
+    private void evictIdleConnections() {
+
+        long now = System.currentTimeMillis();
+        if (now - lastEvictionTime < keepAliveTimeout) {
+            return;
+        }
+        lastEvictionTime = now;
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(keepAliveTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private static String readResponse(HttpEntity entity) throws IOException {
+
+        if (entity == null) {
+            return "";
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entity.getContent(),
+                StandardCharsets.UTF_8));
+        StringBuilder builder = new StringBuilder();
+        String line;
+        while (StringUtils.isNotEmpty(line = reader.readLine())) {
+            builder.append(line);
+        }
+        return builder.toString();
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+
+        return (int) getLongProperty(key, defaultValue);
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+
+        String value = MutualSSLManager.getPropertyValue(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value: " + value + " configured for property: " + key + ". Using the default value: "
+                    + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Keeps a connection alive for the duration advertised by the server, but never longer than the configured
+     * keep alive timeout, so idle connections are not reused after the server has dropped them.
+     */
+    private static class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+        private final long keepAliveTimeout;
+
+        BoundedKeepAliveStrategy(long keepAliveTimeout) {
+
+            this.keepAliveTimeout = keepAliveTimeout;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (duration <= 0 || duration > keepAliveTimeout) {
+                return keepAliveTimeout;
+            }
+            return duration;
+        }
+    }
+}
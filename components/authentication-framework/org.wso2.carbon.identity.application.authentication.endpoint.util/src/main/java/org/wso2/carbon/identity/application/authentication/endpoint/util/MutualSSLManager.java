@@ -85,6 +85,8 @@ public class MutualSSLManager {
     private static KeyStore trustStore;
     private static char[] keyStorePassword;
     private static SSLSocketFactory sslSocketFactory;
+    private static SSLContext sslContext;
+    private static boolean hostNameVerificationEnabled = true;
     private static boolean initialized = false;
 
     private MutualSSLManager() {
@@ -219,11 +221,11 @@ public class MutualSSLManager {
      */
     protected static String getPropertyValue(String key) {
 
-        if ((Constants.SERVICES_URL.equals(key)) && !prop.containsKey(Constants.SERVICES_URL)) {
+        if ((Constants.SERVICES_URL.equals(key)) && (prop == null || !prop.containsKey(Constants.SERVICES_URL))) {
             String serviceUrl = IdentityUtil.getServicePath();
             return IdentityUtil.getServerURL(serviceUrl, true, true);
         }
-        return prop.getProperty(key);
+        return prop == null ? null : prop.getProperty(key);
     }
 
     /**
@@ -349,10 +351,12 @@ public class MutualSSLManager {
 
             // Create and initialize SSLContext for HTTPS communication
             SSLContext sslContext = SSLContext.getInstance(protocol);
+            MutualSSLManager.hostNameVerificationEnabled = hostNameVerificationEnabled;
 
             if (hostNameVerificationEnabled) {
                 sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
                 sslSocketFactory = sslContext.getSocketFactory();
+                MutualSSLManager.sslContext = sslContext;
 
                 if (log.isDebugEnabled()) {
                     log.debug("Mutual SSL Client initialized with Hostname Verification enabled");
@@ -402,6 +406,7 @@ public class MutualSSLManager {
                 }
                 SSLContext.setDefault(sslContext);
                 sslSocketFactory = sslContext.getSocketFactory();
+                MutualSSLManager.sslContext = sslContext;
                 HttpsURLConnection.setDefaultHostnameVerifier(hv);
 
                 if (log.isDebugEnabled()) {
@@ -418,6 +423,22 @@ public class MutualSSLManager {
         return sslSocketFactory;
     }
 
+    /**
+     * Returns the SSL context used for mutual SSL connections. Connections created from the same context share its
+     * client session cache, which lets pooled connections resume TLS sessions instead of doing full handshakes.
+     *
+     * @return SSL context or null if the mutual SSL connection is not initialized.
+     */
+    public static SSLContext getSslContext() {
+
+        return sslContext;
+    }
+
+    public static boolean isHostNameVerificationEnabled() {
+
+        return hostNameVerificationEnabled;
+    }
+
     public static String getCarbonLogin() {
 
         return carbonLogin;
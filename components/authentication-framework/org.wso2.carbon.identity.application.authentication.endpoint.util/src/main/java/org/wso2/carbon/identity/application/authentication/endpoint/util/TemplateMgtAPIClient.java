@@ -18,17 +18,10 @@
 
 package org.wso2.carbon.identity.application.authentication.endpoint.util;
 
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import javax.net.ssl.HttpsURLConnection;
 
 /**
  * Client for calling the /api/identity/template/mgt/v1.0.0/templates/  endpoint with mutual ssl authentication.
@@ -47,46 +40,11 @@ public class TemplateMgtAPIClient {
      */
     public static String getTemplateData(String backendURL) {
 
-        InputStream inputStream = null;
-        BufferedReader reader = null;
-        String response = null;
-        URL url = null;
-
         try {
-            url = new URL(backendURL);
-            HttpsURLConnection httpsURLConnection = (HttpsURLConnection) url.openConnection();
-            httpsURLConnection.setSSLSocketFactory(MutualSSLManager.getSslSocketFactory());
-            httpsURLConnection.setDoOutput(true);
-            httpsURLConnection.setDoInput(true);
-            httpsURLConnection.setRequestMethod(HTTP_METHOD_GET);
-
-            httpsURLConnection.setRequestProperty(MutualSSLManager.getUsernameHeaderName(),
-                    MutualSSLManager.getCarbonLogin());
-
-            inputStream = httpsURLConnection.getInputStream();
-            reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-            StringBuilder builder = new StringBuilder();
-            String line;
-
-            while (StringUtils.isNotEmpty(line = reader.readLine())) {
-                builder.append(line);
-            }
-            response = builder.toString();
+            return MutualSSLHttpClient.getInstance().get(backendURL);
         } catch (IOException e) {
-            log.error("Sending " + HTTP_METHOD_GET + " request to URL : " + url + "failed.", e);
-        } finally {
-            try {
-                if (reader != null) {
-                    reader.close();
-                }
-                if (inputStream != null) {
-                    inputStream.close();
-                }
-
-            } catch (IOException e) {
-                log.error("Closing stream for " + url + " failed", e);
-            }
+            log.error("Sending " + HTTP_METHOD_GET + " request to URL : " + backendURL + " failed.", e);
         }
-        return response;
+        return null;
     }
 }
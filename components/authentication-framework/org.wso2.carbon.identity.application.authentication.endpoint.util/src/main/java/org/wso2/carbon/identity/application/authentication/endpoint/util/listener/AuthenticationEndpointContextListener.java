@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.endpoint.util.AdaptiveAuthUtil;
 import org.wso2.carbon.identity.application.authentication.endpoint.util.EndpointConfigManager;
+import org.wso2.carbon.identity.application.authentication.endpoint.util.MutualSSLHttpClient;
 import org.wso2.carbon.identity.application.authentication.endpoint.util.MutualSSLManager;
 import org.wso2.carbon.identity.application.authentication.endpoint.util.TenantDataManager;
 
@@ -62,6 +63,7 @@ public class AuthenticationEndpointContextListener implements ServletContextList
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
 
         // Tasks to be done after context destroy can be written here
+        MutualSSLHttpClient.shutdown();
     }
 
 }
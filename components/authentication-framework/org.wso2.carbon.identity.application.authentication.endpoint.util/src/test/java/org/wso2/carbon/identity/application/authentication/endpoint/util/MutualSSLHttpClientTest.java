@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.endpoint.util;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+import org.powermock.reflect.Whitebox;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Tests for the pooled mutual ssl client against an in-process HTTPS server which requires client authentication.
+ */
+public class MutualSSLHttpClientTest {
+
+    private static final String KEY_STORE = "./repository/resources/security/wso2carbon.jks";
+    private static final String TRUST_STORE = "./repository/resources/security/client-truststore.jks";
+    private static final String STORE_PASSWORD = "wso2carbon";
+    private static final String USERNAME_HEADER = "UserName";
+    private static final String CARBON_LOGIN = "YWRtaW4=";
+
+    private HttpsServer server;
+    private Set<Integer> clientPorts;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        MutualSSLManager.loadKeyStore(buildFilePath(KEY_STORE), STORE_PASSWORD);
+        MutualSSLManager.loadTrustStore(buildFilePath(TRUST_STORE), STORE_PASSWORD);
+        MutualSSLManager.initMutualSSLConnection(true);
+        Whitebox.setInternalState(MutualSSLManager.class, "usernameHeaderName", USERNAME_HEADER);
+        Whitebox.setInternalState(MutualSSLManager.class, "carbonLogin", CARBON_LOGIN);
+
+        clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+        server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(createServerSSLContext()) {
+            @Override
+            public void configure(HttpsParameters params) {
+
+                SSLParameters sslParameters = getSSLContext().getDefaultSSLParameters();
+                sslParameters.setNeedClientAuth(true);
+                params.setSSLParameters(sslParameters);
+            }
+        });
+        server.createContext("/api/identity/auth/v1.1/data", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            String body = "{\"login\":\"" + exchange.getRequestHeaders().getFirst(USERNAME_HEADER) + "\"}\n\n" +
+                    "ignored";
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.createContext("/api/identity/template/mgt/v1.0.0/templates", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public void tearDown() {
+
+        MutualSSLHttpClient.shutdown();
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @BeforeMethod
+    public void resetClient() {
+
+        MutualSSLHttpClient.shutdown();
+        clientPorts.clear();
+    }
+
+    @Test
+    public void testGetContextProperties() {
+
+        String response = AuthContextAPIClient.getContextProperties(getURL("/api/identity/auth/v1.1/data"));
+        Assert.assertEquals(response, "{\"login\":\"" + CARBON_LOGIN + "\"}");
+    }
+
+    @Test
+    public void testConnectionIsReused() {
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNotNull(AuthContextAPIClient.getContextProperties(getURL("/api/identity/auth/v1.1/data")));
+        }
+        MutualSSLHttpClient client = MutualSSLHttpClient.getInstance();
+        Assert.assertEquals(clientPorts.size(), 1);
+        Assert.assertEquals(client.getRequestCount(), 5);
+        Assert.assertEquals(client.getFailedRequestCount(), 0);
+        Assert.assertEquals(client.getPoolStats().getLeased(), 0);
+        Assert.assertEquals(client.getPoolStats().getAvailable(), 1);
+    }
+
+    @Test
+    public void testGetTemplateDataWithErrorResponse() {
+
+        Assert.assertNull(TemplateMgtAPIClient.getTemplateData(getURL("/api/identity/template/mgt/v1.0.0/templates")));
+        MutualSSLHttpClient client = MutualSSLHttpClient.getInstance();
+        Assert.assertEquals(client.getFailedRequestCount(), 1);
+        Assert.assertEquals(client.getPoolStats().getLeased(), 0);
+    }
+
+    @Test
+    public void testClientIsRebuiltOnReinitialization() throws Exception {
+
+        MutualSSLHttpClient client = MutualSSLHttpClient.getInstance();
+        Assert.assertSame(MutualSSLHttpClient.getInstance(), client);
+
+        MutualSSLManager.initMutualSSLConnection(true);
+        Assert.assertNotSame(MutualSSLHttpClient.getInstance(), client);
+        Assert.assertNotNull(AuthContextAPIClient.getContextProperties(getURL("/api/identity/auth/v1.1/data")));
+    }
+
+    private String getURL(String path) {
+
+        return "https://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private SSLContext createServerSSLContext() throws Exception {
+
+        KeyStore keyStore = loadStore(KEY_STORE);
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, STORE_PASSWORD.toCharArray());
+        TrustManagerFactory trustManagerFactory =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(loadStore(TRUST_STORE));
+
+        SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
+        sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+        return sslContext;
+    }
+
+    private KeyStore loadStore(String path) throws Exception {
+
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream inputStream = new FileInputStream(buildFilePath(path))) {
+            keyStore.load(inputStream, STORE_PASSWORD.toCharArray());
+        }
+        return keyStore;
+    }
+
+    private String buildFilePath(String path) {
+
+        return System.getProperty("user.dir")
+                + File.separator + "src"
+                + File.separator + "test"
+                + File.separator + "resources"
+                + File.separator + path;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework;
+
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asynchronous caller which returns its outcome as a completion stage instead of invoking an {@link AsyncReturn}.
+ * Suitable for non-blocking clients, as the executor thread is released as soon as the call is initiated.
+ */
+@FunctionalInterface
+public interface AsyncFutureCaller {
+
+    CompletionStage<AsyncOutcome> call(AuthenticationContext authenticationContext) throws FrameworkException;
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of an asynchronous call made from an authentication script. The outcome is the name of the event handler
+ * to be executed when the flow resumes.
+ */
+public class AsyncOutcome {
+
+    private final String outcome;
+    private final Map<String, Object> data;
+
+    public AsyncOutcome(String outcome) {
+
+        this(outcome, Collections.emptyMap());
+    }
+
+    public AsyncOutcome(String outcome, Map<String, Object> data) {
+
+        this.outcome = outcome;
+        this.data = data;
+    }
+
+    public String getOutcome() {
+
+        return outcome;
+    }
+
+    public Map<String, Object> getData() {
+
+        return data;
+    }
+}
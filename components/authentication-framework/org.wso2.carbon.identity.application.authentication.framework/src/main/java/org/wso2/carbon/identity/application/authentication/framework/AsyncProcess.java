@@ -18,16 +18,73 @@
 
 package org.wso2.carbon.identity.application.authentication.framework;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Collections;
+
 public class AsyncProcess {
 
+    private static final Log log = LogFactory.getLog(AsyncProcess.class);
+
+    /**
+     * Outcome used when a completion stage of an {@link AsyncFutureCaller} completes exceptionally.
+     */
+    public static final String OUTCOME_FAIL = "onFail";
+
     private AsyncCaller asyncCaller;
+    private long timeout;
 
     public AsyncProcess(AsyncCaller asyncCaller) {
         this.asyncCaller = asyncCaller;
     }
 
+    /**
+     * @param asyncCaller Caller of the external system.
+     * @param timeout     Time in milliseconds to wait for the return, after which the flow resumes with the
+     *                    timeout outcome. Zero or negative to use the server wide timeout.
+     */
+    public AsyncProcess(AsyncCaller asyncCaller, long timeout) {
+
+        this.asyncCaller = asyncCaller;
+        this.timeout = timeout;
+    }
+
+    public AsyncProcess(AsyncFutureCaller futureCaller) {
+
+        this(futureCaller, 0);
+    }
+
+    public AsyncProcess(AsyncFutureCaller futureCaller, long timeout) {
+
+        this.asyncCaller = (authenticationContext, asyncReturn) -> futureCaller.call(authenticationContext)
+                .whenComplete((asyncOutcome, throwable) -> {
+                    try {
+                        if (throwable != null || asyncOutcome == null) {
+                            if (throwable != null) {
+                                log.error("Error in the async call of the authentication flow: " +
+                                        authenticationContext.getContextIdentifier(), throwable);
+                            }
+                            asyncReturn.accept(authenticationContext, Collections.emptyMap(), OUTCOME_FAIL);
+                        } else {
+                            asyncReturn.accept(authenticationContext, asyncOutcome.getData(),
+                                    asyncOutcome.getOutcome());
+                        }
+                    } catch (FrameworkException e) {
+                        log.error("Error while returning from the async call of the authentication flow: " +
+                                authenticationContext.getContextIdentifier(), e);
+                    }
+                });
+        this.timeout = timeout;
+    }
+
     public AsyncCaller getAsyncCaller() {
 
         return asyncCaller;
     }
+
+    public long getTimeout() {
+
+        return timeout;
+    }
 }
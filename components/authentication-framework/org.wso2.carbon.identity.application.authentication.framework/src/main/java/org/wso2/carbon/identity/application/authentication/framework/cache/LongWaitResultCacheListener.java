@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.model.LongWaitStatus;
+import org.wso2.carbon.identity.application.authentication.framework.store.LongWaitStatusStoreService;
+import org.wso2.carbon.identity.application.common.listener.AbstractCacheListener;
+
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryListenerException;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+
+/**
+ * Wakes up the long wait status requests parked in this node when the wait is completed. The cache is local, so a
+ * completion in another node of the cluster reaches this node as the invalidation of the entry. A woken request
+ * reads the status again from the store and answers with it.
+ */
+public class LongWaitResultCacheListener extends AbstractCacheListener<LongWaitResultCacheKey,
+        LongWaitResultCacheEntry> implements CacheEntryCreatedListener<LongWaitResultCacheKey,
+        LongWaitResultCacheEntry>, CacheEntryUpdatedListener<LongWaitResultCacheKey, LongWaitResultCacheEntry>,
+        CacheEntryRemovedListener<LongWaitResultCacheKey, LongWaitResultCacheEntry> {
+
+    @Override
+    public void entryCreated(CacheEntryEvent<? extends LongWaitResultCacheKey, ? extends LongWaitResultCacheEntry>
+                                     event) throws CacheEntryListenerException {
+
+        notifyIfCompleted(event);
+    }
+
+    @Override
+    public void entryUpdated(CacheEntryEvent<? extends LongWaitResultCacheKey, ? extends LongWaitResultCacheEntry>
+                                     event) throws CacheEntryListenerException {
+
+        notifyIfCompleted(event);
+    }
+
+    @Override
+    public void entryRemoved(CacheEntryEvent<? extends LongWaitResultCacheKey, ? extends LongWaitResultCacheEntry>
+                                     event) throws CacheEntryListenerException {
+
+        if (event == null || event.getKey() == null) {
+            return;
+        }
+        notifyCompletion(event.getKey().getContextId());
+    }
+
+    private void notifyIfCompleted(CacheEntryEvent<? extends LongWaitResultCacheKey,
+            ? extends LongWaitResultCacheEntry> event) {
+
+        if (event == null || event.getKey() == null || event.getValue() == null) {
+            return;
+        }
+        LongWaitStatus waitStatus = event.getValue().getWaitStatus();
+        if (waitStatus == null || waitStatus.getStatus() != LongWaitStatus.Status.COMPLETED) {
+            return;
+        }
+        notifyCompletion(event.getKey().getContextId());
+    }
+
+    private void notifyCompletion(String contextId) {
+
+        LongWaitStatusStoreService longWaitStatusStoreService =
+                FrameworkServiceDataHolder.getInstance().getLongWaitStatusStoreService();
+        if (longWaitStatusStoreService != null) {
+            longWaitStatusStoreService.notifyCompletion(contextId);
+        }
+    }
+}
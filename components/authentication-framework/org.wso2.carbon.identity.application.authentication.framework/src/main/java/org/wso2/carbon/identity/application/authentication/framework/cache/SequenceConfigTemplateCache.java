@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.cache;
+
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+/**
+ * Cache of the sequence configurations built from service providers, used by the UI based configuration loader to
+ * avoid rebuilding the sequence and looking up identity providers on every authentication request.
+ */
+public class SequenceConfigTemplateCache extends BaseCache<SequenceConfigTemplateCacheKey,
+        SequenceConfigTemplateCacheEntry> {
+
+    private static final String SEQUENCE_CONFIG_TEMPLATE_CACHE_NAME = "SequenceConfigTemplateCache";
+
+    private static volatile SequenceConfigTemplateCache instance = new SequenceConfigTemplateCache();
+
+    private SequenceConfigTemplateCache() {
+
+        super(SEQUENCE_CONFIG_TEMPLATE_CACHE_NAME);
+    }
+
+    public static SequenceConfigTemplateCache getInstance() {
+
+        return instance;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.common.cache.CacheEntry;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+
+/**
+ * Cache entry for {@link SequenceConfigTemplateCache}. The entry keeps the service provider instance the template was
+ * built from, so that a service provider reloaded after an update does not get a stale template. The template must
+ * not be handed out as is, since sequence configurations are modified during authentication.
+ */
+public class SequenceConfigTemplateCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -6128440349262113512L;
+
+    // The template refers to authenticator instances, hence it is not serialized. An entry which lost its template
+    // in transit is treated as a cache miss.
+    private transient ServiceProvider serviceProvider;
+    private transient SequenceConfig template;
+
+    public SequenceConfigTemplateCacheEntry(ServiceProvider serviceProvider, SequenceConfig template) {
+
+        this.serviceProvider = serviceProvider;
+        this.template = template;
+    }
+
+    public SequenceConfig getTemplate() {
+
+        return template;
+    }
+
+    /**
+     * Checks whether the template of this entry was built from the given service provider.
+     *
+     * @param serviceProvider Service provider of the request.
+     * @return True if the template can be used for the service provider.
+     */
+    public boolean isTemplateOf(ServiceProvider serviceProvider) {
+
+        return template != null && this.serviceProvider == serviceProvider;
+    }
+}
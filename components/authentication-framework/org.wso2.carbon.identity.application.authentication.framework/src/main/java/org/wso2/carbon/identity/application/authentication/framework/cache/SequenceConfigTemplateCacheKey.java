@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheKey;
+
+/**
+ * Cache key for {@link SequenceConfigTemplateCache}. A template is identified by the service provider name and the
+ * tenant domain of the service provider.
+ */
+public class SequenceConfigTemplateCacheKey extends CacheKey {
+
+    private static final long serialVersionUID = 5402868102747318571L;
+
+    private String applicationName;
+    private String tenantDomain;
+
+    public SequenceConfigTemplateCacheKey(String applicationName, String tenantDomain) {
+
+        this.applicationName = applicationName;
+        this.tenantDomain = tenantDomain;
+    }
+
+    public String getApplicationName() {
+
+        return applicationName;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass() || !super.equals(o)) {
+            return false;
+        }
+
+        SequenceConfigTemplateCacheKey that = (SequenceConfigTemplateCacheKey) o;
+
+        if (applicationName != null ? !applicationName.equals(that.applicationName) : that.applicationName != null) {
+            return false;
+        }
+        return tenantDomain != null ? tenantDomain.equals(that.tenantDomain) : that.tenantDomain == null;
+    }
+
+    @Override
+    public int hashCode() {
+
+        int result = applicationName != null ? applicationName.hashCode() : 0;
+        result = 31 * result + (tenantDomain != null ? tenantDomain.hashCode() : 0);
+        return result;
+    }
+}
@@ -29,11 +29,12 @@ import org.wso2.carbon.identity.application.common.cache.BaseCache;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class SessionContextCache extends BaseCache<SessionContextCacheKey, SessionContextCacheEntry> {
 
-    private static final String SESSION_CONTEXT_CACHE_NAME = "AppAuthFrameworkSessionContextCache";
+    public static final String SESSION_CONTEXT_CACHE_NAME = "AppAuthFrameworkSessionContextCache";
     private static final Log log = LogFactory.getLog(SessionContextCache.class);
 
     private static volatile SessionContextCache instance;
@@ -175,6 +176,20 @@ public class SessionContextCache extends BaseCache<SessionContextCacheKey, Sessi
 
     }
 
+    /**
+     * Clear the given session context keys from the cache and remove their data from the session store in a single
+     * batch.
+     *
+     * @param sessionContextKeys Session context keys.
+     */
+    public void clearCacheEntries(List<String> sessionContextKeys) {
+
+        for (String sessionContextKey : sessionContextKeys) {
+            super.clearCacheEntry(new SessionContextCacheKey(sessionContextKey));
+        }
+        SessionDataStore.getInstance().clearSessionData(sessionContextKeys, SESSION_CONTEXT_CACHE_NAME);
+    }
+
     /**
      * Check whether the given session context is valid according to idle session timeout restrictions.
      *
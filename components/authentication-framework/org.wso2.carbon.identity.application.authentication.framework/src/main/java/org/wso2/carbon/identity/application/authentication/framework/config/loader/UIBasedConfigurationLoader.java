@@ -21,6 +21,9 @@ package org.wso2.carbon.identity.application.authentication.framework.config.loa
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceConfigTemplateCache;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceConfigTemplateCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceConfigTemplateCacheKey;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.ApplicationConfig;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
@@ -77,7 +80,7 @@ public class UIBasedConfigurationLoader implements SequenceLoader {
             authenticationSteps = localAndOutboundAuthenticationConfig.getAuthenticationSteps();
         }
 
-        SequenceConfig sequenceConfig = getSequence(serviceProvider, tenantDomain, authenticationSteps);
+        SequenceConfig sequenceConfig = getSequenceFromTemplate(serviceProvider, tenantDomain, authenticationSteps);
 
         //Use script based evaluation if script is present.
         if (isAuthenticationScriptBasedSequence(localAndOutboundAuthenticationConfig)) {
@@ -101,6 +104,56 @@ public class UIBasedConfigurationLoader implements SequenceLoader {
         return sequenceConfig;
     }
 
+    /**
+     * Returns a copy of the sequence template of the service provider. The template is built once per service provider
+     * instance, hence a service provider reloaded after an update gets a new template. Templates are also dropped when
+     * identity providers or authenticators change. The application config is not taken from the template, since its
+     * claim mappings include the claims of the SP claim dialects, which change with the claim metadata of the tenant.
+     *
+     * @param serviceProvider     Service provider of the request.
+     * @param tenantDomain        Tenant domain of the request.
+     * @param authenticationSteps Authentication steps of the service provider.
+     * @return Sequence configuration which can be modified by the caller.
+     * @throws FrameworkException If an error occurs while building the sequence.
+     */
+    private SequenceConfig getSequenceFromTemplate(ServiceProvider serviceProvider, String tenantDomain,
+                                                   AuthenticationStep[] authenticationSteps) throws FrameworkException {
+
+        SequenceConfigTemplateCache cache = SequenceConfigTemplateCache.getInstance();
+        SequenceConfigTemplateCacheKey cacheKey = new SequenceConfigTemplateCacheKey(
+                serviceProvider.getApplicationName(), tenantDomain);
+        SequenceConfigTemplateCacheEntry cacheEntry = cache.getValueFromCache(cacheKey);
+        if (cacheEntry != null && cacheEntry.isTemplateOf(serviceProvider)) {
+            return copyOf(cacheEntry.getTemplate(), serviceProvider);
+        }
+
+        long loadStartTime = System.nanoTime();
+        SequenceConfig template = getSequence(serviceProvider, tenantDomain, authenticationSteps);
+        cache.addToCache(cacheKey, new SequenceConfigTemplateCacheEntry(serviceProvider, template));
+        cache.recordLoad(System.nanoTime() - loadStartTime);
+        return copyOf(template, serviceProvider);
+    }
+
+    private SequenceConfig copyOf(SequenceConfig template, ServiceProvider serviceProvider) {
+
+        SequenceConfig sequenceConfig = new SequenceConfig();
+        sequenceConfig.setName(template.getName());
+        sequenceConfig.setApplicationId(template.getApplicationId());
+        sequenceConfig.setForceAuthn(template.isForceAuthn());
+        sequenceConfig.setCheckAuthn(template.isCheckAuthn());
+        sequenceConfig.setApplicationConfig(new ApplicationConfig(serviceProvider));
+
+        List<AuthenticatorConfig> requestPathAuthenticators = new ArrayList<>();
+        for (AuthenticatorConfig requestPathAuthenticator : template.getReqPathAuthenticators()) {
+            requestPathAuthenticators.add(new AuthenticatorConfig(requestPathAuthenticator));
+        }
+        sequenceConfig.setReqPathAuthenticators(requestPathAuthenticators);
+
+        template.getStepMap().forEach((stepOrder, stepConfig) ->
+                sequenceConfig.getStepMap().put(stepOrder, new StepConfig(stepConfig)));
+        return sequenceConfig;
+    }
+
     private boolean isAuthenticationScriptBasedSequence(LocalAndOutboundAuthenticationConfig
                                                                 localAndOutboundAuthenticationConfig) {
 
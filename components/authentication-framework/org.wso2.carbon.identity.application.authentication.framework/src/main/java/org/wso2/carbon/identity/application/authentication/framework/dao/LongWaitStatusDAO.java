@@ -30,6 +30,24 @@ public interface LongWaitStatusDAO {
 
     void removeWaitStatus(String waitKey) throws FrameworkException;
 
+    /**
+     * Marks an existing wait as completed. The default implementation removes a pending wait, which status readers
+     * already treat as completed, so that implementations written before this method keep working.
+     *
+     * @param waitKey Wait key.
+     * @return true if a pending wait was found for the key.
+     * @throws FrameworkException If an error occurred while updating the status.
+     */
+    default boolean completeWaitStatus(String waitKey) throws FrameworkException {
+
+        LongWaitStatus status = getWaitStatus(waitKey);
+        if (status == null || status.getStatus() != LongWaitStatus.Status.WAITING) {
+            return false;
+        }
+        removeWaitStatus(waitKey);
+        return true;
+    }
+
     LongWaitStatus getWaitStatus(String waitKey) throws FrameworkException;
 
 }
@@ -22,6 +22,9 @@ import org.wso2.carbon.identity.application.authentication.framework.exception.s
         .SessionManagementServerException;
 import org.wso2.carbon.identity.application.authentication.framework.model.UserSession;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Perform operations for {@link UserSession}.
  */
@@ -29,4 +32,23 @@ public interface UserSessionDAO {
 
     UserSession getSession(String sessionId) throws SessionManagementServerException;
 
+    /**
+     * Get the sessions of the given session ids. Sessions without applications are left out.
+     *
+     * @param sessionIds ids of the sessions
+     * @return sessions in the order of the given ids
+     * @throws SessionManagementServerException if the sessions can not be retrieved
+     */
+    default List<UserSession> getSessions(List<String> sessionIds) throws SessionManagementServerException {
+
+        List<UserSession> sessions = new ArrayList<>();
+        for (String sessionId : sessionIds) {
+            UserSession userSession = getSession(sessionId);
+            if (userSession != null) {
+                sessions.add(userSession);
+            }
+        }
+        return sessions;
+    }
+
 }
@@ -62,6 +62,22 @@ public class CacheBackedLongWaitStatusDAO implements LongWaitStatusDAO {
         LongWaitResultCache.getInstance().addToCache(cacheKey, cacheEntry);
     }
 
+    public boolean completeWaitStatus(String waitKey) throws FrameworkException {
+
+        // The wait may already have been consumed and removed. It must not be brought back to the cache then.
+        if (!waitStatusDAO.completeWaitStatus(waitKey)) {
+            return false;
+        }
+
+        // Replacing the entry notifies the cache listeners, which wakes up the parked status requests.
+        LongWaitResultCacheKey cacheKey = new LongWaitResultCacheKey(waitKey);
+        LongWaitStatus status = new LongWaitStatus();
+        status.setStatus(LongWaitStatus.Status.COMPLETED);
+        LongWaitResultCacheEntry cacheEntry = new LongWaitResultCacheEntry(status);
+        LongWaitResultCache.getInstance().addToCache(cacheKey, cacheEntry);
+        return true;
+    }
+
     public LongWaitStatus getWaitStatus(String waitKey) throws FrameworkException {
 
         LongWaitStatus status = null;
@@ -88,6 +88,30 @@ public class LongWaitStatusDAOImpl implements LongWaitStatusDAO {
         }
     }
 
+    public boolean completeWaitStatus(String waitKey) throws FrameworkException {
+
+        String query = "UPDATE IDN_AUTH_WAIT_STATUS SET WAIT_STATUS=? WHERE LONG_WAIT_KEY=?";
+
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection()) {
+
+            try (PreparedStatement updatePrepStmt = connection.prepareStatement(query)) {
+                updatePrepStmt.setString(1, "0");
+                updatePrepStmt.setString(2, waitKey);
+                int updatedRows = updatePrepStmt.executeUpdate();
+                if (log.isDebugEnabled()) {
+                    log.debug("Completed wait status for wait key: " + waitKey + ". Updated rows: " + updatedRows);
+                }
+                IdentityDatabaseUtil.commitTransaction(connection);
+                return updatedRows > 0;
+            } catch (SQLException e) {
+                IdentityDatabaseUtil.rollbackTransaction(connection);
+                throw new FrameworkException("Error while completing wait status with key:" + waitKey, e);
+            }
+        } catch (SQLException e) {
+            throw new FrameworkException("Error while completing wait status with key:" + waitKey, e);
+        }
+    }
+
     public LongWaitStatus getWaitStatus(String waitKey) throws FrameworkException {
 
         String query = "SELECT WAIT_STATUS FROM IDN_AUTH_WAIT_STATUS WHERE LONG_WAIT_KEY=?";
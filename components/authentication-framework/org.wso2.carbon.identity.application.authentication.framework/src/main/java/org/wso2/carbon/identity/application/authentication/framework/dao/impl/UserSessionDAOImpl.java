@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.application.authentication.framework.dao.impl;
 
+import org.apache.commons.lang.StringUtils;
 import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
 import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
 import org.wso2.carbon.identity.application.authentication.framework.dao.UserSessionDAO;
@@ -29,14 +30,19 @@ import org.wso2.carbon.identity.application.authentication.framework.store.SQLQu
 import org.wso2.carbon.identity.application.authentication.framework.util.JdbcUtils;
 import org.wso2.carbon.identity.application.authentication.framework.util.SessionMgtConstants;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Default implementation of {@link UserSessionDAO}. This handles {@link UserSession} related DB operations.
  */
 public class UserSessionDAOImpl implements UserSessionDAO {
 
+    private static final int SESSION_ID_CHUNK_SIZE = 100;
+
     public UserSessionDAOImpl() {
     }
 
@@ -61,22 +67,7 @@ public class UserSessionDAOImpl implements UserSessionDAO {
             UserSession userSession = new UserSession();
             userSession.setSessionId(sessionId);
 
-            propertiesMap.forEach((key, value) -> {
-                switch (key) {
-                    case SessionMgtConstants.USER_AGENT:
-                        userSession.setUserAgent(value);
-                        break;
-                    case SessionMgtConstants.IP_ADDRESS:
-                        userSession.setIp(value);
-                        break;
-                    case SessionMgtConstants.LAST_ACCESS_TIME:
-                        userSession.setLastAccessTime(value);
-                        break;
-                    case SessionMgtConstants.LOGIN_TIME:
-                        userSession.setLoginTime(value);
-                        break;
-                }
-            });
+            propertiesMap.forEach((key, value) -> setProperty(userSession, key, value));
 
             if (!applicationList.isEmpty()) {
                 userSession.setApplications(applicationList);
@@ -89,4 +80,80 @@ public class UserSessionDAOImpl implements UserSessionDAO {
         }
         return null;
     }
+
+    @Override
+    public List<UserSession> getSessions(List<String> sessionIds) throws SessionManagementServerException {
+
+        Map<String, UserSession> sessions = new LinkedHashMap<>();
+        for (String sessionId : sessionIds) {
+            UserSession userSession = new UserSession();
+            userSession.setSessionId(sessionId);
+            userSession.setApplications(new ArrayList<>());
+            sessions.put(sessionId, userSession);
+        }
+        List<String> distinctSessionIds = new ArrayList<>(sessions.keySet());
+        JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
+
+        try {
+            for (int from = 0; from < distinctSessionIds.size(); from += SESSION_ID_CHUNK_SIZE) {
+                List<String> chunk = distinctSessionIds.subList(from,
+                        Math.min(from + SESSION_ID_CHUNK_SIZE, distinctSessionIds.size()));
+                String placeholders = StringUtils.repeat("?", ",", chunk.size());
+
+                jdbcTemplate.executeQuery(String.format(SQLQueries.SQL_GET_APPLICATIONS_OF_SESSIONS, placeholders),
+                        (resultSet, rowNumber) -> sessions.get(resultSet.getString(1)).getApplications()
+                                .add(new Application(resultSet.getString(2),
+                                        resultSet.getString(3),
+                                        resultSet.getString(4),
+                                        resultSet.getString(5))),
+                        preparedStatement -> {
+                            for (int i = 0; i < chunk.size(); i++) {
+                                preparedStatement.setString(i + 1, chunk.get(i));
+                            }
+                        });
+
+                jdbcTemplate.executeQuery(String.format(SQLQueries.SQL_GET_PROPERTIES_OF_SESSIONS, placeholders),
+                        (resultSet, rowNumber) -> {
+                            setProperty(sessions.get(resultSet.getString(1)), resultSet.getString(2),
+                                    resultSet.getString(3));
+                            return null;
+                        },
+                        preparedStatement -> {
+                            for (int i = 0; i < chunk.size(); i++) {
+                                preparedStatement.setString(i + 1, chunk.get(i));
+                            }
+                        });
+            }
+        } catch (DataAccessException e) {
+            throw new SessionManagementServerException(
+                    SessionMgtConstants.ErrorMessages.ERROR_CODE_UNABLE_TO_GET_SESSION,
+                    SessionMgtConstants.ErrorMessages.ERROR_CODE_UNABLE_TO_GET_SESSION.getDescription(), e);
+        }
+
+        List<UserSession> sessionList = new ArrayList<>();
+        for (UserSession userSession : sessions.values()) {
+            if (!userSession.getApplications().isEmpty()) {
+                sessionList.add(userSession);
+            }
+        }
+        return sessionList;
+    }
+
+    private static void setProperty(UserSession userSession, String key, String value) {
+
+        switch (key) {
+            case SessionMgtConstants.USER_AGENT:
+                userSession.setUserAgent(value);
+                break;
+            case SessionMgtConstants.IP_ADDRESS:
+                userSession.setIp(value);
+                break;
+            case SessionMgtConstants.LAST_ACCESS_TIME:
+                userSession.setLastAccessTime(value);
+                break;
+            case SessionMgtConstants.LOGIN_TIME:
+                userSession.setLoginTime(value);
+                break;
+        }
+    }
 }
@@ -45,6 +45,7 @@ import org.wso2.carbon.identity.application.mgt.ApplicationConstants;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataHandler;
 import org.wso2.carbon.identity.claim.metadata.mgt.exception.ClaimMetadataException;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.user.api.ClaimManager;
 import org.wso2.carbon.user.api.RealmConfiguration;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -54,6 +55,7 @@ import org.wso2.carbon.user.core.UserRealm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -452,8 +454,17 @@ public class DefaultClaimHandler implements ClaimHandler {
         // key:value -> sp_dialect:claim_value
         Map<String, String> spRequestedClaims = new HashMap<>();
 
-        // Retrieve all non-null user claim values against local claim uris.
-        allLocalClaims = retrieveAllNunNullUserClaimValues(authenticatedUser, claimManager, appConfig,
+        // if standard dialect get all claim mappings from standard dialect to carbon dialect
+        spToLocalClaimMappings = getStandardDialectToCarbonMapping(spStandardDialect, context, spToLocalClaimMappings,
+                tenantDomain);
+
+        // Retrieve all non-null user claim values, or only against the local claim uris required by the service
+        // provider when configured to do so.
+        Set<String> requiredLocalClaimURIs = null;
+        if (!isRetrieveAllLocalClaims(context)) {
+            requiredLocalClaimURIs = getRequiredLocalClaimURIs(appConfig, spToLocalClaimMappings);
+        }
+        allLocalClaims = retrieveAllNunNullUserClaimValues(authenticatedUser, claimManager, requiredLocalClaimURIs,
                 (org.wso2.carbon.user.core.UserStoreManager) userStore);
 
         // Insert the runtime claims from the context. The priority is for runtime claims.
@@ -462,9 +473,6 @@ public class DefaultClaimHandler implements ClaimHandler {
         handleRoleClaim(context, allLocalClaims);
         context.setProperty(FrameworkConstants.UNFILTERED_LOCAL_CLAIM_VALUES, allLocalClaims);
 
-        // if standard dialect get all claim mappings from standard dialect to carbon dialect
-        spToLocalClaimMappings = getStandardDialectToCarbonMapping(spStandardDialect, context, spToLocalClaimMappings,
-                tenantDomain);
         if (StringUtils.isNotBlank(spStandardDialect) && (!StringUtils.equals(spStandardDialect, ApplicationConstants
                 .LOCAL_IDP_DEFAULT_CLAIM_DIALECT))) {
             carbonToStandardClaimMapping = getCarbonToStandardDialectMapping(spStandardDialect, context,
@@ -591,8 +599,84 @@ public class DefaultClaimHandler implements ClaimHandler {
         return spToLocalClaimMappings;
     }
 
+    /**
+     * Checks whether all non-null local claims of the user should be read during local claim handling. All local
+     * claims are read unless reading only the claims required by the service provider is enabled, as the unfiltered
+     * local claims are also used by post authentication handlers and adaptive scripts. OpenID requests always return
+     * every service provider mapped claim, hence need all local claims.
+     *
+     * @param context Authentication context.
+     * @return True if all local claims should be retrieved from the user store.
+     */
+    protected boolean isRetrieveAllLocalClaims(AuthenticationContext context) {
+
+        if (FrameworkConstants.RequestType.CLAIM_TYPE_OPENID.equals(context.getRequestType())) {
+            return true;
+        }
+        return !Boolean.parseBoolean(
+                IdentityUtil.getProperty(FrameworkConstants.Config.RETRIEVE_REQUIRED_LOCAL_CLAIMS_ONLY));
+    }
+
+    /**
+     * Collects the local claim URIs the service provider needs: the claims mapped to the outbound claims of the
+     * service provider, either by its own claim mappings or by its standard dialect, and the requested and mandatory
+     * claims together with the subject and role claims.
+     *
+     * @param appConfig              Application config.
+     * @param spToLocalClaimMappings Outbound claim to local claim mappings of the service provider.
+     * @return Set of local claim URIs.
+     */
+    private Set<String> getRequiredLocalClaimURIs(ApplicationConfig appConfig,
+                                                  Map<String, String> spToLocalClaimMappings) {
+
+        Set<String> localClaimURIs = new HashSet<>();
+        addLocalClaimURIs(localClaimURIs, appConfig.getClaimMappings());
+        addLocalClaimURIs(localClaimURIs, spToLocalClaimMappings);
+        addLocalClaimURIs(localClaimURIs, appConfig.getRequestedClaimMappings());
+        addLocalClaimURIs(localClaimURIs, appConfig.getMandatoryClaimMappings());
+
+        addLocalClaimURI(localClaimURIs, spToLocalClaimMappings, appConfig.getSubjectClaimUri());
+        String roleClaim = appConfig.getRoleClaim();
+        if (StringUtils.isNotBlank(roleClaim)) {
+            addLocalClaimURI(localClaimURIs, spToLocalClaimMappings, roleClaim);
+            localClaimURIs.add(FrameworkConstants.LOCAL_ROLE_CLAIM_URI);
+        }
+        return localClaimURIs;
+    }
+
+    private void addLocalClaimURIs(Set<String> localClaimURIs, Map<String, String> spToLocalClaimMappings) {
+
+        if (MapUtils.isNotEmpty(spToLocalClaimMappings)) {
+            spToLocalClaimMappings.values().stream().filter(StringUtils::isNotBlank).forEach(localClaimURIs::add);
+        }
+    }
+
+    private void addLocalClaimURI(Set<String> localClaimURIs, Map<String, String> spToLocalClaimMappings,
+                                  String spClaimURI) {
+
+        if (StringUtils.isBlank(spClaimURI)) {
+            return;
+        }
+        // Claims of an SP using the local dialect are not mapped. Unknown URIs are dropped against the claim manager.
+        if (spToLocalClaimMappings != null && StringUtils.isNotBlank(spToLocalClaimMappings.get(spClaimURI))) {
+            localClaimURIs.add(spToLocalClaimMappings.get(spClaimURI));
+        } else {
+            localClaimURIs.add(spClaimURI);
+        }
+    }
+
+    /**
+     * Retrieves the non-null claim values of the user against local claim URIs.
+     *
+     * @param authenticatedUser      Authenticated user.
+     * @param claimManager           Claim manager of the tenant.
+     * @param requiredLocalClaimURIs Local claim URIs to retrieve. All local claims are retrieved if null.
+     * @param userStore              User store manager of the user.
+     * @return Map of local claim URI to claim value.
+     * @throws FrameworkException If an error occurred while retrieving the claim values.
+     */
     private Map<String, String> retrieveAllNunNullUserClaimValues(AuthenticatedUser authenticatedUser,
-            ClaimManager claimManager, ApplicationConfig appConfig,
+            ClaimManager claimManager, Set<String> requiredLocalClaimURIs,
             org.wso2.carbon.user.core.UserStoreManager userStore) throws FrameworkException {
 
         String tenantDomain = authenticatedUser.getTenantDomain();
@@ -606,7 +690,15 @@ public class DefaultClaimHandler implements ClaimHandler {
             List<String> localClaimURIs = new ArrayList<>();
             for (org.wso2.carbon.user.api.ClaimMapping mapping : claimMappings) {
                 String claimURI = mapping.getClaim().getClaimUri();
-                localClaimURIs.add(claimURI);
+                if (requiredLocalClaimURIs == null || requiredLocalClaimURIs.contains(claimURI)) {
+                    localClaimURIs.add(claimURI);
+                }
+            }
+            if (localClaimURIs.isEmpty()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("No local claims required for user " + tenantAwareUserName + " in " + tenantDomain);
+                }
+                return new HashMap<>();
             }
             allLocalClaims = userStore.getUserClaimValues(tenantAwareUserName,
                     localClaimURIs.toArray(new String[localClaimURIs.size()]), null);
@@ -40,6 +40,9 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.user.profile.mgt.UserProfileAdmin;
 import org.wso2.carbon.identity.user.profile.mgt.UserProfileException;
 import org.wso2.carbon.identity.user.profile.mgt.association.federation.FederatedAssociationManager;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.cache.FederatedAssociationCache;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.cache.FederatedAssociationCacheEntry;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.cache.FederatedAssociationCacheKey;
 import org.wso2.carbon.identity.user.profile.mgt.association.federation.constant.FederatedAssociationConstants;
 import org.wso2.carbon.identity.user.profile.mgt.association.federation.exception.FederatedAssociationManagerException;
 import org.wso2.carbon.registry.core.service.RegistryService;
@@ -69,6 +72,7 @@ public class DefaultProvisioningHandler implements ProvisioningHandler {
 
     private static final Log log = LogFactory.getLog(DefaultProvisioningHandler.class);
     private static final String ALREADY_ASSOCIATED_MESSAGE = "UserAlreadyAssociated";
+    private static final String DELTA_UPDATE_ENABLE = "JITProvisioning.DeltaUpdate.Enable";
     private static volatile DefaultProvisioningHandler instance;
     private SecureRandom random = new SecureRandom();
 
@@ -129,19 +133,34 @@ public class DefaultProvisioningHandler implements ProvisioningHandler {
 
             Map<String, String> userClaims = prepareClaimMappings(attributes);
 
+            boolean deltaUpdate = isDeltaUpdateEnabled();
+            boolean provisioned = !deltaUpdate;
             if (userStoreManager.isExistingUser(username)) {
                 if (!userClaims.isEmpty()) {
                     userClaims.remove(FrameworkConstants.PASSWORD);
                     userClaims.remove(USERNAME_CLAIM);
-                    userStoreManager.setUserClaimValues(UserCoreUtil.removeDomainFromName(username), userClaims, null);
+                    if (deltaUpdate) {
+                        userClaims = getModifiedClaims(username, userStoreManager, userClaims);
+                    }
+                    if (!userClaims.isEmpty()) {
+                        userStoreManager.setUserClaimValues(UserCoreUtil.removeDomainFromName(username), userClaims,
+                                null);
+                    }
                 }
-                String associatedUserName = FrameworkUtils.getFederatedAssociationManager()
-                        .getUserForFederatedAssociation(tenantDomain, idp, subjectVal);
-                if (StringUtils.isEmpty(associatedUserName)) {
-                    // Associate User
-                    associateUser(username, userStoreDomain, tenantDomain, subjectVal, idp);
+                if (!deltaUpdate || !isAssociationCached(tenantId, idp, subjectVal)) {
+                    String associatedUserName = FrameworkUtils.getFederatedAssociationManager()
+                            .getUserForFederatedAssociation(tenantDomain, idp, subjectVal);
+                    if (StringUtils.isEmpty(associatedUserName)) {
+                        // Associate User
+                        associateUser(username, userStoreDomain, tenantDomain, subjectVal, idp);
+                        associatedUserName = getAssociatedUsername(username, userStoreDomain);
+                    }
+                    if (deltaUpdate) {
+                        cacheAssociation(tenantId, idp, subjectVal, associatedUserName);
+                    }
                 }
             } else {
+                provisioned = true;
                 String password = generatePassword();
                 String passwordFromUser = userClaims.get(FrameworkConstants.PASSWORD);
                 if (StringUtils.isNotEmpty(passwordFromUser)) {
@@ -159,6 +178,9 @@ public class DefaultProvisioningHandler implements ProvisioningHandler {
 
                 // Associate User
                 associateUser(username, userStoreDomain, tenantDomain, subjectVal, idp);
+                if (deltaUpdate) {
+                    cacheAssociation(tenantId, idp, subjectVal, getAssociatedUsername(username, userStoreDomain));
+                }
 
                 if (log.isDebugEnabled()) {
                     log.debug("Federated user: " + username + " is provisioned by authentication framework.");
@@ -175,10 +197,18 @@ public class DefaultProvisioningHandler implements ProvisioningHandler {
                 // Check for case whether superadmin login
                 handleFederatedUserNameEqualsToSuperAdminUserName(realm, username, userStoreManager, deletingRoles);
 
-                updateUserWithNewRoleSet(username, userStoreManager, rolesToAdd, deletingRoles);
+                if (!deltaUpdate || !rolesToAdd.isEmpty() || !deletingRoles.isEmpty()) {
+                    updateUserWithNewRoleSet(username, userStoreManager, rolesToAdd, deletingRoles);
+                    provisioned = true;
+                }
             }
 
-            PermissionUpdateUtil.updatePermissionTree(tenantId);
+            if (provisioned) {
+                PermissionUpdateUtil.updatePermissionTree(tenantId);
+            } else if (log.isDebugEnabled()) {
+                log.debug("Roles of the federated user: " + username + " are unchanged. Skipping the permission " +
+                        "tree update.");
+            }
 
         } catch (org.wso2.carbon.user.api.UserStoreException | CarbonException |
                 FederatedAssociationManagerException e) {
@@ -225,6 +255,88 @@ public class DefaultProvisioningHandler implements ProvisioningHandler {
         }
     }
 
+    /**
+     * Returns the claims whose incoming values differ from the values stored for the user. If the stored values
+     * cannot be read, all claims are returned so that they are written as in the full update mode.
+     *
+     * @param username         Name of the user without the user store domain.
+     * @param userStoreManager User store manager of the user.
+     * @param userClaims       Incoming claim values.
+     * @return Claims to be written to the user store.
+     */
+    private Map<String, String> getModifiedClaims(String username, UserStoreManager userStoreManager,
+                                                  Map<String, String> userClaims) {
+
+        Map<String, String> storedClaims;
+        try {
+            storedClaims = userStoreManager.getUserClaimValues(username,
+                    userClaims.keySet().toArray(new String[0]), null);
+        } catch (UserStoreException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while reading the claims of the federated user: " + username + ". All claims " +
+                        "will be updated.", e);
+            }
+            return userClaims;
+        }
+        if (storedClaims == null) {
+            return userClaims;
+        }
+
+        Map<String, String> modifiedClaims = new HashMap<>();
+        for (Map.Entry<String, String> entry : userClaims.entrySet()) {
+            if (!StringUtils.equals(entry.getValue(), storedClaims.get(entry.getKey()))) {
+                modifiedClaims.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Claims of the federated user: " + username + " to be updated: " + modifiedClaims.keySet());
+        }
+        return modifiedClaims;
+    }
+
+    private boolean isAssociationCached(int tenantId, String idp, String subject) {
+
+        return FederatedAssociationCache.getInstance().getValueFromCache(
+                new FederatedAssociationCacheKey(tenantId, idp, subject)) != null;
+    }
+
+    /**
+     * Caches a federated association found or created during provisioning. The entry is removed from the cluster
+     * when the association is deleted, and is otherwise bounded by the timeout and capacity of the cache.
+     *
+     * @param tenantId           Tenant of the association.
+     * @param idp                Name of the federated identity provider.
+     * @param subject            Federated identifier of the user.
+     * @param associatedUsername Name of the local user associated with the federated identity.
+     */
+    private void cacheAssociation(int tenantId, String idp, String subject, String associatedUsername) {
+
+        if (StringUtils.isEmpty(idp) || StringUtils.isEmpty(subject)) {
+            return;
+        }
+        FederatedAssociationCache.getInstance().addToCache(new FederatedAssociationCacheKey(tenantId, idp, subject),
+                new FederatedAssociationCacheEntry(associatedUsername));
+    }
+
+    private static String getAssociatedUsername(String username, String userStoreDomain) {
+
+        if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equalsIgnoreCase(userStoreDomain)) {
+            return username;
+        }
+        return UserCoreUtil.addDomainToName(username, userStoreDomain);
+    }
+
+    /**
+     * Checks whether only the claims and roles that differ from the stored ones should be written. The option is
+     * configured with JITProvisioning.DeltaUpdate.Enable in identity.xml and is disabled by default.
+     *
+     * @return true if delta update is enabled.
+     */
+    protected boolean isDeltaUpdateEnabled() {
+
+        return Boolean.parseBoolean(IdentityUtil.getProperty(DELTA_UPDATE_ENABLE));
+    }
+
     private User getAssociatedUser(String tenantDomain, String userStoreDomain, String username) {
 
         User user = new User();
@@ -468,7 +468,7 @@ public class DefaultAuthenticationRequestHandler implements AuthenticationReques
                 setAuthCookie(request, response, context, sessionKey, applicationTenantDomain);
                 if (FrameworkServiceDataHolder.getInstance().isUserSessionMappingEnabled()) {
                     try {
-                        storeSessionMetaData(sessionContextKey, request);
+                        storeSessionMetaData(sessionContextKey, request, applicationTenantDomain);
                     } catch (UserSessionException e) {
                         log.error("Storing session meta data failed.", e);
                     }
@@ -661,11 +661,12 @@ public class DefaultAuthenticationRequestHandler implements AuthenticationReques
     /**
      * Method to store session meta data.
      *
-     * @param sessionId Id of the authenticated session
-     * @param request   HttpServletRequest
+     * @param sessionId    Id of the authenticated session
+     * @param request      HttpServletRequest
+     * @param tenantDomain Tenant domain the session is stored in
      * @throws UserSessionException if storing session meta data fails
      */
-    private void storeSessionMetaData(String sessionId, HttpServletRequest request)
+    private void storeSessionMetaData(String sessionId, HttpServletRequest request, String tenantDomain)
             throws UserSessionException {
         String userAgent = request.getHeader(javax.ws.rs.core.HttpHeaders.USER_AGENT);
         String ip = IdentityUtil.getClientIpAddress(request);
@@ -676,7 +677,8 @@ public class DefaultAuthenticationRequestHandler implements AuthenticationReques
         metaDataMap.put(SessionMgtConstants.IP_ADDRESS, ip);
         metaDataMap.put(SessionMgtConstants.LOGIN_TIME, time);
         metaDataMap.put(SessionMgtConstants.LAST_ACCESS_TIME, time);
-        UserSessionStore.getInstance().storeSessionMetaData(sessionId, metaDataMap);
+        UserSessionStore.getInstance().storeSessionMetaData(sessionId, metaDataMap,
+                IdentityTenantUtil.getTenantId(tenantDomain));
     }
 
     private String getApplicationTenantDomain(AuthenticationContext context) {
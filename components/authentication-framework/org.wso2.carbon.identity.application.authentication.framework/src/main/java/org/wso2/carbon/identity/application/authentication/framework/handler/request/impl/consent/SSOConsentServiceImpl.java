@@ -36,6 +36,9 @@ import org.wso2.carbon.consent.mgt.core.model.ReceiptPurposeInput;
 import org.wso2.carbon.consent.mgt.core.model.ReceiptService;
 import org.wso2.carbon.consent.mgt.core.model.ReceiptServiceInput;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache.ConsentReceiptCache;
+import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache.ConsentReceiptCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache.ConsentReceiptCacheKey;
 import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.constant.SSOConsentConstants;
 import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.exception.SSOConsentDisabledException;
 import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.exception.SSOConsentServiceException;
@@ -313,8 +316,14 @@ public class SSOConsentServiceImpl implements SSOConsentService {
         String spTenantDomain = getSPTenantDomain(serviceProvider);
         String subjectTenantDomain = authenticatedUser.getTenantDomain();
 
-        if (isNotEmpty(claimsWithConsent)) {
-            addReceipt(subject, subjectTenantDomain, serviceProvider, spTenantDomain, claimsWithConsent);
+        try {
+            if (isNotEmpty(claimsWithConsent)) {
+                addReceipt(subject, subjectTenantDomain, serviceProvider, spTenantDomain, claimsWithConsent);
+            }
+        } finally {
+            // Adding a receipt revokes the previous receipt of the user for the service provider.
+            removeFromConsentReceiptCache(new ConsentReceiptCacheKey(subject, subjectTenantDomain),
+                    serviceProvider.getApplicationResourceId());
         }
     }
 
@@ -369,8 +378,30 @@ public class SSOConsentServiceImpl implements SSOConsentService {
                                             String spName, String spTenantDomain,
                                             String subject) throws SSOConsentServiceException {
 
+        String spResourceId = serviceProvider.getApplicationResourceId();
+        ConsentReceiptCacheKey cacheKey = new ConsentReceiptCacheKey(subject, authenticatedUser.getTenantDomain());
+        ConsentReceiptCacheEntry cacheEntry = isBlank(spResourceId) ? null :
+                ConsentReceiptCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry != null && cacheEntry.containsServiceProvider(spResourceId)) {
+            String cachedReceiptId = cacheEntry.getReceiptId(spResourceId);
+            Receipt cachedReceipt = null;
+            if (cachedReceiptId != null) {
+                // The receipt may have been revoked or deleted through the consent management API since it was cached.
+                cachedReceipt = getActiveReceipt(authenticatedUser, cachedReceiptId);
+            }
+            if (cachedReceiptId == null || cachedReceipt != null) {
+                if (isDebugEnabled()) {
+                    logDebug(String.format("Consent receipt of user: %s, service provider: %s in tenant domain %s " +
+                            "found in cache.", subject, spName, spTenantDomain));
+                }
+                return cachedReceipt;
+            }
+        }
+
         int receiptListLimit = 2;
         List<ReceiptListResponse> receiptListResponses;
+        String receiptId = null;
+        Receipt receipt = null;
         try {
             receiptListResponses = getReceiptListOfUserForSP(authenticatedUser, spName, spTenantDomain, subject,
                     receiptListLimit);
@@ -385,15 +416,66 @@ public class SSOConsentServiceImpl implements SSOConsentService {
                 throw new SSOConsentServiceException("Consent Management Error", "User cannot have more than one " +
                         "ACTIVE consent per service provider.");
             } else if (hasUserSingleReceipt(receiptListResponses)) {
-                String receiptId = getFirstConsentReceiptFromList(receiptListResponses);
-                return getReceipt(authenticatedUser, receiptId);
-            } else {
-                return null;
+                receiptId = getFirstConsentReceiptFromList(receiptListResponses);
+                receipt = getReceipt(authenticatedUser, receiptId);
             }
         } catch (ConsentManagementException e) {
             throw new SSOConsentServiceException("Consent Management Error",
                     "Error while retrieving user consents.", e);
         }
+        addToConsentReceiptCache(cacheKey, spResourceId, receiptId);
+        return receipt;
+    }
+
+    /**
+     * Retrieves a cached consent receipt, provided that it is still active.
+     *
+     * @param authenticatedUser Authenticated user.
+     * @param receiptId         Id of the cached receipt.
+     * @return The receipt, or null if the receipt is no longer active or could not be retrieved.
+     */
+    private Receipt getActiveReceipt(AuthenticatedUser authenticatedUser, String receiptId) {
+
+        try {
+            Receipt receipt = getReceipt(authenticatedUser, receiptId);
+            if (receipt != null && ACTIVE_STATE.equalsIgnoreCase(receipt.getState())) {
+                return receipt;
+            }
+        } catch (SSOConsentServiceException e) {
+            if (isDebugEnabled()) {
+                logDebug("Error while retrieving the cached consent receipt: " + receiptId + ". " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void addToConsentReceiptCache(ConsentReceiptCacheKey cacheKey, String spResourceId, String receiptId) {
+
+        if (isBlank(spResourceId)) {
+            return;
+        }
+        ConsentReceiptCacheEntry cacheEntry = ConsentReceiptCache.getInstance().getValueFromCache(cacheKey);
+        Map<String, String> receiptIds = new HashMap<>();
+        if (cacheEntry != null) {
+            receiptIds.putAll(cacheEntry.getReceiptIds());
+        }
+        receiptIds.put(spResourceId, receiptId);
+        ConsentReceiptCache.getInstance().addToCache(cacheKey, new ConsentReceiptCacheEntry(receiptIds));
+    }
+
+    private void removeFromConsentReceiptCache(ConsentReceiptCacheKey cacheKey, String spResourceId) {
+
+        ConsentReceiptCacheEntry cacheEntry = ConsentReceiptCache.getInstance().getValueFromCache(cacheKey);
+        if (cacheEntry == null || !cacheEntry.containsServiceProvider(spResourceId)) {
+            return;
+        }
+        Map<String, String> receiptIds = new HashMap<>(cacheEntry.getReceiptIds());
+        receiptIds.remove(spResourceId);
+        if (receiptIds.isEmpty()) {
+            ConsentReceiptCache.getInstance().clearCacheEntry(cacheKey);
+        } else {
+            ConsentReceiptCache.getInstance().addToCache(cacheKey, new ConsentReceiptCacheEntry(receiptIds));
+        }
     }
 
     private AddReceiptResponse addReceipt(String subject, String subjectTenantDomain, ServiceProvider
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache;
+
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+/**
+ * Cache of the active consent receipts of a user for service providers, used by the SSO consent service to avoid
+ * consent store lookups on every login.
+ */
+public class ConsentReceiptCache extends BaseCache<ConsentReceiptCacheKey, ConsentReceiptCacheEntry> {
+
+    private static final String CONSENT_RECEIPT_CACHE_NAME = "ConsentReceiptCache";
+
+    private static volatile ConsentReceiptCache instance = new ConsentReceiptCache();
+
+    private ConsentReceiptCache() {
+
+        super(CONSENT_RECEIPT_CACHE_NAME);
+    }
+
+    public static ConsentReceiptCache getInstance() {
+
+        return instance;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheEntry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache entry for {@link ConsentReceiptCache}. Holds the id of the active consent receipt of the user against the
+ * resource id of each service provider. A service provider mapped to null records that the user has no active
+ * consent receipt for it.
+ */
+public class ConsentReceiptCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = 4712470395361742876L;
+
+    private HashMap<String, String> receiptIds;
+
+    public ConsentReceiptCacheEntry(Map<String, String> receiptIds) {
+
+        this.receiptIds = new HashMap<>(receiptIds);
+    }
+
+    /**
+     * Checks whether the consent receipt of the user for the service provider is known.
+     *
+     * @param spResourceId Resource id of the service provider.
+     * @return True if the entry holds a receipt id or records the absence of one.
+     */
+    public boolean containsServiceProvider(String spResourceId) {
+
+        return receiptIds.containsKey(spResourceId);
+    }
+
+    public String getReceiptId(String spResourceId) {
+
+        return receiptIds.get(spResourceId);
+    }
+
+    public Map<String, String> getReceiptIds() {
+
+        return Collections.unmodifiableMap(receiptIds);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheKey;
+
+/**
+ * Cache key for {@link ConsentReceiptCache}. The consent receipts of a user are identified by the user and the
+ * tenant of the user.
+ */
+public class ConsentReceiptCacheKey extends CacheKey {
+
+    private static final long serialVersionUID = -2381523749275613089L;
+
+    private String subject;
+    private String subjectTenantDomain;
+
+    public ConsentReceiptCacheKey(String subject, String subjectTenantDomain) {
+
+        this.subject = subject;
+        this.subjectTenantDomain = subjectTenantDomain;
+    }
+
+    public String getSubject() {
+
+        return subject;
+    }
+
+    public String getSubjectTenantDomain() {
+
+        return subjectTenantDomain;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass() || !super.equals(o)) {
+            return false;
+        }
+
+        ConsentReceiptCacheKey that = (ConsentReceiptCacheKey) o;
+
+        if (subject != null ? !subject.equals(that.subject) : that.subject != null) {
+            return false;
+        }
+        return subjectTenantDomain != null ? subjectTenantDomain.equals(that.subjectTenantDomain) :
+                that.subjectTenantDomain == null;
+    }
+
+    @Override
+    public int hashCode() {
+
+        int result = subject != null ? subject.hashCode() : 0;
+        result = 31 * result + (subjectTenantDomain != null ? subjectTenantDomain.hashCode() : 0);
+        return result;
+    }
+}
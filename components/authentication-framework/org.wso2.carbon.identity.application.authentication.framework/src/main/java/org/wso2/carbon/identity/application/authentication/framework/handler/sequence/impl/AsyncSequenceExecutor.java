@@ -18,78 +18,365 @@
 
 package org.wso2.carbon.identity.application.authentication.framework.handler.sequence.impl;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.AsyncCaller;
+import org.wso2.carbon.identity.application.authentication.framework.AsyncProcess;
 import org.wso2.carbon.identity.application.authentication.framework.AsyncReturn;
 import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
 import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
 import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
 import org.wso2.carbon.identity.application.authentication.framework.model.LongWaitStatus;
 import org.wso2.carbon.identity.application.authentication.framework.store.LongWaitStatusStoreService;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
-
-public class AsyncSequenceExecutor {
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Executes the asynchronous calls of authentication scripts. External calls and the returns to the authentication
+ * flow run on separate bounded pools, so a burst of slow external calls can neither starve the returns nor grow
+ * the queue without limit. A call which has not returned within the configured timeout resumes the flow with the
+ * "onTimeout" outcome, and a late return of such a call is ignored. The counters of the executor are exposed as the
+ * org.wso2.carbon.identity:type=AsyncSequenceExecutor MBean.
+ */
+public class AsyncSequenceExecutor implements AsyncSequenceExecutorMXBean {
 
     private static final Log log = LogFactory.getLog(AsyncSequenceExecutor.class);
-
-    private ExecutorService executorService;
+    private static final int DEFAULT_POOL_SIZE = 5;
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final String MBEAN_NAME = "org.wso2.carbon.identity:type=AsyncSequenceExecutor";
+
+    private ThreadPoolExecutor callerExecutor;
+    private ThreadPoolExecutor returnExecutor;
+    private ScheduledExecutorService timeoutScheduler;
+    private long defaultTimeout;
+
+    private final AtomicInteger inFlightCallCount = new AtomicInteger();
+    private final AtomicLong completedCallCount = new AtomicLong();
+    private final AtomicLong timedOutCallCount = new AtomicLong();
+    private final AtomicLong rejectedCallCount = new AtomicLong();
+    private final AtomicLong rejectedReturnCount = new AtomicLong();
+    private final AtomicLong queuedCallCount = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private ObjectName mBeanName;
 
     public void init() {
 
-        String poolSizeString = IdentityUtil.getProperty("AdaptiveAuth.AsyncSequenceExecutorPoolSize");
-        int poolSize;
-        if (poolSizeString != null) {
-            poolSize = Integer.parseInt(poolSizeString);
-        } else {
-            poolSize = 5;
-        }
+        int poolSize = getIntProperty(FrameworkConstants.AdaptiveAuthentication.ASYNC_SEQUENCE_EXECUTOR_POOL_SIZE,
+                DEFAULT_POOL_SIZE);
+        int returnPoolSize = getIntProperty(FrameworkConstants.AdaptiveAuthentication.ASYNC_RETURN_EXECUTOR_POOL_SIZE,
+                poolSize);
+        int queueSize = getIntProperty(FrameworkConstants.AdaptiveAuthentication.ASYNC_SEQUENCE_EXECUTOR_QUEUE_SIZE,
+                DEFAULT_QUEUE_SIZE);
+        init(poolSize, returnPoolSize, queueSize,
+                getIntProperty(FrameworkConstants.AdaptiveAuthentication.ASYNC_CALL_TIMEOUT, 0));
+        registerMBean();
+    }
+
+    void init(int poolSize, int returnPoolSize, int queueSize, long defaultTimeout) {
 
-        executorService = Executors.newFixedThreadPool(poolSize);
+        this.defaultTimeout = defaultTimeout;
+        callerExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new NamedThreadFactory("AsyncSequenceCaller"));
+        // A return which can not be queued is failed by the rejecting thread, see failReturn.
+        returnExecutor = new ThreadPoolExecutor(returnPoolSize, returnPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new NamedThreadFactory("AsyncSequenceReturn"));
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("AsyncSequenceTimeout"));
     }
 
     public void exec(AsyncCaller caller, AsyncReturn returnFunction, AuthenticationContext authenticationContext) throws FrameworkException {
 
+        exec(caller, returnFunction, authenticationContext, 0);
+    }
+
+    /**
+     * Executes the caller asynchronously.
+     *
+     * @param caller                Caller of the external system.
+     * @param returnFunction        Function to be called with the outcome.
+     * @param authenticationContext Authentication context.
+     * @param timeout               Time in milliseconds to wait for the return. Zero or negative to use the
+     *                              server wide timeout, which is disabled by default.
+     * @throws FrameworkException If no return function is given or the call can not be queued.
+     */
+    public void exec(AsyncCaller caller, AsyncReturn returnFunction, AuthenticationContext authenticationContext,
+                     long timeout) throws FrameworkException {
+
         if (returnFunction == null) {
             throw new FrameworkException("Can not execute the async process, as no callback function registered on " +
                     "returnFunction.");
         }
 
+        AtomicBoolean returned = new AtomicBoolean(false);
+        inFlightCallCount.incrementAndGet();
+        long effectiveTimeout = timeout > 0 ? timeout : defaultTimeout;
+        ScheduledFuture<?> timeoutFuture = null;
+        if (effectiveTimeout > 0) {
+            timeoutFuture = timeoutScheduler.schedule(() -> {
+                if (settle(returned)) {
+                    timedOutCallCount.incrementAndGet();
+                    log.warn("Async call of the authentication flow: " + authenticationContext
+                            .getContextIdentifier() + " did not return within " + effectiveTimeout + "ms.");
+                    this.execReturn(returnFunction, authenticationContext, Collections.emptyMap(),
+                            FrameworkConstants.AdaptiveAuthentication.ASYNC_CALL_TIMEOUT_OUTCOME);
+                }
+            }, effectiveTimeout, TimeUnit.MILLISECONDS);
+        }
+        ScheduledFuture<?> scheduledTimeout = timeoutFuture;
+
         AsyncReturn wrappedReturn = (ctx, m, r) -> {
+            if (!settle(returned)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Ignoring the late return of the async call of the authentication flow: " +
+                            ctx.getContextIdentifier());
+                }
+                return;
+            }
+            if (scheduledTimeout != null) {
+                scheduledTimeout.cancel(false);
+            }
             this.execReturn(returnFunction, ctx, m, r);
         };
 
-        executorService.submit(
-                new AsyncCallerTask(
-                        new ObservingAsyncProcess(caller, wrappedReturn, authenticationContext)));
+        try {
+            callerExecutor.execute(
+                    new AsyncCallerTask(
+                            new ObservingAsyncProcess(caller, wrappedReturn, authenticationContext), returned,
+                            scheduledTimeout != null));
+        } catch (RejectedExecutionException e) {
+            settle(returned);
+            rejectedCallCount.incrementAndGet();
+            if (scheduledTimeout != null) {
+                scheduledTimeout.cancel(false);
+            }
+            throw new FrameworkException("Can not execute the async process of the authentication flow: " +
+                    authenticationContext.getContextIdentifier() + ", as the async executor queue is full.", e);
+        }
+    }
+
+    /**
+     * Stops the executors. Queued calls are dropped.
+     */
+    public void shutdown() {
+
+        unregisterMBean();
+        if (callerExecutor != null) {
+            callerExecutor.shutdownNow();
+        }
+        if (returnExecutor != null) {
+            returnExecutor.shutdown();
+        }
+        if (timeoutScheduler != null) {
+            timeoutScheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public int getInFlightCallCount() {
+
+        return inFlightCallCount.get();
+    }
+
+    @Override
+    public long getCompletedCallCount() {
+
+        return completedCallCount.get();
+    }
+
+    @Override
+    public long getTimedOutCallCount() {
+
+        return timedOutCallCount.get();
+    }
+
+    @Override
+    public long getRejectedCallCount() {
+
+        return rejectedCallCount.get();
+    }
+
+    @Override
+    public long getRejectedReturnCount() {
+
+        return rejectedReturnCount.get();
+    }
+
+    @Override
+    public int getCallerQueueSize() {
+
+        return callerExecutor == null ? 0 : callerExecutor.getQueue().size();
+    }
+
+    @Override
+    public int getReturnQueueSize() {
+
+        return returnExecutor == null ? 0 : returnExecutor.getQueue().size();
+    }
+
+    @Override
+    public double getAverageQueueWaitMillis() {
+
+        long queued = queuedCallCount.get();
+        if (queued == 0) {
+            return 0;
+        }
+        return totalQueueWaitNanos.get() / 1000000.0 / queued;
+    }
+
+    /**
+     * Marks the call as returned, by the external system, by the timeout or by a failure of the caller. The call is
+     * no longer counted as in flight from then on.
+     *
+     * @param returned Returned state of the call.
+     * @return true if the call had not been settled before.
+     */
+    private boolean settle(AtomicBoolean returned) {
+
+        if (returned.compareAndSet(false, true)) {
+            inFlightCallCount.decrementAndGet();
+            return true;
+        }
+        return false;
     }
 
     private void execReturn(AsyncReturn returnFunction,
                             AuthenticationContext authenticationContext, Map<String, Object> data, String result) {
 
-        executorService.execute(new AsyncReturnWorker(returnFunction, authenticationContext, data, result));
+        try {
+            returnExecutor.execute(new AsyncReturnWorker(returnFunction, authenticationContext, data, result));
+        } catch (RejectedExecutionException e) {
+            rejectedReturnCount.incrementAndGet();
+            failReturn(returnFunction, authenticationContext);
+        }
+    }
+
+    /**
+     * Failure callback of a return which could not be queued, as the return queue is full or the executor is shut
+     * down. The flow is resumed with the "onFail" outcome, so it neither waits for ever nor runs the outcome of the
+     * external call. Only the completion of the wait and the return function, which hands the outcome to the
+     * waiting flow, run on the rejecting thread.
+     */
+    private void failReturn(AsyncReturn returnFunction, AuthenticationContext authenticationContext) {
+
+        log.error("Could not queue the return of the async call. Failing the async call of the authentication flow: "
+                + authenticationContext.getContextIdentifier());
+        try {
+            LongWaitStatusStoreService longWaitStatusStoreService =
+                    FrameworkServiceDataHolder.getInstance().getLongWaitStatusStoreService();
+            longWaitStatusStoreService.completeWait(authenticationContext.getContextIdentifier());
+            returnFunction.accept(authenticationContext, Collections.emptyMap(), AsyncProcess.OUTCOME_FAIL);
+        } catch (FrameworkException e) {
+            log.error("Error while failing the async call of the authentication flow: " +
+                    authenticationContext.getContextIdentifier(), e);
+        }
+    }
+
+    private void registerMBean() {
+
+        try {
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+                mBeanName = objectName;
+            }
+        } catch (JMException e) {
+            log.warn("Error while registering the MBean of the async sequence executor.", e);
+        }
+    }
+
+    private void unregisterMBean() {
+
+        if (mBeanName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mBeanName);
+        } catch (JMException e) {
+            log.warn("Error while unregistering the MBean of the async sequence executor.", e);
+        }
+        mBeanName = null;
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+
+        String value = IdentityUtil.getProperty(name);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.error("Error while parsing " + name + " : " + value, e);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        private final AtomicInteger threadCount = new AtomicInteger();
+        private final String prefix;
+
+        NamedThreadFactory(String prefix) {
+
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = defaultFactory.newThread(runnable);
+            thread.setName(prefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 
     private class AsyncCallerTask implements Runnable {
 
         private ObservingAsyncProcess asyncProcess;
+        private AtomicBoolean returned;
+        private boolean timeoutScheduled;
+        private long queuedTime = System.nanoTime();
 
-        public AsyncCallerTask(ObservingAsyncProcess asyncProcess) {
+        public AsyncCallerTask(ObservingAsyncProcess asyncProcess, AtomicBoolean returned, boolean timeoutScheduled) {
 
             this.asyncProcess = asyncProcess;
+            this.returned = returned;
+            this.timeoutScheduled = timeoutScheduled;
         }
 
         @Override
         public void run() {
 
+            totalQueueWaitNanos.addAndGet(System.nanoTime() - queuedTime);
+            queuedCallCount.incrementAndGet();
             try {
                 asyncProcess.call();
-            } catch (FrameworkException e) {
+            } catch (FrameworkException | RuntimeException e) {
                 log.error("Error while calling async process. ", e);
+                // Nothing returns a failed call unless the timeout does, hence it is no longer in flight.
+                if (!timeoutScheduled) {
+                    settle(returned);
+                }
             }
         }
     }
@@ -112,6 +399,7 @@ public class AsyncSequenceExecutor {
 
         @Override
         public void run() {
+            completedCallCount.incrementAndGet();
             LongWaitStatusStoreService longWaitStatusStoreService =
                     FrameworkServiceDataHolder.getInstance().getLongWaitStatusStoreService();
             try {
@@ -123,6 +411,9 @@ public class AsyncSequenceExecutor {
                     return;
                 }
                 longWaitStatus.setStatus(LongWaitStatus.Status.COMPLETED);
+                // Persist the completion before resuming the flow, since the resumed flow reads the stored status to
+                // decide whether the wait is over. This also wakes up the status requests held for this wait.
+                longWaitStatusStoreService.completeWait(authenticationContext.getContextIdentifier());
                 returnFunction.accept(authenticationContext, data, result);
             } catch (FrameworkException e) {
                 log.error("Error while resuming from the wait. ", e);
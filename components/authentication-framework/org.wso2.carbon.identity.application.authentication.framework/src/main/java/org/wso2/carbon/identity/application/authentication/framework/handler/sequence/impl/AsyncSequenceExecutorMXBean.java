@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.sequence.impl;
+
+/**
+ * JMX view of the counters of the {@link AsyncSequenceExecutor}.
+ */
+public interface AsyncSequenceExecutorMXBean {
+
+    /**
+     * @return Number of calls submitted and neither returned, timed out nor failed yet.
+     */
+    int getInFlightCallCount();
+
+    long getCompletedCallCount();
+
+    long getTimedOutCallCount();
+
+    /**
+     * @return Number of calls which could not be queued, as the caller queue was full.
+     */
+    long getRejectedCallCount();
+
+    /**
+     * @return Number of returns which could not be queued and resumed the flow with the failure outcome.
+     */
+    long getRejectedReturnCount();
+
+    int getCallerQueueSize();
+
+    int getReturnQueueSize();
+
+    /**
+     * @return Average time in milliseconds the calls waited in the caller queue before being started.
+     */
+    double getAverageQueueWaitMillis();
+}
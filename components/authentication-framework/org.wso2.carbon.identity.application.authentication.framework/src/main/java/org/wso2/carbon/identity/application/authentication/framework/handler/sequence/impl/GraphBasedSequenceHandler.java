@@ -514,6 +514,7 @@ public class GraphBasedSequenceHandler extends DefaultStepBasedSequenceHandler i
         if (longWaitStatus == null || longWaitStatus.getStatus() == LongWaitStatus.Status.UNKNOWN) {
             //This is a initiation of long wait
             longWaitStatus = new LongWaitStatus();
+            longWaitStatus.setStatus(LongWaitStatus.Status.WAITING);
             int tenantId = IdentityTenantUtil.getTenantId(context.getTenantDomain());
             longWaitStatusStoreService.addWait(tenantId, context.getContextIdentifier(), longWaitStatus);
             isWaiting = callExternalSystem(request, response, context, sequenceConfig, longWaitNode);
@@ -586,7 +587,8 @@ public class GraphBasedSequenceHandler extends DefaultStepBasedSequenceHandler i
         });
 
         if (caller != null) {
-            FrameworkServiceDataHolder.getInstance().getAsyncSequenceExecutor().exec(caller, asyncReturn, context);
+            FrameworkServiceDataHolder.getInstance().getAsyncSequenceExecutor().exec(caller, asyncReturn, context,
+                    asyncProcess.getTimeout());
             if (!promptOnLongWait()) {
                 int waitTimeout = getLongWaitTimeout();
                 synchronized (context) {
@@ -598,6 +600,14 @@ public class GraphBasedSequenceHandler extends DefaultStepBasedSequenceHandler i
                                 "data key: " + context.getContextIdentifier() + ". ", e);
                     }
                 }
+                if (context.getProperty(FrameworkConstants.JSAttributes.JS_CALL_AND_WAIT_STATUS) == null) {
+                    // The external call did not return in time. Complete the wait, so the flow resumes without an
+                    // outcome and fails instead of waiting for a return nobody is held for.
+                    log.warn("External call did not return within " + waitTimeout + "ms for session data key: " +
+                            context.getContextIdentifier() + ".");
+                    FrameworkServiceDataHolder.getInstance().getLongWaitStatusStoreService()
+                            .completeWait(context.getContextIdentifier());
+                }
                 resumeLongWait(request, response, context);
             }
             return true;
@@ -605,7 +615,7 @@ public class GraphBasedSequenceHandler extends DefaultStepBasedSequenceHandler i
         return false;
     }
 
-    private int getLongWaitTimeout() {
+    int getLongWaitTimeout() {
 
         String waitTimeoutPropValue = IdentityUtil.getProperty(ADAPTIVE_AUTH_LONG_WAIT_TIMEOUT);
         int waitTimeout = 10000;
@@ -42,6 +42,9 @@ import org.wso2.carbon.identity.application.authentication.framework.JsFunctionR
 import org.wso2.carbon.identity.application.authentication.framework.LocalApplicationAuthenticator;
 import org.wso2.carbon.identity.application.authentication.framework.RequestPathApplicationAuthenticator;
 import org.wso2.carbon.identity.application.authentication.framework.UserSessionManagementService;
+import org.wso2.carbon.identity.application.authentication.framework.cache.LongWaitResultCache;
+import org.wso2.carbon.identity.application.authentication.framework.cache.LongWaitResultCacheListener;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceConfigTemplateCache;
 import org.wso2.carbon.identity.application.authentication.framework.config.builder.FileBasedConfigurationBuilder;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
 import org.wso2.carbon.identity.application.authentication.framework.internal.impl.UserSessionManagementServiceImpl;
@@ -71,12 +74,16 @@ import org.wso2.carbon.identity.application.authentication.framework.inbound.Ide
 import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityServlet;
 import org.wso2.carbon.identity.application.authentication.framework.internal.impl.AuthenticationMethodNameTranslatorImpl;
 import org.wso2.carbon.identity.application.authentication.framework.listener.AuthenticationEndpointTenantActivityListener;
+import org.wso2.carbon.identity.application.authentication.framework.listener.ConsentReceiptCacheUserOperationListener;
+import org.wso2.carbon.identity.application.authentication.framework.listener.SequenceConfigTemplateCacheAppMgtListener;
+import org.wso2.carbon.identity.application.authentication.framework.listener.SequenceConfigTemplateCacheIdPMgtListener;
 import org.wso2.carbon.identity.application.authentication.framework.services.PostAuthenticationMgtService;
 import org.wso2.carbon.identity.application.authentication.framework.servlet.CommonAuthenticationServlet;
 import org.wso2.carbon.identity.application.authentication.framework.servlet.LoginContextServlet;
 import org.wso2.carbon.identity.application.authentication.framework.servlet.LongWaitStatusServlet;
 import org.wso2.carbon.identity.application.authentication.framework.store.LongWaitStatusStoreService;
 import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+import org.wso2.carbon.identity.application.authentication.framework.store.UserSessionStore;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.common.ApplicationAuthenticatorService;
@@ -84,6 +91,7 @@ import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorC
 import org.wso2.carbon.identity.application.common.model.LocalAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.RequestPathAuthenticatorConfig;
+import org.wso2.carbon.identity.application.mgt.listener.ApplicationMgtListener;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
 import org.wso2.carbon.identity.core.handler.HandlerComparator;
 import org.wso2.carbon.identity.core.util.IdentityCoreInitializedEvent;
@@ -91,8 +99,10 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.event.services.IdentityEventService;
 import org.wso2.carbon.identity.functions.library.mgt.FunctionLibraryManagementService;
 import org.wso2.carbon.identity.user.profile.mgt.association.federation.FederatedAssociationManager;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
+import org.wso2.carbon.user.core.listener.UserOperationEventListener;
 import org.wso2.carbon.user.core.service.RealmService;
 
 import java.io.IOException;
@@ -241,6 +251,7 @@ public class FrameworkServiceComponent {
         }
 
         if (promptOnLongWait()) {
+            // Long polling of the status needs async support enabled on the servlet bridging this HttpService.
             Servlet longWaitStatusServlet = new ContextPathServletAdaptor(new LongWaitStatusServlet(),
                     LONGWAITSTATUS_SERVLET_URL);
             try {
@@ -272,6 +283,12 @@ public class FrameworkServiceComponent {
         SSOConsentService ssoConsentService = new SSOConsentServiceImpl();
         bundleContext.registerService(SSOConsentService.class.getName(), ssoConsentService, null);
         dataHolder.setSSOConsentService(ssoConsentService);
+        bundleContext.registerService(UserOperationEventListener.class.getName(),
+                new ConsentReceiptCacheUserOperationListener(), null);
+        bundleContext.registerService(ApplicationMgtListener.class.getName(),
+                new SequenceConfigTemplateCacheAppMgtListener(), null);
+        bundleContext.registerService(IdentityProviderMgtListener.class.getName(),
+                new SequenceConfigTemplateCacheIdPMgtListener(), null);
         bundleContext.registerService(PostAuthenticationHandler.class.getName(), consentMgtPostAuthnHandler, null);
 
         bundleContext.registerService(ClaimFilter.class.getName(), new DefaultClaimFilter(), null);
@@ -299,6 +316,7 @@ public class FrameworkServiceComponent {
         LongWaitStatusStoreService longWaitStatusStoreService =
                 new LongWaitStatusStoreService(cacheBackedDao, connectionTimeout);
         dataHolder.setLongWaitStatusStoreService(longWaitStatusStoreService);
+        LongWaitResultCache.getInstance().addListener(new LongWaitResultCacheListener());
 
         // Registering JIT, association and domain handler as post authentication handler
         PostAuthenticationHandler postJITProvisioningHandler = JITProvisioningPostAuthenticationHandler.getInstance();
@@ -332,6 +350,12 @@ public class FrameworkServiceComponent {
 
         FrameworkServiceDataHolder.getInstance().setBundleContext(null);
         SessionDataStore.getInstance().stopService();
+        UserSessionStore.getInstance().stopService();
+        AsyncSequenceExecutor asyncSequenceExecutor = FrameworkServiceDataHolder.getInstance()
+                .getAsyncSequenceExecutor();
+        if (asyncSequenceExecutor != null) {
+            asyncSequenceExecutor.shutdown();
+        }
     }
 
     @Reference(
@@ -385,6 +409,8 @@ public class FrameworkServiceComponent {
     protected void setAuthenticator(ApplicationAuthenticator authenticator) {
 
         FrameworkServiceDataHolder.getInstance().getAuthenticators().add(authenticator);
+        // Sequence templates refer to the authenticators available when they were built.
+        SequenceConfigTemplateCache.getInstance().clear();
 
         Property[] configProperties = null;
 
@@ -435,6 +461,7 @@ public class FrameworkServiceComponent {
     protected void unsetAuthenticator(ApplicationAuthenticator authenticator) {
 
         FrameworkServiceDataHolder.getInstance().getAuthenticators().remove(authenticator);
+        SequenceConfigTemplateCache.getInstance().clear();
         String authenticatorName = authenticator.getName();
         ApplicationAuthenticatorService appAuthenticatorService = ApplicationAuthenticatorService.getInstance();
 
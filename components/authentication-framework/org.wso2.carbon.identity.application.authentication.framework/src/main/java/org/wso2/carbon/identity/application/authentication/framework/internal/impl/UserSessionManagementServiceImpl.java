@@ -22,7 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.application.authentication.framework.UserSessionManagementService;
-import org.wso2.carbon.identity.application.authentication.framework.context.SessionContext;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SessionContextCache;
 import org.wso2.carbon.identity.application.authentication.framework.dao.UserSessionDAO;
 import org.wso2.carbon.identity.application.authentication.framework.dao.impl.UserSessionDAOImpl;
 import org.wso2.carbon.identity.application.authentication.framework.exception.UserSessionException;
@@ -35,6 +35,7 @@ import org.wso2.carbon.identity.application.authentication.framework.internal.Fr
 import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
 import org.wso2.carbon.identity.application.authentication.framework.model.UserSession;
 import org.wso2.carbon.identity.application.authentication.framework.services.SessionManagementService;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
 import org.wso2.carbon.identity.application.authentication.framework.store.UserSessionStore;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.authentication.framework.util.SessionMgtConstants;
@@ -47,7 +48,9 @@ import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants.
         CURRENT_SESSION_IDENTIFIER;
@@ -151,9 +154,7 @@ public class UserSessionManagementServiceImpl implements UserSessionManagementSe
 
     private void terminateSessionsOfUser(List<String> sessionList) {
 
-        for (String session : sessionList) {
-            sessionManagementService.removeSession(session);
-        }
+        sessionManagementService.removeSessions(sessionList);
     }
 
     private int getTenantId(String tenantDomain) throws UserSessionException {
@@ -354,20 +355,40 @@ public class UserSessionManagementServiceImpl implements UserSessionManagementSe
      */
     private List<UserSession> getActiveSessionList(List<String> sessionIdList) throws SessionManagementServerException {
 
-        List<UserSession> sessionsList = new ArrayList<>();
-        for (String sessionId : sessionIdList) {
-            if (sessionId != null) {
-                SessionContext sessionContext = FrameworkUtils.getSessionContextFromCache(sessionId);
-                if (sessionContext != null) {
-                    UserSessionDAO userSessionDTO = new UserSessionDAOImpl();
-                    UserSession userSession = userSessionDTO.getSession(sessionId);
-                    if (userSession != null) {
-                        sessionsList.add(userSession);
-                    }
-                }
+        List<String> activeSessionIdList = getActiveSessionIdList(sessionIdList);
+        if (activeSessionIdList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        UserSessionDAO userSessionDTO = new UserSessionDAOImpl();
+        return userSessionDTO.getSessions(activeSessionIdList);
+    }
+
+    /**
+     * Filters the active sessions from the given list of session IDs. The validity is decided from the expiry data
+     * of the session store where possible, and only the remaining sessions are read through the session context
+     * cache.
+     *
+     * @param sessionIdList list of sessionIds
+     * @return list of active session ids
+     */
+    private List<String> getActiveSessionIdList(List<String> sessionIdList) {
+
+        List<String> sessionIds = new ArrayList<>(new LinkedHashSet<>(sessionIdList));
+        sessionIds.remove(null);
+        Map<String, Boolean> sessionValidity = SessionDataStore.getInstance().getSessionDataValidity(sessionIds,
+                SessionContextCache.SESSION_CONTEXT_CACHE_NAME);
+
+        List<String> activeSessionIdList = new ArrayList<>();
+        for (String sessionId : sessionIds) {
+            Boolean isValid = sessionValidity.get(sessionId);
+            if (isValid == null) {
+                isValid = FrameworkUtils.getSessionContextFromCache(sessionId) != null;
+            }
+            if (isValid) {
+                activeSessionIdList.add(sessionId);
             }
         }
-        return sessionsList;
+        return activeSessionIdList;
     }
 
     /**
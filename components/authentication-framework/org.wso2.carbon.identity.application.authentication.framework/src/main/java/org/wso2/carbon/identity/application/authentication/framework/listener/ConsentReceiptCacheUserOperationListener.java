@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache.ConsentReceiptCache;
+import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache.ConsentReceiptCacheKey;
+import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
+import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+
+/**
+ * User operation event listener which drops cached consent receipts when a user is deleted, since the consents of
+ * the user are deleted along with the user.
+ */
+public class ConsentReceiptCacheUserOperationListener extends AbstractIdentityUserOperationEventListener {
+
+    private static final Log log = LogFactory.getLog(ConsentReceiptCacheUserOperationListener.class);
+
+    @Override
+    public int getExecutionOrderId() {
+
+        int orderId = getOrderId();
+        if (orderId != IdentityCoreConstants.EVENT_LISTENER_ORDER_ID) {
+            return orderId;
+        }
+        return 96;
+    }
+
+    @Override
+    public boolean doPostDeleteUser(String userName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        if (!isEnable()) {
+            return true;
+        }
+        String subject = UserCoreUtil.addDomainToName(userName,
+                UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration()));
+        String tenantDomain = IdentityTenantUtil.getTenantDomain(userStoreManager.getTenantId());
+        ConsentReceiptCache.getInstance().clearCacheEntry(new ConsentReceiptCacheKey(subject, tenantDomain));
+        if (log.isDebugEnabled()) {
+            log.debug("Cached consent receipts cleared on deletion of user: " + subject + " in tenant domain: " +
+                    tenantDomain);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceConfigTemplateCache;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceConfigTemplateCacheKey;
+import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.mgt.listener.AbstractApplicationMgtListener;
+
+/**
+ * Application management listener which drops the cached sequence template of a service provider when the service
+ * provider is updated or deleted.
+ */
+public class SequenceConfigTemplateCacheAppMgtListener extends AbstractApplicationMgtListener {
+
+    private static final Log log = LogFactory.getLog(SequenceConfigTemplateCacheAppMgtListener.class);
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return 909;
+    }
+
+    @Override
+    public boolean doPostUpdateApplication(ServiceProvider serviceProvider, String tenantDomain, String userName)
+            throws IdentityApplicationManagementException {
+
+        clearCacheEntry(serviceProvider.getApplicationName(), tenantDomain);
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteApplication(String applicationName, String tenantDomain, String userName)
+            throws IdentityApplicationManagementException {
+
+        clearCacheEntry(applicationName, tenantDomain);
+        return true;
+    }
+
+    private void clearCacheEntry(String applicationName, String tenantDomain) {
+
+        SequenceConfigTemplateCache.getInstance().clearCacheEntry(
+                new SequenceConfigTemplateCacheKey(applicationName, tenantDomain));
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Sequence template cache entry cleared for application: %s in tenant " +
+                    "domain: %s.", applicationName, tenantDomain));
+        }
+    }
+}
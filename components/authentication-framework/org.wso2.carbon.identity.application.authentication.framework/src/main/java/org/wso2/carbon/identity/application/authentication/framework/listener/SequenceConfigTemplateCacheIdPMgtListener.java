@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceConfigTemplateCache;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.listener.AbstractIdentityProviderMgtListener;
+
+/**
+ * Identity provider management listener which drops the cached sequence templates when an identity provider is
+ * updated or deleted, since the templates refer to the identity providers of their steps.
+ */
+public class SequenceConfigTemplateCacheIdPMgtListener extends AbstractIdentityProviderMgtListener {
+
+    private static final Log log = LogFactory.getLog(SequenceConfigTemplateCacheIdPMgtListener.class);
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return 909;
+    }
+
+    @Override
+    public boolean doPostUpdateIdP(String oldIdPName, IdentityProvider identityProvider, String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        clearCache(tenantDomain);
+        return true;
+    }
+
+    @Override
+    public boolean doPostUpdateIdPByResourceId(String resourceId, IdentityProvider oldIdentityProvider,
+                                               IdentityProvider newIdentityProvider, String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        clearCache(tenantDomain);
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteIdP(String idPName, String tenantDomain) throws IdentityProviderManagementException {
+
+        clearCache(tenantDomain);
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteIdPByResourceId(String resourceId, IdentityProvider identityProvider,
+                                               String tenantDomain) throws IdentityProviderManagementException {
+
+        clearCache(tenantDomain);
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteIdPs(String tenantDomain) throws IdentityProviderManagementException {
+
+        clearCache(tenantDomain);
+        return true;
+    }
+
+    private void clearCache(String tenantDomain) {
+
+        // Any service provider of the tenant may refer to the identity provider, hence the whole cache is cleared.
+        SequenceConfigTemplateCache.getInstance().clear();
+        if (log.isDebugEnabled()) {
+            log.debug("Sequence template cache cleared on identity provider change in tenant domain: "
+                    + tenantDomain);
+        }
+    }
+}
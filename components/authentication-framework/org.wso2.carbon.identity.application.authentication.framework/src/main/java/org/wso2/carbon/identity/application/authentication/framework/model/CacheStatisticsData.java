@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.model;
+
+/**
+ * Statistics of an identity cache for a single tenant, as returned by the cache statistics admin service.
+ */
+public class CacheStatisticsData {
+
+    private String cacheManagerName;
+    private String cacheName;
+    private int tenantId;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long evictionCount;
+    private long invalidationCount;
+    private long loadCount;
+    private long totalLoadTime;
+    private double hitRatio;
+
+    public String getCacheManagerName() {
+
+        return cacheManagerName;
+    }
+
+    public void setCacheManagerName(String cacheManagerName) {
+
+        this.cacheManagerName = cacheManagerName;
+    }
+
+    public String getCacheName() {
+
+        return cacheName;
+    }
+
+    public void setCacheName(String cacheName) {
+
+        this.cacheName = cacheName;
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    public void setTenantId(int tenantId) {
+
+        this.tenantId = tenantId;
+    }
+
+    public long getHitCount() {
+
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+
+        this.missCount = missCount;
+    }
+
+    public long getPutCount() {
+
+        return putCount;
+    }
+
+    public void setPutCount(long putCount) {
+
+        this.putCount = putCount;
+    }
+
+    public long getEvictionCount() {
+
+        return evictionCount;
+    }
+
+    public void setEvictionCount(long evictionCount) {
+
+        this.evictionCount = evictionCount;
+    }
+
+    public long getInvalidationCount() {
+
+        return invalidationCount;
+    }
+
+    public void setInvalidationCount(long invalidationCount) {
+
+        this.invalidationCount = invalidationCount;
+    }
+
+    public long getLoadCount() {
+
+        return loadCount;
+    }
+
+    public void setLoadCount(long loadCount) {
+
+        this.loadCount = loadCount;
+    }
+
+    /**
+     * @return Total time spent on loading values, in milliseconds.
+     */
+    public long getTotalLoadTime() {
+
+        return totalLoadTime;
+    }
+
+    public void setTotalLoadTime(long totalLoadTime) {
+
+        this.totalLoadTime = totalLoadTime;
+    }
+
+    public double getHitRatio() {
+
+        return hitRatio;
+    }
+
+    public void setHitRatio(double hitRatio) {
+
+        this.hitRatio = hitRatio;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.services;
+
+import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.core.AbstractAdmin;
+import org.wso2.carbon.identity.application.authentication.framework.model.CacheStatisticsData;
+import org.wso2.carbon.identity.core.cache.CacheStatistics;
+import org.wso2.carbon.identity.core.cache.IdentityCacheStatistics;
+import org.wso2.carbon.identity.core.cache.IdentityCacheStatisticsRegistry;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admin service to read the statistics of the identity caches. Super tenant admins get the statistics of all
+ * tenants, other tenant admins get only the statistics of their own tenant.
+ */
+public class CacheStatisticsService extends AbstractAdmin {
+
+    /**
+     * Gets the statistics of all identity caches which have been used since the server started.
+     *
+     * @return Statistics per cache and tenant.
+     */
+    public CacheStatisticsData[] getCacheStatistics() {
+
+        int callerTenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        List<CacheStatisticsData> cacheStatisticsData = new ArrayList<>();
+        for (IdentityCacheStatistics cacheStatistics :
+                IdentityCacheStatisticsRegistry.getInstance().getAllCacheStatistics()) {
+            for (int tenantId : cacheStatistics.getTenantIds()) {
+                if (callerTenantId != MultitenantConstants.SUPER_TENANT_ID && callerTenantId != tenantId) {
+                    continue;
+                }
+                CacheStatistics statistics = cacheStatistics.getTenantStatistics(tenantId);
+                if (statistics != null) {
+                    cacheStatisticsData.add(buildCacheStatisticsData(cacheStatistics, statistics));
+                }
+            }
+        }
+        return cacheStatisticsData.toArray(new CacheStatisticsData[0]);
+    }
+
+    private CacheStatisticsData buildCacheStatisticsData(IdentityCacheStatistics cacheStatistics,
+                                                         CacheStatistics statistics) {
+
+        CacheStatisticsData data = new CacheStatisticsData();
+        data.setCacheManagerName(cacheStatistics.getCacheManagerName());
+        data.setCacheName(cacheStatistics.getCacheName());
+        data.setTenantId(statistics.getTenantId());
+        data.setHitCount(statistics.getHitCount());
+        data.setMissCount(statistics.getMissCount());
+        data.setPutCount(statistics.getPutCount());
+        data.setEvictionCount(statistics.getEvictionCount());
+        data.setInvalidationCount(statistics.getInvalidationCount());
+        data.setLoadCount(statistics.getLoadCount());
+        data.setTotalLoadTime(statistics.getTotalLoadTime());
+        data.setHitRatio(statistics.getHitRatio());
+        return data;
+    }
+}
@@ -29,6 +29,8 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Authe
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 
+import java.util.List;
+
 public class SessionManagementService extends AbstractAdmin {
 
     private static Log log = LogFactory.getLog(SessionManagementService.class);
@@ -44,6 +46,25 @@ public class SessionManagementService extends AbstractAdmin {
         return true;
     }
 
+    /**
+     * Terminates the given sessions. Session contexts are only read when session termination events are published
+     * and the session store records are removed in a single batch.
+     *
+     * @param sessionIds ids of the sessions to be terminated
+     */
+    public void removeSessions(List<String> sessionIds) {
+
+        if (sessionIds == null || sessionIds.isEmpty()) {
+            return;
+        }
+        if (isSessionEventPublishingEnabled()) {
+            for (String sessionId : sessionIds) {
+                publishSessionTerminateEvent(FrameworkUtils.getSessionContextFromCache(sessionId), sessionId);
+            }
+        }
+        SessionContextCache.getInstance().clearCacheEntries(sessionIds);
+    }
+
     /**
      *
      * Terminates the requested session, after validating whether the session belongs to the logged in user.
@@ -85,8 +106,21 @@ public class SessionManagementService extends AbstractAdmin {
     // TODO : Session ID should be a property of the SessionContext.
     private void terminateSession(SessionContext sessionContext, String sessionId) {
 
-        if (FrameworkServiceDataHolder.getInstance().getAuthnDataPublisherProxy() != null && FrameworkServiceDataHolder
-                .getInstance().getAuthnDataPublisherProxy().isEnabled(null) && sessionContext != null) {
+        if (isSessionEventPublishingEnabled()) {
+            publishSessionTerminateEvent(sessionContext, sessionId);
+        }
+        SessionContextCache.getInstance().clearCacheEntry(sessionId);
+    }
+
+    private boolean isSessionEventPublishingEnabled() {
+
+        return FrameworkServiceDataHolder.getInstance().getAuthnDataPublisherProxy() != null &&
+                FrameworkServiceDataHolder.getInstance().getAuthnDataPublisherProxy().isEnabled(null);
+    }
+
+    private void publishSessionTerminateEvent(SessionContext sessionContext, String sessionId) {
+
+        if (sessionContext != null) {
 
             Object authenticatedUserObj = sessionContext.getProperty(FrameworkConstants.AUTHENTICATED_USER);
             AuthenticatedUser authenticatedUser = new AuthenticatedUser();
@@ -96,6 +130,5 @@ public class SessionManagementService extends AbstractAdmin {
             FrameworkUtils.publishSessionEvent(sessionId, null, null, sessionContext, authenticatedUser,
                     FrameworkConstants.AnalyticsAttributes.SESSION_TERMINATE);
         }
-        SessionContextCache.getInstance().clearCacheEntry(sessionId);
     }
 }
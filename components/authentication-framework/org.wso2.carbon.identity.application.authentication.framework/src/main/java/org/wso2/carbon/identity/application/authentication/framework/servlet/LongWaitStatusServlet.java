@@ -19,6 +19,9 @@
 package org.wso2.carbon.identity.application.authentication.framework.servlet;
 
 import com.google.gson.Gson;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
 import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
 import org.wso2.carbon.identity.application.authentication.framework.javascript.flow.LongWaitStatusRequest;
@@ -27,18 +30,53 @@ import org.wso2.carbon.identity.application.authentication.framework.model.LongW
 import org.wso2.carbon.identity.application.authentication.framework.store.LongWaitStatusStoreService;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Answers the long wait status of an authentication flow. Besides the plain poll, the client can ask the request to
+ * be held until the wait completes, either with the "longPoll" parameter or by accepting "text/event-stream". Held
+ * requests are answered with the current status when the long poll timeout elapses, so the client simply asks
+ * again. Holding requires async support on the servlet the OSGi HttpService dispatches through (the
+ * "async-supported" flag of the bridge servlet in the web application descriptor); the HttpService registration
+ * itself has no way to enable it. When async processing is not supported the request is answered immediately.
+ */
 public class LongWaitStatusServlet extends HttpServlet {
 
     private static final long serialVersionUID = -3714283612680472526L;
+    private static final Log log = LogFactory.getLog(LongWaitStatusServlet.class);
     private static final String PROP_WAITING_ID = "waitingId";
+    private static final String PROP_LONG_POLL = "longPoll";
+    private static final String HEADER_ACCEPT = "Accept";
+    private static final long DEFAULT_LONG_POLL_TIMEOUT = 30000;
+
+    private long longPollTimeout = DEFAULT_LONG_POLL_TIMEOUT;
+    private final AtomicBoolean asyncUnsupportedLogged = new AtomicBoolean(false);
+
+    @Override
+    public void init() throws ServletException {
+
+        String longPollTimeoutString =
+                IdentityUtil.getProperty(FrameworkConstants.AdaptiveAuthentication.ADAPTIVE_AUTH_LONG_POLL_TIMEOUT);
+        if (StringUtils.isNotBlank(longPollTimeoutString)) {
+            try {
+                longPollTimeout = Long.parseLong(longPollTimeoutString.trim());
+            } catch (NumberFormatException e) {
+                log.error("Error while parsing long poll timeout : " + longPollTimeoutString, e);
+            }
+        }
+    }
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -65,6 +103,24 @@ public class LongWaitStatusServlet extends HttpServlet {
             }
         }
 
+        boolean eventStream = isEventStreamRequested(request);
+        LongWaitStatusResponse longWaitResponse = getStatusResponse(id, response);
+        if ((eventStream || Boolean.parseBoolean(request.getParameter(PROP_LONG_POLL))) && longPollTimeout > 0
+                && isWaiting(longWaitResponse)) {
+            if (request.isAsyncSupported()) {
+                holdRequest(request, id, eventStream);
+                return;
+            }
+            if (asyncUnsupportedLogged.compareAndSet(false, true)) {
+                log.warn("Long wait status requests are answered without holding as async processing is not "
+                        + "supported for the long wait status servlet.");
+            }
+        }
+        writeResponse(response, longWaitResponse, eventStream);
+    }
+
+    private LongWaitStatusResponse getStatusResponse(String id, HttpServletResponse response) {
+
         LongWaitStatusResponse longWaitResponse = new LongWaitStatusResponse();
         longWaitResponse.setWaitId(id);
         if (id == null) {
@@ -97,12 +153,102 @@ public class LongWaitStatusServlet extends HttpServlet {
                 }
             }
         }
+        return longWaitResponse;
+    }
+
+    /**
+     * Parks the request until the wait is completed or the long poll timeout elapses. The completion is signalled
+     * by the long wait status store, from the async return worker of this node or from the cache listener when the
+     * wait was completed in another node.
+     */
+    private void holdRequest(HttpServletRequest request, String id, boolean eventStream) {
+
+        LongWaitStatusStoreService longWaitStatusStoreService =
+                FrameworkServiceDataHolder.getInstance().getLongWaitStatusStoreService();
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(longPollTimeout);
+        AtomicBoolean responded = new AtomicBoolean(false);
+        Runnable completionListener = () -> asyncContext.start(() -> respond(asyncContext, id, eventStream,
+                responded));
+
+        asyncContext.addListener(new AsyncListener() {
+
+            @Override
+            public void onComplete(AsyncEvent asyncEvent) {
+
+                longWaitStatusStoreService.removeCompletionListener(id, completionListener);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent asyncEvent) {
+
+                respond(asyncContext, id, eventStream, responded);
+            }
+
+            @Override
+            public void onError(AsyncEvent asyncEvent) {
+
+                longWaitStatusStoreService.removeCompletionListener(id, completionListener);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent asyncEvent) {
+
+                // Nothing to do here.
+            }
+        });
+        longWaitStatusStoreService.addCompletionListener(id, completionListener);
+
+        // The wait may have completed before the listener was registered.
+        if (!isWaiting(getStatusResponse(id, (HttpServletResponse) asyncContext.getResponse()))) {
+            longWaitStatusStoreService.notifyCompletion(id);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Holding the long wait status request for wait key: " + id);
+        }
+    }
+
+    private void respond(AsyncContext asyncContext, String id, boolean eventStream, AtomicBoolean responded) {
+
+        if (!responded.compareAndSet(false, true)) {
+            return;
+        }
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+        try {
+            writeResponse(response, getStatusResponse(id, response), eventStream);
+        } catch (IOException e) {
+            log.error("Error while writing the long wait status for wait key: " + id, e);
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
+    private void writeResponse(HttpServletResponse response, LongWaitStatusResponse longWaitResponse,
+                               boolean eventStream) throws IOException {
 
-        response.setContentType(FrameworkConstants.ContentTypes.TYPE_APPLICATION_JSON);
         String json = new Gson().toJson(longWaitResponse);
+        if (eventStream) {
+            response.setContentType(FrameworkConstants.ContentTypes.TYPE_EVENT_STREAM);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader("Cache-Control", "no-cache");
+            json = "data: " + json + "\n\n";
+        } else {
+            response.setContentType(FrameworkConstants.ContentTypes.TYPE_APPLICATION_JSON);
+        }
         try (PrintWriter out = response.getWriter()) {
             out.print(json);
             out.flush();
         }
     }
+
+    private static boolean isWaiting(LongWaitStatusResponse longWaitResponse) {
+
+        return LongWaitStatus.Status.WAITING.name().equals(longWaitResponse.getStatus());
+    }
+
+    private static boolean isEventStreamRequested(HttpServletRequest request) {
+
+        String accept = request.getHeader(HEADER_ACCEPT);
+        return accept != null && accept.contains(FrameworkConstants.ContentTypes.TYPE_EVENT_STREAM);
+    }
 }
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.exception.UserSessionException;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Keeps the number of active sessions of each tenant in memory, so that reading it does not scan the session meta
+ * data table. As with the query it replaces, a session is active until it has been idle for the idle session timeout
+ * of its tenant.
+ * <p>
+ * Only a count is kept per tenant, not the sessions themselves. The counts are loaded from the database at start up
+ * and reloaded every reconciliation interval. In between, sessions created and terminated through this node are
+ * added and removed as they happen. Sessions which went idle, and sessions created or terminated through other nodes
+ * of a cluster, are only reflected at the next reconciliation. Since the database is shared, every node converges to
+ * the same cluster wide count at each reconciliation. Sessions created and terminated while the database is being
+ * read are re-applied to the loaded counts, and a session is uncounted at most once however many times its
+ * termination is recorded.
+ */
+public class ActiveSessionCounter {
+
+    private static final Log log = LogFactory.getLog(ActiveSessionCounter.class);
+
+    private final IntToLongFunction idleTimeoutResolver;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Map<Integer, AtomicInteger> counts = new ConcurrentHashMap<>();
+    // Changes recorded while a reconciliation reads the database, null when no reconciliation is running.
+    private volatile Map<Integer, AtomicInteger> pendingChanges;
+    // Sessions terminated since the previous reconciliation started, and since the running one started.
+    private volatile Set<String> previouslyTerminated = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> terminated = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+    private ScheduledExecutorService scheduler;
+
+    public ActiveSessionCounter() {
+
+        this(tenantId -> TimeUnit.SECONDS.toMillis(
+                IdPManagementUtil.getIdleSessionTimeOut(IdentityTenantUtil.getTenantDomain(tenantId))));
+    }
+
+    ActiveSessionCounter(IntToLongFunction idleTimeoutResolver) {
+
+        this.idleTimeoutResolver = idleTimeoutResolver;
+    }
+
+    /**
+     * Loads the counts from the database and schedules their periodic reconciliation.
+     *
+     * @param loader                 Reads the last access time of the sessions from the database.
+     * @param reconciliationInterval Minutes between two reconciliations with the database.
+     */
+    public synchronized void start(SessionLoader loader, long reconciliationInterval) {
+
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ActiveSessionCounter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> reconcile(loader), 0, reconciliationInterval, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the periodic reconciliation.
+     */
+    public synchronized void stop() {
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        ready = false;
+    }
+
+    /**
+     * Whether the counts have been loaded from the database. Counts should be read from the database until then.
+     *
+     * @return True if the counts can be served from memory.
+     */
+    public boolean isReady() {
+
+        return ready;
+    }
+
+    /**
+     * Records that a session was created.
+     *
+     * @param tenantId Tenant the session is stored in.
+     */
+    public void sessionCreated(int tenantId) {
+
+        if (tenantId == MultitenantConstants.INVALID_TENANT_ID) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            addToCount(tenantId, 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records that a session was terminated. A session which has already been idle for longer than the idle session
+     * timeout of its tenant is not counted and is ignored, as is a session whose termination was already recorded.
+     *
+     * @param tenantId       Tenant the session is stored in.
+     * @param sessionId      Id of the terminated session.
+     * @param lastAccessTime Last access time of the session in milliseconds.
+     */
+    public void sessionTerminated(int tenantId, String sessionId, long lastAccessTime) {
+
+        if (tenantId == MultitenantConstants.INVALID_TENANT_ID ||
+                lastAccessTime < System.currentTimeMillis() - getIdleTimeout(tenantId)) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (previouslyTerminated.contains(sessionId) || !terminated.add(sessionId)) {
+                return;
+            }
+            addToCount(tenantId, -1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of active sessions of a tenant.
+     *
+     * @param tenantId Tenant id.
+     * @return Number of active sessions.
+     */
+    public int getActiveSessionCount(int tenantId) {
+
+        AtomicInteger count = counts.get(tenantId);
+        return count == null ? 0 : Math.max(count.get(), 0);
+    }
+
+    /**
+     * Replaces the counts with the ones computed from the database. Sessions are counted as they are read and are not
+     * kept in memory.
+     *
+     * @param loader Reads the last access time of the sessions from the database.
+     */
+    void reconcile(SessionLoader loader) {
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ConcurrentHashMap<>();
+            previouslyTerminated = terminated;
+            terminated = ConcurrentHashMap.newKeySet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long currentTime = System.currentTimeMillis();
+        Map<Integer, Long> idleTimeouts = new HashMap<>();
+        Map<Integer, AtomicInteger> loaded = new ConcurrentHashMap<>();
+        try {
+            loader.load((tenantId, lastAccessTime) -> {
+                long idleTimeout = idleTimeouts.computeIfAbsent(tenantId, this::getIdleTimeout);
+                if (lastAccessTime >= currentTime - idleTimeout) {
+                    getCount(loaded, tenantId).incrementAndGet();
+                }
+            });
+        } catch (UserSessionException | RuntimeException e) {
+            log.error("Error while loading the active sessions to reconcile the active session count.", e);
+            pendingChanges = null;
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Integer, AtomicInteger> change : pendingChanges.entrySet()) {
+                getCount(loaded, change.getKey()).addAndGet(change.getValue().get());
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Reconciled the active session count. Counts in memory: " + counts + ", in the database: "
+                        + loaded + ", changed while reading the database: " + pendingChanges);
+            }
+            counts = loaded;
+            pendingChanges = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds to the count of a tenant, and to the changes of the running reconciliation if any. The read lock must be
+     * held, so that the change is not lost by a concurrent swap of the counts.
+     */
+    private void addToCount(int tenantId, int delta) {
+
+        getCount(counts, tenantId).addAndGet(delta);
+        Map<Integer, AtomicInteger> changes = pendingChanges;
+        if (changes != null) {
+            getCount(changes, tenantId).addAndGet(delta);
+        }
+    }
+
+    private long getIdleTimeout(int tenantId) {
+
+        return idleTimeoutResolver.applyAsLong(tenantId);
+    }
+
+    private static AtomicInteger getCount(Map<Integer, AtomicInteger> counts, int tenantId) {
+
+        return counts.computeIfAbsent(tenantId, id -> new AtomicInteger());
+    }
+
+    /**
+     * Reads the last access time of every session from the database.
+     */
+    @FunctionalInterface
+    public interface SessionLoader {
+
+        void load(SessionHandler handler) throws UserSessionException;
+    }
+
+    /**
+     * Receives the tenant and the last access time of a session, as stored in the database.
+     */
+    @FunctionalInterface
+    public interface SessionHandler {
+
+        void handle(int tenantId, long lastAccessTime);
+    }
+}
@@ -24,6 +24,10 @@ import org.wso2.carbon.identity.application.authentication.framework.model.LongW
 
 import java.sql.Timestamp;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The service holds long wait status.
@@ -32,6 +36,7 @@ public class LongWaitStatusStoreService {
 
     private LongWaitStatusDAO statusDAO;
     private int connectionTimeout;
+    private final Map<String, List<Runnable>> completionListeners = new ConcurrentHashMap<>();
 
     public LongWaitStatusStoreService(LongWaitStatusDAO statusDAO, int connectionTimeout) {
 
@@ -56,4 +61,52 @@ public class LongWaitStatusStoreService {
 
         statusDAO.removeWaitStatus(sessionId);
     }
+
+    /**
+     * Marks the wait as completed and wakes up the status requests parked on it in this node.
+     *
+     * @param sessionId Wait key.
+     * @throws FrameworkException If an error occurred while updating the status.
+     */
+    public void completeWait(String sessionId) throws FrameworkException {
+
+        if (statusDAO.completeWaitStatus(sessionId)) {
+            notifyCompletion(sessionId);
+        }
+    }
+
+    /**
+     * Registers a listener to be run once when the wait of the given key is completed.
+     *
+     * @param sessionId Wait key.
+     * @param listener  Listener to run.
+     */
+    public void addCompletionListener(String sessionId, Runnable listener) {
+
+        completionListeners.computeIfAbsent(sessionId, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void removeCompletionListener(String sessionId, Runnable listener) {
+
+        completionListeners.computeIfPresent(sessionId, (key, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    /**
+     * Runs and removes the completion listeners registered for the given key. This is called on the local
+     * completion and from the long wait result cache listener when the status changes in another node.
+     *
+     * @param sessionId Wait key.
+     */
+    public void notifyCompletion(String sessionId) {
+
+        List<Runnable> listeners = completionListeners.remove(sessionId);
+        if (listeners != null) {
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+    }
 }
@@ -108,6 +108,14 @@ public class SQLQueries {
             "IDN_AUTH_SESSION_APP_INFO SESSION_STORE, SP_APP APP where SESSION_STORE.APP_ID = APP.ID AND " +
             "SESSION_ID = ?";
 
+    // Retrieve data for the Application model of a set of sessions. The session id placeholders are formatted in.
+    public static final String SQL_GET_APPLICATIONS_OF_SESSIONS = "SELECT SESSION_ID, SUBJECT, APP_NAME , APP_ID, " +
+            "UUID FROM IDN_AUTH_SESSION_APP_INFO SESSION_STORE, SP_APP APP where SESSION_STORE.APP_ID = APP.ID AND " +
+            "SESSION_ID IN (%s)";
+
+    public static final String SQL_GET_PROPERTIES_OF_SESSIONS = "SELECT SESSION_ID, PROPERTY_TYPE, VALUE FROM " +
+            "IDN_AUTH_SESSION_META_DATA WHERE SESSION_ID IN (%s)";
+
     public static final String SQL_GET_SESSIONS_BY_USER = "SELECT SESSION_ID FROM IDN_AUTH_USER_SESSION_MAPPING " +
             "WHERE USER_ID = (SELECT USER_ID FROM IDN_AUTH_USER WHERE USER_NAME =? AND TENANT_ID =? AND " +
             "DOMAIN_NAME =? AND IDP_ID = ?)";
@@ -132,4 +140,23 @@ public class SQLQueries {
                     "ON IDN_AUTH_USER_SESSION_MAPPING.SESSION_ID = IDN_AUTH_SESSION_STORE.SESSION_ID " +
                     "WHERE IDN_AUTH_SESSION_META_DATA.PROPERTY_TYPE = ? AND IDN_AUTH_SESSION_META_DATA.VALUE " +
                     "BETWEEN ? AND ? AND IDN_AUTH_SESSION_STORE.TENANT_ID = ? ";
+
+    public static final String SQL_GET_SESSION_LAST_ACCESS_TIMES =
+            "SELECT DISTINCT IDN_AUTH_SESSION_META_DATA.SESSION_ID, IDN_AUTH_SESSION_META_DATA.VALUE, " +
+                    "IDN_AUTH_SESSION_STORE.TENANT_ID " +
+                    "FROM IDN_AUTH_SESSION_META_DATA INNER JOIN IDN_AUTH_USER_SESSION_MAPPING " +
+                    "ON IDN_AUTH_SESSION_META_DATA.SESSION_ID = IDN_AUTH_USER_SESSION_MAPPING.SESSION_ID " +
+                    "INNER JOIN IDN_AUTH_SESSION_STORE " +
+                    "ON IDN_AUTH_USER_SESSION_MAPPING.SESSION_ID = IDN_AUTH_SESSION_STORE.SESSION_ID " +
+                    "WHERE IDN_AUTH_SESSION_META_DATA.PROPERTY_TYPE = ? ";
+
+    public static final String SQL_GET_SESSION_LAST_ACCESS_TIMES_BY_SESSION_IDS =
+            "SELECT DISTINCT IDN_AUTH_SESSION_META_DATA.SESSION_ID, IDN_AUTH_SESSION_META_DATA.VALUE, " +
+                    "IDN_AUTH_SESSION_STORE.TENANT_ID " +
+                    "FROM IDN_AUTH_SESSION_META_DATA INNER JOIN IDN_AUTH_USER_SESSION_MAPPING " +
+                    "ON IDN_AUTH_SESSION_META_DATA.SESSION_ID = IDN_AUTH_USER_SESSION_MAPPING.SESSION_ID " +
+                    "INNER JOIN IDN_AUTH_SESSION_STORE " +
+                    "ON IDN_AUTH_USER_SESSION_MAPPING.SESSION_ID = IDN_AUTH_SESSION_STORE.SESSION_ID " +
+                    "WHERE IDN_AUTH_SESSION_META_DATA.PROPERTY_TYPE = ? " +
+                    "AND IDN_AUTH_SESSION_META_DATA.SESSION_ID IN (%s)";
 }
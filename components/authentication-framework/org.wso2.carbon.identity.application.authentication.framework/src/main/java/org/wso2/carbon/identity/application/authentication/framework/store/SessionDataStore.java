@@ -44,6 +44,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -81,6 +85,9 @@ public class SessionDataStore {
             "DELETE FROM IDN_AUTH_SESSION_STORE WHERE OPERATION = '" + OPERATION_DELETE + "' AND  EXPIRY_TIME < ?";
     private static final String SQL_DELETE_TEMP_RECORDS =
             "DELETE FROM IDN_AUTH_TEMP_SESSION_STORE WHERE SESSION_ID = ? AND  SESSION_TYPE = ?";
+    private static final String SQL_SELECT_OPERATIONS_OF_SESSIONS =
+            "SELECT SESSION_ID, OPERATION, TIME_CREATED, EXPIRY_TIME FROM IDN_AUTH_SESSION_STORE WHERE " +
+                    "SESSION_TYPE = ? AND SESSION_ID IN (%s)";
 
     private static final String SQL_DESERIALIZE_OBJECT_MYSQL =
             "SELECT OPERATION, SESSION_OBJECT, TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND" +
@@ -125,6 +132,7 @@ public class SessionDataStore {
     private static final String INFORMIX_DATABASE = "Informix";
 
     private static final int DEFAULT_DELETE_LIMIT = 50000;
+    private static final int SESSION_ID_CHUNK_SIZE = 100;
     public static final String DEFAULT_SESSION_STORE_TABLE_NAME = "IDN_AUTH_SESSION_STORE";
     private static final String CACHE_MANAGER_NAME = "IdentityApplicationManagementCacheManager";
     public static final String DEFAULT_TEMP_SESSION_STORE_TABLE_NAME = "IDN_AUTH_TEMP_SESSION_STORE";
@@ -375,6 +383,112 @@ public class SessionDataStore {
         }
     }
 
+    /**
+     * Removes the data of the given keys by adding their DELETE operations in a single batch, on the caller's thread.
+     *
+     * @param keys Keys of the data to be removed.
+     * @param type Type of the data.
+     */
+    public void clearSessionData(List<String> keys, String type) {
+
+        if (!enablePersist || keys.isEmpty()) {
+            return;
+        }
+        Connection connection;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection();
+        } catch (IdentityRuntimeException e) {
+            log.error(e.getMessage(), e);
+            return;
+        }
+        PreparedStatement preparedStatement = null;
+        long nanoTime = FrameworkUtils.getCurrentStandardNano();
+        long timeoutNano = nanoTime + getCleanupTimeout(type, MultitenantConstants.INVALID_TENANT_ID);
+        try {
+            preparedStatement = connection.prepareStatement(getSessionStoreDBQuery(sqlInsertDELETE, type));
+            for (String key : keys) {
+                preparedStatement.setString(1, key);
+                preparedStatement.setString(2, type);
+                preparedStatement.setString(3, OPERATION_DELETE);
+                preparedStatement.setLong(4, nanoTime);
+                preparedStatement.setLong(5, timeoutNano);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+            IdentityDatabaseUtil.commitTransaction(connection);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            log.error("Error while storing DELETE operation session data", e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, null, preparedStatement);
+        }
+    }
+
+    /**
+     * Checks the state of the given keys by reading only the operation and expiry time of their records, without
+     * deserializing the stored objects. A key maps to true if its latest record is a STORE operation which has not
+     * expired and to false if its latest record is a DELETE operation. Keys without records and keys whose latest
+     * record has expired are left out, as the store cannot decide on them; e.g. the record may not be persisted yet.
+     *
+     * @param keys Keys of the data.
+     * @param type Type of the data.
+     * @return Validity of the keys which could be decided from the store.
+     */
+    public Map<String, Boolean> getSessionDataValidity(List<String> keys, String type) {
+
+        if (!enablePersist || keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Connection connection;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection(false);
+        } catch (IdentityRuntimeException e) {
+            log.error(e.getMessage(), e);
+            return Collections.emptyMap();
+        }
+        long currentStandardNano = FrameworkUtils.getCurrentStandardNano();
+        Map<String, Long> latestTimeCreated = new HashMap<>();
+        Map<String, Boolean> validity = new HashMap<>();
+        try {
+            for (int from = 0; from < keys.size(); from += SESSION_ID_CHUNK_SIZE) {
+                List<String> chunk = keys.subList(from, Math.min(from + SESSION_ID_CHUNK_SIZE, keys.size()));
+                String sqlQuery = String.format(SQL_SELECT_OPERATIONS_OF_SESSIONS,
+                        StringUtils.repeat("?", ",", chunk.size()));
+                try (PreparedStatement preparedStatement = connection.prepareStatement(
+                        getSessionStoreDBQuery(sqlQuery, type))) {
+                    preparedStatement.setString(1, type);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        preparedStatement.setString(i + 2, chunk.get(i));
+                    }
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            String key = resultSet.getString(1);
+                            long timeCreated = resultSet.getLong(3);
+                            Long previousTimeCreated = latestTimeCreated.get(key);
+                            if (previousTimeCreated != null && previousTimeCreated >= timeCreated) {
+                                continue;
+                            }
+                            latestTimeCreated.put(key, timeCreated);
+                            if (OPERATION_DELETE.equals(resultSet.getString(2))) {
+                                validity.put(key, false);
+                            } else if (resultSet.getLong(4) > currentStandardNano) {
+                                validity.put(key, true);
+                            } else {
+                                validity.remove(key);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Error while retrieving session data validity", e);
+            return Collections.emptyMap();
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+        return validity;
+    }
+
     /**
      * Method to stop running tasks, when the component is deactivated.
      */
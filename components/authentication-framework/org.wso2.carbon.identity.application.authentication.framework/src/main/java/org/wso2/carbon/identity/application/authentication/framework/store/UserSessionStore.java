@@ -34,6 +34,7 @@ import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -61,8 +62,13 @@ public class UserSessionStore {
     private static final String IDN_AUTH_USER_SESSION_MAPPING_TABLE = "IDN_AUTH_USER_SESSION_MAPPING";
     private static final String IDN_AUTH_SESSION_APP_INFO_TABLE = "IDN_AUTH_SESSION_APP_INFO_TABLE";
     private static final String IDN_AUTH_SESSION_META_DATA_TABLE = "IDN_AUTH_SESSION_META_DATA";
+    private static final String ACTIVE_SESSION_COUNTER_PROPERTY = "JDBCPersistenceManager.SessionDataPersist" +
+            ".UserSessionMapping.ActiveSessionCounter.";
+    private static final long DEFAULT_ACTIVE_SESSION_RECONCILIATION_INTERVAL = 5;
+    private static final int SESSION_ID_CHUNK_SIZE = 100;
 
     private int deleteChunkSize = 10000;
+    private ActiveSessionCounter activeSessionCounter;
 
     private UserSessionStore() {
 
@@ -70,6 +76,15 @@ public class UserSessionStore {
         if (StringUtils.isNotBlank(deleteChunkSizeString)) {
             deleteChunkSize = Integer.parseInt(deleteChunkSizeString);
         }
+        if (Boolean.parseBoolean(IdentityUtil.getProperty(ACTIVE_SESSION_COUNTER_PROPERTY + "Enable"))) {
+            long reconciliationInterval = getLongProperty(ACTIVE_SESSION_COUNTER_PROPERTY +
+                    "ReconciliationInterval", DEFAULT_ACTIVE_SESSION_RECONCILIATION_INTERVAL);
+            if (reconciliationInterval <= 0) {
+                reconciliationInterval = DEFAULT_ACTIVE_SESSION_RECONCILIATION_INTERVAL;
+            }
+            activeSessionCounter = new ActiveSessionCounter();
+            activeSessionCounter.start(this::loadSessionLastAccessTimes, reconciliationInterval);
+        }
     }
 
     public static UserSessionStore getInstance() {
@@ -406,6 +421,9 @@ public class UserSessionStore {
 
         try (Connection connection = IdentityDatabaseUtil.getDBConnection(true)) {
 
+            if (activeSessionCounter != null) {
+                recordSessionTermination(sessionIdList, connection);
+            }
             deleteSessionDataFromTable(sessionsToRemove, connection, IDN_AUTH_USER_SESSION_MAPPING_TABLE,
                     SQLQueries.SQL_DELETE_TERMINATED_SESSION_DATA);
             deleteSessionDataFromTable(sessionsToRemove, connection, IDN_AUTH_SESSION_APP_INFO_TABLE,
@@ -418,6 +436,41 @@ public class UserSessionStore {
         }
     }
 
+    /**
+     * Removes the given sessions from the active session count of their tenants. The tenant and the last access time
+     * of the sessions are read, a chunk of session ids per query, before their meta data is deleted. A session which
+     * can not be read stays counted until the next reconciliation of the count.
+     *
+     * @param sessionIdList list of terminated session IDs
+     * @param connection    database connection
+     */
+    private void recordSessionTermination(List<String> sessionIdList, Connection connection) {
+
+        for (int from = 0; from < sessionIdList.size(); from += SESSION_ID_CHUNK_SIZE) {
+            List<String> chunk = sessionIdList.subList(from, Math.min(from + SESSION_ID_CHUNK_SIZE,
+                    sessionIdList.size()));
+            String query = String.format(SQLQueries.SQL_GET_SESSION_LAST_ACCESS_TIMES_BY_SESSION_IDS,
+                    StringUtils.repeat("?", ",", chunk.size()));
+            try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                preparedStatement.setString(1, SessionMgtConstants.LAST_ACCESS_TIME);
+                for (int i = 0; i < chunk.size(); i++) {
+                    preparedStatement.setString(i + 2, chunk.get(i));
+                }
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        String lastAccessTime = resultSet.getString(2);
+                        if (StringUtils.isNotEmpty(lastAccessTime) && StringUtils.isNumeric(lastAccessTime)) {
+                            activeSessionCounter.sessionTerminated(resultSet.getInt(3), resultSet.getString(1),
+                                    Long.parseLong(lastAccessTime));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                log.error("Error while removing the terminated sessions from the active session count.", e);
+            }
+        }
+    }
+
     private Set<String> getSessionsTerminated(Connection connection) throws SQLException {
 
         Set<String> terminatedSessionIds = new HashSet<>();
@@ -614,6 +667,21 @@ public class UserSessionStore {
      */
     public void storeSessionMetaData(String sessionId, Map<String, String> metaData) throws UserSessionException {
 
+        storeSessionMetaData(sessionId, metaData, MultitenantConstants.INVALID_TENANT_ID);
+    }
+
+    /**
+     * Method to store session meta data of a session of the given tenant. The session is added to the active session
+     * count of the tenant.
+     *
+     * @param sessionId id of the authenticated session
+     * @param metaData  map of metadata type and value of the session
+     * @param tenantId  id of the tenant the session is stored in
+     * @throws UserSessionException while storing session meta data
+     */
+    public void storeSessionMetaData(String sessionId, Map<String, String> metaData, int tenantId)
+            throws UserSessionException {
+
         JdbcTemplate jdbcTemplate = JdbcUtils.getNewTemplate();
         try {
             jdbcTemplate.executeBatchInsert(SQLQueries.SQL_INSERT_SESSION_META_DATA, (preparedStatement -> {
@@ -628,6 +696,9 @@ public class UserSessionStore {
             throw new UserSessionException("Error while storing metadata of session:" + sessionId +
                     " in table " + IDN_AUTH_SESSION_META_DATA_TABLE + ".", e);
         }
+        if (activeSessionCounter != null) {
+            activeSessionCounter.sessionCreated(tenantId);
+        }
     }
 
     /**
@@ -809,6 +880,9 @@ public class UserSessionStore {
 
         int activeSessionCount = 0;
         int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        if (activeSessionCounter != null && activeSessionCounter.isReady()) {
+            return activeSessionCounter.getActiveSessionCount(tenantId);
+        }
         long idleSessionTimeOut = TimeUnit.SECONDS.toMillis(IdPManagementUtil.getIdleSessionTimeOut(tenantDomain));
         long currentTime = System.currentTimeMillis();
         long minTimestamp = currentTime - idleSessionTimeOut;
@@ -833,4 +907,66 @@ public class UserSessionStore {
         }
         return activeSessionCount;
     }
+
+    /**
+     * Passes the tenant and the last access time of every session of the session store which has one to the given
+     * handler, used to load and reconcile the active session count. The sessions are handled as they are read.
+     *
+     * @param handler handler of the sessions
+     * @throws UserSessionException if the sessions can not be retrieved
+     */
+    public void loadSessionLastAccessTimes(ActiveSessionCounter.SessionHandler handler) throws UserSessionException {
+
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    SQLQueries.SQL_GET_SESSION_LAST_ACCESS_TIMES)) {
+                preparedStatement.setString(1, SessionMgtConstants.LAST_ACCESS_TIME);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        String lastAccessTime = resultSet.getString(2);
+                        if (StringUtils.isNotEmpty(lastAccessTime) && StringUtils.isNumeric(lastAccessTime)) {
+                            handler.handle(resultSet.getInt(3), Long.parseLong(lastAccessTime));
+                        }
+                    }
+                }
+                IdentityDatabaseUtil.commitTransaction(connection);
+            }
+        } catch (SQLException e) {
+            throw new UserSessionException("Error while retrieving the last access time of the sessions.", e);
+        }
+    }
+
+    /**
+     * Returns the in-memory active session counter.
+     *
+     * @return the counter, or null if counting active sessions in memory is disabled
+     */
+    public ActiveSessionCounter getActiveSessionCounter() {
+
+        return activeSessionCounter;
+    }
+
+    /**
+     * Stops the in-memory active session counter, if it is enabled.
+     */
+    public void stopService() {
+
+        if (activeSessionCounter != null) {
+            activeSessionCounter.stop();
+        }
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+
+        String value = IdentityUtil.getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value: " + value + " for " + key + ". Using the default value: " + defaultValue);
+            return defaultValue;
+        }
+    }
 }
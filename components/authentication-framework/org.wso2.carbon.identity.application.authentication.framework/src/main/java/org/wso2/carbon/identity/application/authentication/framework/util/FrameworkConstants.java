@@ -234,6 +234,12 @@ public abstract class FrameworkConstants {
          */
         public static final String PUBLISH_ACTIVE_SESSION_COUNT = "Analytics.PublishActiveSessionCount";
 
+        /**
+         * Configuration to read only the local claims required by the service provider during local claim handling
+         * instead of every non-null local claim of the user.
+         */
+        public static final String RETRIEVE_REQUIRED_LOCAL_CLAIMS_ONLY = "ClaimHandler.RetrieveRequiredLocalClaimsOnly";
+
         /**
          * Configuration to enable preserving user from being logged out at password update by skipping current
          * session and token from being terminated.
@@ -427,6 +433,7 @@ public abstract class FrameworkConstants {
     public static class ContentTypes {
 
         public static final String TYPE_APPLICATION_JSON = "application/json";
+        public static final String TYPE_EVENT_STREAM = "text/event-stream";
 
         private ContentTypes() {
         }
@@ -449,6 +456,12 @@ public abstract class FrameworkConstants {
     public static class AdaptiveAuthentication {
 
         public static final String ADAPTIVE_AUTH_LONG_WAIT_TIMEOUT = "AdaptiveAuth.LongWaitTimeout";
+        public static final String ADAPTIVE_AUTH_LONG_POLL_TIMEOUT = "AdaptiveAuth.LongPollTimeout";
+        public static final String ASYNC_SEQUENCE_EXECUTOR_POOL_SIZE = "AdaptiveAuth.AsyncSequenceExecutorPoolSize";
+        public static final String ASYNC_SEQUENCE_EXECUTOR_QUEUE_SIZE = "AdaptiveAuth.AsyncSequenceExecutorQueueSize";
+        public static final String ASYNC_RETURN_EXECUTOR_POOL_SIZE = "AdaptiveAuth.AsyncReturnExecutorPoolSize";
+        public static final String ASYNC_CALL_TIMEOUT = "AdaptiveAuth.AsyncCallTimeout";
+        public static final String ASYNC_CALL_TIMEOUT_OUTCOME = "onTimeout";
     }
 
     public static class ResidentIdpPropertyName {
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.cache;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.dao.LongWaitStatusDAO;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.model.LongWaitStatus;
+import org.wso2.carbon.identity.application.authentication.framework.store.LongWaitStatusStoreService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.cache.event.CacheEntryEvent;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests of the status request wake ups done by LongWaitResultCacheListener.
+ */
+public class LongWaitResultCacheListenerTest {
+
+    private static final String WAIT_KEY = "wait-key";
+
+    private LongWaitResultCacheListener cacheListener;
+    private LongWaitStatusStoreService storeService;
+    private LongWaitStatusStoreService originalStoreService;
+    private AtomicInteger notifications;
+
+    @BeforeMethod
+    public void setUp() {
+
+        originalStoreService = FrameworkServiceDataHolder.getInstance().getLongWaitStatusStoreService();
+        storeService = new LongWaitStatusStoreService(mock(LongWaitStatusDAO.class), 5000);
+        FrameworkServiceDataHolder.getInstance().setLongWaitStatusStoreService(storeService);
+        cacheListener = new LongWaitResultCacheListener();
+        notifications = new AtomicInteger();
+        storeService.addCompletionListener(WAIT_KEY, notifications::incrementAndGet);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        FrameworkServiceDataHolder.getInstance().setLongWaitStatusStoreService(originalStoreService);
+    }
+
+    @Test
+    public void testCompletedEntryWakesRequests() {
+
+        cacheListener.entryUpdated(createEvent(LongWaitStatus.Status.COMPLETED));
+        assertEquals(notifications.get(), 1);
+    }
+
+    @Test
+    public void testWaitingEntryDoesNotWakeRequests() {
+
+        cacheListener.entryCreated(createEvent(LongWaitStatus.Status.WAITING));
+        assertEquals(notifications.get(), 0);
+    }
+
+    @Test
+    public void testInvalidatedEntryWakesRequests() {
+
+        // A completion in another node reaches this node as the invalidation of the local entry.
+        cacheListener.entryRemoved(createEvent(null));
+        assertEquals(notifications.get(), 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheEntryEvent<LongWaitResultCacheKey, LongWaitResultCacheEntry> createEvent(
+            LongWaitStatus.Status status) {
+
+        CacheEntryEvent<LongWaitResultCacheKey, LongWaitResultCacheEntry> event = mock(CacheEntryEvent.class);
+        when(event.getKey()).thenReturn(new LongWaitResultCacheKey(WAIT_KEY));
+        if (status != null) {
+            LongWaitStatus waitStatus = new LongWaitStatus();
+            waitStatus.setStatus(status);
+            when(event.getValue()).thenReturn(new LongWaitResultCacheEntry(waitStatus));
+        }
+        return event;
+    }
+}
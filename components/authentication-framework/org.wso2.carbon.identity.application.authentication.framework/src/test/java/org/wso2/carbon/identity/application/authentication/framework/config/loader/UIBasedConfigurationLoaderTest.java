@@ -21,11 +21,19 @@ package org.wso2.carbon.identity.application.authentication.framework.config.loa
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.application.authentication.framework.AbstractFrameworkTest;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
 import org.wso2.carbon.identity.application.common.model.AuthenticationStep;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.application.common.model.LocalAndOutboundAuthenticationConfig;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 
 
 @Test
@@ -56,4 +64,74 @@ public class UIBasedConfigurationLoaderTest extends AbstractFrameworkTest {
         assertNotNull(sequenceConfig.getStepMap().get(2));
     }
 
+    public void testGetSequenceConfigReturnsIndependentCopies() throws Exception {
+
+        ServiceProvider serviceProvider = createServiceProvider("template_sp", 2);
+        AuthenticationContext context = new AuthenticationContext();
+        context.setTenantDomain("test_domain");
+
+        SequenceConfig first = loader.getSequenceConfig(context, Collections.emptyMap(), serviceProvider);
+        first.getStepMap().get(1).setCompleted(true);
+        SequenceConfig second = loader.getSequenceConfig(context, Collections.emptyMap(), serviceProvider);
+
+        assertNotSame(second, first);
+        assertNotSame(second.getApplicationConfig(), first.getApplicationConfig());
+        assertNotSame(second.getStepMap().get(1), first.getStepMap().get(1));
+        assertFalse(second.getStepMap().get(1).isCompleted());
+        assertEquals(second.getStepMap().size(), 2);
+    }
+
+    public void testGetSequenceConfigForUpdatedServiceProvider() throws Exception {
+
+        AuthenticationContext context = new AuthenticationContext();
+        context.setTenantDomain("test_domain");
+
+        SequenceConfig sequenceConfig = loader.getSequenceConfig(context, Collections.emptyMap(),
+                createServiceProvider("updated_sp", 2));
+        assertEquals(sequenceConfig.getStepMap().size(), 2);
+
+        sequenceConfig = loader.getSequenceConfig(context, Collections.emptyMap(),
+                createServiceProvider("updated_sp", 1));
+        assertEquals(sequenceConfig.getStepMap().size(), 1);
+    }
+
+    public void testGetSequenceConfigReflectsCurrentClaimMappings() throws Exception {
+
+        ServiceProvider serviceProvider = createServiceProvider("claims_sp", 1);
+        ClaimConfig claimConfig = new ClaimConfig();
+        claimConfig.setClaimMappings(new ClaimMapping[]{
+                ClaimMapping.build("http://wso2.org/claims/emailaddress", "email", null, true)});
+        serviceProvider.setClaimConfig(claimConfig);
+        AuthenticationContext context = new AuthenticationContext();
+        context.setTenantDomain("test_domain");
+
+        SequenceConfig sequenceConfig = loader.getSequenceConfig(context, Collections.emptyMap(), serviceProvider);
+        assertEquals(sequenceConfig.getApplicationConfig().getClaimMappings().get("email"),
+                "http://wso2.org/claims/emailaddress");
+
+        // The claims of an SP claim dialect change without the service provider changing.
+        claimConfig.setClaimMappings(new ClaimMapping[]{
+                ClaimMapping.build("http://wso2.org/claims/emailaddress", "mail", null, true)});
+        sequenceConfig = loader.getSequenceConfig(context, Collections.emptyMap(), serviceProvider);
+        assertEquals(sequenceConfig.getApplicationConfig().getClaimMappings().get("mail"),
+                "http://wso2.org/claims/emailaddress");
+        assertFalse(sequenceConfig.getApplicationConfig().getClaimMappings().containsKey("email"));
+    }
+
+    private ServiceProvider createServiceProvider(String applicationName, int stepCount) {
+
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setApplicationName(applicationName);
+        LocalAndOutboundAuthenticationConfig localAndOutboundAuthenticationConfig =
+                new LocalAndOutboundAuthenticationConfig();
+        AuthenticationStep[] authenticationSteps = new AuthenticationStep[stepCount];
+        for (int i = 0; i < stepCount; i++) {
+            authenticationSteps[i] = new AuthenticationStep();
+            authenticationSteps[i].setStepOrder(i + 1);
+        }
+        localAndOutboundAuthenticationConfig.setAuthenticationSteps(authenticationSteps);
+        serviceProvider.setLocalAndOutBoundAuthenticationConfig(localAndOutboundAuthenticationConfig);
+        return serviceProvider;
+    }
+
 }
\ No newline at end of file
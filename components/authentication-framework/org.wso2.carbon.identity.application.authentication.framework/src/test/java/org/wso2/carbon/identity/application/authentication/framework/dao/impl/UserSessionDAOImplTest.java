@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.dao.impl;
+
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.model.Application;
+import org.wso2.carbon.identity.application.authentication.framework.model.UserSession;
+import org.wso2.carbon.identity.application.authentication.framework.store.DataStoreBaseTest;
+import org.wso2.carbon.identity.application.authentication.framework.util.SessionMgtConstants;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+/**
+ * Tests the set based retrieval of user sessions against a user with many sessions.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class})
+@PowerMockIgnore({"javax.xml.*"})
+public class UserSessionDAOImplTest extends DataStoreBaseTest {
+
+    private static final String DB_NAME = "USER_SESSION_DAO";
+    private static final int SESSION_COUNT = 250;
+    private static final String SESSION_WITHOUT_APPLICATIONS = "session-without-applications";
+
+    private final List<String> sessionIds = new ArrayList<>();
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        initH2DB(DB_NAME, getDatabaseScriptFilePath("user_sessions_h2.sql"));
+        try (Connection connection = getConnection(DB_NAME);
+             PreparedStatement appInfo = connection.prepareStatement("INSERT INTO IDN_AUTH_SESSION_APP_INFO " +
+                     "(SESSION_ID, SUBJECT, APP_ID, INBOUND_AUTH_TYPE) VALUES (?, ?, ?, ?)");
+             PreparedStatement metaData = connection.prepareStatement(
+                     "INSERT INTO IDN_AUTH_SESSION_META_DATA (SESSION_ID, PROPERTY_TYPE, VALUE) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < SESSION_COUNT; i++) {
+                String sessionId = "session-" + i;
+                sessionIds.add(sessionId);
+                for (int appId = 1; appId <= 2; appId++) {
+                    appInfo.setString(1, sessionId);
+                    appInfo.setString(2, "user" + i);
+                    appInfo.setInt(3, appId);
+                    appInfo.setString(4, "oauth2");
+                    appInfo.addBatch();
+                }
+                addMetaData(metaData, sessionId, i);
+            }
+            addMetaData(metaData, SESSION_WITHOUT_APPLICATIONS, SESSION_COUNT);
+            appInfo.executeBatch();
+            metaData.executeBatch();
+        }
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        closeH2DB(DB_NAME);
+    }
+
+    @BeforeMethod
+    public void mockDataSource() {
+
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDataSource()).thenReturn(getDatasource(DB_NAME));
+    }
+
+    @Test
+    public void testGetSessions() throws Exception {
+
+        List<String> requestedSessionIds = new ArrayList<>(sessionIds);
+        Collections.reverse(requestedSessionIds);
+        requestedSessionIds.add(SESSION_WITHOUT_APPLICATIONS);
+        requestedSessionIds.add("session-0");
+
+        List<UserSession> sessions = new UserSessionDAOImpl().getSessions(requestedSessionIds);
+
+        Assert.assertEquals(sessions.size(), SESSION_COUNT);
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            int index = SESSION_COUNT - 1 - i;
+            UserSession userSession = sessions.get(i);
+            Assert.assertEquals(userSession.getSessionId(), "session-" + index);
+            Assert.assertEquals(userSession.getApplications().size(), 2);
+            Assert.assertEquals(userSession.getUserAgent(), "agent-" + index);
+            Assert.assertEquals(userSession.getIp(), "10.0.0." + index);
+            Assert.assertEquals(userSession.getLoginTime(), String.valueOf(1000L + index));
+            Assert.assertEquals(userSession.getLastAccessTime(), String.valueOf(2000L + index));
+        }
+    }
+
+    @Test
+    public void testGetSessionsMatchesGetSession() throws Exception {
+
+        UserSessionDAOImpl userSessionDAO = new UserSessionDAOImpl();
+        List<UserSession> sessions = userSessionDAO.getSessions(sessionIds.subList(0, 5));
+
+        Assert.assertEquals(sessions.size(), 5);
+        for (UserSession userSession : sessions) {
+            UserSession expected = userSessionDAO.getSession(userSession.getSessionId());
+            Assert.assertEquals(userSession.getUserAgent(), expected.getUserAgent());
+            Assert.assertEquals(userSession.getIp(), expected.getIp());
+            Assert.assertEquals(userSession.getLoginTime(), expected.getLoginTime());
+            Assert.assertEquals(userSession.getLastAccessTime(), expected.getLastAccessTime());
+            Assert.assertEquals(toString(userSession.getApplications()), toString(expected.getApplications()));
+        }
+        Assert.assertNull(userSessionDAO.getSession(SESSION_WITHOUT_APPLICATIONS));
+        Assert.assertTrue(userSessionDAO.getSessions(Collections.singletonList(SESSION_WITHOUT_APPLICATIONS))
+                .isEmpty());
+    }
+
+    private static void addMetaData(PreparedStatement metaData, String sessionId, int index) throws Exception {
+
+        String[][] properties = {
+                {SessionMgtConstants.USER_AGENT, "agent-" + index},
+                {SessionMgtConstants.IP_ADDRESS, "10.0.0." + index},
+                {SessionMgtConstants.LOGIN_TIME, String.valueOf(1000L + index)},
+                {SessionMgtConstants.LAST_ACCESS_TIME, String.valueOf(2000L + index)}
+        };
+        for (String[] property : properties) {
+            metaData.setString(1, sessionId);
+            metaData.setString(2, property[0]);
+            metaData.setString(3, property[1]);
+            metaData.addBatch();
+        }
+    }
+
+    private static List<String> toString(List<Application> applications) {
+
+        List<String> values = new ArrayList<>();
+        for (Application application : applications) {
+            values.add(application.getSubject() + "|" + application.getAppName() + "|" + application.getAppId() +
+                    "|" + application.getResourceId());
+        }
+        Collections.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.claims.impl;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.core.util.AnonymousSessionUtil;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ApplicationConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.StepConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.LocalAndOutboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.mgt.ApplicationConstants;
+import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataHandler;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserRealm;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.claim.ClaimManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@PrepareForTest({AnonymousSessionUtil.class, ClaimMetadataHandler.class, IdentityUtil.class})
+public class DefaultClaimHandlerTest extends PowerMockTestCase {
+
+    private static final String USER_NAME = "john";
+    private static final String LOCAL_EMAIL_CLAIM = "http://wso2.org/claims/emailaddress";
+    private static final String LOCAL_COUNTRY_CLAIM = "http://wso2.org/claims/country";
+    private static final String LOCAL_MOBILE_CLAIM = "http://wso2.org/claims/mobile";
+    private static final String LOCAL_LAST_NAME_CLAIM = "http://wso2.org/claims/lastname";
+    private static final String OIDC_DIALECT = "http://wso2.org/oidc/claim";
+
+    private Map<String, String> userClaims;
+    private List<String[]> requestedClaimURIs;
+    private UserStoreManager userStoreManager;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        userClaims = new HashMap<>();
+        userClaims.put(LOCAL_EMAIL_CLAIM, "john@wso2.com");
+        userClaims.put(LOCAL_COUNTRY_CLAIM, "Sri Lanka");
+        userClaims.put(LOCAL_MOBILE_CLAIM, "0771234567");
+        userClaims.put(LOCAL_LAST_NAME_CLAIM, "Doe");
+        requestedClaimURIs = new ArrayList<>();
+
+        userStoreManager = mock(UserStoreManager.class);
+        when(userStoreManager.getUserClaimValues(eq(USER_NAME), any(String[].class), (String) isNull()))
+                .thenAnswer(invocation -> {
+                    String[] claimURIs = (String[]) invocation.getArguments()[1];
+                    requestedClaimURIs.add(claimURIs);
+                    Map<String, String> values = new HashMap<>();
+                    for (String claimURI : claimURIs) {
+                        if (userClaims.containsKey(claimURI)) {
+                            values.put(claimURI, userClaims.get(claimURI));
+                        }
+                    }
+                    return values;
+                });
+        when(userStoreManager.getRealmConfiguration()).thenReturn(mock(RealmConfiguration.class));
+
+        List<org.wso2.carbon.user.core.claim.ClaimMapping> localClaimMappings = new ArrayList<>();
+        for (String claimURI : userClaims.keySet()) {
+            org.wso2.carbon.user.core.claim.Claim claim = new org.wso2.carbon.user.core.claim.Claim();
+            claim.setClaimUri(claimURI);
+            org.wso2.carbon.user.core.claim.ClaimMapping claimMapping =
+                    mock(org.wso2.carbon.user.core.claim.ClaimMapping.class);
+            when(claimMapping.getClaim()).thenReturn(claim);
+            localClaimMappings.add(claimMapping);
+        }
+        ClaimManager claimManager = mock(ClaimManager.class);
+        when(claimManager.getAllClaimMappings(ApplicationConstants.LOCAL_IDP_DEFAULT_CLAIM_DIALECT))
+                .thenReturn(localClaimMappings.toArray(new org.wso2.carbon.user.core.claim.ClaimMapping[0]));
+
+        UserRealm userRealm = mock(UserRealm.class);
+        when(userRealm.getUserStoreManager()).thenReturn(userStoreManager);
+        when(userRealm.getClaimManager()).thenReturn(claimManager);
+        mockStatic(AnonymousSessionUtil.class);
+        when(AnonymousSessionUtil.getRealmByTenantDomain(any(), any(), anyString())).thenReturn(userRealm);
+    }
+
+    @Test
+    public void testRequiredLocalClaimsOnlyAreRetrieved() throws Exception {
+
+        Map<String, String> claims = handleLocalClaims(false, buildContext());
+
+        assertEquals(requestedClaimURIs.size(), 1);
+        assertEquals(new HashSet<>(Arrays.asList(requestedClaimURIs.get(0))),
+                new HashSet<>(Arrays.asList(LOCAL_EMAIL_CLAIM, LOCAL_COUNTRY_CLAIM)));
+        assertEquals(claims.get("email"), "john@wso2.com");
+    }
+
+    @Test
+    public void testReturnedClaimsMatchAllLocalClaimsMode() throws Exception {
+
+        AuthenticationContext requiredClaimsContext = buildContext();
+        Map<String, String> requiredClaims = handleLocalClaims(false, requiredClaimsContext);
+        AuthenticationContext allClaimsContext = buildContext();
+        Map<String, String> allClaims = handleLocalClaims(true, allClaimsContext);
+
+        assertEquals(requestedClaimURIs.get(1).length, userClaims.size());
+        assertEquals(requiredClaims, allClaims);
+        assertEquals(requiredClaimsContext.getProperty(FrameworkConstants.SERVICE_PROVIDER_SUBJECT_CLAIM_VALUE),
+                "Sri Lanka");
+        assertEquals(requiredClaimsContext.getProperty(FrameworkConstants.SERVICE_PROVIDER_SUBJECT_CLAIM_VALUE),
+                allClaimsContext.getProperty(FrameworkConstants.SERVICE_PROVIDER_SUBJECT_CLAIM_VALUE));
+    }
+
+    @Test
+    public void testAllLocalClaimsAreRetrievedByDefault() {
+
+        mockStatic(IdentityUtil.class);
+        DefaultClaimHandler claimHandler = new DefaultClaimHandler();
+        AuthenticationContext context = buildContext();
+        assertTrue(claimHandler.isRetrieveAllLocalClaims(context));
+
+        when(IdentityUtil.getProperty(FrameworkConstants.Config.RETRIEVE_REQUIRED_LOCAL_CLAIMS_ONLY))
+                .thenReturn("true");
+        assertFalse(claimHandler.isRetrieveAllLocalClaims(context));
+
+        context.setRequestType(FrameworkConstants.RequestType.CLAIM_TYPE_OPENID);
+        assertTrue(claimHandler.isRetrieveAllLocalClaims(context));
+    }
+
+    @Test
+    public void testOutboundClaimsMatchAllLocalClaimsMode() throws Exception {
+
+        AuthenticationContext requiredClaimsContext = buildContext();
+        handleLocalClaims(false, requiredClaimsContext);
+        AuthenticationContext allClaimsContext = buildContext();
+        handleLocalClaims(true, allClaimsContext);
+
+        Map<String, String> outboundClaims = new HashMap<>();
+        outboundClaims.put("email", "john@wso2.com");
+        outboundClaims.put("country", "Sri Lanka");
+        assertEquals(requiredClaimsContext.getProperty(FrameworkConstants.UNFILTERED_SP_CLAIM_VALUES), outboundClaims);
+        assertEquals(requiredClaimsContext.getProperty(FrameworkConstants.UNFILTERED_SP_CLAIM_VALUES),
+                allClaimsContext.getProperty(FrameworkConstants.UNFILTERED_SP_CLAIM_VALUES));
+    }
+
+    @Test
+    public void testStandardDialectClaimsMatchAllLocalClaimsMode() throws Exception {
+
+        Map<String, String> oidcToLocalClaimMappings = new HashMap<>();
+        oidcToLocalClaimMappings.put("email", LOCAL_EMAIL_CLAIM);
+        oidcToLocalClaimMappings.put("phone_number", LOCAL_MOBILE_CLAIM);
+        Map<String, String> localToOidcClaimMappings = new HashMap<>();
+        localToOidcClaimMappings.put(LOCAL_EMAIL_CLAIM, "email");
+        localToOidcClaimMappings.put(LOCAL_MOBILE_CLAIM, "phone_number");
+        ClaimMetadataHandler claimMetadataHandler = mock(ClaimMetadataHandler.class);
+        when(claimMetadataHandler.getMappingsMapFromOtherDialectToCarbon(OIDC_DIALECT, null, "carbon.super", false))
+                .thenAnswer(invocation -> new HashMap<>(oidcToLocalClaimMappings));
+        when(claimMetadataHandler.getMappingsMapFromOtherDialectToCarbon(OIDC_DIALECT, null, "carbon.super", true))
+                .thenAnswer(invocation -> new HashMap<>(localToOidcClaimMappings));
+        mockStatic(ClaimMetadataHandler.class);
+        when(ClaimMetadataHandler.getInstance()).thenReturn(claimMetadataHandler);
+
+        AuthenticationContext requiredClaimsContext = buildContext(new ClaimMapping[0], null);
+        handleLocalClaims(false, OIDC_DIALECT, requiredClaimsContext);
+        AuthenticationContext allClaimsContext = buildContext(new ClaimMapping[0], null);
+        handleLocalClaims(true, OIDC_DIALECT, allClaimsContext);
+
+        assertEquals(new HashSet<>(Arrays.asList(requestedClaimURIs.get(0))),
+                new HashSet<>(Arrays.asList(LOCAL_EMAIL_CLAIM, LOCAL_MOBILE_CLAIM)));
+        Map<String, String> standardDialectClaims = new HashMap<>();
+        standardDialectClaims.put("email", "john@wso2.com");
+        standardDialectClaims.put("phone_number", "0771234567");
+        assertEquals(requiredClaimsContext.getProperty(FrameworkConstants.UNFILTERED_SP_CLAIM_VALUES),
+                standardDialectClaims);
+        assertEquals(requiredClaimsContext.getProperty(FrameworkConstants.UNFILTERED_SP_CLAIM_VALUES),
+                allClaimsContext.getProperty(FrameworkConstants.UNFILTERED_SP_CLAIM_VALUES));
+    }
+
+    private Map<String, String> handleLocalClaims(boolean retrieveAllLocalClaims, AuthenticationContext context)
+            throws Exception {
+
+        return handleLocalClaims(retrieveAllLocalClaims, null, context);
+    }
+
+    private Map<String, String> handleLocalClaims(boolean retrieveAllLocalClaims, String spStandardDialect,
+                                                  AuthenticationContext context) throws Exception {
+
+        DefaultClaimHandler claimHandler = spy(new DefaultClaimHandler());
+        doReturn(retrieveAllLocalClaims).when(claimHandler).isRetrieveAllLocalClaims(any(AuthenticationContext.class));
+        StepConfig stepConfig = new StepConfig();
+        stepConfig.setAuthenticatedUser(context.getSequenceConfig().getAuthenticatedUser());
+        return claimHandler.handleLocalClaims(spStandardDialect, stepConfig, context);
+    }
+
+    private AuthenticationContext buildContext() {
+
+        return buildContext(new ClaimMapping[]{
+                buildClaimMapping(LOCAL_EMAIL_CLAIM, "email", true),
+                buildClaimMapping(LOCAL_COUNTRY_CLAIM, "country", false)
+        }, "country");
+    }
+
+    private AuthenticationContext buildContext(ClaimMapping[] claimMappings, String subjectClaimUri) {
+
+        ClaimConfig claimConfig = new ClaimConfig();
+        claimConfig.setLocalClaimDialect(false);
+        claimConfig.setClaimMappings(claimMappings);
+        LocalAndOutboundAuthenticationConfig outboundConfig = new LocalAndOutboundAuthenticationConfig();
+        outboundConfig.setSubjectClaimUri(subjectClaimUri);
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setClaimConfig(claimConfig);
+        serviceProvider.setLocalAndOutBoundAuthenticationConfig(outboundConfig);
+
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName(USER_NAME);
+        authenticatedUser.setTenantDomain("carbon.super");
+        SequenceConfig sequenceConfig = new SequenceConfig();
+        sequenceConfig.setApplicationConfig(new ApplicationConfig(serviceProvider));
+        sequenceConfig.setAuthenticatedUser(authenticatedUser);
+
+        AuthenticationContext context = new AuthenticationContext();
+        context.setSequenceConfig(sequenceConfig);
+        context.setRequestType("samlsso");
+        return context;
+    }
+
+    private ClaimMapping buildClaimMapping(String localClaimURI, String remoteClaimURI, boolean requested) {
+
+        ClaimMapping claimMapping = new ClaimMapping();
+        Claim localClaim = new Claim();
+        localClaim.setClaimUri(localClaimURI);
+        Claim remoteClaim = new Claim();
+        remoteClaim.setClaimUri(remoteClaimURI);
+        claimMapping.setLocalClaim(localClaim);
+        claimMapping.setRemoteClaim(remoteClaim);
+        claimMapping.setRequested(requested);
+        return claimMapping;
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.wso2.carbon.identity.application.authentication.framework.handler.provisioning.impl;
 
+import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
 import org.testng.IObjectFactory;
@@ -25,21 +26,76 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.ObjectFactory;
 import org.testng.annotations.Test;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.core.util.AnonymousSessionUtil;
+import org.wso2.carbon.core.util.PermissionUpdateUtil;
 import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceComponent;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.authentication.framwork.test.utils.CommonTestUtils;
+import org.wso2.carbon.identity.application.common.model.User;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.FederatedAssociationManager;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.cache.FederatedAssociationCache;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.cache.FederatedAssociationCacheEntry;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.cache.FederatedAssociationCacheKey;
+import org.wso2.carbon.registry.core.service.RegistryService;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserRealm;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.doNothing;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
-@PrepareForTest(FrameworkUtils.class)
+@PrepareForTest({FrameworkUtils.class, FrameworkServiceComponent.class, AnonymousSessionUtil.class,
+        PermissionUpdateUtil.class, IdentityUtil.class, FederatedAssociationCache.class})
 //@PowerMockIgnore({"org.xml.*","org.w3c.*"})
 public class DefaultProvisioningHandlerTest extends PowerMockTestCase {
 
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String IDP = "federatedIdP";
+    private static final String SUBJECT = "federatedSubject";
+    private static final String USERNAME = "federatedUser";
+    private static final String EVERYONE_ROLE = "Internal/everyone";
+    private static final String EMAIL_CLAIM = "http://wso2.org/claims/emailaddress";
+    private static final String LAST_NAME_CLAIM = "http://wso2.org/claims/lastname";
+
     private DefaultProvisioningHandler provisioningHandler;
 
+    /* state of the mocked user store and the association store */
+    private Map<String, String> storedClaims;
+    private Set<String> storedRoles;
+    private Map<String, String> storedAssociations;
+    private Map<FederatedAssociationCacheKey, FederatedAssociationCacheEntry> cachedAssociations;
+    private boolean userExists;
+    private UserStoreManager userStoreManager;
+    private RealmConfiguration realmConfiguration;
+    private FederatedAssociationManager federatedAssociationManager;
+
     @BeforeMethod
     public void setUp() throws Exception {
         provisioningHandler = new DefaultProvisioningHandler();
@@ -63,6 +119,251 @@ public class DefaultProvisioningHandlerTest extends PowerMockTestCase {
     public void testHandle() throws Exception {
     }
 
+    @DataProvider(name = "deltaUpdateProvider")
+    public Object[][] getDeltaUpdateModes() {
+        return new Object[][]{
+                {false},
+                {true},
+        };
+    }
+
+    @Test(dataProvider = "deltaUpdateProvider")
+    public void testHandleCreatesUser(boolean deltaUpdate) throws Exception {
+
+        mockProvisioningEnvironment(deltaUpdate);
+        provision(claims("a@wso2.com", "Smith"), "Internal/subscriber");
+
+        assertEquals(storedClaims, claims("a@wso2.com", "Smith"));
+        assertEquals(storedRoles, roles("Internal/subscriber"));
+        assertEquals(storedAssociations.get(SUBJECT), USERNAME);
+        verifyStatic(times(1));
+        PermissionUpdateUtil.updatePermissionTree(anyInt());
+    }
+
+    @Test
+    public void testDeltaUpdateSkipsUnchangedUser() throws Exception {
+
+        mockProvisioningEnvironment(true);
+        provision(claims("a@wso2.com", "Smith"), "Internal/subscriber");
+        Mockito.reset(userStoreManager, federatedAssociationManager);
+        mockUserStore();
+        mockAssociationStore();
+        mockStatic(PermissionUpdateUtil.class);
+
+        provision(claims("a@wso2.com", "Smith"), "Internal/subscriber");
+
+        verify(userStoreManager, never()).setUserClaimValues(anyString(), anyMap(), anyString());
+        verify(userStoreManager, never()).updateRoleListOfUser(anyString(), any(String[].class),
+                any(String[].class));
+        verify(federatedAssociationManager, never()).getUserForFederatedAssociation(anyString(), anyString(),
+                anyString());
+        verifyStatic(never());
+        PermissionUpdateUtil.updatePermissionTree(anyInt());
+    }
+
+    @Test
+    public void testDeltaUpdateLooksUpDeletedAssociation() throws Exception {
+
+        mockProvisioningEnvironment(true);
+        provision(claims("a@wso2.com", "Smith"), "Internal/subscriber");
+        assertEquals(cachedAssociations.size(), 1);
+
+        // Deleting the association removes it from the cache, so the next login associates the user again.
+        storedAssociations.clear();
+        cachedAssociations.clear();
+        provision(claims("a@wso2.com", "Smith"), "Internal/subscriber");
+
+        verify(federatedAssociationManager).getUserForFederatedAssociation(TENANT_DOMAIN, IDP, SUBJECT);
+        assertEquals(storedAssociations.get(SUBJECT), USERNAME);
+        assertEquals(cachedAssociations.size(), 1);
+    }
+
+    @Test
+    public void testDeltaUpdateWritesOnlyModifiedClaims() throws Exception {
+
+        mockProvisioningEnvironment(true);
+        provision(claims("a@wso2.com", "Smith"), "Internal/subscriber");
+        Mockito.reset(userStoreManager);
+        mockUserStore();
+        mockStatic(PermissionUpdateUtil.class);
+
+        provision(claims("b@wso2.com", "Smith"), "Internal/subscriber");
+
+        Map<String, String> modifiedClaims = new HashMap<>();
+        modifiedClaims.put(EMAIL_CLAIM, "b@wso2.com");
+        verify(userStoreManager).setUserClaimValues(USERNAME, modifiedClaims, null);
+        verify(userStoreManager, never()).updateRoleListOfUser(anyString(), any(String[].class),
+                any(String[].class));
+        verifyStatic(never());
+        PermissionUpdateUtil.updatePermissionTree(anyInt());
+    }
+
+    @Test
+    public void testDeltaUpdateUpdatesPermissionTreeOnRoleChange() throws Exception {
+
+        mockProvisioningEnvironment(true);
+        provision(claims("a@wso2.com", "Smith"), "Internal/subscriber");
+        mockStatic(PermissionUpdateUtil.class);
+
+        provision(claims("a@wso2.com", "Smith"), "Internal/creator");
+
+        assertEquals(storedRoles, roles("Internal/creator"));
+        verifyStatic(times(1));
+        PermissionUpdateUtil.updatePermissionTree(anyInt());
+    }
+
+    @Test
+    public void testDeltaUpdateMatchesFullUpdate() throws Exception {
+
+        List<Map<String, String>> claimSequence = Arrays.asList(
+                claims("a@wso2.com", "Smith"),
+                claims("a@wso2.com", "Smith"),
+                claims("b@wso2.com", "Smith"),
+                claims("b@wso2.com", "Jones"),
+                claims("b@wso2.com", "Jones"));
+        List<String[]> roleSequence = Arrays.asList(
+                new String[]{"Internal/subscriber"},
+                new String[]{"Internal/subscriber"},
+                new String[]{"Internal/subscriber", "Internal/creator"},
+                new String[]{"Internal/creator"},
+                new String[]{"Internal/creator"});
+
+        Map<Boolean, Map<String, String>> finalClaims = new HashMap<>();
+        Map<Boolean, Set<String>> finalRoles = new HashMap<>();
+        for (boolean deltaUpdate : new boolean[]{false, true}) {
+            mockProvisioningEnvironment(deltaUpdate);
+            for (int i = 0; i < claimSequence.size(); i++) {
+                provision(claimSequence.get(i), roleSequence.get(i));
+            }
+            finalClaims.put(deltaUpdate, storedClaims);
+            finalRoles.put(deltaUpdate, storedRoles);
+            assertEquals(storedAssociations.get(SUBJECT), USERNAME);
+        }
+        assertEquals(finalClaims.get(true), finalClaims.get(false));
+        assertEquals(finalRoles.get(true), finalRoles.get(false));
+    }
+
+    private void provision(Map<String, String> claims, String... roles) throws Exception {
+
+        Map<String, String> attributes = new HashMap<>(claims);
+        attributes.put(FrameworkConstants.IDP_ID, IDP);
+        attributes.put(FrameworkConstants.ASSOCIATED_ID, SUBJECT);
+        provisioningHandler.handle(new ArrayList<>(Arrays.asList(roles)), USERNAME, attributes, null,
+                TENANT_DOMAIN);
+    }
+
+    private void mockProvisioningEnvironment(boolean deltaUpdate) throws Exception {
+
+        provisioningHandler = new DefaultProvisioningHandler();
+        storedClaims = new HashMap<>();
+        storedRoles = new HashSet<>();
+        storedAssociations = new HashMap<>();
+        cachedAssociations = new HashMap<>();
+        userExists = false;
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty("JITProvisioning.DeltaUpdate.Enable")).thenReturn(String.valueOf(deltaUpdate));
+
+        RealmService realmService = mock(RealmService.class);
+        TenantManager tenantManager = mock(TenantManager.class);
+        when(realmService.getTenantManager()).thenReturn(tenantManager);
+        when(tenantManager.getTenantId(TENANT_DOMAIN)).thenReturn(-1234);
+        mockStatic(FrameworkServiceComponent.class);
+        when(FrameworkServiceComponent.getRealmService()).thenReturn(realmService);
+        when(FrameworkServiceComponent.getRegistryService()).thenReturn(mock(RegistryService.class));
+
+        realmConfiguration = mock(RealmConfiguration.class);
+        when(realmConfiguration.getEveryOneRoleName()).thenReturn(EVERYONE_ROLE);
+        when(realmConfiguration.getAdminUserName()).thenReturn("admin");
+        when(realmConfiguration.isPrimary()).thenReturn(true);
+        userStoreManager = mock(UserStoreManager.class);
+        mockUserStore();
+        UserRealm realm = mock(UserRealm.class);
+        when(realm.getRealmConfiguration()).thenReturn(realmConfiguration);
+        when(realm.getUserStoreManager()).thenReturn(userStoreManager);
+        mockStatic(AnonymousSessionUtil.class);
+        when(AnonymousSessionUtil.getRealmByTenantDomain(any(RegistryService.class), any(RealmService.class),
+                anyString())).thenReturn(realm);
+
+        federatedAssociationManager = mock(FederatedAssociationManager.class);
+        mockAssociationStore();
+        mockStatic(FrameworkUtils.class);
+        when(FrameworkUtils.getFederatedAssociationManager()).thenReturn(federatedAssociationManager);
+        mockStatic(PermissionUpdateUtil.class);
+
+        FederatedAssociationCache federatedAssociationCache = mock(FederatedAssociationCache.class);
+        when(federatedAssociationCache.getValueFromCache(any(FederatedAssociationCacheKey.class)))
+                .thenAnswer(invocation -> cachedAssociations.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> {
+            cachedAssociations.put((FederatedAssociationCacheKey) invocation.getArguments()[0],
+                    (FederatedAssociationCacheEntry) invocation.getArguments()[1]);
+            return null;
+        }).when(federatedAssociationCache).addToCache(any(FederatedAssociationCacheKey.class),
+                any(FederatedAssociationCacheEntry.class));
+        mockStatic(FederatedAssociationCache.class);
+        when(FederatedAssociationCache.getInstance()).thenReturn(federatedAssociationCache);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockUserStore() throws Exception {
+
+        when(userStoreManager.getRealmConfiguration()).thenReturn(realmConfiguration);
+        when(userStoreManager.isExistingUser(USERNAME)).thenAnswer(invocation -> userExists);
+        doAnswer(invocation -> {
+            userExists = true;
+            storedClaims.putAll((Map<String, String>) invocation.getArguments()[3]);
+            return null;
+        }).when(userStoreManager).addUser(anyString(), anyObject(), any(String[].class), anyMap(), anyString());
+        doAnswer(invocation -> {
+            storedClaims.putAll((Map<String, String>) invocation.getArguments()[1]);
+            return null;
+        }).when(userStoreManager).setUserClaimValues(anyString(), anyMap(), anyString());
+        when(userStoreManager.getUserClaimValues(anyString(), any(String[].class), anyString()))
+                .thenAnswer(invocation -> {
+                    Map<String, String> values = new HashMap<>();
+                    for (String claim : (String[]) invocation.getArguments()[1]) {
+                        if (storedClaims.containsKey(claim)) {
+                            values.put(claim, storedClaims.get(claim));
+                        }
+                    }
+                    return values;
+                });
+        when(userStoreManager.getRoleListOfUser(USERNAME)).thenAnswer(invocation -> {
+            List<String> roles = new ArrayList<>(storedRoles);
+            roles.add(EVERYONE_ROLE);
+            return roles.toArray(new String[0]);
+        });
+        doAnswer(invocation -> {
+            storedRoles.removeAll(Arrays.asList((String[]) invocation.getArguments()[1]));
+            storedRoles.addAll(Arrays.asList((String[]) invocation.getArguments()[2]));
+            return null;
+        }).when(userStoreManager).updateRoleListOfUser(anyString(), any(String[].class), any(String[].class));
+    }
+
+    private void mockAssociationStore() throws Exception {
+
+        when(federatedAssociationManager.getUserForFederatedAssociation(TENANT_DOMAIN, IDP, SUBJECT))
+                .thenAnswer(invocation -> storedAssociations.get(SUBJECT));
+        doAnswer(invocation -> {
+            storedAssociations.put((String) invocation.getArguments()[2],
+                    ((User) invocation.getArguments()[0]).getUserName());
+            return null;
+        }).when(federatedAssociationManager).createFederatedAssociation(any(User.class), anyString(), anyString());
+    }
+
+    private static Map<String, String> claims(String email, String lastName) {
+
+        Map<String, String> claims = new HashMap<>();
+        claims.put(EMAIL_CLAIM, email);
+        claims.put(LAST_NAME_CLAIM, lastName);
+        return claims;
+    }
+
+    private static Set<String> roles(String... roles) {
+
+        return new HashSet<>(Arrays.asList(roles));
+    }
+
     @ObjectFactory
     public IObjectFactory getObjectFactory() {
         return new org.powermock.modules.testng.PowerMockObjectFactory();
@@ -0,0 +1,513 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.request.impl;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.AbstractFrameworkTest;
+import org.wso2.carbon.identity.application.authentication.framework.MockAuthenticator;
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationRequestCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.config.builder.FileBasedConfigurationBuilder;
+import org.wso2.carbon.identity.application.authentication.framework.config.loader.UIBasedConfigurationLoader;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.graph.JsFunctionRegistryImpl;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.graph.JsGraphBuilderFactory;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
+import org.wso2.carbon.identity.application.authentication.framework.handler.SubjectCallback;
+import org.wso2.carbon.identity.application.authentication.framework.handler.sequence.impl.AsyncSequenceExecutor;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationRequest;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.IdentityProviderProperty;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.common.testng.WithH2Database;
+import org.wso2.carbon.identity.common.testng.WithRealmService;
+import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+import org.wso2.carbon.user.core.UserRealm;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * In-process login throughput harness. Drives complete logins through {@link DefaultRequestCoordinator}, the step
+ * and graph based sequence handlers, the session data store and the user session store on an in-memory H2 database,
+ * using a stub local authenticator and a configurable number of concurrent virtual clients.
+ * <p>
+ * The harness is not part of the default test suite. Run it with
+ * {@code mvn test -Plogin-harness -Dlogin.harness.clients=16 -Dlogin.harness.logins=2000}. For each scenario it logs
+ * the throughput, p50 and p99 latency and the number of JDBC statements executed per login.
+ */
+@WithCarbonHome
+@WithH2Database(jndiName = "jdbc/WSO2IdentityDB", files = {"dbScripts/h2.sql",
+        "dbScripts/user_session_store_h2.sql", "dbScripts/login_harness_h2.sql"})
+@WithRealmService(injectToSingletons = {FrameworkServiceDataHolder.class})
+public class LoginThroughputHarnessTest extends AbstractFrameworkTest {
+
+    private static final Log log = LogFactory.getLog(LoginThroughputHarnessTest.class);
+
+    private static final String AUTHENTICATOR_NAME = "HarnessMockAuthenticator";
+    private static final String APPLICATION_AUTHENTICATION_FILE = "/org/wso2/carbon/identity/application/" +
+            "authentication/framework/handler/sequence/impl/application-authentication-GraphStepHandlerTest.xml";
+    private static final String CALLER_PATH = "/oauth2/authorize";
+    private static final String REQUEST_TYPE = "oauth2";
+    private static final String USER_NAME_PREFIX = "harness_user_";
+
+    private static final int CLIENTS = Integer.getInteger("login.harness.clients", 4);
+    private static final int LOGINS = Integer.getInteger("login.harness.logins", 200);
+
+    private static final ThreadLocal<String> currentUser = new ThreadLocal<>();
+    private static final AtomicLong authenticatorInvocations = new AtomicLong();
+    private static final AtomicLong statementExecutions = new AtomicLong();
+
+    private HarnessRequestCoordinator requestCoordinator;
+    private ServiceProvider serviceProvider;
+    private ServiceProvider adaptiveServiceProvider;
+    private IdentityProviderManager originalIdentityProviderManager;
+    private RealmService originalRealmService;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        FrameworkServiceDataHolder dataHolder = FrameworkServiceDataHolder.getInstance();
+        dataHolder.setJsFunctionRegistry(new JsFunctionRegistryImpl());
+        JsGraphBuilderFactory graphBuilderFactory = new JsGraphBuilderFactory();
+        graphBuilderFactory.init();
+        dataHolder.setJsGraphBuilderFactory(graphBuilderFactory);
+        AsyncSequenceExecutor asyncSequenceExecutor = new AsyncSequenceExecutor();
+        asyncSequenceExecutor.init();
+        dataHolder.setAsyncSequenceExecutor(asyncSequenceExecutor);
+        dataHolder.setSequenceLoader(new UIBasedConfigurationLoader());
+        dataHolder.setUserSessionMappingEnabled(true);
+        dataHolder.getAuthenticators().clear();
+        dataHolder.getAuthenticators().add(new MockAuthenticator(AUTHENTICATOR_NAME, new HarnessSubjectCallback()));
+
+        Field configFilePathField = FileBasedConfigurationBuilder.class.getDeclaredField("configFilePath");
+        configFilePathField.setAccessible(true);
+        URL url = this.getClass().getResource(APPLICATION_AUTHENTICATION_FILE);
+        configFilePathField.set(null, Paths.get(url.toURI()).toString());
+
+        originalRealmService = dataHolder.getRealmService();
+        dataHolder.setRealmService(createRealmService(originalRealmService));
+        originalIdentityProviderManager = IdentityProviderManager.getInstance();
+        setIdentityProviderManager(createIdentityProviderManager(originalIdentityProviderManager));
+
+        // The JNDI context of the test data source is thread local, hence the persistence manager has to be
+        // initialized here rather than on the first client thread.
+        wrapDataSource(JDBCPersistenceManager.getInstance());
+
+        serviceProvider = getTestServiceProvider("login-harness-sp.xml");
+        adaptiveServiceProvider = getTestServiceProvider("login-harness-adaptive-sp.xml");
+        requestCoordinator = new HarnessRequestCoordinator(Arrays.asList(serviceProvider, adaptiveServiceProvider));
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        FrameworkServiceDataHolder.getInstance().setRealmService(originalRealmService);
+        FrameworkServiceDataHolder.getInstance().setUserSessionMappingEnabled(false);
+        FrameworkServiceDataHolder.getInstance().getAuthenticators().clear();
+        setIdentityProviderManager(originalIdentityProviderManager);
+    }
+
+    @Test
+    public void testLoginThroughput() throws Exception {
+
+        ScenarioResult result = runScenario("login", serviceProvider, false);
+        assertEquals(result.failures, 0, "Logins failed in scenario: " + result.name);
+        assertEquals(result.authenticatorInvocations, LOGINS);
+    }
+
+    @Test
+    public void testAdaptiveScriptLoginThroughput() throws Exception {
+
+        ScenarioResult result = runScenario("adaptive script login", adaptiveServiceProvider, false);
+        assertEquals(result.failures, 0, "Logins failed in scenario: " + result.name);
+        assertEquals(result.authenticatorInvocations, LOGINS);
+    }
+
+    @Test
+    public void testSSOSessionReuseThroughput() throws Exception {
+
+        ScenarioResult result = runScenario("sso session reuse", serviceProvider, true);
+        assertEquals(result.failures, 0, "Logins failed in scenario: " + result.name);
+        // Every measured login should be served from the existing SSO session.
+        assertEquals(result.authenticatorInvocations, 0);
+    }
+
+    private ScenarioResult runScenario(String name, ServiceProvider serviceProvider, boolean reuseSession)
+            throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            Cookie[] sessionCookies = new Cookie[CLIENTS];
+            if (reuseSession) {
+                // Establish one SSO session per virtual client. These logins are not measured.
+                List<Future<?>> futures = new ArrayList<>();
+                for (int client = 0; client < CLIENTS; client++) {
+                    int clientId = client;
+                    futures.add(executor.submit(() -> {
+                        LoginResult loginResult = login(serviceProvider, USER_NAME_PREFIX + clientId, null);
+                        sessionCookies[clientId] = loginResult.sessionCookie;
+                        return null;
+                    }));
+                }
+                waitFor(futures);
+            }
+
+            long[] latencies = new long[LOGINS];
+            AtomicInteger nextLogin = new AtomicInteger();
+            AtomicInteger failures = new AtomicInteger();
+            long statementsBefore = statementExecutions.get();
+            long invocationsBefore = authenticatorInvocations.get();
+            long start = System.nanoTime();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int clientId = client;
+                futures.add(executor.submit(() -> {
+                    int index;
+                    while ((index = nextLogin.getAndIncrement()) < LOGINS) {
+                        long loginStart = System.nanoTime();
+                        LoginResult loginResult = login(serviceProvider, USER_NAME_PREFIX + clientId,
+                                sessionCookies[clientId]);
+                        latencies[index] = System.nanoTime() - loginStart;
+                        if (!loginResult.successful) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            waitFor(futures);
+
+            long elapsed = System.nanoTime() - start;
+            ScenarioResult result = new ScenarioResult(name, latencies, elapsed, failures.get(),
+                    statementExecutions.get() - statementsBefore,
+                    authenticatorInvocations.get() - invocationsBefore);
+            log.info(result);
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private LoginResult login(ServiceProvider serviceProvider, String userName, Cookie sessionCookie)
+            throws Exception {
+
+        AuthenticationRequest authenticationRequest = new AuthenticationRequest();
+        authenticationRequest.setType(REQUEST_TYPE);
+        authenticationRequest.setCommonAuthCallerPath(CALLER_PATH);
+        authenticationRequest.setRelyingParty(serviceProvider.getApplicationName());
+        authenticationRequest.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+        HttpServletRequest request = createMockHttpServletRequest();
+        request.setAttribute(FrameworkConstants.RequestAttribute.AUTH_REQUEST,
+                new AuthenticationRequestCacheEntry(authenticationRequest));
+        when(request.getParameter(FrameworkConstants.RequestParams.TYPE)).thenReturn(REQUEST_TYPE);
+        when(request.getParameter(FrameworkConstants.SESSION_DATA_KEY)).thenReturn(UUID.randomUUID().toString());
+        when(request.getCookies()).thenReturn(sessionCookie == null ? null : new Cookie[]{sessionCookie});
+
+        LoginResult result = new LoginResult();
+        AtomicReference<String> redirectUrl = new AtomicReference<>();
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        doAnswer(invocation -> {
+            redirectUrl.set(invocation.getArgumentAt(0, String.class));
+            return null;
+        }).when(response).sendRedirect(anyString());
+        doAnswer(invocation -> {
+            Cookie cookie = invocation.getArgumentAt(0, Cookie.class);
+            if (FrameworkConstants.COMMONAUTH_COOKIE.equals(cookie.getName())) {
+                result.sessionCookie = cookie;
+            }
+            return null;
+        }).when(response).addCookie(any(Cookie.class));
+
+        currentUser.set(userName);
+        try {
+            requestCoordinator.handle(request, response);
+        } finally {
+            currentUser.remove();
+        }
+        result.successful = redirectUrl.get() != null && redirectUrl.get().startsWith(CALLER_PATH);
+        if (result.sessionCookie == null) {
+            result.sessionCookie = sessionCookie;
+        }
+        return result;
+    }
+
+    private HttpServletRequest createMockHttpServletRequest() {
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        Map<String, Object> attributes = new HashMap<>();
+        doAnswer(invocation -> attributes.put(invocation.getArgumentAt(0, String.class),
+                invocation.getArgumentAt(1, Object.class))).when(request).setAttribute(anyString(), anyObject());
+        doAnswer(invocation -> attributes.get(invocation.getArgumentAt(0, String.class))).when(request)
+                .getAttribute(anyString());
+        doAnswer(invocation -> attributes.remove(invocation.getArgumentAt(0, String.class))).when(request)
+                .removeAttribute(anyString());
+        return request;
+    }
+
+    /**
+     * Returns a realm service in which every harness user exists and resolves to a stable unique id, so that SSO
+     * session validation succeeds and the user session store persists the session mappings of the harness users.
+     * <p>
+     * Unique id resolution only accepts an {@link AbstractUserStoreManager}, whose public API methods are final and
+     * cannot be stubbed. Lookups made for id resolution are therefore served by a separate user store manager
+     * which only answers the id and read-only queries.
+     */
+    private RealmService createRealmService(RealmService realmService) throws Exception {
+
+        UserRealm bootstrapRealm = realmService.getBootstrapRealm();
+        UserStoreManager userStoreManager = mock(UserStoreManager.class);
+        when(userStoreManager.getSecondaryUserStoreManager(anyString())).thenReturn(userStoreManager);
+        when(userStoreManager.isExistingUser(anyString())).thenReturn(true);
+        when(userStoreManager.getUserClaimValues(anyString(), any(String[].class), anyString()))
+                .thenReturn(new HashMap<>());
+
+        AbstractUserStoreManager uniqueIdUserStoreManager = mock(AbstractUserStoreManager.class);
+        when(uniqueIdUserStoreManager.getSecondaryUserStoreManager(anyString()))
+                .thenReturn(uniqueIdUserStoreManager);
+        when(uniqueIdUserStoreManager.isReadOnly()).thenReturn(false);
+        when(uniqueIdUserStoreManager.getUserIDFromUserName(anyString())).thenAnswer(invocation -> UUID
+                .nameUUIDFromBytes(invocation.getArgumentAt(0, String.class).getBytes(StandardCharsets.UTF_8))
+                .toString());
+
+        UserRealm userRealm = mock(UserRealm.class);
+        when(userRealm.getUserStoreManager()).thenAnswer(invocation -> isUserIdResolution() ?
+                uniqueIdUserStoreManager : userStoreManager);
+        when(userRealm.getClaimManager()).thenReturn(bootstrapRealm.getClaimManager());
+        when(userRealm.getAuthorizationManager()).thenReturn(bootstrapRealm.getAuthorizationManager());
+        when(userRealm.getRealmConfiguration()).thenReturn(bootstrapRealm.getRealmConfiguration());
+
+        RealmService harnessRealmService = spy(realmService);
+        doReturn(userRealm).when(harnessRealmService).getTenantUserRealm(anyInt());
+        return harnessRealmService;
+    }
+
+    private static boolean isUserIdResolution() {
+
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            if (FrameworkUtils.class.getName().equals(element.getClassName()) &&
+                    "resolveUserIdFromUsername".equals(element.getMethodName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an identity provider manager serving an empty resident identity provider, as the harness has no
+     * registry or key store to build the real one from.
+     */
+    private IdentityProviderManager createIdentityProviderManager(IdentityProviderManager identityProviderManager)
+            throws Exception {
+
+        IdentityProvider residentIdP = new IdentityProvider();
+        residentIdP.setIdentityProviderName("LOCAL");
+        residentIdP.setIdpProperties(new IdentityProviderProperty[0]);
+        IdentityProviderManager harnessIdentityProviderManager = spy(identityProviderManager);
+        doReturn(residentIdP).when(harnessIdentityProviderManager).getResidentIdP(anyString());
+        return harnessIdentityProviderManager;
+    }
+
+    private void setIdentityProviderManager(IdentityProviderManager identityProviderManager) throws Exception {
+
+        Field instanceField = IdentityProviderManager.class.getDeclaredField("instance");
+        instanceField.setAccessible(true);
+        instanceField.set(null, identityProviderManager);
+    }
+
+    private void wrapDataSource(JDBCPersistenceManager persistenceManager) throws Exception {
+
+        Field dataSourceField = JDBCPersistenceManager.class.getDeclaredField("dataSource");
+        dataSourceField.setAccessible(true);
+        DataSource dataSource = (DataSource) dataSourceField.get(persistenceManager);
+        if (dataSource instanceof BasicDataSource) {
+            ((BasicDataSource) dataSource).setMaxActive(CLIENTS * 2);
+        }
+        dataSourceField.set(persistenceManager, countingProxy(DataSource.class, dataSource));
+    }
+
+    /**
+     * Wraps a data source, connection or statement so that every statement executed through it is counted.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T countingProxy(Class<T> type, T target) {
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")) {
+                statementExecutions.incrementAndGet();
+            } else if (result != null && (method.getReturnType() == Connection.class ||
+                    Statement.class.isAssignableFrom(method.getReturnType()))) {
+                result = countingProxy((Class<Object>) method.getReturnType(), result);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(LoginThroughputHarnessTest.class.getClassLoader(),
+                new Class[]{type}, handler));
+    }
+
+    private static void waitFor(List<Future<?>> futures) throws Exception {
+
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Request coordinator which serves the harness service providers from memory instead of the application
+     * management service.
+     */
+    private static class HarnessRequestCoordinator extends DefaultRequestCoordinator {
+
+        private final Map<String, ServiceProvider> serviceProviders = new HashMap<>();
+
+        HarnessRequestCoordinator(List<ServiceProvider> serviceProviders) {
+
+            for (ServiceProvider serviceProvider : serviceProviders) {
+                this.serviceProviders.put(serviceProvider.getApplicationName(), serviceProvider);
+            }
+        }
+
+        @Override
+        protected ServiceProvider getServiceProvider(String reqType, String clientId, String tenantDomain)
+                throws FrameworkException {
+
+            return serviceProviders.get(clientId);
+        }
+    }
+
+    private static class HarnessSubjectCallback implements SubjectCallback, Serializable {
+
+        private static final long serialVersionUID = -2474934474926419270L;
+
+        @Override
+        public AuthenticatedUser getAuthenticatedUser(AuthenticationContext context) {
+
+            authenticatorInvocations.incrementAndGet();
+            AuthenticatedUser user = AuthenticatedUser
+                    .createLocalAuthenticatedUserFromSubjectIdentifier(currentUser.get());
+            user.getUserAttributes().put(ClaimMapping.build("http://wso2.org/claims/givenname",
+                    "http://wso2.org/claims/givenname", null, false), "Harness");
+            user.getUserAttributes().put(ClaimMapping.build("http://wso2.org/claims/lastname",
+                    "http://wso2.org/claims/lastname", null, false), currentUser.get());
+            return user;
+        }
+    }
+
+    private static class LoginResult {
+
+        private boolean successful;
+        private Cookie sessionCookie;
+    }
+
+    private static class ScenarioResult {
+
+        private final String name;
+        private final long[] latencies;
+        private final long elapsedNanos;
+        private final int failures;
+        private final long statementExecutions;
+        private final long authenticatorInvocations;
+
+        ScenarioResult(String name, long[] latencies, long elapsedNanos, int failures, long statementExecutions,
+                       long authenticatorInvocations) {
+
+            this.name = name;
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+            this.statementExecutions = statementExecutions;
+            this.authenticatorInvocations = authenticatorInvocations;
+        }
+
+        private double percentileMillis(double percentile) {
+
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1_000_000d;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.format("Scenario: %s, clients: %d, logins: %d, throughput: %.1f logins/s, p50: %.2f ms, " +
+                            "p99: %.2f ms, statements per login: %.1f, failures: %d", name, CLIENTS,
+                    latencies.length, latencies.length / (elapsedNanos / 1_000_000_000d), percentileMillis(50),
+                    percentileMillis(99), (double) statementExecutions / latencies.length, failures);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.powermock.reflect.Whitebox;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.consent.mgt.core.ConsentManager;
+import org.wso2.carbon.consent.mgt.core.model.Receipt;
+import org.wso2.carbon.consent.mgt.core.model.ReceiptListResponse;
+import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache.ConsentReceiptCache;
+import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache.ConsentReceiptCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.cache.ConsentReceiptCacheKey;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.listener.ConsentReceiptCacheUserOperationListener;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserStoreManager;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the consent receipt caching of SSOConsentServiceImpl.
+ */
+@PrepareForTest(IdentityTenantUtil.class)
+@WithCarbonHome
+public class SSOConsentServiceImplTest extends PowerMockTestCase {
+
+    private static final String SUBJECT = "john";
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String SP_NAME = "travelocity";
+    private static final String RECEIPT_ID = "receipt-1";
+
+    private SSOConsentServiceImpl ssoConsentService;
+    private ConsentManager consentManager;
+    private ConsentManager originalConsentManager;
+    private AuthenticatedUser authenticatedUser;
+    private Receipt receipt;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(IdentityTenantUtil.class);
+        when(IdentityTenantUtil.getTenantDomain(anyInt())).thenReturn(TENANT_DOMAIN);
+
+        receipt = mock(Receipt.class);
+        when(receipt.getState()).thenReturn("ACTIVE");
+        ReceiptListResponse receiptListResponse = mock(ReceiptListResponse.class);
+        when(receiptListResponse.getConsentReceiptId()).thenReturn(RECEIPT_ID);
+        consentManager = mock(ConsentManager.class);
+        when(consentManager.searchReceipts(anyInt(), anyInt(), eq(SUBJECT), anyString(), anyString(), anyString()))
+                .thenReturn(Collections.singletonList(receiptListResponse));
+        when(consentManager.getReceipt(RECEIPT_ID)).thenReturn(receipt);
+        originalConsentManager = FrameworkServiceDataHolder.getInstance().getConsentManager();
+        FrameworkServiceDataHolder.getInstance().setConsentManager(consentManager);
+
+        authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName(SUBJECT);
+        authenticatedUser.setTenantDomain(TENANT_DOMAIN);
+        ssoConsentService = new SSOConsentServiceImpl();
+        ConsentReceiptCache.getInstance().clearCacheEntry(new ConsentReceiptCacheKey(SUBJECT, TENANT_DOMAIN));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        FrameworkServiceDataHolder.getInstance().setConsentManager(originalConsentManager);
+        ConsentReceiptCache.getInstance().clearCacheEntry(new ConsentReceiptCacheKey(SUBJECT, TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testReceiptIsSearchedOnce() throws Exception {
+
+        ServiceProvider serviceProvider = buildServiceProvider("sp-1");
+
+        assertSame(getConsentReceiptOfUser(serviceProvider), receipt);
+        assertSame(getConsentReceiptOfUser(serviceProvider), receipt);
+        verify(consentManager, times(1)).searchReceipts(anyInt(), anyInt(), anyString(), anyString(), anyString(),
+                anyString());
+    }
+
+    @Test
+    public void testRevokedReceiptIsNotReturnedFromCache() throws Exception {
+
+        ServiceProvider serviceProvider = buildServiceProvider("sp-1");
+        assertSame(getConsentReceiptOfUser(serviceProvider), receipt);
+
+        // Revocation through the consent management API, outside the SSO consent service.
+        when(receipt.getState()).thenReturn("REVOKED");
+        when(consentManager.searchReceipts(anyInt(), anyInt(), eq(SUBJECT), anyString(), anyString(), anyString()))
+                .thenReturn(Collections.emptyList());
+
+        assertNull(getConsentReceiptOfUser(serviceProvider));
+        assertNull(getConsentReceiptOfUser(serviceProvider));
+        verify(consentManager, times(2)).searchReceipts(anyInt(), anyInt(), anyString(), anyString(), anyString(),
+                anyString());
+    }
+
+    @Test
+    public void testReceiptsAreCachedPerServiceProviderResourceId() throws Exception {
+
+        assertSame(getConsentReceiptOfUser(buildServiceProvider("sp-1")), receipt);
+
+        // A service provider recreated with the same name has a new resource id and no receipt.
+        when(consentManager.searchReceipts(anyInt(), anyInt(), eq(SUBJECT), anyString(), anyString(), anyString()))
+                .thenReturn(Collections.emptyList());
+        assertNull(getConsentReceiptOfUser(buildServiceProvider("sp-2")));
+        verify(consentManager, times(2)).searchReceipts(anyInt(), anyInt(), anyString(), anyString(), anyString(),
+                anyString());
+    }
+
+    @Test
+    public void testUserDeletionClearsReceiptsOfUser() throws Exception {
+
+        ServiceProvider serviceProvider = buildServiceProvider("sp-1");
+        assertSame(getConsentReceiptOfUser(serviceProvider), receipt);
+        ConsentReceiptCacheKey otherUserKey = new ConsentReceiptCacheKey("jane", TENANT_DOMAIN);
+        ConsentReceiptCache.getInstance().addToCache(otherUserKey,
+                new ConsentReceiptCacheEntry(Collections.singletonMap("sp-1", null)));
+
+        UserStoreManager userStoreManager = mock(UserStoreManager.class);
+        when(userStoreManager.getRealmConfiguration()).thenReturn(mock(RealmConfiguration.class));
+        new ConsentReceiptCacheUserOperationListener().doPostDeleteUser(SUBJECT, userStoreManager);
+
+        assertNull(ConsentReceiptCache.getInstance().getValueFromCache(
+                new ConsentReceiptCacheKey(SUBJECT, TENANT_DOMAIN)));
+        assertTrue(ConsentReceiptCache.getInstance().getValueFromCache(otherUserKey).containsServiceProvider("sp-1"));
+        ConsentReceiptCache.getInstance().clearCacheEntry(otherUserKey);
+    }
+
+    private Receipt getConsentReceiptOfUser(ServiceProvider serviceProvider) throws Exception {
+
+        return Whitebox.invokeMethod(ssoConsentService, "getConsentReceiptOfUser", serviceProvider,
+                authenticatedUser, SP_NAME, TENANT_DOMAIN, SUBJECT);
+    }
+
+    private ServiceProvider buildServiceProvider(String resourceId) {
+
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setApplicationName(SP_NAME);
+        serviceProvider.setApplicationResourceId(resourceId);
+        return serviceProvider;
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+}
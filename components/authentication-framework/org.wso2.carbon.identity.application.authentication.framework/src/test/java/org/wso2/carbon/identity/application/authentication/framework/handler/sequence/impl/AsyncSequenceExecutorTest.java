@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.sequence.impl;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.AsyncOutcome;
+import org.wso2.carbon.identity.application.authentication.framework.AsyncProcess;
+import org.wso2.carbon.identity.application.authentication.framework.AsyncReturn;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.model.LongWaitStatus;
+import org.wso2.carbon.identity.application.authentication.framework.store.LongWaitStatusStoreService;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.management.ObjectName;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of AsyncSequenceExecutor.
+ */
+public class AsyncSequenceExecutorTest {
+
+    private AsyncSequenceExecutor asyncSequenceExecutor;
+    private LongWaitStatusStoreService previousStoreService;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        previousStoreService = FrameworkServiceDataHolder.getInstance().getLongWaitStatusStoreService();
+        LongWaitStatusStoreService storeService = mock(LongWaitStatusStoreService.class);
+        when(storeService.getWait(anyString())).thenAnswer(invocation -> new LongWaitStatus());
+        FrameworkServiceDataHolder.getInstance().setLongWaitStatusStoreService(storeService);
+
+        asyncSequenceExecutor = new AsyncSequenceExecutor();
+        asyncSequenceExecutor.init();
+    }
+
+    @AfterClass
+    public void tearDown() {
+
+        asyncSequenceExecutor.shutdown();
+        FrameworkServiceDataHolder.getInstance().setLongWaitStatusStoreService(previousStoreService);
+    }
+
+    @Test
+    public void testReturnIsExecuted() throws Exception {
+
+        AtomicReference<String> outcome = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        asyncSequenceExecutor.exec((ctx, asyncReturn) -> asyncReturn.accept(ctx, Collections.emptyMap(), "onSuccess"),
+                recordingReturn(outcome, latch), createContext("ctx-1"));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(outcome.get(), "onSuccess");
+    }
+
+    @Test
+    public void testTimeoutResumesFlowAndIgnoresLateReturn() throws Exception {
+
+        AtomicReference<String> outcome = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<AsyncReturn> capturedReturn = new AtomicReference<>();
+        long timedOut = asyncSequenceExecutor.getTimedOutCallCount();
+        AuthenticationContext context = createContext("ctx-2");
+
+        asyncSequenceExecutor.exec((ctx, asyncReturn) -> capturedReturn.set(asyncReturn),
+                recordingReturn(outcome, latch), context, 100);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(outcome.get(), "onTimeout");
+        assertEquals(asyncSequenceExecutor.getTimedOutCallCount(), timedOut + 1);
+
+        // The late return must not reach the flow.
+        capturedReturn.get().accept(context, Collections.emptyMap(), "onSuccess");
+        Thread.sleep(100);
+        assertEquals(outcome.get(), "onTimeout");
+    }
+
+    @Test
+    public void testFutureCaller() throws Exception {
+
+        AtomicReference<String> outcome = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        CompletableFuture<AsyncOutcome> future = new CompletableFuture<>();
+        AsyncProcess asyncProcess = new AsyncProcess(ctx -> future);
+
+        asyncSequenceExecutor.exec(asyncProcess.getAsyncCaller(), recordingReturn(outcome, latch),
+                createContext("ctx-3"), asyncProcess.getTimeout());
+        future.completeExceptionally(new IllegalStateException("External call failed."));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(outcome.get(), AsyncProcess.OUTCOME_FAIL);
+    }
+
+    @Test
+    public void testTimedOutCallIsNotInFlight() throws Exception {
+
+        CountDownLatch latch = new CountDownLatch(1);
+        int inFlight = asyncSequenceExecutor.getInFlightCallCount();
+
+        asyncSequenceExecutor.exec((ctx, asyncReturn) -> {
+        }, recordingReturn(new AtomicReference<>(), latch), createContext("ctx-4"), 100);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(asyncSequenceExecutor.getInFlightCallCount(), inFlight);
+    }
+
+    @Test
+    public void testFailedCallerIsNotInFlight() throws Exception {
+
+        AsyncSequenceExecutor executor = new AsyncSequenceExecutor();
+        executor.init(1, 1, 10, 0);
+        try {
+            CountDownLatch called = new CountDownLatch(1);
+            executor.exec((ctx, asyncReturn) -> {
+                called.countDown();
+                throw new IllegalStateException("Caller failed.");
+            }, recordingReturn(new AtomicReference<>(), new CountDownLatch(1)), createContext("ctx-5"));
+
+            assertTrue(called.await(5, TimeUnit.SECONDS));
+            waitForInFlightCount(executor, 0);
+            assertEquals(executor.getInFlightCallCount(), 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectedReturnFailsFlow() throws Exception {
+
+        AsyncSequenceExecutor executor = new AsyncSequenceExecutor();
+        executor.init(3, 1, 1, 0);
+        CountDownLatch releaseReturn = new CountDownLatch(1);
+        try {
+            // The first return occupies the only return thread and the second one the only queue slot.
+            CountDownLatch firstReturnStarted = new CountDownLatch(1);
+            executor.exec((ctx, asyncReturn) -> asyncReturn.accept(ctx, Collections.emptyMap(), "onSuccess"),
+                    (ctx, data, result) -> {
+                        firstReturnStarted.countDown();
+                        try {
+                            releaseReturn.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }, createContext("ctx-6"));
+            assertTrue(firstReturnStarted.await(5, TimeUnit.SECONDS));
+            CountDownLatch secondReturnQueued = new CountDownLatch(1);
+            executor.exec((ctx, asyncReturn) -> {
+                asyncReturn.accept(ctx, Collections.emptyMap(), "onSuccess");
+                secondReturnQueued.countDown();
+            }, recordingReturn(new AtomicReference<>(), new CountDownLatch(1)), createContext("ctx-7"));
+            assertTrue(secondReturnQueued.await(5, TimeUnit.SECONDS));
+
+            AtomicReference<String> outcome = new AtomicReference<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            executor.exec((ctx, asyncReturn) -> asyncReturn.accept(ctx, Collections.emptyMap(), "onSuccess"),
+                    recordingReturn(outcome, latch), createContext("ctx-8"));
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(outcome.get(), AsyncProcess.OUTCOME_FAIL);
+            assertEquals(executor.getRejectedReturnCount(), 1);
+        } finally {
+            releaseReturn.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCountersAreExposedAsMBean() throws Exception {
+
+        ObjectName objectName = new ObjectName("org.wso2.carbon.identity:type=AsyncSequenceExecutor");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+        assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "RejectedCallCount"),
+                asyncSequenceExecutor.getRejectedCallCount());
+    }
+
+    private static void waitForInFlightCount(AsyncSequenceExecutor executor, int count) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getInFlightCallCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static AsyncReturn recordingReturn(AtomicReference<String> outcome, CountDownLatch latch) {
+
+        return (ctx, data, result) -> {
+            outcome.set(result);
+            latch.countDown();
+        };
+    }
+
+    private static AuthenticationContext createContext(String contextIdentifier) {
+
+        AuthenticationContext context = new AuthenticationContext();
+        context.setContextIdentifier(contextIdentifier);
+        return context;
+    }
+}
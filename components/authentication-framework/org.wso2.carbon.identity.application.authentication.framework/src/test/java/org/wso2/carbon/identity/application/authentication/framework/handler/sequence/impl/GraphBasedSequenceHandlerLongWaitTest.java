@@ -27,7 +27,9 @@ import org.wso2.carbon.identity.application.authentication.framework.config.mode
 import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
 import org.wso2.carbon.identity.application.authentication.framework.dao.impl.CacheBackedLongWaitStatusDAO;
 import org.wso2.carbon.identity.application.authentication.framework.dao.impl.LongWaitStatusDAOImpl;
+import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
 import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.model.LongWaitStatus;
 import org.wso2.carbon.identity.application.authentication.framework.store.LongWaitStatusStoreService;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 import org.wso2.carbon.identity.common.testng.WithH2Database;
@@ -39,6 +41,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test
 @WithH2Database(jndiName = "jdbc/WSO2IdentityDB", files = {"dbScripts/h2.sql"})
@@ -73,6 +78,102 @@ public class GraphBasedSequenceHandlerLongWaitTest extends GraphBasedSequenceHan
 
     }
 
+    @Test
+    public void testWaitIsCompletedBeforeFlowResumes() throws Exception {
+
+        JsFunctionRegistryImpl jsFunctionRegistrar = new JsFunctionRegistryImpl();
+        FrameworkServiceDataHolder.getInstance().setJsFunctionRegistry(jsFunctionRegistrar);
+        // The status is read from the database without a cache, so the resumed flow sees only persisted changes.
+        RecordingLongWaitStatusDAO statusDAO = new RecordingLongWaitStatusDAO();
+        FrameworkServiceDataHolder.getInstance().setLongWaitStatusStoreService(new LongWaitStatusStoreService
+                (statusDAO, 5000));
+        jsFunctionRegistrar.register(JsFunctionRegistry.Subsystem.SEQUENCE_HANDLER, "testLongWaitCall",
+                new DelayedAsyncAnalyticsCbFunctionImpl());
+
+        ServiceProvider sp1 = getTestServiceProvider("js-sp-longwait-1.xml");
+        AuthenticationContext context = getAuthenticationContext(sp1);
+        context.setSessionIdentifier("5678");
+        SequenceConfig sequenceConfig = configurationLoader
+                .getSequenceConfig(context, Collections.emptyMap(), sp1);
+        context.setSequenceConfig(sequenceConfig);
+
+        HttpServletRequest req = createMockHttpServletRequest();
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        UserCoreUtil.setDomainInThreadLocal("test_domain");
+
+        graphBasedSequenceHandler.handle(req, resp, context);
+
+        assertEquals(statusDAO.getStatusOnResume(), LongWaitStatus.Status.COMPLETED,
+                "The flow must resume only after the completion of the wait is persisted.");
+    }
+
+    @Test
+    public void testTimedOutWaitIsCompletedBeforeFlowResumes() throws Exception {
+
+        JsFunctionRegistryImpl jsFunctionRegistrar = new JsFunctionRegistryImpl();
+        FrameworkServiceDataHolder.getInstance().setJsFunctionRegistry(jsFunctionRegistrar);
+        RecordingLongWaitStatusDAO statusDAO = new RecordingLongWaitStatusDAO();
+        FrameworkServiceDataHolder.getInstance().setLongWaitStatusStoreService(new LongWaitStatusStoreService
+                (statusDAO, 5000));
+        jsFunctionRegistrar.register(JsFunctionRegistry.Subsystem.SEQUENCE_HANDLER, "testLongWaitCall",
+                new NonReturningAsyncAnalyticsCbFunctionImpl());
+
+        ServiceProvider sp1 = getTestServiceProvider("js-sp-longwait-1.xml");
+        AuthenticationContext context = getAuthenticationContext(sp1);
+        context.setSessionIdentifier("9012");
+        SequenceConfig sequenceConfig = configurationLoader
+                .getSequenceConfig(context, Collections.emptyMap(), sp1);
+        context.setSequenceConfig(sequenceConfig);
+
+        HttpServletRequest req = createMockHttpServletRequest();
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        UserCoreUtil.setDomainInThreadLocal("test_domain");
+
+        GraphBasedSequenceHandler sequenceHandler = new GraphBasedSequenceHandler() {
+            @Override
+            int getLongWaitTimeout() {
+
+                return 200;
+            }
+        };
+        sequenceHandler.handle(req, resp, context);
+
+        assertEquals(statusDAO.getStatusOnResume(), LongWaitStatus.Status.COMPLETED,
+                "A timed out wait must be completed before the flow resumes.");
+        assertFalse(context.isRequestAuthenticated());
+        assertTrue(context.getSequenceConfig().isCompleted());
+    }
+
+    /**
+     * Records the stored status read by the flow when it resumes from the wait, which is the read followed by the
+     * removal of the wait.
+     */
+    private static class RecordingLongWaitStatusDAO extends LongWaitStatusDAOImpl {
+
+        private volatile LongWaitStatus.Status lastReadStatus;
+        private volatile LongWaitStatus.Status statusOnResume;
+
+        @Override
+        public LongWaitStatus getWaitStatus(String waitKey) throws FrameworkException {
+
+            LongWaitStatus status = super.getWaitStatus(waitKey);
+            lastReadStatus = status == null ? null : status.getStatus();
+            return status;
+        }
+
+        @Override
+        public void removeWaitStatus(String waitKey) throws FrameworkException {
+
+            statusOnResume = lastReadStatus;
+            super.removeWaitStatus(waitKey);
+        }
+
+        LongWaitStatus.Status getStatusOnResume() {
+
+            return statusOnResume;
+        }
+    }
+
     @FunctionalInterface
     public interface Fn1 {
 
@@ -92,4 +193,38 @@ public class GraphBasedSequenceHandlerLongWaitTest extends GraphBasedSequenceHan
             JsGraphBuilder.addLongWaitProcess(asyncProcess, eventHandlers);
         }
     }
+
+    /**
+     * Never returns, so the flow times out waiting for the return.
+     */
+    public static class NonReturningAsyncAnalyticsCbFunctionImpl implements Fn1 {
+
+        public void publishEvent(String siddhiAppName, String inStreamName, String outStreamName,
+                                 Map<String, Object> payloadData, Map<String, Object> eventHandlers) {
+
+            AsyncProcess asyncProcess = new AsyncProcess((ctx, r) -> {
+            });
+            JsGraphBuilder.addLongWaitProcess(asyncProcess, eventHandlers);
+        }
+    }
+
+    /**
+     * Returns after a short delay, so the flow is already waiting for the return.
+     */
+    public static class DelayedAsyncAnalyticsCbFunctionImpl implements Fn1 {
+
+        public void publishEvent(String siddhiAppName, String inStreamName, String outStreamName,
+                                 Map<String, Object> payloadData, Map<String, Object> eventHandlers) {
+
+            AsyncProcess asyncProcess = new AsyncProcess((ctx, r) -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                r.accept(ctx, Collections.emptyMap(), "onSuccess");
+            });
+            JsGraphBuilder.addLongWaitProcess(asyncProcess, eventHandlers);
+        }
+    }
 }
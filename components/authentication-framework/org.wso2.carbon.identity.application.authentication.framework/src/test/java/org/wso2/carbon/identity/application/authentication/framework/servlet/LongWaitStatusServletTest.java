@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.servlet;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.dao.LongWaitStatusDAO;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.model.LongWaitStatus;
+import org.wso2.carbon.identity.application.authentication.framework.store.LongWaitStatusStoreService;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the long polling done by LongWaitStatusServlet.
+ */
+public class LongWaitStatusServletTest {
+
+    private static final String WAIT_KEY = "wait-key";
+
+    private LongWaitStatusServlet servlet;
+    private LongWaitStatusDAO statusDAO;
+    private LongWaitStatusStoreService storeService;
+    private LongWaitStatusStoreService originalStoreService;
+    private LongWaitStatus waitStatus;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private AsyncContext asyncContext;
+    private StringWriter responseBody;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        FrameworkUtils.setMaxInactiveInterval(900);
+        waitStatus = new LongWaitStatus();
+        waitStatus.setStatus(LongWaitStatus.Status.WAITING);
+        statusDAO = mock(LongWaitStatusDAO.class);
+        when(statusDAO.getWaitStatus(WAIT_KEY)).thenAnswer(invocation -> waitStatus);
+        when(statusDAO.completeWaitStatus(WAIT_KEY)).thenAnswer(invocation -> {
+            waitStatus.setStatus(LongWaitStatus.Status.COMPLETED);
+            return true;
+        });
+
+        originalStoreService = FrameworkServiceDataHolder.getInstance().getLongWaitStatusStoreService();
+        storeService = new LongWaitStatusStoreService(statusDAO, 5000);
+        FrameworkServiceDataHolder.getInstance().setLongWaitStatusStoreService(storeService);
+        servlet = new LongWaitStatusServlet();
+
+        responseBody = new StringWriter();
+        response = mock(HttpServletResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(responseBody));
+        asyncContext = mock(AsyncContext.class);
+        when(asyncContext.getResponse()).thenReturn(response);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(asyncContext).start(any(Runnable.class));
+
+        request = mock(HttpServletRequest.class);
+        when(request.getSession()).thenReturn(mock(HttpSession.class));
+        when(request.getParameter("waitingId")).thenReturn(WAIT_KEY);
+        when(request.getParameter("longPoll")).thenReturn("true");
+        when(request.startAsync()).thenReturn(asyncContext);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        FrameworkServiceDataHolder.getInstance().setLongWaitStatusStoreService(originalStoreService);
+    }
+
+    @Test
+    public void testCompleteWaitReleasesParkedRequest() throws Exception {
+
+        when(request.isAsyncSupported()).thenReturn(true);
+
+        servlet.doPost(request, response);
+        verify(request).startAsync();
+        verify(asyncContext, never()).complete();
+        assertEquals(responseBody.toString(), "");
+
+        storeService.completeWait(WAIT_KEY);
+        verify(asyncContext, times(1)).complete();
+        assertTrue(responseBody.toString().contains(LongWaitStatus.Status.COMPLETED.name()));
+
+        // A later notification must not answer the request again.
+        storeService.notifyCompletion(WAIT_KEY);
+        verify(asyncContext, times(1)).complete();
+    }
+
+    @Test
+    public void testRequestIsAnsweredWhenAsyncIsNotSupported() throws Exception {
+
+        when(request.isAsyncSupported()).thenReturn(false);
+
+        servlet.doPost(request, response);
+        verify(request, never()).startAsync();
+        assertTrue(responseBody.toString().contains(LongWaitStatus.Status.WAITING.name()));
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.util.SessionMgtConstants;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.powermock.api.mockito.PowerMockito.doNothing;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.spy;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+/**
+ * Tests the in-memory active session count against the count computed from the session tables.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class})
+@PowerMockIgnore({"javax.xml.*"})
+public class ActiveSessionCounterTest extends DataStoreBaseTest {
+
+    private static final String DB_NAME = "ACTIVE_SESSION_COUNTER";
+    private static final int SUPER_TENANT_ID = -1234;
+    private static final int TENANT_ID = 1;
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(15);
+
+    private ActiveSessionCounter counter;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        initH2DB(DB_NAME, getDatabaseScriptFilePath("active_session_counter_h2.sql"));
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        closeH2DB(DB_NAME);
+    }
+
+    @BeforeMethod
+    public void initCounter() {
+
+        counter = new ActiveSessionCounter(tenantId -> IDLE_TIMEOUT);
+    }
+
+    @AfterMethod
+    public void clearTables() throws Exception {
+
+        try (Connection connection = getConnection(DB_NAME); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM IDN_AUTH_SESSION_STORE");
+            statement.executeUpdate("DELETE FROM IDN_AUTH_USER_SESSION_MAPPING");
+            statement.executeUpdate("DELETE FROM IDN_AUTH_SESSION_META_DATA");
+        }
+    }
+
+    @Test
+    public void testSeedFromDatabase() throws Exception {
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 30; i++) {
+            storeSession(UUID.randomUUID().toString(), SUPER_TENANT_ID, now);
+        }
+        for (int i = 0; i < 20; i++) {
+            storeSession(UUID.randomUUID().toString(), TENANT_ID, now);
+        }
+        // Idle sessions which are not yet cleaned up are not active.
+        for (int i = 0; i < 5; i++) {
+            storeSession(UUID.randomUUID().toString(), TENANT_ID, now - 2 * IDLE_TIMEOUT);
+        }
+
+        Assert.assertFalse(counter.isReady());
+        reconcileFromDatabase();
+
+        Assert.assertTrue(counter.isReady());
+        Assert.assertEquals(counter.getActiveSessionCount(SUPER_TENANT_ID), 30);
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 20);
+        Assert.assertEquals(counter.getActiveSessionCount(SUPER_TENANT_ID), countInDatabase(SUPER_TENANT_ID));
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), countInDatabase(TENANT_ID));
+    }
+
+    @Test
+    public void testConcurrentLoginsAndLogouts() throws Exception {
+
+        reconcileFromDatabase();
+        int threads = 8;
+        int loginsPerThread = 150;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int tenantId = t % 2 == 0 ? SUPER_TENANT_ID : TENANT_ID;
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                List<String> ownSessions = new ArrayList<>();
+                List<Long> lastAccessTimes = new ArrayList<>();
+                for (int i = 0; i < loginsPerThread; i++) {
+                    String sessionId = UUID.randomUUID().toString();
+                    long now = System.currentTimeMillis();
+                    storeSession(sessionId, tenantId, now);
+                    counter.sessionCreated(tenantId);
+                    ownSessions.add(sessionId);
+                    lastAccessTimes.add(now);
+
+                    if (random.nextBoolean()) {
+                        int terminated = random.nextInt(ownSessions.size());
+                        String terminatedSessionId = ownSessions.remove(terminated);
+                        removeSession(terminatedSessionId);
+                        counter.sessionTerminated(tenantId, terminatedSessionId, lastAccessTimes.remove(terminated));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assert.assertTrue(countInDatabase(SUPER_TENANT_ID) > 0);
+        Assert.assertEquals(counter.getActiveSessionCount(SUPER_TENANT_ID), countInDatabase(SUPER_TENANT_ID));
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), countInDatabase(TENANT_ID));
+
+        // Reconciliation agrees with the incrementally maintained count.
+        int superTenantCount = counter.getActiveSessionCount(SUPER_TENANT_ID);
+        int tenantCount = counter.getActiveSessionCount(TENANT_ID);
+        reconcileFromDatabase();
+        Assert.assertEquals(counter.getActiveSessionCount(SUPER_TENANT_ID), superTenantCount);
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), tenantCount);
+    }
+
+    @Test
+    public void testReconciliationDropsIdleSessions() throws Exception {
+
+        long now = System.currentTimeMillis();
+        storeSession("active", TENANT_ID, now);
+        storeSession("idle", TENANT_ID, now - IDLE_TIMEOUT / 2);
+        reconcileFromDatabase();
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 2);
+
+        // The session goes idle, which is only seen at the next reconciliation.
+        updateLastAccessTime("idle", now - 2 * IDLE_TIMEOUT);
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 2);
+        reconcileFromDatabase();
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 1);
+
+        // Terminating a session which is already idle does not change the count.
+        counter.sessionTerminated(TENANT_ID, "idle", now - 2 * IDLE_TIMEOUT);
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 1);
+    }
+
+    @Test
+    public void testTerminatedSessionRecordsAreUncounted() throws Exception {
+
+        long now = System.currentTimeMillis();
+        storeSession("first", SUPER_TENANT_ID, now);
+        storeSession("second", TENANT_ID, now);
+        storeSession("third", TENANT_ID, now);
+        reconcileFromDatabase();
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 2);
+
+        UserSessionStore userSessionStore = UserSessionStore.getInstance();
+        Whitebox.setInternalState(userSessionStore, "activeSessionCounter", counter);
+        try (Connection connection = getConnection(DB_NAME)) {
+            Connection spyConnection = spy(connection);
+            doNothing().when(spyConnection).close();
+            mockStatic(IdentityDatabaseUtil.class);
+            when(IdentityDatabaseUtil.getDBConnection(true)).thenReturn(spyConnection);
+            List<String> terminated = new ArrayList<>();
+            terminated.add("second");
+            terminated.add("unknown");
+            userSessionStore.removeTerminatedSessionRecords(terminated);
+        } finally {
+            Whitebox.setInternalState(userSessionStore, "activeSessionCounter", (Object) null);
+        }
+
+        Assert.assertEquals(counter.getActiveSessionCount(SUPER_TENANT_ID), 1);
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 1);
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), countInDatabase(TENANT_ID));
+    }
+
+    @Test
+    public void testRepeatedTerminationIsCountedOnce() throws Exception {
+
+        long now = System.currentTimeMillis();
+        storeSession("first", TENANT_ID, now);
+        storeSession("second", TENANT_ID, now);
+        reconcileFromDatabase();
+
+        counter.sessionTerminated(TENANT_ID, "first", now);
+        counter.sessionTerminated(TENANT_ID, "first", now);
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 1);
+
+        // A termination recorded before the last reconciliation is still recognized.
+        removeSession("first");
+        reconcileFromDatabase();
+        counter.sessionTerminated(TENANT_ID, "first", now);
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 1);
+    }
+
+    @Test
+    public void testChangesDuringReconciliationAreKept() throws Exception {
+
+        long now = System.currentTimeMillis();
+        storeSession("first", TENANT_ID, now);
+        storeSession("second", TENANT_ID, now);
+        reconcileFromDatabase();
+
+        // Sessions are created and terminated after the database was read, before the counts are replaced.
+        counter.reconcile(handler -> {
+            handler.handle(TENANT_ID, now);
+            handler.handle(TENANT_ID, now);
+            counter.sessionCreated(TENANT_ID);
+            counter.sessionCreated(TENANT_ID);
+            counter.sessionTerminated(TENANT_ID, "first", now);
+        });
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 3);
+    }
+
+    @Test
+    public void testStopEndsReconciliation() throws Exception {
+
+        AtomicInteger loads = new AtomicInteger();
+        counter.start(handler -> {
+            loads.incrementAndGet();
+            handler.handle(TENANT_ID, System.currentTimeMillis());
+        }, 1);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!counter.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(counter.isReady());
+        Assert.assertEquals(counter.getActiveSessionCount(TENANT_ID), 1);
+
+        counter.stop();
+        Assert.assertFalse(counter.isReady());
+        Assert.assertEquals(loads.get(), 1);
+    }
+
+    private void reconcileFromDatabase() throws Exception {
+
+        try (Connection connection = getConnection(DB_NAME)) {
+            Connection spyConnection = spy(connection);
+            doNothing().when(spyConnection).close();
+            mockStatic(IdentityDatabaseUtil.class);
+            when(IdentityDatabaseUtil.getDBConnection(false)).thenReturn(spyConnection);
+            counter.reconcile(handler -> UserSessionStore.getInstance().loadSessionLastAccessTimes(handler));
+        }
+    }
+
+    private static void storeSession(String sessionId, int tenantId, long lastAccessTime) throws SQLException {
+
+        try (Connection connection = getConnection(DB_NAME)) {
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO IDN_AUTH_SESSION_STORE " +
+                    "(SESSION_ID, SESSION_TYPE, OPERATION, TIME_CREATED, TENANT_ID) VALUES (?, ?, ?, ?, ?)")) {
+                statement.setString(1, sessionId);
+                statement.setString(2, "AppAuthFrameworkSessionContextCache");
+                statement.setString(3, "STORE");
+                statement.setLong(4, lastAccessTime);
+                statement.setInt(5, tenantId);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO IDN_AUTH_USER_SESSION_MAPPING (USER_ID, SESSION_ID) VALUES (?, ?)")) {
+                statement.setString(1, "user-" + sessionId);
+                statement.setString(2, sessionId);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(SQLQueries.SQL_INSERT_SESSION_META_DATA)) {
+                statement.setString(1, sessionId);
+                statement.setString(2, SessionMgtConstants.LAST_ACCESS_TIME);
+                statement.setString(3, String.valueOf(lastAccessTime));
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private static void updateLastAccessTime(String sessionId, long lastAccessTime) throws SQLException {
+
+        try (Connection connection = getConnection(DB_NAME);
+             PreparedStatement statement = connection.prepareStatement(SQLQueries.SQL_UPDATE_SESSION_META_DATA)) {
+            statement.setString(1, String.valueOf(lastAccessTime));
+            statement.setString(2, sessionId);
+            statement.setString(3, SessionMgtConstants.LAST_ACCESS_TIME);
+            statement.executeUpdate();
+        }
+    }
+
+    private static void removeSession(String sessionId) throws SQLException {
+
+        try (Connection connection = getConnection(DB_NAME)) {
+            for (String query : new String[]{SQLQueries.SQL_DELETE_TERMINATED_SESSION_DATA,
+                    SQLQueries.SQL_DELETE_IDN_AUTH_SESSION_META_DATA}) {
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    statement.setString(1, sessionId);
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static int countInDatabase(int tenantId) throws SQLException {
+
+        long currentTime = System.currentTimeMillis();
+        try (Connection connection = getConnection(DB_NAME);
+             PreparedStatement statement = connection.prepareStatement(
+                     SQLQueries.SQL_GET_ACTIVE_SESSION_COUNT_BY_TENANT)) {
+            statement.setString(1, SessionMgtConstants.LAST_ACCESS_TIME);
+            statement.setString(2, String.valueOf(currentTime - IDLE_TIMEOUT));
+            statement.setString(3, String.valueOf(currentTime));
+            statement.setInt(4, tenantId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+}
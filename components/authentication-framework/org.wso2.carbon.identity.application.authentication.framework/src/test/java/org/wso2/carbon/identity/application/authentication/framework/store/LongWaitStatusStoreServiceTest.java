@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.dao.LongWaitStatusDAO;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests of the completion notification of LongWaitStatusStoreService.
+ */
+public class LongWaitStatusStoreServiceTest {
+
+    private static final String WAIT_KEY = "wait-key";
+
+    private LongWaitStatusDAO statusDAO;
+    private LongWaitStatusStoreService storeService;
+
+    @BeforeMethod
+    public void setUp() {
+
+        statusDAO = mock(LongWaitStatusDAO.class);
+        storeService = new LongWaitStatusStoreService(statusDAO, 5000);
+    }
+
+    @Test
+    public void testCompleteWaitRunsListenersOnce() throws Exception {
+
+        when(statusDAO.completeWaitStatus(WAIT_KEY)).thenReturn(true);
+        AtomicInteger calls = new AtomicInteger();
+        storeService.addCompletionListener(WAIT_KEY, calls::incrementAndGet);
+        storeService.addCompletionListener(WAIT_KEY, calls::incrementAndGet);
+
+        storeService.completeWait(WAIT_KEY);
+        storeService.notifyCompletion(WAIT_KEY);
+        assertEquals(calls.get(), 2);
+    }
+
+    @Test
+    public void testCompleteWaitOfRemovedWait() throws Exception {
+
+        when(statusDAO.completeWaitStatus(WAIT_KEY)).thenReturn(false);
+        AtomicInteger calls = new AtomicInteger();
+        storeService.addCompletionListener(WAIT_KEY, calls::incrementAndGet);
+
+        storeService.completeWait(WAIT_KEY);
+        assertEquals(calls.get(), 0);
+    }
+
+    @Test
+    public void testRemovedListenerIsNotRun() {
+
+        AtomicInteger calls = new AtomicInteger();
+        Runnable listener = calls::incrementAndGet;
+        storeService.addCompletionListener(WAIT_KEY, listener);
+        storeService.removeCompletionListener(WAIT_KEY, listener);
+
+        storeService.notifyCompletion(WAIT_KEY);
+        assertEquals(calls.get(), 0);
+    }
+}
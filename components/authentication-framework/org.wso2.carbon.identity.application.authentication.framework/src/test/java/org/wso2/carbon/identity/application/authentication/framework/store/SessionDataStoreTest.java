@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.powermock.api.mockito.PowerMockito.doNothing;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.spy;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+/**
+ * Tests the expiry based validity check and the batched removal of session data for users with many sessions.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityUtil.class})
+@PowerMockIgnore({"javax.xml.*"})
+public class SessionDataStoreTest extends DataStoreBaseTest {
+
+    private static final String DB_NAME = "SESSION_DATA_STORE";
+    private static final String SESSION_TYPE = "AppAuthFrameworkSessionContextCache";
+    private static final int SESSION_COUNT = 250;
+    private static final long TIMEOUT = TimeUnit.MINUTES.toNanos(15);
+
+    private Connection connection;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        initH2DB(DB_NAME, getDatabaseScriptFilePath("user_sessions_h2.sql"));
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        closeH2DB(DB_NAME);
+    }
+
+    @BeforeMethod
+    public void mockConnection() throws Exception {
+
+        mockStatic(IdentityUtil.class);
+        connection = getConnection(DB_NAME);
+        Connection spyConnection = spy(connection);
+        doNothing().when(spyConnection).close();
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection()).thenReturn(spyConnection);
+        when(IdentityDatabaseUtil.getDBConnection(false)).thenReturn(spyConnection);
+    }
+
+    @AfterMethod
+    public void clearTable() throws Exception {
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM IDN_AUTH_SESSION_STORE");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testGetSessionDataValidity() throws Exception {
+
+        long now = FrameworkUtils.getCurrentStandardNano();
+        List<String> liveSessions = new ArrayList<>();
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            String sessionId = "live-" + i;
+            liveSessions.add(sessionId);
+            addRecord(sessionId, "STORE", now - 1000, now + TIMEOUT);
+        }
+        addRecord("expired", "STORE", now - 2 * TIMEOUT, now - TIMEOUT);
+        addRecord("deleted", "STORE", now - 2000, now + TIMEOUT);
+        addRecord("deleted", "DELETE", now - 1000, now + TIMEOUT);
+        addRecord("refreshed", "STORE", now - 2 * TIMEOUT, now - TIMEOUT);
+        addRecord("refreshed", "STORE", now - 1000, now + TIMEOUT);
+
+        List<String> sessionIds = new ArrayList<>(liveSessions);
+        sessionIds.addAll(Arrays.asList("expired", "deleted", "refreshed", "unknown"));
+        Map<String, Boolean> validity = SessionDataStore.getInstance().getSessionDataValidity(sessionIds,
+                SESSION_TYPE);
+
+        for (String sessionId : liveSessions) {
+            Assert.assertEquals(validity.get(sessionId), Boolean.TRUE, "Session " + sessionId + " should be valid.");
+        }
+        Assert.assertEquals(validity.get("deleted"), Boolean.FALSE);
+        Assert.assertEquals(validity.get("refreshed"), Boolean.TRUE);
+        // Expired and unknown sessions are left to be resolved through the session context cache.
+        Assert.assertFalse(validity.containsKey("expired"));
+        Assert.assertFalse(validity.containsKey("unknown"));
+        Assert.assertEquals(validity.size(), SESSION_COUNT + 2);
+    }
+
+    @Test
+    public void testClearSessionDataInBatch() throws Exception {
+
+        long now = FrameworkUtils.getCurrentStandardNano();
+        List<String> sessionIds = new ArrayList<>();
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            String sessionId = "terminated-" + i;
+            sessionIds.add(sessionId);
+            addRecord(sessionId, "STORE", now - 1000, now + TIMEOUT);
+        }
+        addRecord("other", "STORE", now - 1000, now + TIMEOUT);
+
+        SessionDataStore.getInstance().clearSessionData(sessionIds, SESSION_TYPE);
+
+        List<String> checkedSessionIds = new ArrayList<>(sessionIds);
+        checkedSessionIds.add("other");
+        Map<String, Boolean> validity = SessionDataStore.getInstance().getSessionDataValidity(checkedSessionIds,
+                SESSION_TYPE);
+        for (String sessionId : sessionIds) {
+            Assert.assertEquals(validity.get(sessionId), Boolean.FALSE, "Session " + sessionId +
+                    " should be terminated.");
+        }
+        Assert.assertEquals(validity.get("other"), Boolean.TRUE);
+    }
+
+    private void addRecord(String sessionId, String operation, long timeCreated, long expiryTime)
+            throws SQLException {
+
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO IDN_AUTH_SESSION_STORE " +
+                "(SESSION_ID, SESSION_TYPE, OPERATION, TIME_CREATED, EXPIRY_TIME) VALUES (?, ?, ?, ?, ?)")) {
+            statement.setString(1, sessionId);
+            statement.setString(2, SESSION_TYPE);
+            statement.setString(3, operation);
+            statement.setLong(4, timeCreated);
+            statement.setLong(5, expiryTime);
+            statement.executeUpdate();
+        }
+    }
+}
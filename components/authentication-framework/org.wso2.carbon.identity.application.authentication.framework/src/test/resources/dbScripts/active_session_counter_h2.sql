@@ -0,0 +1,29 @@
+CREATE TABLE IF NOT EXISTS IDN_AUTH_SESSION_STORE (
+            SESSION_ID VARCHAR (100) NOT NULL,
+            SESSION_TYPE VARCHAR(100) NOT NULL,
+            OPERATION VARCHAR(10) NOT NULL,
+            SESSION_OBJECT BLOB,
+            TIME_CREATED BIGINT,
+            TENANT_ID INTEGER DEFAULT -1,
+            EXPIRY_TIME BIGINT,
+            PRIMARY KEY (SESSION_ID, SESSION_TYPE, TIME_CREATED, OPERATION)
+);
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_USER_SESSION_MAPPING (
+  USER_ID VARCHAR(255) NOT NULL,
+  SESSION_ID VARCHAR(255) NOT NULL,
+  CONSTRAINT USER_SESSION_STORE_CONSTRAINT UNIQUE (USER_ID, SESSION_ID));
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_SESSION_APP_INFO (
+            SESSION_ID VARCHAR (100) NOT NULL,
+            SUBJECT VARCHAR (100) NOT NULL,
+            APP_ID INTEGER NOT NULL,
+            INBOUND_AUTH_TYPE VARCHAR (255) NOT NULL,
+            PRIMARY KEY (SESSION_ID, SUBJECT, APP_ID, INBOUND_AUTH_TYPE));
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_SESSION_META_DATA (
+            SESSION_ID VARCHAR (100) NOT NULL,
+            PROPERTY_TYPE VARCHAR (100) NOT NULL,
+            VALUE VARCHAR (255) NOT NULL,
+            PRIMARY KEY (SESSION_ID, PROPERTY_TYPE, VALUE)
+            );
@@ -0,0 +1,74 @@
+CREATE TABLE IF NOT EXISTS SP_APP (
+        ID INTEGER NOT NULL AUTO_INCREMENT,
+        TENANT_ID INTEGER NOT NULL,
+        APP_NAME VARCHAR (255) NOT NULL ,
+        USER_STORE VARCHAR (255) NOT NULL,
+        USERNAME VARCHAR (255) NOT NULL ,
+        DESCRIPTION VARCHAR (1024),
+        ROLE_CLAIM VARCHAR (512),
+        AUTH_TYPE VARCHAR (255) NOT NULL,
+        PROVISIONING_USERSTORE_DOMAIN VARCHAR (512),
+        IS_LOCAL_CLAIM_DIALECT CHAR(1) DEFAULT '1',
+        IS_SEND_LOCAL_SUBJECT_ID CHAR(1) DEFAULT '0',
+        IS_SEND_AUTH_LIST_OF_IDPS CHAR(1) DEFAULT '0',
+        IS_USE_TENANT_DOMAIN_SUBJECT CHAR(1) DEFAULT '1',
+        IS_USE_USER_DOMAIN_SUBJECT CHAR(1) DEFAULT '1',
+        ENABLE_AUTHORIZATION CHAR(1) DEFAULT '0',
+        SUBJECT_CLAIM_URI VARCHAR (512),
+        IS_SAAS_APP CHAR(1) DEFAULT '0',
+        IS_DUMB_MODE CHAR(1) DEFAULT '0',
+        UUID CHAR(36),
+        IMAGE_URL VARCHAR(1024),
+        ACCESS_URL VARCHAR(1024),
+        IS_DISCOVERABLE CHAR(1) DEFAULT '0',
+
+        PRIMARY KEY (ID));
+
+CREATE TABLE IF NOT EXISTS IDP (
+  ID                         INTEGER               AUTO_INCREMENT,
+  TENANT_ID                  INTEGER,
+  NAME                       VARCHAR(254) NOT NULL,
+  IS_ENABLED                 CHAR(1)      NOT NULL DEFAULT '1',
+  IS_PRIMARY                 CHAR(1)      NOT NULL DEFAULT '0',
+  HOME_REALM_ID              VARCHAR(254),
+  IMAGE                      MEDIUMBLOB,
+  CERTIFICATE                BLOB,
+  ALIAS                      VARCHAR(254),
+  INBOUND_PROV_ENABLED       CHAR(1)      NOT NULL DEFAULT '0',
+  INBOUND_PROV_USER_STORE_ID VARCHAR(254),
+  USER_CLAIM_URI             VARCHAR(254),
+  ROLE_CLAIM_URI             VARCHAR(254),
+  DESCRIPTION                VARCHAR(1024),
+  DEFAULT_AUTHENTICATOR_NAME VARCHAR(254),
+  DEFAULT_PRO_CONNECTOR_NAME VARCHAR(254),
+  PROVISIONING_ROLE          VARCHAR(128),
+  IS_FEDERATION_HUB          CHAR(1)      NOT NULL DEFAULT '0',
+  IS_LOCAL_CLAIM_DIALECT     CHAR(1)      NOT NULL DEFAULT '0',
+  DISPLAY_NAME               VARCHAR(255),
+  IMAGE_URL                  VARCHAR(1024),
+  UUID                       CHAR(36) NOT NULL,
+  PRIMARY KEY (ID),
+  UNIQUE (TENANT_ID, NAME),
+  UNIQUE (UUID)
+);
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_SESSION_APP_INFO (
+            SESSION_ID VARCHAR (100) NOT NULL,
+            SUBJECT VARCHAR (100) NOT NULL,
+            APP_ID INTEGER NOT NULL,
+            INBOUND_AUTH_TYPE VARCHAR (255) NOT NULL,
+            PRIMARY KEY (SESSION_ID, SUBJECT, APP_ID, INBOUND_AUTH_TYPE));
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_SESSION_META_DATA (
+            SESSION_ID VARCHAR (100) NOT NULL,
+            PROPERTY_TYPE VARCHAR (100) NOT NULL,
+            VALUE VARCHAR (255) NOT NULL,
+            PRIMARY KEY (SESSION_ID, PROPERTY_TYPE, VALUE)
+            );
+
+INSERT INTO IDP (TENANT_ID, NAME, UUID) VALUES (-1234, 'LOCAL', '5a8e3e5c-1a9b-4b5e-9d3c-3f1f2f6e7a01');
+
+INSERT INTO SP_APP (TENANT_ID, APP_NAME, USER_STORE, USERNAME, AUTH_TYPE, UUID) VALUES (-1234, 'login-harness-sp',
+        'PRIMARY', 'admin', 'flow', '0c5f6f8e-2b1d-4c4a-8e77-5d0a9b3c1e01');
+INSERT INTO SP_APP (TENANT_ID, APP_NAME, USER_STORE, USERNAME, AUTH_TYPE, UUID) VALUES (-1234,
+        'login-harness-adaptive-sp', 'PRIMARY', 'admin', 'flow', '0c5f6f8e-2b1d-4c4a-8e77-5d0a9b3c1e02');
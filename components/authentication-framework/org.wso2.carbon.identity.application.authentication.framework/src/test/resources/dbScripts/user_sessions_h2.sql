@@ -0,0 +1,34 @@
+CREATE TABLE IF NOT EXISTS SP_APP (
+            ID INTEGER NOT NULL AUTO_INCREMENT,
+            TENANT_ID INTEGER NOT NULL,
+            APP_NAME VARCHAR (255) NOT NULL ,
+            UUID CHAR(36),
+            PRIMARY KEY (ID));
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_SESSION_STORE (
+            SESSION_ID VARCHAR (100) NOT NULL,
+            SESSION_TYPE VARCHAR(100) NOT NULL,
+            OPERATION VARCHAR(10) NOT NULL,
+            SESSION_OBJECT BLOB,
+            TIME_CREATED BIGINT,
+            TENANT_ID INTEGER DEFAULT -1,
+            EXPIRY_TIME BIGINT,
+            PRIMARY KEY (SESSION_ID, SESSION_TYPE, TIME_CREATED, OPERATION)
+);
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_SESSION_APP_INFO (
+            SESSION_ID VARCHAR (100) NOT NULL,
+            SUBJECT VARCHAR (100) NOT NULL,
+            APP_ID INTEGER NOT NULL,
+            INBOUND_AUTH_TYPE VARCHAR (255) NOT NULL,
+            PRIMARY KEY (SESSION_ID, SUBJECT, APP_ID, INBOUND_AUTH_TYPE));
+
+CREATE TABLE IF NOT EXISTS IDN_AUTH_SESSION_META_DATA (
+            SESSION_ID VARCHAR (100) NOT NULL,
+            PROPERTY_TYPE VARCHAR (100) NOT NULL,
+            VALUE VARCHAR (255) NOT NULL,
+            PRIMARY KEY (SESSION_ID, PROPERTY_TYPE, VALUE)
+            );
+
+INSERT INTO SP_APP (TENANT_ID, APP_NAME, UUID) VALUES (-1234, 'console', 'a3f5b4e2-6c1d-4f0e-9b2a-7d8c9e0f1a2b');
+INSERT INTO SP_APP (TENANT_ID, APP_NAME, UUID) VALUES (-1234, 'myaccount', 'b4a6c5f3-7d2e-4a1f-8c3b-8e9d0f1a2b3c');
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hits and puts of the application management {@link BaseCache}, with and without the first level tier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseCacheBenchmark {
+
+    private static final String CACHE_MANAGER_NAME = "IdentityApplicationManagementCacheManager";
+    private static final String CACHE_NAME = "BenchmarkCache";
+    private static final int KEYS = 1000;
+
+    @Param({"false", "true"})
+    public String l1CacheEnabled;
+
+    private BaseCache<String, String> cache;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.init();
+        BenchmarkEnvironment.setProperty("CacheConfig.L1Cache.Enable", l1CacheEnabled);
+        BenchmarkEnvironment.addCacheConfig(CACHE_MANAGER_NAME, CACHE_NAME, 900, KEYS * 2);
+        cache = new BaseCache<>(CACHE_NAME);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key" + i;
+            cache.addToCache(keys[i], "value" + i);
+        }
+    }
+
+    /**
+     * Per thread tenant flow. Hits on the login path are made from tenant flows other than the super tenant flow.
+     */
+    @State(Scope.Thread)
+    public static class TenantFlow {
+
+        private int next;
+
+        @Setup(Level.Trial)
+        public void startTenantFlow() {
+
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(1);
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain("wso2.com");
+        }
+
+        @TearDown(Level.Trial)
+        public void endTenantFlow() {
+
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+
+        int nextIndex() {
+
+            next = next + 1 == KEYS ? 0 : next + 1;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public String hit(TenantFlow tenantFlow) {
+
+        return cache.getValueFromCache(keys[tenantFlow.nextIndex()]);
+    }
+
+    @Benchmark
+    public void put(TenantFlow tenantFlow) {
+
+        int index = tenantFlow.nextIndex();
+        cache.addToCache(keys[index], "value" + index);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.benchmarks;
+
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.identity.common.testng.MockInitialContextFactory;
+import org.wso2.carbon.identity.common.testng.TestCreationException;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfigKey;
+import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import javax.naming.Context;
+import javax.sql.DataSource;
+
+/**
+ * Boots the parts of the identity runtime the benchmarks depend on, without an OSGi container. A temporary carbon
+ * home is populated with the carbon.xml and identity.xml shipped with the common test utils, identity.xml is parsed
+ * into {@link IdentityUtil} and the identity data source is backed by an in-memory H2 database.
+ * <p>
+ * Every JMH fork runs in its own JVM, hence the environment is initialized once per JVM.
+ */
+public final class BenchmarkEnvironment {
+
+    public static final String IDENTITY_DATA_SOURCE = "jdbc/WSO2IdentityDB";
+
+    private static final String CARBON_XML = "repository/conf/carbon.xml";
+    private static final String IDENTITY_XML = "repository/conf/identity/identity.xml";
+
+    private static boolean initialized;
+
+    private BenchmarkEnvironment() {
+
+    }
+
+    /**
+     * Creates the carbon home and loads identity.xml. Subsequent calls are no-ops.
+     *
+     * @throws IOException If the configuration files cannot be copied.
+     */
+    public static synchronized void init() throws IOException {
+
+        if (initialized) {
+            return;
+        }
+        Path carbonHome = Files.createTempDirectory("identity-benchmarks");
+        copyResource(CARBON_XML, carbonHome);
+        copyResource(IDENTITY_XML, carbonHome);
+        carbonHome.toFile().deleteOnExit();
+        System.setProperty(CarbonBaseConstants.CARBON_HOME, carbonHome.toString());
+        IdentityUtil.populateProperties();
+        initialized = true;
+    }
+
+    /**
+     * Overrides a property read through {@link IdentityUtil#getProperty(String)}. Must be called before the class
+     * reading the property is initialized.
+     *
+     * @param key   Property key in the dotted identity.xml notation.
+     * @param value Property value.
+     */
+    public static void setProperty(String key, String value) {
+
+        Map<String, Object> configuration = getStaticField("configuration");
+        configuration.put(key, value);
+    }
+
+    /**
+     * Enables a cache of the given cache manager with the given timeout and capacity.
+     *
+     * @param cacheManagerName Cache manager name.
+     * @param cacheName        Cache name.
+     * @param timeout          Cache timeout in seconds.
+     * @param capacity         Cache capacity.
+     */
+    public static void addCacheConfig(String cacheManagerName, String cacheName, int timeout, int capacity) {
+
+        Map<IdentityCacheConfigKey, IdentityCacheConfig> cacheConfigs =
+                getStaticField("identityCacheConfigurationHolder");
+        IdentityCacheConfigKey key = new IdentityCacheConfigKey(cacheManagerName, cacheName);
+        IdentityCacheConfig cacheConfig = new IdentityCacheConfig(key);
+        cacheConfig.setEnabled(true);
+        cacheConfig.setTimeout(timeout);
+        cacheConfig.setCapacity(capacity);
+        cacheConfigs.put(key, cacheConfig);
+    }
+
+    /**
+     * Creates the in-memory identity database with the given classpath scripts and points the
+     * {@link JDBCPersistenceManager} to it. The JNDI context of the test utils is thread local, hence this must be
+     * called from the thread that performs the setup of the benchmark state.
+     *
+     * @param scripts Classpath locations of the SQL scripts to run.
+     * @return Data source of the in-memory database.
+     * @throws TestCreationException If the database cannot be created.
+     */
+    public static DataSource initIdentityDatabase(String... scripts) throws TestCreationException {
+
+        System.setProperty(Context.INITIAL_CONTEXT_FACTORY, MockInitialContextFactory.class.getName());
+        DataSource dataSource = MockInitialContextFactory.initializeDatasource(IDENTITY_DATA_SOURCE,
+                BenchmarkEnvironment.class, scripts);
+        setField(JDBCPersistenceManager.class, "instance", null);
+        JDBCPersistenceManager.getInstance();
+        return dataSource;
+    }
+
+    /**
+     * Closes the in-memory identity database.
+     */
+    public static void destroyIdentityDatabase() {
+
+        MockInitialContextFactory.closeDatasource(IDENTITY_DATA_SOURCE);
+    }
+
+    private static void copyResource(String resource, Path carbonHome) throws IOException {
+
+        Path target = carbonHome.resolve(resource);
+        Files.createDirectories(target.getParent());
+        try (InputStream inputStream = BenchmarkEnvironment.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IOException("Resource " + resource + " is not available in the classpath.");
+            }
+            Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getStaticField(String name) {
+
+        try {
+            Field field = IdentityUtil.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return (T) field.get(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access IdentityUtil." + name, e);
+        }
+    }
+
+    private static void setField(Class<?> clazz, String name, Object value) {
+
+        try {
+            Field field = clazz.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(null, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + clazz.getSimpleName() + "." + name, e);
+        }
+    }
+}
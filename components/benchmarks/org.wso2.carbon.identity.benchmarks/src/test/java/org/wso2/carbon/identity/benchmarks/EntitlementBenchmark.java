@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.balana.AbstractPolicy;
+import org.wso2.balana.PDP;
+import org.wso2.balana.PDPConfig;
+import org.wso2.balana.combine.xacml3.DenyOverridesPolicyAlg;
+import org.wso2.balana.ctx.EvaluationCtx;
+import org.wso2.balana.ctx.EvaluationCtxFactory;
+import org.wso2.balana.ctx.RequestCtxFactory;
+import org.wso2.balana.ctx.Status;
+import org.wso2.balana.finder.AttributeFinder;
+import org.wso2.balana.finder.PolicyFinder;
+import org.wso2.balana.finder.PolicyFinderModule;
+import org.wso2.balana.finder.PolicyFinderResult;
+import org.wso2.balana.finder.ResourceFinder;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+import org.wso2.carbon.identity.entitlement.policy.PolicyReader;
+import org.wso2.carbon.identity.entitlement.policy.collection.DefaultPolicyCollection;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures XACML evaluation of the entitlement PDP and, separately, the policy matching done by
+ * {@link DefaultPolicyCollection}, for a growing number of resource policies.
+ * <p>
+ * EntitlementEngine needs the registry backed policy stores and the entitlement service component configuration, so
+ * the PDP is assembled here from the same balana PDP and the same policy collection the engine's policy finder uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EntitlementBenchmark {
+
+    private static final String STRING_DATA_TYPE = "http://www.w3.org/2001/XMLSchema#string";
+    private static final String STRING_EQUAL = "urn:oasis:names:tc:xacml:1.0:function:string-equal";
+    private static final String SUBJECT_CATEGORY = "urn:oasis:names:tc:xacml:1.0:subject-category:access-subject";
+    private static final String RESOURCE_CATEGORY = "urn:oasis:names:tc:xacml:3.0:attribute-category:resource";
+    private static final String ACTION_CATEGORY = "urn:oasis:names:tc:xacml:3.0:attribute-category:action";
+    private static final String RESOURCE_ID = "urn:oasis:names:tc:xacml:1.0:resource:resource-id";
+    private static final String ACTION_ID = "urn:oasis:names:tc:xacml:1.0:action:action-id";
+    private static final String ROLE_CLAIM = "http://wso2.org/claims/role";
+
+    private static final String POLICY_TEMPLATE =
+            "<Policy xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\" PolicyId=\"policy-%1$d\" "
+                    + "RuleCombiningAlgId=\"urn:oasis:names:tc:xacml:3.0:rule-combining-algorithm:deny-overrides\" "
+                    + "Version=\"1.0\">"
+                    + "<Target><AnyOf><AllOf>"
+                    + match("/resource-%1$d", RESOURCE_ID, RESOURCE_CATEGORY)
+                    + "</AllOf></AnyOf></Target>"
+                    + "<Rule Effect=\"Permit\" RuleId=\"permit-role-%1$d\">"
+                    + "<Target><AnyOf><AllOf>"
+                    + match("read", ACTION_ID, ACTION_CATEGORY)
+                    + "</AllOf></AnyOf></Target>"
+                    + "<Condition>"
+                    + "<Apply FunctionId=\"urn:oasis:names:tc:xacml:3.0:function:any-of\">"
+                    + "<Function FunctionId=\"" + STRING_EQUAL + "\"/>"
+                    + "<AttributeValue DataType=\"" + STRING_DATA_TYPE + "\">role-%1$d</AttributeValue>"
+                    + designator(ROLE_CLAIM, SUBJECT_CATEGORY)
+                    + "</Apply>"
+                    + "</Condition>"
+                    + "</Rule>"
+                    + "<Rule Effect=\"Deny\" RuleId=\"deny-%1$d\"/>"
+                    + "</Policy>";
+
+    private static final String REQUEST_TEMPLATE =
+            "<Request xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\" CombinedDecision=\"false\" "
+                    + "ReturnPolicyIdList=\"false\">"
+                    + attributes(SUBJECT_CATEGORY, ROLE_CLAIM, "role-%1$d")
+                    + attributes(RESOURCE_CATEGORY, RESOURCE_ID, "/resource-%1$d")
+                    + attributes(ACTION_CATEGORY, ACTION_ID, "read")
+                    + "</Request>";
+
+    @Param({"10", "100", "1000"})
+    public int policyCount;
+
+    private DefaultPolicyCollection policyCollection;
+    private PDP pdp;
+    private String request;
+    private EvaluationCtx evaluationCtx;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.init();
+        policyCollection = new DefaultPolicyCollection(new DenyOverridesPolicyAlg());
+        PolicyReader policyReader = PolicyReader.getInstance(null);
+        for (int i = 0; i < policyCount; i++) {
+            AbstractPolicy policy = policyReader.getPolicy(String.format(POLICY_TEMPLATE, i));
+            if (policy == null) {
+                throw new IllegalStateException("Generated policy " + i + " could not be parsed.");
+            }
+            policyCollection.addPolicy(policy);
+        }
+
+        PolicyFinder policyFinder = new PolicyFinder();
+        Set<PolicyFinderModule> policyFinderModules = new HashSet<>();
+        policyFinderModules.add(new PolicyCollectionFinderModule(policyCollection));
+        policyFinder.setModules(policyFinderModules);
+        PDPConfig pdpConfig = new PDPConfig(new AttributeFinder(), policyFinder, new ResourceFinder(), false);
+        pdp = new PDP(pdpConfig);
+
+        // The request matches a policy in the middle of the collection.
+        request = String.format(REQUEST_TEMPLATE, policyCount / 2);
+        evaluationCtx = EvaluationCtxFactory.getFactory().getEvaluationCtx(
+                RequestCtxFactory.getFactory().getRequestCtx(request), pdpConfig);
+        if (!pdp.evaluate(request).contains("Permit")) {
+            throw new IllegalStateException("Benchmark request is not permitted: " + pdp.evaluate(request));
+        }
+    }
+
+    @Benchmark
+    public String evaluate() {
+
+        return pdp.evaluate(request);
+    }
+
+    @Benchmark
+    public AbstractPolicy findEffectivePolicy() throws EntitlementException {
+
+        return policyCollection.getEffectivePolicy(evaluationCtx);
+    }
+
+    private static String match(String value, String attributeId, String category) {
+
+        return "<Match MatchId=\"" + STRING_EQUAL + "\">"
+                + "<AttributeValue DataType=\"" + STRING_DATA_TYPE + "\">" + value + "</AttributeValue>"
+                + designator(attributeId, category)
+                + "</Match>";
+    }
+
+    private static String designator(String attributeId, String category) {
+
+        return "<AttributeDesignator AttributeId=\"" + attributeId + "\" Category=\"" + category + "\" "
+                + "DataType=\"" + STRING_DATA_TYPE + "\" MustBePresent=\"false\"/>";
+    }
+
+    private static String attributes(String category, String attributeId, String value) {
+
+        return "<Attributes Category=\"" + category + "\">"
+                + "<Attribute AttributeId=\"" + attributeId + "\" IncludeInResult=\"false\">"
+                + "<AttributeValue DataType=\"" + STRING_DATA_TYPE + "\">" + value + "</AttributeValue>"
+                + "</Attribute>"
+                + "</Attributes>";
+    }
+
+    /**
+     * Policy finder module serving the policies of an in-memory policy collection.
+     */
+    private static class PolicyCollectionFinderModule extends PolicyFinderModule {
+
+        private final DefaultPolicyCollection policyCollection;
+
+        PolicyCollectionFinderModule(DefaultPolicyCollection policyCollection) {
+
+            this.policyCollection = policyCollection;
+        }
+
+        @Override
+        public void init(PolicyFinder finder) {
+
+        }
+
+        @Override
+        public boolean isRequestSupported() {
+
+            return true;
+        }
+
+        @Override
+        public PolicyFinderResult findPolicy(EvaluationCtx context) {
+
+            try {
+                AbstractPolicy policy = policyCollection.getEffectivePolicy(context);
+                return policy == null ? new PolicyFinderResult() : new PolicyFinderResult(policy);
+            } catch (EntitlementException e) {
+                return new PolicyFinderResult(new Status(Collections.singletonList(Status.STATUS_PROCESSING_ERROR),
+                        e.getMessage()));
+            }
+        }
+    }
+}
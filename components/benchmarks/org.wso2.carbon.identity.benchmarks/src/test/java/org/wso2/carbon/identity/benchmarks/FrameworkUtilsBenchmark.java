@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link FrameworkUtils} helpers called several times per login: claim mapping conversions, redirect
+ * URL building and the conversion of script context data into its serializable form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameworkUtilsBenchmark {
+
+    @Param({"10", "50"})
+    public int attributeCount;
+
+    private Map<String, String> attributes;
+    private Map<ClaimMapping, String> claimMappings;
+    private Map<String, String> queryParams;
+    private HashMap<String, Object> scriptData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        attributes = new HashMap<>();
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put("http://wso2.org/claims/attribute" + i, "value " + i);
+        }
+        claimMappings = FrameworkUtils.buildClaimMappings(attributes);
+
+        queryParams = new LinkedHashMap<>();
+        queryParams.put("sessionDataKey", "4f8a4d5c-3a8b-4d9e-9a3c-2f7e8b1c6d5a");
+        queryParams.put("relyingParty", "benchmark-app");
+        queryParams.put("type", "oidc");
+        queryParams.put("sp", "benchmark-app");
+        queryParams.put("isSaaSApp", "false");
+        queryParams.put("authenticators", "BasicAuthenticator:LOCAL;TOTP:LOCAL");
+
+        scriptData = new HashMap<>();
+        HashMap<String, Object> nested = new HashMap<>();
+        nested.putAll(attributes);
+        scriptData.put("user", nested);
+        scriptData.put("riskScore", 42);
+        scriptData.put("step", "2");
+    }
+
+    @Benchmark
+    public Map<ClaimMapping, String> buildClaimMappings() {
+
+        return FrameworkUtils.buildClaimMappings(attributes);
+    }
+
+    @Benchmark
+    public Map<String, String> getClaimMappings() {
+
+        return FrameworkUtils.getClaimMappings(claimMappings, true);
+    }
+
+    @Benchmark
+    public String buildURLWithQueryParams() throws UnsupportedEncodingException {
+
+        return FrameworkUtils.buildURLWithQueryParams("https://localhost:9443/authenticationendpoint/login.do",
+                queryParams);
+    }
+
+    @Benchmark
+    public Object toJsSerializable() {
+
+        return FrameworkUtils.toJsSerializable(scriptData);
+    }
+}
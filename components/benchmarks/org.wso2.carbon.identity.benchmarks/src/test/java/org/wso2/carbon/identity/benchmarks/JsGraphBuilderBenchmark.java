@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.StepConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.graph.AuthenticationGraph;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.graph.JsGraphBuilderFactory;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the authentication graph of an adaptive authentication script, which is done on every login to
+ * an application with a script configured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JsGraphBuilderBenchmark {
+
+    private static final String SCRIPT = "var onLoginRequest = function(context) {\n"
+            + "    executeStep(1, {\n"
+            + "        onSuccess: function(context) {\n"
+            + "            var user = context.currentKnownSubject;\n"
+            + "            if (user != null && user.username != 'admin') {\n"
+            + "                executeStep(2);\n"
+            + "            }\n"
+            + "        }\n"
+            + "    });\n"
+            + "};";
+
+    private JsGraphBuilderFactory jsGraphBuilderFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        jsGraphBuilderFactory = new JsGraphBuilderFactory();
+        jsGraphBuilderFactory.init();
+    }
+
+    @Benchmark
+    public AuthenticationGraph buildGraph() {
+
+        Map<Integer, StepConfig> stepConfigMap = new HashMap<>();
+        stepConfigMap.put(1, new StepConfig());
+        stepConfigMap.put(2, new StepConfig());
+        return jsGraphBuilderFactory.createBuilder(createAuthenticationContext(), stepConfigMap)
+                .createWith(SCRIPT)
+                .build();
+    }
+
+    private static AuthenticationContext createAuthenticationContext() {
+
+        AuthenticationContext authenticationContext = new AuthenticationContext();
+        authenticationContext.setServiceProviderName("benchmark-app");
+        authenticationContext.setTenantDomain("carbon.super");
+        authenticationContext.setCurrentStep(1);
+        authenticationContext.setContextIdentifier(UUID.randomUUID().toString());
+        authenticationContext.initializeAnalyticsData();
+        return authenticationContext;
+    }
+}
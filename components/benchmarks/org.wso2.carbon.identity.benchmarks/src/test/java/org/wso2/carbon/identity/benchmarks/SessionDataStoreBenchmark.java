@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationContextCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.StepConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedIdPData;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionContextDO;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+/**
+ * Measures a synchronous write and a read of an authentication context through {@link SessionDataStore}, i.e. the
+ * cost of serializing the context into the session store table and deserializing it back, on an in-memory H2
+ * database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SessionDataStoreBenchmark {
+
+    private static final String SESSION_TYPE = "AuthenticationContextCache";
+    private static final String DELETE_WRITTEN_SESSIONS = "DELETE FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID <> ?";
+
+    @Param({"5", "50"})
+    public int userAttributeCount;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private DataSource dataSource;
+    private SessionDataStore sessionDataStore;
+    private AuthenticationContextCacheEntry authenticationContextCacheEntry;
+    private String storedSessionKey;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.init();
+        // Writes are measured synchronously, so neither the persisting consumers nor the clean up tasks are started.
+        BenchmarkEnvironment.setProperty("JDBCPersistenceManager.SessionDataPersist.PoolSize", "0");
+        BenchmarkEnvironment.setProperty("JDBCPersistenceManager.SessionDataPersist.SessionDataCleanUp.Enable",
+                "false");
+        BenchmarkEnvironment.setProperty("JDBCPersistenceManager.SessionDataPersist.OperationDataCleanUp.Enable",
+                "false");
+        dataSource = BenchmarkEnvironment.initIdentityDatabase("dbscripts/h2.sql");
+        sessionDataStore = SessionDataStore.getInstance();
+
+        authenticationContextCacheEntry = buildAuthenticationContextCacheEntry(userAttributeCount);
+        storedSessionKey = UUID.randomUUID().toString();
+        sessionDataStore.persistSessionData(storedSessionKey, SESSION_TYPE, authenticationContextCacheEntry,
+                System.nanoTime(), MultitenantConstants.INVALID_TENANT_ID);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteWrittenSessions() throws SQLException {
+
+        // Keeps the in-memory table, and hence the heap, from growing across iterations.
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_WRITTEN_SESSIONS)) {
+            statement.setString(1, storedSessionKey);
+            statement.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        BenchmarkEnvironment.destroyIdentityDatabase();
+    }
+
+    @Benchmark
+    public void persistAuthenticationContext() {
+
+        sessionDataStore.persistSessionData("session-" + sequence.incrementAndGet(), SESSION_TYPE,
+                authenticationContextCacheEntry, System.nanoTime(), MultitenantConstants.INVALID_TENANT_ID);
+    }
+
+    @Benchmark
+    public SessionContextDO loadAuthenticationContext() {
+
+        return sessionDataStore.getSessionContextData(storedSessionKey, SESSION_TYPE);
+    }
+
+    /**
+     * Builds the authentication context of a user who completed a two step login to an OIDC application, carrying
+     * the given number of user attributes.
+     */
+    private static AuthenticationContextCacheEntry buildAuthenticationContextCacheEntry(int userAttributeCount) {
+
+        Map<ClaimMapping, String> userAttributes = new HashMap<>();
+        for (int i = 0; i < userAttributeCount; i++) {
+            String claimUri = "http://wso2.org/claims/attribute" + i;
+            userAttributes.put(ClaimMapping.build(claimUri, claimUri, null, false), "value-" + i);
+        }
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName("benchmark-user");
+        user.setUserStoreDomain("PRIMARY");
+        user.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        user.setAuthenticatedSubjectIdentifier("benchmark-user");
+        user.setUserAttributes(userAttributes);
+
+        Map<Integer, StepConfig> stepMap = new HashMap<>();
+        for (int order = 1; order <= 2; order++) {
+            StepConfig stepConfig = new StepConfig();
+            stepConfig.setOrder(order);
+            stepConfig.setAuthenticatedUser(user);
+            stepConfig.setAuthenticatedIdP("LOCAL");
+            stepConfig.setCompleted(true);
+            stepMap.put(order, stepConfig);
+        }
+        SequenceConfig sequenceConfig = new SequenceConfig();
+        sequenceConfig.setName("benchmark-app");
+        sequenceConfig.setApplicationId("benchmark-app");
+        sequenceConfig.setStepMap(stepMap);
+        sequenceConfig.setAuthenticatedUser(user);
+        sequenceConfig.setCompleted(true);
+
+        AuthenticatedIdPData authenticatedIdPData = new AuthenticatedIdPData();
+        authenticatedIdPData.setIdpName("LOCAL");
+        authenticatedIdPData.setUser(user);
+        Map<String, AuthenticatedIdPData> authenticatedIdPs = new HashMap<>();
+        authenticatedIdPs.put("LOCAL", authenticatedIdPData);
+
+        String contextIdentifier = UUID.randomUUID().toString();
+        AuthenticationContext context = new AuthenticationContext();
+        context.setContextIdentifier(contextIdentifier);
+        context.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        context.setServiceProviderName("benchmark-app");
+        context.setRelyingParty("benchmark-client-id");
+        context.setRequestType("oidc");
+        context.setCallerPath("/oauth2/authorize");
+        context.setCallerSessionKey(UUID.randomUUID().toString());
+        context.setQueryParams("client_id=benchmark-client-id&response_type=code&scope=openid&sessionDataKey="
+                + contextIdentifier + "&redirect_uri=https%3A%2F%2Flocalhost%3A8080%2Fcallback");
+        context.setCurrentStep(2);
+        context.setSequenceConfig(sequenceConfig);
+        context.setSubject(user);
+        context.setCurrentAuthenticatedIdPs(authenticatedIdPs);
+        context.setRequestAuthenticated(true);
+        context.setProperty("authenticatedAuthenticators", "BasicAuthenticator:LOCAL;TOTP:LOCAL");
+        context.initializeAnalyticsData();
+
+        AuthenticationContextCacheEntry cacheEntry = new AuthenticationContextCacheEntry(context);
+        cacheEntry.setLoggedInUser(user.toFullQualifiedUsername());
+        return cacheEntry;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.TenantResolutionCache;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures tenant domain to tenant id resolution through {@link IdentityTenantUtil}, with and without the tenant
+ * resolution cache. The tenant manager is a stub, so the uncached figure is a lower bound of the real cost, which
+ * includes a user store or database call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TenantLookupBenchmark {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final int TENANT_ID = 1;
+
+    @Param({"false", "true"})
+    public String tenantResolutionCacheEnabled;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.init();
+        BenchmarkEnvironment.setProperty(IdentityCoreConstants.TENANT_RESOLUTION_CACHE_ENABLED,
+                tenantResolutionCacheEnabled);
+        TenantResolutionCache.getInstance().init();
+
+        TenantManager tenantManager = mock(TenantManager.class);
+        when(tenantManager.getTenantId(TENANT_DOMAIN)).thenReturn(TENANT_ID);
+        when(tenantManager.getDomain(TENANT_ID)).thenReturn(TENANT_DOMAIN);
+        RealmService realmService = mock(RealmService.class);
+        when(realmService.getTenantManager()).thenReturn(tenantManager);
+        IdentityTenantUtil.setRealmService(realmService);
+    }
+
+    @Benchmark
+    public int getTenantId() {
+
+        return IdentityTenantUtil.getTenantId(TENANT_DOMAIN);
+    }
+
+    @Benchmark
+    public String getTenantDomain() {
+
+        return IdentityTenantUtil.getTenantDomain(TENANT_ID);
+    }
+}
@@ -19,6 +19,7 @@ import org.wso2.carbon.utils.ThriftSession;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -63,6 +64,13 @@ public class InMemoryThriftSessionDAO implements ThriftSessionDAO {
         }
     }
 
+    @Override
+    public void updateLastAccessTimes(Map<String, Long> lastAccessTimes) {
+        for (Map.Entry<String, Long> entry : lastAccessTimes.entrySet()) {
+            updateLastAccessTime(entry.getKey(), entry.getValue());
+        }
+    }
+
     @Override
     public ThriftSession getSession(String sessionId) {
         return thriftSessionMap.get(sessionId);
@@ -66,6 +66,8 @@ public class ThriftAuthenticationServiceComponent {
 
     private TCPThriftAuthenticationService TCPThriftAuthenticationService;
 
+    private ThriftAuthenticatorServiceImpl thriftAuthenticatorServiceImpl;
+
     public static int readPortOffset() {
         return CarbonUtils.getPortFromServerConfig(ThriftAuthenticationConstants.CARBON_CONFIG_PORT_OFFSET_NODE) + 1;
     }
@@ -91,8 +93,21 @@ public class ThriftAuthenticationServiceComponent {
                 log.error("Error in loading ThriftSessionTimeout hence using the default: 30min, ", throwable);
                 thriftSessionTimeout = 60000L * 30;
             }
+            // configure how often the last access times of thrift sessions are written to the db in ms
+            long lastAccessFlushInterval = ThriftAuthenticationConstants.DEFAULT_THRIFT_SESSION_LAST_ACCESS_FLUSH_INTERVAL;
+            OMElement lastAccessFlushIntervalElement = ThriftAuthenticationConfigParser.getInstance()
+                    .getConfigElement(ThriftAuthenticationConstants.THRIFT_SESSION_LAST_ACCESS_FLUSH_INTERVAL);
+            if (lastAccessFlushIntervalElement != null) {
+                try {
+                    lastAccessFlushInterval = Long.parseLong(lastAccessFlushIntervalElement.getText().trim());
+                } catch (NumberFormatException e) {
+                    log.error("Error in loading " + ThriftAuthenticationConstants.THRIFT_SESSION_LAST_ACCESS_FLUSH_INTERVAL
+                            + " hence using the default: " + lastAccessFlushInterval + "ms, ", e);
+                }
+            }
             // get an instance of this to register as an osgi service
-            ThriftAuthenticatorServiceImpl thriftAuthenticatorServiceImpl = new ThriftAuthenticatorServiceImpl(getRealmServiceInstance(), thriftSessionDAO, thriftSessionTimeout);
+            thriftAuthenticatorServiceImpl = new ThriftAuthenticatorServiceImpl(getRealmServiceInstance(),
+                    thriftSessionDAO, thriftSessionTimeout, lastAccessFlushInterval);
             // register as an osgi service
             thriftAuthenticationService = compCtx.getBundleContext().registerService(ThriftAuthenticatorService.class.getName(), thriftAuthenticatorServiceImpl, null);
             // register AuthenticatorServiceImpl as a thrift service.
@@ -110,6 +125,9 @@ public class ThriftAuthenticationServiceComponent {
         if (TCPThriftAuthenticationService != null) {
             TCPThriftAuthenticationService.stop();
         }
+        if (thriftAuthenticatorServiceImpl != null) {
+            thriftAuthenticatorServiceImpl.shutdown();
+        }
         compCtx.getBundleContext().ungetService(thriftAuthenticationService.getReference());
     }
 
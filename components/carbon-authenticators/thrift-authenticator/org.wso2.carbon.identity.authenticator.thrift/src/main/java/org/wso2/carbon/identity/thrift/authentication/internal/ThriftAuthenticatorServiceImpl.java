@@ -17,7 +17,6 @@
  */
 package org.wso2.carbon.identity.thrift.authentication.internal;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.MultitenantConstants;
@@ -27,6 +26,7 @@ import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.thrift.authentication.ThriftAuthenticatorService;
 import org.wso2.carbon.identity.thrift.authentication.dao.ThriftSessionDAO;
 import org.wso2.carbon.identity.thrift.authentication.internal.generatedCode.AuthenticationException;
+import org.wso2.carbon.identity.thrift.authentication.internal.util.ThriftAuthenticationConstants;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.service.RealmService;
@@ -34,7 +34,6 @@ import org.wso2.carbon.utils.ServerConstants;
 import org.wso2.carbon.utils.ThriftSession;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -52,11 +51,46 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
     private Map<String, ThriftSession> authenticatedSessions =
             new ConcurrentHashMap<String, ThriftSession>();
     private ThriftSessionDAO thriftSessionDAO;
+    private ThriftSessionLastAccessWriter lastAccessWriter;
 
     public ThriftAuthenticatorServiceImpl(RealmService realmService, ThriftSessionDAO thriftSessionDAO, long thriftSessionTimeOut) {
+        this(realmService, thriftSessionDAO, thriftSessionTimeOut,
+                ThriftAuthenticationConstants.DEFAULT_THRIFT_SESSION_LAST_ACCESS_FLUSH_INTERVAL);
+    }
+
+    /**
+     * @param lastAccessFlushInterval how often, in milliseconds, the last access times of the sessions are written to
+     *                                the session store. It is capped at a quarter of the session timeout so that a
+     *                                session is never seen as expired by another node while it is still in use.
+     */
+    public ThriftAuthenticatorServiceImpl(RealmService realmService, ThriftSessionDAO thriftSessionDAO,
+                                          long thriftSessionTimeOut, long lastAccessFlushInterval) {
         this.realmService = realmService;
         setThriftSessionTimeOut(thriftSessionTimeOut);
         this.thriftSessionDAO = thriftSessionDAO.getInstance();
+        long maxFlushInterval = thriftSessionTimeOut / 4;
+        if (lastAccessFlushInterval > maxFlushInterval) {
+            log.warn("Thrift session last access flush interval: " + lastAccessFlushInterval + "ms exceeds a quarter " +
+                    "of the session timeout, hence using " + maxFlushInterval + "ms");
+            lastAccessFlushInterval = maxFlushInterval;
+        }
+        this.lastAccessWriter = new ThriftSessionLastAccessWriter(this.thriftSessionDAO, lastAccessFlushInterval);
+        this.lastAccessWriter.start();
+    }
+
+    /**
+     * Stops the background flush of session last access times, writing the pending ones.
+     */
+    public void shutdown() {
+        lastAccessWriter.stop();
+    }
+
+    long getLastAccessFlushInterval() {
+        return lastAccessWriter.getFlushInterval();
+    }
+
+    int getPendingLastAccessCount() {
+        return lastAccessWriter.getPendingCount();
     }
 
     private void addThriftSession(ThriftSession thriftSession) throws IdentityException {
@@ -67,9 +101,10 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
         sessionDAO.addSession(thriftSession);
     }
 
-    private void removeThriftSession(String thriftSessionId) throws IdentityException {
+    void removeThriftSession(String thriftSessionId) throws IdentityException {
         //remove from cache
         authenticatedSessions.remove(thriftSessionId);
+        lastAccessWriter.discard(thriftSessionId);
         //remove from db
         ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
         sessionDAO.removeSession(thriftSessionId);
@@ -167,92 +202,35 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
         if (sessionId == null) {
             return false;
         }
-        //if cache empty, try to populate from db
-        if (authenticatedSessions.isEmpty()) {
+        ThriftSession thriftSession = authenticatedSessions.get(sessionId);
+        if (thriftSession == null || !isSessionValid(thriftSession)) {
+            //not in cache or expired in cache, the session may have been created or used through another node
             try {
-                populateSessionsFromDB();
+                thriftSession = loadSessionFromDB(sessionId);
             } catch (IdentityException e) {
-                String error = "Error while populating thrift sessions from cache";
-                log.error(error, e);
-            } catch (Exception e) {
-                String error = "Error while populating thrift sessions from cache";
+                String error = "Error while obtaining thrift session from database.";
                 log.error(error, e);
+                return false;
             }
-        }
-        //if cache not empty, check if session id existing and valid, if so, update last access time and return it.
-        if (!authenticatedSessions.isEmpty()) {
-            ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
-            if (authenticatedSessions.containsKey(sessionId)) {
-                ThriftSession thriftSessionInCache = authenticatedSessions.get(sessionId);
-                if (isSessionValid(thriftSessionInCache)) {
-                    //update the last access time in cache and d
-                    long lastAccessTime = System.currentTimeMillis();
-                    (authenticatedSessions.get(sessionId)).setLastAccess(lastAccessTime);
-                    try {
-                        //if carbon context in the thrift session is not initialized, should do that now.
-                        onSuccessLogin(thriftSessionInCache);
-                        //put the thrift session filled with carbon context info
-                        authenticatedSessions.put(sessionId, thriftSessionInCache);
-                        sessionDAO.updateLastAccessTime(sessionId, lastAccessTime);
-                    } catch (IdentityException e) {
-                        String error = "Error while updating last access time in DB";
-                        log.error(error, e);
-                    } catch (Exception e) {
-                        String error = "Error in calling on success admin login for the thrift session.";
-                        log.error(error, e);
-                    }
-                    return true;
-                } else {
-                    //if not valid in cache, check if valid in db
-                    try {
-                        ThriftSession thriftSession = sessionDAO.getSession(sessionId);
-                        if (isSessionValid(thriftSession)) {
-                            //update cache and return true
-                            thriftSession.setLastAccess(System.currentTimeMillis());
-                            onSuccessLogin(thriftSession);
-                            authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
-                            sessionDAO.updateLastAccessTime(sessionId, thriftSession.getLastAccess());
-                            return true;
-                        } else {
-                            //remove from cache and db and return false
-                            removeThriftSession(sessionId);
-                            return false;
-                        }
-                    } catch (IdentityException e) {
-                        String error = "Error while obtaining thrift session from database.";
-                        log.error(error, e);
-                    } catch (Exception e) {
-                        String error = "Error in calling on success admin login for the thrift session.";
-                        log.error(error, e);
-                    }
-                }
-            } else {
-                //if session id not found, check in db as well, if exist in db, populate cache
-                try {
-                    if (sessionDAO.isSessionExisting(sessionId)) {
-                        ThriftSession thriftSession = sessionDAO.getSession(sessionId);
-                        if (isSessionValid(thriftSession)) {
-                            thriftSession.setLastAccess(System.currentTimeMillis());
-                            onSuccessLogin(thriftSession);
-                            authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
-                            sessionDAO.updateLastAccessTime(sessionId, thriftSession.getLastAccess());
-                            return true;
-                        } else {
-                            sessionDAO.removeSession(sessionId);
-                            return false;
-                        }
-                    }
-                } catch (IdentityException e) {
-                    String error = "Error while obtaining thrift session from database.";
-                    log.error(error, e);
-                } catch (Exception e) {
-                    String error = "Error in calling on success admin login for the thrift session obtained from DB.";
-                    log.error(error, e);
-                }
+            if (thriftSession == null) {
+                return false;
             }
         }
-
-        return false;
+        //update the last access time in cache, the db is updated by the last access writer
+        long lastAccessTime = System.currentTimeMillis();
+        thriftSession.setLastAccess(lastAccessTime);
+        lastAccessWriter.record(sessionId, lastAccessTime);
+        if (!authenticatedSessions.containsKey(sessionId)) {
+            //the session was removed concurrently, hence its access time must not be written back
+            lastAccessWriter.discard(sessionId);
+        }
+        try {
+            onSuccessLogin(thriftSession);
+        } catch (IdentityException e) {
+            String error = "Error in calling on success admin login for the thrift session.";
+            log.error(error, e);
+        }
+        return true;
     }
 
     public ThriftSession getSessionInfo(String sessionId) {
@@ -269,20 +247,35 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
         return (System.currentTimeMillis() - thriftSession.getLastAccess()) < getThriftSessionTimeOut();
     }
 
-    private void populateSessionsFromDB() throws Exception {
-        //first clear the cache
-        if (!authenticatedSessions.isEmpty()) {
-            authenticatedSessions.clear();
-        }
-        //get all sessions from db
+    /**
+     * Loads a single session from the db into the cache. Expired sessions are removed from both.
+     *
+     * @param sessionId session id
+     * @return the valid session or null if there is none
+     */
+    private ThriftSession loadSessionFromDB(String sessionId) throws IdentityException {
         ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
-        List<ThriftSession> thriftSessions = sessionDAO.getAllSessions();
-        //add to cache
-        if (CollectionUtils.isNotEmpty(thriftSessions)) {
-            for (ThriftSession thriftSession : thriftSessions) {
-                authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
+        ThriftSession thriftSession = sessionDAO.getSession(sessionId);
+        if (thriftSession == null || thriftSession.getSessionId() == null) {
+            authenticatedSessions.remove(sessionId);
+            lastAccessWriter.discard(sessionId);
+            return null;
+        }
+        if (!isSessionValid(thriftSession)) {
+            removeThriftSession(sessionId);
+            return null;
+        }
+        if (thriftSession.getAttribute(MultitenantConstants.TENANT_ID) == null) {
+            //sessions read from the db do not carry the carbon context info, hence populate it now
+            try {
+                callOnSuccessAdminLogin(thriftSession);
+            } catch (Exception e) {
+                String error = "Error in calling on success admin login for the thrift session obtained from DB.";
+                log.error(error, e);
             }
         }
+        authenticatedSessions.put(sessionId, thriftSession);
+        return thriftSession;
     }
 
     private void callOnSuccessAdminLogin(ThriftSession session) throws Exception {
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.thrift.authentication.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.thrift.authentication.dao.ThriftSessionDAO;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind store for the last access times of thrift sessions. Access times are coalesced per session in memory
+ * and written to the session store in a single batch once every flush interval, so the persisted last access time of
+ * a session lags behind by at most the flush interval. A flush interval of zero or less writes every access through.
+ */
+public class ThriftSessionLastAccessWriter {
+
+    private static final Log log = LogFactory.getLog(ThriftSessionLastAccessWriter.class);
+
+    private final ThriftSessionDAO thriftSessionDAO;
+    private final long flushInterval;
+    private final ConcurrentMap<String, Long> pendingLastAccessTimes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flushScheduler;
+
+    public ThriftSessionLastAccessWriter(ThriftSessionDAO thriftSessionDAO, long flushInterval) {
+
+        this.thriftSessionDAO = thriftSessionDAO;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Starts the periodic flush. Does nothing when access times are written through.
+     */
+    public synchronized void start() {
+
+        if (flushInterval <= 0 || flushScheduler != null) {
+            return;
+        }
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ThriftSessionLastAccessWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushScheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic flush and writes the access times which are still pending.
+     */
+    public void stop() {
+
+        synchronized (this) {
+            if (flushScheduler != null) {
+                flushScheduler.shutdown();
+                flushScheduler = null;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Records an access of the given session. Only the latest access time of a session is kept until the next flush.
+     *
+     * @param sessionId      session id
+     * @param lastAccessTime last access time in milliseconds
+     */
+    public void record(String sessionId, long lastAccessTime) {
+
+        if (flushInterval > 0) {
+            pendingLastAccessTimes.merge(sessionId, lastAccessTime, Math::max);
+            return;
+        }
+        try {
+            thriftSessionDAO.getInstance().updateLastAccessTime(sessionId, lastAccessTime);
+        } catch (IdentityException e) {
+            log.error("Error while updating last access time in DB", e);
+        }
+    }
+
+    /**
+     * Drops the pending access time of a session which is being removed.
+     *
+     * @param sessionId session id
+     */
+    public void discard(String sessionId) {
+
+        pendingLastAccessTimes.remove(sessionId);
+    }
+
+    /**
+     * Writes the pending access times in one batch. Failed writes are retried on the next flush.
+     */
+    public synchronized void flush() {
+
+        if (pendingLastAccessTimes.isEmpty()) {
+            return;
+        }
+        Map<String, Long> lastAccessTimes = new HashMap<>(pendingLastAccessTimes);
+        try {
+            thriftSessionDAO.getInstance().updateLastAccessTimes(lastAccessTimes);
+            // Keep the entries which were accessed again while the batch was being written.
+            for (Map.Entry<String, Long> entry : lastAccessTimes.entrySet()) {
+                pendingLastAccessTimes.remove(entry.getKey(), entry.getValue());
+            }
+        } catch (IdentityException e) {
+            log.error("Error while updating last access times of " + lastAccessTimes.size() +
+                    " thrift sessions in DB", e);
+        } catch (RuntimeException e) {
+            // Do not let the scheduled flush die on an unexpected error.
+            log.error("Unexpected error while updating last access times of thrift sessions in DB", e);
+        }
+    }
+
+    public long getFlushInterval() {
+
+        return flushInterval;
+    }
+
+    public int getPendingCount() {
+
+        return pendingLastAccessTimes.size();
+    }
+}
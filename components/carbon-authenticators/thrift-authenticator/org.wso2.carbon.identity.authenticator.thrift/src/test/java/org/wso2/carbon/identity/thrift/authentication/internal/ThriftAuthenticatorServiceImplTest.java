@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.thrift.authentication.internal;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.thrift.authentication.dao.InMemoryThriftSessionDAO;
+import org.wso2.carbon.utils.ServerConstants;
+import org.wso2.carbon.utils.ThriftSession;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class ThriftAuthenticatorServiceImplTest {
+
+    private static final long SESSION_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+    private static final long FLUSH_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    private CopyingThriftSessionDAO sessionDAO;
+    private ThriftAuthenticatorServiceImpl authenticatorService;
+
+    @BeforeClass
+    public void setUpCarbonHome() {
+
+        System.setProperty(CarbonBaseConstants.CARBON_HOME,
+                Paths.get(System.getProperty("user.dir"), "src", "test", "resources").toString());
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        sessionDAO = new CopyingThriftSessionDAO();
+        authenticatorService = new ThriftAuthenticatorServiceImpl(null, sessionDAO, SESSION_TIMEOUT, FLUSH_INTERVAL);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        authenticatorService.shutdown();
+    }
+
+    @Test
+    public void testSessionIsLoadedLazily() {
+
+        long now = System.currentTimeMillis();
+        sessionDAO.addSession(createSession("session-1", now));
+        sessionDAO.addSession(createSession("session-2", now));
+
+        assertTrue(authenticatorService.isAuthenticated("session-1"));
+        assertTrue(authenticatorService.isAuthenticated("session-1"));
+
+        // Only the requested session is read, once, and the others are not loaded.
+        assertEquals(sessionDAO.getSessionCount.get(), 1);
+        assertEquals(sessionDAO.getAllSessionsCount.get(), 0);
+        assertNull(authenticatorService.getSessionInfo("session-2"));
+    }
+
+    @Test
+    public void testExpiredLocalSessionIsReloadedFromStore() {
+
+        long now = System.currentTimeMillis();
+        sessionDAO.addSession(createSession("session-1", now));
+        assertTrue(authenticatorService.isAuthenticated("session-1"));
+
+        // The session kept being used through another node while it expired in this one.
+        ThriftSession localSession = authenticatorService.getSessionInfo("session-1");
+        localSession.setLastAccess(now - 2 * SESSION_TIMEOUT);
+
+        assertTrue(authenticatorService.isAuthenticated("session-1"));
+        assertEquals(sessionDAO.getSessionCount.get(), 2);
+        assertNotSame(authenticatorService.getSessionInfo("session-1"), localSession);
+        assertTrue(authenticatorService.getSessionInfo("session-1").getLastAccess() >= now);
+    }
+
+    @Test
+    public void testSessionExpiredInStoreIsRemoved() {
+
+        sessionDAO.addSession(createSession("session-1", System.currentTimeMillis() - 2 * SESSION_TIMEOUT));
+
+        assertFalse(authenticatorService.isAuthenticated("session-1"));
+        assertFalse(sessionDAO.isSessionExisting("session-1"));
+        assertNull(authenticatorService.getSessionInfo("session-1"));
+        assertEquals(authenticatorService.getPendingLastAccessCount(), 0);
+    }
+
+    @Test
+    public void testConcurrentRemovalLeavesNoPendingWrite() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 500; i++) {
+                String sessionId = "session-" + i;
+                sessionDAO.addSession(createSession(sessionId, System.currentTimeMillis()));
+                assertTrue(authenticatorService.isAuthenticated(sessionId));
+
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> access = executor.submit(() -> {
+                    start.await();
+                    return authenticatorService.isAuthenticated(sessionId);
+                });
+                Future<?> removal = executor.submit(() -> {
+                    start.await();
+                    authenticatorService.removeThriftSession(sessionId);
+                    return null;
+                });
+                start.countDown();
+                access.get(10, TimeUnit.SECONDS);
+                removal.get(10, TimeUnit.SECONDS);
+
+                assertEquals(authenticatorService.getPendingLastAccessCount(), 0,
+                        "Last access time of removed session " + sessionId + " is pending.");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @DataProvider(name = "flushIntervalData")
+    public Object[][] flushIntervalData() {
+
+        return new Object[][]{
+                // session timeout, configured flush interval, effective flush interval
+                {40000L, 60000L, 10000L},
+                {40000L, 10000L, 10000L},
+                {40000L, 5000L, 5000L},
+                {40000L, 0L, 0L},
+                {3L, 60000L, 0L}
+        };
+    }
+
+    @Test(dataProvider = "flushIntervalData")
+    public void testFlushIntervalIsCappedAtQuarterOfSessionTimeout(long sessionTimeout, long flushInterval,
+                                                                    long expectedFlushInterval) {
+
+        ThriftAuthenticatorServiceImpl authenticatorService = new ThriftAuthenticatorServiceImpl(null,
+                new InMemoryThriftSessionDAO(), sessionTimeout, flushInterval);
+        try {
+            assertEquals(authenticatorService.getLastAccessFlushInterval(), expectedFlushInterval);
+        } finally {
+            authenticatorService.shutdown();
+        }
+    }
+
+    private static ThriftSession createSession(String sessionId, long lastAccess) {
+
+        ThriftSession session = new ThriftSession();
+        session.setSessionId(sessionId);
+        session.setUserName("admin");
+        session.setCreatedAt(lastAccess);
+        session.setLastAccess(lastAccess);
+        session.setAttribute(ServerConstants.AUTHENTICATION_SERVICE_USERNAME, "admin");
+        session.setAttribute(MultitenantConstants.TENANT_DOMAIN, MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        session.setAttribute(MultitenantConstants.TENANT_ID, MultitenantConstants.SUPER_TENANT_ID);
+        return session;
+    }
+
+    /**
+     * Session store which returns copies of the stored sessions, as a database backed store does.
+     */
+    private static class CopyingThriftSessionDAO extends InMemoryThriftSessionDAO {
+
+        private final AtomicInteger getSessionCount = new AtomicInteger();
+        private final AtomicInteger getAllSessionsCount = new AtomicInteger();
+
+        @Override
+        public List<ThriftSession> getAllSessions() {
+
+            getAllSessionsCount.incrementAndGet();
+            return super.getAllSessions();
+        }
+
+        @Override
+        public ThriftSession getSession(String sessionId) {
+
+            getSessionCount.incrementAndGet();
+            ThriftSession session = super.getSession(sessionId);
+            if (session == null) {
+                return null;
+            }
+            ThriftSession copy = createSession(session.getSessionId(), session.getLastAccess());
+            copy.setCreatedAt(session.getCreatedAt());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.thrift.authentication.internal;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.thrift.authentication.dao.InMemoryThriftSessionDAO;
+import org.wso2.carbon.utils.ThriftSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ThriftSessionLastAccessWriterTest {
+
+    private static final String SESSION_ID = "session-1";
+    private static final long FLUSH_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private RecordingThriftSessionDAO sessionDAO;
+    private ThriftSessionLastAccessWriter writer;
+
+    @BeforeMethod
+    public void setUp() {
+
+        sessionDAO = new RecordingThriftSessionDAO();
+        sessionDAO.addSession(createSession(SESSION_ID));
+        writer = new ThriftSessionLastAccessWriter(sessionDAO, FLUSH_INTERVAL);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        writer.stop();
+    }
+
+    @Test
+    public void testRecordKeepsLatestAccessTime() {
+
+        writer.record(SESSION_ID, 200);
+        writer.record(SESSION_ID, 100);
+        writer.record(SESSION_ID, 300);
+        assertEquals(writer.getPendingCount(), 1);
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 0);
+
+        writer.flush();
+
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 300);
+        assertEquals(sessionDAO.batchCount.get(), 1);
+        assertEquals(writer.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testAccessRecordedDuringFlushIsKept() {
+
+        writer.record(SESSION_ID, 100);
+        sessionDAO.duringBatch = () -> writer.record(SESSION_ID, 200);
+
+        writer.flush();
+
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 100);
+        assertEquals(writer.getPendingCount(), 1, "The access recorded during the flush should stay pending.");
+
+        sessionDAO.duringBatch = null;
+        writer.flush();
+
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 200);
+        assertEquals(writer.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testDiscardDropsPendingAccessTime() {
+
+        writer.record(SESSION_ID, 100);
+        writer.discard(SESSION_ID);
+
+        writer.flush();
+
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 0);
+        assertEquals(sessionDAO.batchCount.get(), 0);
+    }
+
+    @Test
+    public void testDiscardDuringFlushDoesNotResurrectSession() {
+
+        writer.record(SESSION_ID, 100);
+        sessionDAO.duringBatch = () -> writer.discard(SESSION_ID);
+
+        writer.flush();
+
+        assertEquals(writer.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+
+        writer.record(SESSION_ID, 100);
+        sessionDAO.failNextBatch = true;
+
+        writer.flush();
+
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 0);
+        assertEquals(writer.getPendingCount(), 1);
+
+        writer.flush();
+
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 100);
+        assertEquals(writer.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testStopWritesPendingAccessTimes() {
+
+        writer.record(SESSION_ID, 100);
+
+        writer.stop();
+
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 100);
+    }
+
+    @Test
+    public void testWriteThroughWithoutFlushInterval() {
+
+        ThriftSessionLastAccessWriter writeThroughWriter = new ThriftSessionLastAccessWriter(sessionDAO, 0);
+        writeThroughWriter.record(SESSION_ID, 100);
+
+        assertEquals(sessionDAO.getSession(SESSION_ID).getLastAccess(), 100);
+        assertEquals(writeThroughWriter.getPendingCount(), 0);
+        assertEquals(sessionDAO.batchCount.get(), 0);
+    }
+
+    @Test
+    public void testConcurrentRecordsAndFlushes() throws Exception {
+
+        int sessionCount = 20;
+        int recordsPerThread = 500;
+        int recordingThreads = 8;
+        for (int i = 0; i < sessionCount; i++) {
+            sessionDAO.addSession(createSession("session-" + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(recordingThreads + 1);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        AtomicInteger runningThreads = new AtomicInteger(recordingThreads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < recordingThreads; t++) {
+                int threadIndex = t;
+                futures.add(executor.submit(() -> {
+                    startLatch.await();
+                    for (int i = 0; i < recordsPerThread; i++) {
+                        writer.record("session-" + (i % sessionCount), (long) i * recordingThreads + threadIndex);
+                    }
+                    runningThreads.decrementAndGet();
+                    return null;
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                startLatch.await();
+                while (runningThreads.get() > 0) {
+                    writer.flush();
+                }
+                return null;
+            }));
+            startLatch.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        writer.flush();
+
+        assertEquals(writer.getPendingCount(), 0);
+        for (int i = 0; i < sessionCount; i++) {
+            long latestAccessTime = 0;
+            for (int record = i; record < recordsPerThread; record += sessionCount) {
+                latestAccessTime = Math.max(latestAccessTime,
+                        (long) record * recordingThreads + recordingThreads - 1);
+            }
+            assertEquals(sessionDAO.getSession("session-" + i).getLastAccess(), latestAccessTime,
+                    "Latest access time of session-" + i + " should have been written.");
+        }
+        assertTrue(sessionDAO.batchCount.get() >= 1);
+    }
+
+    private static ThriftSession createSession(String sessionId) {
+
+        ThriftSession session = new ThriftSession();
+        session.setSessionId(sessionId);
+        return session;
+    }
+
+    /**
+     * In memory session DAO which counts the batch updates and can run an action while a batch is being written.
+     */
+    private static class RecordingThriftSessionDAO extends InMemoryThriftSessionDAO {
+
+        private final AtomicInteger batchCount = new AtomicInteger();
+        private volatile Runnable duringBatch;
+        private volatile boolean failNextBatch;
+
+        @Override
+        public void updateLastAccessTimes(Map<String, Long> lastAccessTimes) {
+
+            if (duringBatch != null) {
+                duringBatch.run();
+            }
+            if (failNextBatch) {
+                failNextBatch = false;
+                throw new IllegalStateException("Simulated batch failure");
+            }
+            batchCount.incrementAndGet();
+            super.updateLastAccessTimes(lastAccessTimes);
+        }
+    }
+}
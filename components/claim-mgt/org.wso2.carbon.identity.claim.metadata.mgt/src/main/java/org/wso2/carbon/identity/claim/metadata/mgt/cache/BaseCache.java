@@ -18,28 +18,39 @@ package org.wso2.carbon.identity.claim.metadata.mgt.cache;
 
 import org.wso2.carbon.caching.impl.CacheImpl;
 import org.wso2.carbon.caching.impl.CachingConstants;
+import org.wso2.carbon.identity.core.cache.CacheStatistics;
+import org.wso2.carbon.identity.core.cache.IdentityCacheStatistics;
+import org.wso2.carbon.identity.core.cache.IdentityCacheStatisticsRegistry;
 import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import javax.cache.Cache;
 import javax.cache.CacheBuilder;
 import javax.cache.CacheConfiguration;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryListenerException;
 import java.io.Serializable;
 import java.util.concurrent.TimeUnit;
 
 /**
- * A base class for all cache implementations in Claim metatada management modules.
+ * A base class for all cache implementations in Claim metatada management modules. Hits, misses, puts and
+ * invalidations are counted against the tenant of the caller in {@link IdentityCacheStatistics}, and expired entries
+ * as evictions against the super tenant.
  */
 public class BaseCache<K extends Serializable, V extends Serializable> {
 
     private static final String CACHE_MANAGER_NAME = "IdentityClaimMetadataMgtCacheManager";
     private CacheBuilder<K, V> cacheBuilder;
     private String cacheName;
+    private IdentityCacheStatistics statistics;
 
     public BaseCache(String cacheName) {
         this.cacheName = cacheName;
+        statistics = IdentityCacheStatisticsRegistry.getInstance().getCacheStatistics(CACHE_MANAGER_NAME, cacheName);
         IdentityCacheConfig identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
         if (identityCacheConfig != null && !identityCacheConfig.isDistributed()) {
             this.cacheName = CachingConstants.LOCAL_CACHE_PREFIX + cacheName;
@@ -66,6 +77,9 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
                                             .Duration(TimeUnit.SECONDS, getCacheTimeout())).
                             setStoreByValue(false);
                     cache = cacheBuilder.build();
+                    if (statistics != null) {
+                        cacheBuilder.registerCacheEntryListener(new ExpiryCounter());
+                    }
                     setCapacity((CacheImpl) cache);
                 } else {
                     cache = cacheManager.getCache(cacheName);
@@ -94,6 +108,9 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordPut();
+        }
         // Element already in the cache. Remove it first
         Cache<K, V> cache = getBaseCache();
         if (cache != null) {
@@ -118,10 +135,16 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         }
 
         Cache<K, V> cache = getBaseCache();
-        if (cache != null && cache.get(key) != null) {
-            return (V) cache.get(key);
+        V value = cache != null ? cache.get(key) : null;
+        if (statistics != null) {
+            CacheStatistics tenantStatistics = statistics.forCurrentTenant();
+            if (value != null) {
+                tenantStatistics.recordHit();
+            } else {
+                tenantStatistics.recordMiss();
+            }
         }
-        return null;
+        return value;
     }
 
     /**
@@ -134,6 +157,9 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordInvalidation();
+        }
         Cache<K, V> cache = getBaseCache();
         if (cache != null) {
             cache.remove(key);
@@ -149,6 +175,9 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordInvalidation();
+        }
         Cache<K, V> cache = getBaseCache();
         if (cache != null) {
             cache.removeAll();
@@ -185,4 +214,16 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             cache.setCapacity(getCapacity());
         }
     }
+
+    /**
+     * Counts expired entries as evictions against the super tenant, as expiry is observed by whichever thread
+     * touches the cache and not by the tenant the entry belongs to.
+     */
+    private class ExpiryCounter implements CacheEntryExpiredListener<K, V> {
+
+        @Override
+        public void entryExpired(CacheEntryEvent<? extends K, ? extends V> event) throws CacheEntryListenerException {
+            statistics.forTenant(MultitenantConstants.SUPER_TENANT_ID).recordEviction();
+        }
+    }
 }
@@ -22,6 +22,7 @@ import org.apache.axiom.om.util.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.entitlement.cache.CredentialCache;
 import org.wso2.carbon.identity.entitlement.endpoint.util.EntitlementEndpointConstants;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -104,11 +105,18 @@ public class BasicAuthHandler implements EntitlementAuthenticationHandler {
                             log.error("Invalid tenant domain " + tenantDomain);
                             return false;
                         }
+                        CredentialCache credentialCache = CredentialCache.getInstance();
+                        if (credentialCache.isVerified(tenantId, tenantLessUserName, password)) {
+                            // credential was verified against the user store within the caching interval.
+                            authzHeaders.set(0, userName);
+                            return true;
+                        }
                         // get tenant's user realm
                         UserRealm userRealm = realmService.getTenantUserRealm(tenantId);
                         boolean authenticated = userRealm.getUserStoreManager().authenticate(
                                 tenantLessUserName, password);
                         if (authenticated) {
+                            credentialCache.addVerified(tenantId, tenantLessUserName, password);
                             // authentication success. set the username for authorization header and
                             // proceed the REST call
                             authzHeaders.set(0, userName);
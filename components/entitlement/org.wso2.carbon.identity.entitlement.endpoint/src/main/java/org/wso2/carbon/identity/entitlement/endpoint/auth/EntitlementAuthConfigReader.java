@@ -43,8 +43,14 @@ public class EntitlementAuthConfigReader {
             basicAuthProps.put("Priority", "5");
             basicAuth.setProperties(basicAuthProps);
 
+            SignedTokenAuthHandler signedTokenAuth = new SignedTokenAuthHandler();
+            HashMap<String, String> signedTokenAuthProps = new HashMap<String, String>();
+            signedTokenAuthProps.put("Priority", "10");
+            signedTokenAuth.setProperties(signedTokenAuthProps);
+
             List<EntitlementAuthenticationHandler> entitlementAuthHandlers = new ArrayList<EntitlementAuthenticationHandler>();
             entitlementAuthHandlers.add(basicAuth);
+            entitlementAuthHandlers.add(signedTokenAuth);
 
             /**
              * TODO : Remove hardcoded Authenticator initializing and read authenticator
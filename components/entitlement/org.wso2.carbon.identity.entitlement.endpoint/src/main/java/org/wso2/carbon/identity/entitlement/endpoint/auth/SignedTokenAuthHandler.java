@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.endpoint.auth;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.KeyProviderService;
+import org.wso2.carbon.identity.entitlement.EntitlementUtil;
+import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.endpoint.util.EntitlementEndpointConstants;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import javax.ws.rs.container.ContainerRequestContext;
+
+/**
+ * Authentication handler for Entitlement REST endpoints which accepts RS256 signed bearer tokens (JWT) issued for
+ * a user of the tenant. The token is validated locally against the tenant's public certificate, so no user store
+ * call is made per request. The handler is only active when enabled in entitlement.properties.
+ */
+public class SignedTokenAuthHandler implements EntitlementAuthenticationHandler {
+
+    private static Log log = LogFactory.getLog(SignedTokenAuthHandler.class);
+    /* constants specific to this authenticator */
+    private static final String BEARER_AUTH_HEADER = EntitlementEndpointConstants.AUTH_TYPE_OAUTH + " ";
+    private static final String SUPPORTED_ALGORITHM = "RS256";
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    private static final String CLAIM_ALGORITHM = "alg";
+    private static final String CLAIM_SUBJECT = "sub";
+    private static final String CLAIM_EXPIRY = "exp";
+    private static final String CLAIM_NOT_BEFORE = "nbf";
+    private static final String CLAIM_ISSUER = "iss";
+    private static final String CLAIM_AUDIENCE = "aud";
+    private static final int DEFAULT_PRIORITY = 10;
+    private static final long DEFAULT_CLOCK_SKEW = 60;
+    /* property map */
+    private Map<String, String> properties;
+    /* properties specific to this authenticator */
+    private int priority;
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public boolean canHandle(ContainerRequestContext message) {
+
+        if (!Boolean.parseBoolean(getConfig().getProperty(PDPConstants.TOKEN_AUTHENTICATION))) {
+            return false;
+        }
+        String authzHeader = getAuthorizationHeader(message);
+        return authzHeader != null && authzHeader.startsWith(BEARER_AUTH_HEADER);
+    }
+
+    public boolean isAuthenticated(ContainerRequestContext message) {
+
+        List<String> authzHeaders = message.getHeaders().get(EntitlementEndpointConstants.AUTHORIZATION_HEADER);
+        String authzHeader = getAuthorizationHeader(message);
+        if (authzHeader == null) {
+            log.error("Authentication required for this resource. " +
+                    "Authorization header not present in the request.");
+            return false;
+        }
+
+        String[] parts = authzHeader.substring(BEARER_AUTH_HEADER.length()).trim().split("\\.");
+        if (parts.length != 3) {
+            log.error("Bearer token is not a signed JWT.");
+            return false;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            JsonObject header = parse(decoder.decode(parts[0]));
+            JsonObject claims = parse(decoder.decode(parts[1]));
+            if (!SUPPORTED_ALGORITHM.equals(getString(header, CLAIM_ALGORITHM))) {
+                log.error("Unsupported signature algorithm in bearer token.");
+                return false;
+            }
+            String userName = getString(claims, CLAIM_SUBJECT);
+            if (StringUtils.isBlank(userName)) {
+                log.error("Subject is not present in the bearer token.");
+                return false;
+            }
+            if (!isValidClaimSet(claims)) {
+                return false;
+            }
+            String tenantDomain = MultitenantUtils.getTenantDomain(userName);
+            if (!isValidSignature(parts, decoder.decode(parts[2]), tenantDomain)) {
+                log.error("Signature validation failed for the bearer token of user: " + userName);
+                return false;
+            }
+            // authentication success. set the username for authorization header and proceed the REST call
+            authzHeaders.set(0, userName);
+            return true;
+        } catch (JsonParseException | IllegalArgumentException | IllegalStateException |
+                UnsupportedOperationException e) {
+            // Thrown by the decoder and the parser on malformed tokens.
+            log.error("Malformed bearer token.");
+            if (log.isDebugEnabled()) {
+                log.debug("Error while parsing the bearer token.", e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * To set the properties specific to each authenticator
+     *
+     * @param authenticatorProperties
+     */
+    public void setProperties(Map<String, String> authenticatorProperties) {
+        // set the priority read from config
+        this.properties = authenticatorProperties;
+        String priorityString = properties.get(EntitlementEndpointConstants.PROPERTY_NAME_PRIORITY);
+        if (priorityString != null) {
+            priority = Integer.parseInt(priorityString);
+        } else {
+            priority = DEFAULT_PRIORITY;
+        }
+    }
+
+    private boolean isValidClaimSet(JsonObject claims) {
+
+        Properties config = getConfig();
+        long now = System.currentTimeMillis() / 1000;
+        long clockSkew = DEFAULT_CLOCK_SKEW;
+        String clockSkewValue = config.getProperty(PDPConstants.TOKEN_AUTHENTICATION_CLOCK_SKEW);
+        if (StringUtils.isNotBlank(clockSkewValue)) {
+            clockSkew = Long.parseLong(clockSkewValue.trim());
+        }
+
+        if (!claims.has(CLAIM_EXPIRY) || claims.get(CLAIM_EXPIRY).getAsLong() + clockSkew < now) {
+            log.error("Bearer token is expired or does not carry an expiry time.");
+            return false;
+        }
+        if (claims.has(CLAIM_NOT_BEFORE) && claims.get(CLAIM_NOT_BEFORE).getAsLong() - clockSkew > now) {
+            log.error("Bearer token is not yet valid.");
+            return false;
+        }
+
+        // Issuer and audience are mandatory, so that tokens issued by the tenant for other parties are rejected.
+        String issuer = config.getProperty(PDPConstants.TOKEN_AUTHENTICATION_ISSUER);
+        String audience = config.getProperty(PDPConstants.TOKEN_AUTHENTICATION_AUDIENCE);
+        if (StringUtils.isBlank(issuer) || StringUtils.isBlank(audience)) {
+            log.error("Token authentication is enabled without configuring both " +
+                    PDPConstants.TOKEN_AUTHENTICATION_ISSUER + " and " + PDPConstants.TOKEN_AUTHENTICATION_AUDIENCE +
+                    ". Bearer tokens are rejected.");
+            return false;
+        }
+        if (!issuer.trim().equals(getString(claims, CLAIM_ISSUER))) {
+            log.error("Issuer of the bearer token is not trusted.");
+            return false;
+        }
+        if (!hasAudience(claims, audience.trim())) {
+            log.error("Bearer token is not issued for this audience.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isValidSignature(String[] parts, byte[] signature, String tenantDomain) {
+
+        try {
+            PublicKey publicKey = getPublicKey(tenantDomain);
+            if (publicKey == null) {
+                log.error("Error in getting the public key to validate the bearer token of tenant: " + tenantDomain);
+                return false;
+            }
+            Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+            verifier.initVerify(publicKey);
+            verifier.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            return verifier.verify(signature);
+        } catch (IdentityException | GeneralSecurityException e) {
+            log.error("Error while validating the bearer token signature for tenant: " + tenantDomain, e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the public key of the tenant against which the token signature is validated.
+     *
+     * @param tenantDomain Tenant domain of the token subject.
+     * @return Public key of the tenant, or null if the key provider service is not available.
+     * @throws IdentityException If the tenant certificate cannot be retrieved.
+     */
+    protected PublicKey getPublicKey(String tenantDomain) throws IdentityException {
+
+        KeyProviderService keyProviderService = (KeyProviderService) PrivilegedCarbonContext
+                .getThreadLocalCarbonContext().getOSGiService(KeyProviderService.class);
+        if (keyProviderService == null) {
+            return null;
+        }
+        Certificate certificate = keyProviderService.getCertificate(tenantDomain);
+        return certificate.getPublicKey();
+    }
+
+    private static boolean hasAudience(JsonObject claims, String audience) {
+
+        JsonElement audienceClaim = claims.get(CLAIM_AUDIENCE);
+        if (audienceClaim == null) {
+            return false;
+        }
+        if (audienceClaim.isJsonArray()) {
+            JsonArray audiences = audienceClaim.getAsJsonArray();
+            for (JsonElement element : audiences) {
+                if (audience.equals(element.getAsString())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return audience.equals(audienceClaim.getAsString());
+    }
+
+    private static JsonObject parse(byte[] json) {
+
+        return new JsonParser().parse(new String(json, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private static String getString(JsonObject object, String name) {
+
+        JsonElement element = object.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static String getAuthorizationHeader(ContainerRequestContext message) {
+
+        List<String> authzHeaders = message.getHeaders().get(EntitlementEndpointConstants.AUTHORIZATION_HEADER);
+        if (authzHeaders == null || authzHeaders.isEmpty()) {
+            return null;
+        }
+        return authzHeaders.get(0);
+    }
+
+    protected Properties getConfig() {
+
+        return EntitlementUtil.getPropertiesFromEntitlementConfig();
+    }
+}
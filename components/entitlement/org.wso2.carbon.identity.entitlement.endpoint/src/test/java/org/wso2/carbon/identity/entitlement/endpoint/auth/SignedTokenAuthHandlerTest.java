@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.endpoint.auth;
+
+import com.google.gson.JsonObject;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.endpoint.util.EntitlementEndpointConstants;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Properties;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class SignedTokenAuthHandlerTest {
+
+    private static final String ISSUER = "https://localhost:9443/oauth2/token";
+    private static final String AUDIENCE = "entitlement";
+    private static final String SUBJECT = "admin";
+
+    private KeyPair tenantKeyPair;
+    private KeyPair otherKeyPair;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        tenantKeyPair = keyPairGenerator.generateKeyPair();
+        otherKeyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @Test
+    public void testValidToken() throws Exception {
+
+        ContainerRequestContext request = buildRequest(sign(buildClaims(), tenantKeyPair.getPrivate()));
+        assertTrue(new TestSignedTokenAuthHandler(ISSUER, AUDIENCE).isAuthenticated(request));
+        assertEquals(request.getHeaders().getFirst(EntitlementEndpointConstants.AUTHORIZATION_HEADER), SUBJECT);
+    }
+
+    @Test
+    public void testBadSignature() throws Exception {
+
+        ContainerRequestContext request = buildRequest(sign(buildClaims(), otherKeyPair.getPrivate()));
+        assertFalse(new TestSignedTokenAuthHandler(ISSUER, AUDIENCE).isAuthenticated(request));
+    }
+
+    @Test
+    public void testExpiredToken() throws Exception {
+
+        JsonObject claims = buildClaims();
+        claims.addProperty("exp", System.currentTimeMillis() / 1000 - 3600);
+        ContainerRequestContext request = buildRequest(sign(claims, tenantKeyPair.getPrivate()));
+        assertFalse(new TestSignedTokenAuthHandler(ISSUER, AUDIENCE).isAuthenticated(request));
+    }
+
+    @DataProvider(name = "invalidIssuerAndAudience")
+    public Object[][] invalidIssuerAndAudience() {
+
+        return new Object[][]{
+                // claim name
+                // claim value, null to remove the claim
+                {"iss", "https://attacker.com/oauth2/token"},
+                {"iss", null},
+                {"aud", "other-application"},
+                {"aud", null}
+        };
+    }
+
+    @Test(dataProvider = "invalidIssuerAndAudience")
+    public void testWrongIssuerOrAudience(String claimName, String claimValue) throws Exception {
+
+        JsonObject claims = buildClaims();
+        if (claimValue == null) {
+            claims.remove(claimName);
+        } else {
+            claims.addProperty(claimName, claimValue);
+        }
+        ContainerRequestContext request = buildRequest(sign(claims, tenantKeyPair.getPrivate()));
+        assertFalse(new TestSignedTokenAuthHandler(ISSUER, AUDIENCE).isAuthenticated(request));
+    }
+
+    @DataProvider(name = "unconfiguredIssuerAndAudience")
+    public Object[][] unconfiguredIssuerAndAudience() {
+
+        return new Object[][]{
+                {null, AUDIENCE},
+                {ISSUER, null},
+                {null, null}
+        };
+    }
+
+    @Test(dataProvider = "unconfiguredIssuerAndAudience")
+    public void testIssuerAndAudienceAreMandatory(String issuer, String audience) throws Exception {
+
+        ContainerRequestContext request = buildRequest(sign(buildClaims(), tenantKeyPair.getPrivate()));
+        assertFalse(new TestSignedTokenAuthHandler(issuer, audience).isAuthenticated(request));
+    }
+
+    @DataProvider(name = "malformedTokens")
+    public Object[][] malformedTokens() {
+
+        String header = encode("{\"alg\":\"RS256\"}");
+        return new Object[][]{
+                {"not-a-token"},
+                {header + ".e30"},
+                {header + ".%%%.c2ln"},
+                {header + "." + encode("not json") + ".c2ln"},
+                {encode("{\"alg\":\"none\"}") + "." + encode("{\"sub\":\"admin\"}") + "."}
+        };
+    }
+
+    @Test(dataProvider = "malformedTokens")
+    public void testMalformedToken(String token) {
+
+        assertFalse(new TestSignedTokenAuthHandler(ISSUER, AUDIENCE).isAuthenticated(buildRequest(token)));
+    }
+
+    private JsonObject buildClaims() {
+
+        long now = System.currentTimeMillis() / 1000;
+        JsonObject claims = new JsonObject();
+        claims.addProperty("sub", SUBJECT);
+        claims.addProperty("iss", ISSUER);
+        claims.addProperty("aud", AUDIENCE);
+        claims.addProperty("iat", now);
+        claims.addProperty("exp", now + 300);
+        return claims;
+    }
+
+    private String sign(JsonObject claims, PrivateKey privateKey) throws GeneralSecurityException {
+
+        String signingInput = encode("{\"alg\":\"RS256\",\"typ\":\"JWT\"}") + "." + encode(claims.toString());
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(privateKey);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature.sign());
+    }
+
+    private static String encode(String value) {
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ContainerRequestContext buildRequest(String token) {
+
+        MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+        headers.add(EntitlementEndpointConstants.AUTHORIZATION_HEADER,
+                EntitlementEndpointConstants.AUTH_TYPE_OAUTH + " " + token);
+        return (ContainerRequestContext) Proxy.newProxyInstance(SignedTokenAuthHandlerTest.class.getClassLoader(),
+                new Class[]{ContainerRequestContext.class}, (proxy, method, args) -> {
+                    if ("getHeaders".equals(method.getName())) {
+                        return headers;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Handler validating tokens against the test tenant key with the given issuer and audience configuration.
+     */
+    private class TestSignedTokenAuthHandler extends SignedTokenAuthHandler {
+
+        private final Properties config = new Properties();
+
+        TestSignedTokenAuthHandler(String issuer, String audience) {
+
+            config.setProperty(PDPConstants.TOKEN_AUTHENTICATION, "true");
+            if (issuer != null) {
+                config.setProperty(PDPConstants.TOKEN_AUTHENTICATION_ISSUER, issuer);
+            }
+            if (audience != null) {
+                config.setProperty(PDPConstants.TOKEN_AUTHENTICATION_AUDIENCE, audience);
+            }
+        }
+
+        @Override
+        protected Properties getConfig() {
+
+            return config;
+        }
+
+        @Override
+        protected PublicKey getPublicKey(String tenantDomain) {
+
+            return tenantKeyPair.getPublic();
+        }
+    }
+}
@@ -18,29 +18,71 @@
 
 package org.wso2.carbon.identity.entitlement;
 
+import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.identity.core.cache.CacheStatistics;
+import org.wso2.carbon.identity.core.cache.IdentityCacheStatistics;
+import org.wso2.carbon.identity.core.cache.IdentityCacheStatisticsRegistry;
+
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * This is a simple LRU cache, based on <code>LinkedHashMap</code>. If the cache is full and another
- * entry is added, the least recently used entry is dropped.
+ * entry is added, the least recently used entry is dropped. Lookups, puts and evictions are counted in
+ * {@link IdentityCacheStatistics} against the tenant which created the cache.
  */
 public class EntitlementLRUCache<String, Set> extends LinkedHashMap<String, Set> {
 
     private static final long serialVersionUID = -1308554805704597171L;
     private final static int INITIAL_CACHE_CAPACITY = 16;
     private final static float LOAD_FACTOR = 75f;
+    private final static java.lang.String DEFAULT_CACHE_NAME = "EntitlementLRUCache";
     private int cacheSize;
+    private transient CacheStatistics statistics;
 
     public EntitlementLRUCache(int cacheSize) {
+        this(cacheSize, DEFAULT_CACHE_NAME);
+    }
+
+    public EntitlementLRUCache(int cacheSize, java.lang.String cacheName) {
         super(INITIAL_CACHE_CAPACITY, LOAD_FACTOR, true);
         this.cacheSize = cacheSize;
+        IdentityCacheStatistics cacheStatistics = IdentityCacheStatisticsRegistry.getInstance()
+                .getCacheStatistics(PDPConstants.ENTITLEMENT_CACHE_MANAGER, cacheName);
+        if (cacheStatistics != null) {
+            statistics = cacheStatistics.forTenant(CarbonContext.getThreadLocalCarbonContext().getTenantId());
+        }
+    }
+
+    @Override
+    public Set get(Object key) {
+        Set value = super.get(key);
+        if (statistics != null) {
+            if (value != null) {
+                statistics.recordHit();
+            } else {
+                statistics.recordMiss();
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public Set put(String key, Set value) {
+        if (statistics != null) {
+            statistics.recordPut();
+        }
+        return super.put(key, value);
     }
 
     @Override
     protected boolean removeEldestEntry(Map.Entry eldest) {
         // oldest entry of the cache would be removed when max cache size become
-        return size() == this.cacheSize;
+        boolean evict = size() == this.cacheSize;
+        if (evict && statistics != null) {
+            statistics.recordEviction();
+        }
+        return evict;
     }
 
 }
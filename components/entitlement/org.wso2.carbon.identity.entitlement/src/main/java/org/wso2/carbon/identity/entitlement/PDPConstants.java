@@ -162,6 +162,8 @@ public class PDPConstants {
 
     public static final String ENTITLEMENT_POLICY_INVALIDATION_CACHE = "ENTITLEMENT_POLICY_INVALIDATION_CACHE";
 
+    public static final String REST_CREDENTIAL_CACHE = "ENTITLEMENT_REST_CREDENTIAL_CACHE";
+
     public static final int DEFAULT_ITEMS_PER_PAGE = 10;
 
     public static final String UNKNOWN = "UNKNOWN";
@@ -243,6 +245,8 @@ public class PDPConstants {
 
     public static final String DECISION_CACHING_INTERVAL = "PDP.DecisionCaching.CachingInterval";
 
+    public static final String POLICY_SEARCH_INDEX_ENABLE = "PDP.PolicySearch.Index.Enable";
+
     public static final String ATTRIBUTE_CACHING = "PDP.AttributeCaching.Enable";
 
     public static final String ATTRIBUTE_CACHING_INTERVAL = "PDP.AttributeCaching.CachingInterval";
@@ -279,6 +283,20 @@ public class PDPConstants {
 
     public static final String XACML_JSON_SHORT_FORM_ENABLED = "JSON.Shorten.Form.Enabled";
 
+    public static final String CREDENTIAL_CACHING = "PDP.REST.CredentialCaching.Enable";
+
+    public static final String CREDENTIAL_CACHING_INTERVAL = "PDP.REST.CredentialCaching.CachingInterval";
+
+    public static final String CREDENTIAL_CACHING_HASH_ITERATIONS = "PDP.REST.CredentialCaching.HashIterations";
+
+    public static final String TOKEN_AUTHENTICATION = "PDP.REST.TokenAuthentication.Enable";
+
+    public static final String TOKEN_AUTHENTICATION_ISSUER = "PDP.REST.TokenAuthentication.Issuer";
+
+    public static final String TOKEN_AUTHENTICATION_AUDIENCE = "PDP.REST.TokenAuthentication.Audience";
+
+    public static final String TOKEN_AUTHENTICATION_CLOCK_SKEW = "PDP.REST.TokenAuthentication.ClockSkew";
+
     public static final String USER_CATEGORY = "http://wso2.org/identity/user";
 
     public static final String USER_TYPE_ID = USER_CATEGORY + "/user-type";
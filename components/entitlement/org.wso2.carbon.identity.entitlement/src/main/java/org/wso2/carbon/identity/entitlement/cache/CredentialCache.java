@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.internal.EntitlementServiceComponent;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Short lived cache of credentials verified by the entitlement REST endpoint. Only a salted PBKDF2 hash of the
+ * credential is kept, so a hit still costs a (tunable) hash computation but avoids the user store round trip.
+ * Entries are removed by {@link org.wso2.carbon.identity.entitlement.listener.CacheClearingUserOperationListener}
+ * when the credential, claims (e.g. account lock) or the user itself change.
+ */
+public class CredentialCache extends EntitlementBaseCache<IdentityCacheKey, CredentialCacheEntry> {
+
+    private static final Log log = LogFactory.getLog(CredentialCache.class);
+
+    private static final String HASH_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int DEFAULT_CACHING_INTERVAL = 300;
+    private static final int DEFAULT_HASH_ITERATIONS = 10000;
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 256;
+
+    private static volatile CredentialCache instance;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final boolean enabled;
+    private final int iterations;
+    private final long validityPeriod;
+
+    CredentialCache(boolean enabled, int timeOut, int iterations) {
+
+        super(PDPConstants.REST_CREDENTIAL_CACHE, timeOut);
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.validityPeriod = timeOut > 0 ? TimeUnit.SECONDS.toMillis(timeOut) : Long.MAX_VALUE;
+    }
+
+    public static CredentialCache getInstance() {
+
+        if (instance == null) {
+            synchronized (CredentialCache.class) {
+                if (instance == null) {
+                    Properties properties = EntitlementServiceComponent.getEntitlementConfig().getEngineProperties();
+                    boolean enabled = Boolean.parseBoolean(properties.getProperty(PDPConstants.CREDENTIAL_CACHING));
+                    int timeOut = getIntProperty(properties, PDPConstants.CREDENTIAL_CACHING_INTERVAL,
+                            DEFAULT_CACHING_INTERVAL);
+                    int iterations = getIntProperty(properties, PDPConstants.CREDENTIAL_CACHING_HASH_ITERATIONS,
+                            DEFAULT_HASH_ITERATIONS);
+                    instance = new CredentialCache(enabled, timeOut, iterations);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Checks whether the given credential was verified for the user within the caching interval.
+     *
+     * @param tenantId Tenant id of the user.
+     * @param userName Tenant aware username.
+     * @param password Credential presented by the client.
+     * @return true if a matching verified credential is cached.
+     */
+    public boolean isVerified(int tenantId, String userName, String password) {
+
+        if (!enabled) {
+            return false;
+        }
+        CredentialCacheEntry entry;
+        startSuperTenantFlow();
+        try {
+            entry = getValueFromCache(new IdentityCacheKey(tenantId, getCacheKey(userName)));
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        if (entry == null || !userName.equals(entry.getUserName())) {
+            return false;
+        }
+        // Expired entries may outlive the caching interval in the underlying cache until it is cleaned up.
+        if (entry.isExpired(System.currentTimeMillis())) {
+            return false;
+        }
+        try {
+            byte[] hash = hash(password, entry.getSalt(), entry.getIterations());
+            return MessageDigest.isEqual(hash, entry.getHash());
+        } catch (GeneralSecurityException e) {
+            log.error("Error while hashing the credential of user: " + userName, e);
+            return false;
+        }
+    }
+
+    /**
+     * Records a credential which was successfully verified against the user store.
+     *
+     * @param tenantId Tenant id of the user.
+     * @param userName Tenant aware username.
+     * @param password Verified credential.
+     */
+    public void addVerified(int tenantId, String userName, String password) {
+
+        if (!enabled) {
+            return;
+        }
+        byte[] salt = new byte[SALT_LENGTH];
+        secureRandom.nextBytes(salt);
+        CredentialCacheEntry entry;
+        try {
+            long validUntil = validityPeriod == Long.MAX_VALUE ? Long.MAX_VALUE :
+                    System.currentTimeMillis() + validityPeriod;
+            entry = new CredentialCacheEntry(userName, salt, hash(password, salt, iterations), iterations,
+                    validUntil);
+        } catch (GeneralSecurityException e) {
+            log.error("Error while hashing the credential of user: " + userName, e);
+            return;
+        }
+        startSuperTenantFlow();
+        try {
+            addToCache(new IdentityCacheKey(tenantId, getCacheKey(userName)), entry);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Removes the verified credential of the given user, if any.
+     *
+     * @param tenantId Tenant id of the user.
+     * @param userName Tenant aware username, optionally user store domain qualified.
+     */
+    public void clearCacheEntry(int tenantId, String userName) {
+
+        if (!enabled || userName == null) {
+            return;
+        }
+        startSuperTenantFlow();
+        try {
+            clearCacheEntry(new IdentityCacheKey(tenantId, getCacheKey(userName)));
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Verified credential removed from cache for user: " + userName + " in tenant: " + tenantId);
+        }
+    }
+
+    /**
+     * The key is case insensitive and user store domain qualified so that listener invocations, which may use a
+     * different casing or omit the primary domain, always reach the entry. The exact username is kept in the entry.
+     */
+    private static String getCacheKey(String userName) {
+
+        int index = userName.indexOf(UserCoreConstants.DOMAIN_SEPARATOR);
+        String qualifiedName;
+        if (index > 0) {
+            qualifiedName = userName;
+        } else {
+            qualifiedName = UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME + UserCoreConstants.DOMAIN_SEPARATOR +
+                    userName;
+        }
+        return qualifiedName.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static byte[] hash(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance(HASH_ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static void startSuperTenantFlow() {
+
+        // Credential cache entries are tenant qualified through the key, hence kept in the super tenant space.
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    private static int getIntProperty(Properties properties, String name, int defaultValue) {
+
+        String value = properties.getProperty(name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + value + " configured for " + name + ". Using default: " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.cache;
+
+import java.io.Serializable;
+
+/**
+ * Cache entry holding a salted hash of a credential which was verified against the user store.
+ * The plain credential is never stored.
+ */
+public class CredentialCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = -4315618226213456781L;
+
+    private String userName;
+    private byte[] salt;
+    private byte[] hash;
+    private int iterations;
+    private long validUntil;
+
+    public CredentialCacheEntry(String userName, byte[] salt, byte[] hash, int iterations, long validUntil) {
+
+        this.userName = userName;
+        this.salt = salt;
+        this.hash = hash;
+        this.iterations = iterations;
+        this.validUntil = validUntil;
+    }
+
+    public String getUserName() {
+
+        return userName;
+    }
+
+    public byte[] getSalt() {
+
+        return salt;
+    }
+
+    public byte[] getHash() {
+
+        return hash;
+    }
+
+    public int getIterations() {
+
+        return iterations;
+    }
+
+    public long getValidUntil() {
+
+        return validUntil;
+    }
+
+    /**
+     * @param currentTime Current time in milliseconds.
+     * @return true if the caching interval of the verified credential has elapsed.
+     */
+    public boolean isExpired(long currentTime) {
+
+        return currentTime >= validUntil;
+    }
+}
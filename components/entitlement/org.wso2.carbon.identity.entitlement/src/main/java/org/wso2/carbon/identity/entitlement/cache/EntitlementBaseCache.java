@@ -21,6 +21,9 @@ package org.wso2.carbon.identity.entitlement.cache;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.identity.core.cache.IdentityCacheStatistics;
+import org.wso2.carbon.identity.core.cache.IdentityCacheStatisticsRegistry;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import javax.cache.Cache;
 import javax.cache.CacheBuilder;
@@ -28,11 +31,16 @@ import javax.cache.CacheConfiguration;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
 import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryListenerException;
 import javax.cache.event.CacheEntryUpdatedListener;
 import java.util.concurrent.TimeUnit;
 
 /**
- * A base class for all cache implementations in user entitlement module.
+ * A base class for all cache implementations in user entitlement module. Hits, misses, puts and invalidations are
+ * counted against the tenant of the caller in {@link IdentityCacheStatistics}, and expired entries as evictions
+ * against the super tenant.
  */
 public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object> {
 
@@ -43,6 +51,7 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
     private CacheBuilder<K, V> cacheBuilder;
     private CacheEntryUpdatedListener<K, V> cacheEntryUpdatedListener;
     private CacheEntryCreatedListener<K, V> cacheEntryCreatedListener;
+    private IdentityCacheStatistics statistics;
 
     /**
      * Create Entitlement cache object
@@ -52,6 +61,8 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
      */
     public EntitlementBaseCache(String cacheName, int timeout) {
         this.Entitlement_CACHE_NAME = cacheName;
+        this.statistics = IdentityCacheStatisticsRegistry.getInstance()
+                .getCacheStatistics(ENTITLEMENT_CACHE_MANAGER, cacheName);
         if (timeout > 0) {
             this.cacheTimeout = timeout;
         } else {
@@ -71,6 +82,8 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
      */
     public EntitlementBaseCache(String cacheName) {
         this.Entitlement_CACHE_NAME = cacheName;
+        this.statistics = IdentityCacheStatisticsRegistry.getInstance()
+                .getCacheStatistics(ENTITLEMENT_CACHE_MANAGER, cacheName);
         this.cacheTimeout = -1;
         if (log.isDebugEnabled()) {
             String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
@@ -106,6 +119,9 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
                         if (cacheEntryCreatedListener != null) {
                             this.cacheBuilder.registerCacheEntryListener(cacheEntryCreatedListener);
                         }
+                        if (statistics != null) {
+                            this.cacheBuilder.registerCacheEntryListener(new ExpiryCounter());
+                        }
                         if (log.isDebugEnabled()) {
                             String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
                             log.debug("Cache : " + Entitlement_CACHE_NAME + "  is built with time out value " + ": " +
@@ -134,7 +150,7 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
      */
     public void addToCache(K key, V entry) {
         // Element already in the cache. Remove it first
-        clearCacheEntry(key);
+        removeCacheEntry(key);
         updateToCache(key, entry);
     }
 
@@ -148,6 +164,9 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
     public void updateToCache(K key, V entry) {
         // Element already in the cache. Remove it first
 
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordPut();
+        }
         Cache<K, V> cache = getEntitlementCache();
         if (cache != null) {
             cache.put(key, entry);
@@ -173,6 +192,9 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
                     String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
                     log.debug("Cache : " + Entitlement_CACHE_NAME + "  is HIT " + "in tenant domain : " + tenantDomain);
                 }
+                if (statistics != null) {
+                    statistics.forCurrentTenant().recordHit();
+                }
                 return cache.get(key);
             }
         }
@@ -180,6 +202,9 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
             String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
             log.debug("Cache : " + Entitlement_CACHE_NAME + "  is MISSED " + "in tenant domain : " + tenantDomain);
         }
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordMiss();
+        }
         return null;
     }
 
@@ -189,6 +214,13 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
      * @param key Key to clear cache.
      */
     public void clearCacheEntry(K key) {
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordInvalidation();
+        }
+        removeCacheEntry(key);
+    }
+
+    private void removeCacheEntry(K key) {
         Cache<K, V> cache = getEntitlementCache();
         if (cache != null) {
             if (cache.containsKey(key)) {
@@ -206,6 +238,9 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
      * Remove everything in the cache.
      */
     public void clear() {
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordInvalidation();
+        }
         Cache<K, V> cache = getEntitlementCache();
         if (cache != null) {
             try {
@@ -229,4 +264,16 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Object>
     public void setCacheEntryCreatedListener(CacheEntryCreatedListener<K, V> cacheEntryCreatedListener) {
         this.cacheEntryCreatedListener = cacheEntryCreatedListener;
     }
+
+    /**
+     * Counts expired entries as evictions against the super tenant, as expiry is observed by whichever thread
+     * touches the cache and not by the tenant the entry belongs to.
+     */
+    private class ExpiryCounter implements CacheEntryExpiredListener<K, V> {
+
+        @Override
+        public void entryExpired(CacheEntryEvent<? extends K, ? extends V> event) throws CacheEntryListenerException {
+            statistics.forTenant(MultitenantConstants.SUPER_TENANT_ID).recordEviction();
+        }
+    }
 }
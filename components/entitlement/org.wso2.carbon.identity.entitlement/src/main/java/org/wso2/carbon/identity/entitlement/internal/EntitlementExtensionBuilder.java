@@ -216,6 +216,13 @@ public class EntitlementExtensionBuilder {
         setProperty(properties, pdpProperties, PDPConstants.PDP_REGISTRY_LEVEL_POLICY_CACHE_CLEAR);
         setProperty(properties, pdpProperties, PDPConstants.POLICY_CACHING_INTERVAL);
         setProperty(properties, pdpProperties, PDPConstants.XACML_JSON_SHORT_FORM_ENABLED);
+        setProperty(properties, pdpProperties, PDPConstants.CREDENTIAL_CACHING);
+        setProperty(properties, pdpProperties, PDPConstants.CREDENTIAL_CACHING_INTERVAL);
+        setProperty(properties, pdpProperties, PDPConstants.CREDENTIAL_CACHING_HASH_ITERATIONS);
+        setProperty(properties, pdpProperties, PDPConstants.TOKEN_AUTHENTICATION);
+        setProperty(properties, pdpProperties, PDPConstants.TOKEN_AUTHENTICATION_ISSUER);
+        setProperty(properties, pdpProperties, PDPConstants.TOKEN_AUTHENTICATION_AUDIENCE);
+        setProperty(properties, pdpProperties, PDPConstants.TOKEN_AUTHENTICATION_CLOCK_SKEW);
 
         holder.setEngineProperties(pdpProperties);
     }
@@ -21,13 +21,16 @@ package org.wso2.carbon.identity.entitlement.listener;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
+import org.wso2.carbon.identity.entitlement.cache.CredentialCache;
 import org.wso2.carbon.identity.entitlement.internal.EntitlementServiceComponent;
 import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
 import org.wso2.carbon.identity.entitlement.pip.CarbonAttributeFinder;
 import org.wso2.carbon.identity.entitlement.pip.PIPAttributeFinder;
 import org.wso2.carbon.user.api.Permission;
+import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
 
 import java.util.Map;
 import java.util.Properties;
@@ -67,6 +70,7 @@ public class CacheClearingUserOperationListener extends AbstractIdentityUserOper
             log.debug("Clearing entitlement cache on post delete user operation for user " +
                       userName);
         }
+        clearCredentialCache(userName, userStoreManager);
         clearCarbonAttributeCache();
         // Always returns true since cache clearing failure does not make an effect on subsequent
         // User Operation Listeners
@@ -94,6 +98,7 @@ public class CacheClearingUserOperationListener extends AbstractIdentityUserOper
         }
         // Always returns true since cache clearing failure does not make an effect on subsequent
         // User Operation Listeners
+        clearCredentialCache(userName, userStoreManager);
         clearCarbonAttributeCache();
         return true;
     }
@@ -122,6 +127,7 @@ public class CacheClearingUserOperationListener extends AbstractIdentityUserOper
         }
         // Always returns true since cache clearing failure does not make an effect on subsequent
         // User Operation Listeners
+        clearCredentialCache(userName, userStoreManager);
         clearCarbonAttributeCache();
         return true;
     }
@@ -148,6 +154,7 @@ public class CacheClearingUserOperationListener extends AbstractIdentityUserOper
         }
         // Always returns true since cache clearing failure does not make an effect on subsequent
         // User Operation Listeners
+        clearCredentialCache(userName, userStoreManager);
         clearCarbonAttributeCache();
         return true;
     }
@@ -173,6 +180,7 @@ public class CacheClearingUserOperationListener extends AbstractIdentityUserOper
         }
         // Always returns true since cache clearing failure does not make an effect on subsequent
         // User Operation Listeners
+        clearCredentialCache(userName, userStoreManager);
         clearCarbonAttributeCache();
         return true;
     }
@@ -294,6 +302,72 @@ public class CacheClearingUserOperationListener extends AbstractIdentityUserOper
         return true;
     }
 
+    /**
+     * This method is overridden to clear the verified credential cache on doPostUpdateCredential operation
+     *
+     * @param userName         username
+     * @param credential       new credential
+     * @param userStoreManager UserStoreManager instance got called
+     * @return Always returns true since no major effect on further procedure.
+     * @throws org.wso2.carbon.user.core.UserStoreException
+     */
+    @Override
+    public boolean doPostUpdateCredential(String userName, Object credential, UserStoreManager userStoreManager)
+            throws UserStoreException {
+        if (!isEnable()) {
+            return true;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing entitlement credential cache on post update credential operation for user " +
+                      userName);
+        }
+        clearCredentialCache(userName, userStoreManager);
+        return true;
+    }
+
+    /**
+     * This method is overridden to clear the verified credential cache on doPostUpdateCredentialByAdmin operation
+     *
+     * @param userName         username
+     * @param credential       new credential
+     * @param userStoreManager UserStoreManager instance got called
+     * @return Always returns true since no major effect on further procedure.
+     * @throws org.wso2.carbon.user.core.UserStoreException
+     */
+    @Override
+    public boolean doPostUpdateCredentialByAdmin(String userName, Object credential,
+                                                 UserStoreManager userStoreManager) throws UserStoreException {
+        if (!isEnable()) {
+            return true;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing entitlement credential cache on post update credential by admin operation for " +
+                      "user " + userName);
+        }
+        clearCredentialCache(userName, userStoreManager);
+        return true;
+    }
+
+    /**
+     * Removes the credential verified by the entitlement REST endpoint for the given user. Account lock and disable
+     * states are claims, hence this is also called on claim updates.
+     */
+    private void clearCredentialCache(String userName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        CredentialCache credentialCache = CredentialCache.getInstance();
+        if (!credentialCache.isEnabled()) {
+            return;
+        }
+        String domainName = UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration());
+        if (domainName == null) {
+            domainName = UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
+        }
+        credentialCache.clearCacheEntry(userStoreManager.getTenantId(),
+                domainName + UserCoreConstants.DOMAIN_SEPARATOR + UserCoreUtil.removeDomainFromName(userName));
+    }
+
     /**
      * this method is responsible for clearing all 3 major caches of entitlement engine
      * including  PIP_ATTRIBUTE_CACHE , PDP_DECISION_INVALIDATION_CACHE, ENTITLEMENT_POLICY_INVALIDATION_CACHE
@@ -82,7 +82,8 @@ public class DefaultPolicyCollection implements PolicyCollection {
      * @param maxInMemoryPolicies maximum no of policies that keeps in memory
      */
     public DefaultPolicyCollection(PolicyCombiningAlgorithm combiningAlg, int maxInMemoryPolicies) {
-        policies = new EntitlementLRUCache<String, TreeSet<AbstractPolicy>>(maxInMemoryPolicies);
+        policies = new EntitlementLRUCache<String, TreeSet<AbstractPolicy>>(maxInMemoryPolicies,
+                "PolicyCollectionCache");
         this.maxInMemoryPolicies = maxInMemoryPolicies;
         this.combiningAlg = combiningAlg;
     }
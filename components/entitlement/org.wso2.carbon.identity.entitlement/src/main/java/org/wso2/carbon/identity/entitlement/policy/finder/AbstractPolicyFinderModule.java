@@ -47,12 +47,14 @@ public abstract class AbstractPolicyFinderModule implements PolicyFinderModule {
     public static void invalidateCache(String policyId, String action) {
         EntitlementEngine.getInstance().getPolicyCache().invalidateCache(policyId, action);
         EntitlementEngine.getInstance().clearDecisionCache();
+        EntitlementEngine.getInstance().getPolicySearch().invalidateSearchIndex();
         EntitlementEngine.getInstance().getPolicySearch().getPolicySearchCache().invalidateCache();
     }
 
     public static void invalidateCache() {
         EntitlementEngine.getInstance().clearDecisionCache();
         EntitlementEngine.getInstance().invalidatePolicyCache();
+        EntitlementEngine.getInstance().getPolicySearch().invalidateSearchIndex();
         EntitlementEngine.getInstance().getPolicySearch().getPolicySearchCache().invalidateCache();
     }
 
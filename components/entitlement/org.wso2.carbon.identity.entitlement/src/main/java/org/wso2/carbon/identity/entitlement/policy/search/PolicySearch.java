@@ -20,6 +20,7 @@ package org.wso2.carbon.identity.entitlement.policy.search;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.balana.combine.PolicyCombiningAlgorithm;
 import org.wso2.balana.ctx.AbstractRequestCtx;
 import org.wso2.balana.ctx.AbstractResult;
 import org.wso2.balana.ctx.ResponseCtx;
@@ -34,15 +35,22 @@ import org.wso2.carbon.identity.entitlement.dto.EntitledResultSetDTO;
 import org.wso2.carbon.identity.entitlement.internal.EntitlementServiceComponent;
 import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
 import org.wso2.carbon.identity.entitlement.policy.finder.PolicyFinderModule;
+import org.wso2.carbon.identity.entitlement.policy.store.DefaultPolicyDataStore;
+import org.wso2.carbon.identity.entitlement.policy.store.PolicyDataStore;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This contains the searching methods for policies based on policy attribute values and how subjects
@@ -59,6 +67,15 @@ public class PolicySearch {
 
     private PolicySearchCache policySearchCache = null;
 
+    private boolean searchIndexEnable;
+
+    // Replaced on invalidation, so that an index built from the old policies is not put back.
+    private volatile Map<PolicyFinderModule, PolicySearchIndex> searchIndexes = new ConcurrentHashMap<>();
+
+    private final Function<AbstractRequestCtx, ResponseCtx> requestEvaluator;
+
+    private final Supplier<String> globalCombiningAlgorithm;
+
     public PolicySearch(boolean cachingEnable, int cachingInterval) {
         // get registered finder modules
         Map<PolicyFinderModule, Properties> finderModules = EntitlementServiceComponent.
@@ -73,6 +90,22 @@ public class PolicySearch {
         // Note that PolicySearchCache also uses EntitlementEngine.getInstance().getPdpDecisionCacheEnable()
         // to set cache timeout.
         this.policySearchCache = new PolicySearchCache(cachingInterval);
+
+        this.searchIndexEnable = Boolean.parseBoolean(EntitlementServiceComponent.getEntitlementConfig().
+                getEngineProperties().getProperty(PDPConstants.POLICY_SEARCH_INDEX_ENABLE));
+        this.requestEvaluator = requestCtx -> EntitlementEngine.getInstance().evaluateByContext(requestCtx);
+        this.globalCombiningAlgorithm = PolicySearch::getGlobalCombiningAlgorithm;
+    }
+
+    PolicySearch(List<PolicyFinderModule> finderModules, boolean searchIndexEnable,
+                 Function<AbstractRequestCtx, ResponseCtx> requestEvaluator,
+                 Supplier<String> globalCombiningAlgorithm) {
+
+        this.finderModules = finderModules;
+        this.searchIndexEnable = searchIndexEnable;
+        this.requestEvaluator = requestEvaluator;
+        this.globalCombiningAlgorithm = globalCombiningAlgorithm;
+        this.policySearchCache = new PolicySearchCache(-1);
     }
 
     /**
@@ -123,7 +156,8 @@ public class PolicySearch {
             throw new EntitlementException("Error : subject value can not be null");
         }
 
-        if (getResponse(Arrays.asList(subjectAttributeDTO))) {
+        Map<Set<AttributeDTO>, Boolean> decisions = new HashMap<Set<AttributeDTO>, Boolean>();
+        if (getResponse(Arrays.asList(subjectAttributeDTO), decisions)) {
             EntitledAttributesDTO dto = new EntitledAttributesDTO();
             dto.setAllActions(true);
             dto.setAllResources(true);
@@ -136,11 +170,10 @@ public class PolicySearch {
             if (module.isDefaultCategoriesSupported() &&
                 PolicyFinderModule.COMBINATIONS_BY_CATEGORY_AND_PARAMETER ==
                 module.getSupportedSearchAttributesScheme()) {
-                Map<String, Set<AttributeDTO>> requestMap = module.
-                        getSearchAttributes(null, new HashSet<AttributeDTO>(Arrays.asList(subjectAttributeDTO)));
+                Collection<Set<AttributeDTO>> policyAttributes = getSearchAttributes(module, subjectAttributeDTO,
+                        enableChildSearch);
 
-                for (Map.Entry<String, Set<AttributeDTO>> entry : requestMap.entrySet()) {
-                    Set<AttributeDTO> attributeDTOs = entry.getValue();
+                for (Set<AttributeDTO> attributeDTOs : policyAttributes) {
                     if (attributeDTOs != null) {
                         Set<AttributeDTO> actions = new HashSet<AttributeDTO>();
                         Set<AttributeDTO> resources = new HashSet<AttributeDTO>();
@@ -191,7 +224,7 @@ public class PolicySearch {
                                         new ArrayList<AttributeDTO>();
                                 currentRequestAttributes.add(subjectAttributeDTO);
                                 currentRequestAttributes.add(actionDTO);
-                                if (getResponse(currentRequestAttributes)) {
+                                if (getResponse(currentRequestAttributes, decisions)) {
                                     EntitledAttributesDTO dto = new EntitledAttributesDTO();
                                     dto.setAllResources(true);
                                     dto.setAction(actionDTO.getAttributeValue());
@@ -223,7 +256,7 @@ public class PolicySearch {
                                         currentRequestAttributes.add(subjectAttributeDTO);
                                         currentRequestAttributes.add(resource);
 
-                                        if (getResponse(currentRequestAttributes)) {
+                                        if (getResponse(currentRequestAttributes, decisions)) {
                                             EntitledAttributesDTO dto = new EntitledAttributesDTO();
                                             dto.setResourceName(resource.getAttributeValue());
                                             dto.setAllActions(true);
@@ -260,7 +293,7 @@ public class PolicySearch {
                                             currentRequestAttributes.add(resource);
                                             currentRequestAttributes.add(actionAttributeDTO);
 
-                                            if (getResponse(currentRequestAttributes)) {
+                                            if (getResponse(currentRequestAttributes, decisions)) {
                                                 EntitledAttributesDTO dto = new EntitledAttributesDTO();
                                                 dto.setResourceName(resource.getAttributeValue());
                                                 dto.setAction(actionAttributeDTO.getAttributeValue());
@@ -331,6 +364,7 @@ public class PolicySearch {
         EntitledResultSetDTO result = new EntitledResultSetDTO();
         Set<EntitledAttributesDTO> resultAttributes = new HashSet<EntitledAttributesDTO>();
         Set<AttributeDTO> attributeDTOs = new HashSet<AttributeDTO>(Arrays.asList(givenAttributes));
+        Map<Set<AttributeDTO>, Boolean> decisions = new HashMap<Set<AttributeDTO>, Boolean>();
 
         for (PolicyFinderModule finderModule : finderModules) {
             Map<String, Set<AttributeDTO>> attributesMap = finderModule.
@@ -341,7 +375,7 @@ public class PolicySearch {
                 log.error("Invalid Search scheme in policy finder : " + finderModule.getModuleName());
             } else {
                 for (List<AttributeDTO> attributeDTOList : requestSet) {
-                    if (getResponse(attributeDTOList)) {
+                    if (getResponse(attributeDTOList, decisions)) {
                         EntitledAttributesDTO dto = new EntitledAttributesDTO();
                         dto.setAttributeDTOs(attributeDTOList.
                                 toArray(new AttributeDTO[attributeDTOList.size()]));
@@ -378,6 +412,71 @@ public class PolicySearch {
         return this.policySearchCache;
     }
 
+    /**
+     * Drops the indexes of the policy targets. Must be called whenever the policies of the tenant are changed.
+     */
+    public void invalidateSearchIndex() {
+
+        if (searchIndexEnable) {
+            searchIndexes = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Returns the search attributes of the policies of the module that have to be evaluated for the subject. The
+     * index is used when enabled and when it can answer the query, otherwise the attributes of all policies are
+     * returned.
+     *
+     * @param module            policy finder module
+     * @param subjectAttribute  subject attribute of the search
+     * @param enableChildSearch whether the search is done for the child resources
+     * @return search attributes of each policy to be evaluated
+     */
+    private Collection<Set<AttributeDTO>> getSearchAttributes(PolicyFinderModule module, AttributeDTO subjectAttribute,
+                                                              boolean enableChildSearch) {
+
+        // Child resources are resolved by the resource finders, so they are not bound to the policy targets.
+        if (searchIndexEnable && !enableChildSearch) {
+            Map<PolicyFinderModule, PolicySearchIndex> indexes = searchIndexes;
+            PolicySearchIndex index = indexes.get(module);
+            if (index == null) {
+                index = PolicySearchIndex.build(module.getSearchAttributes(null, new HashSet<AttributeDTO>()),
+                        module::getPolicy, globalCombiningAlgorithm.get());
+                indexes.putIfAbsent(module, index);
+            }
+            List<Set<AttributeDTO>> candidates = index.getCandidateAttributes(subjectAttribute.getAttributeId(),
+                    subjectAttribute.getAttributeValue());
+            if (candidates != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Policy search index selected " + candidates.size() + " out of " + index.size() +
+                            " policies of " + module.getModuleName());
+                }
+                return candidates;
+            }
+        }
+
+        Map<String, Set<AttributeDTO>> requestMap = module.
+                getSearchAttributes(null, new HashSet<AttributeDTO>(Arrays.asList(subjectAttribute)));
+        if (requestMap == null) {
+            return Collections.emptyList();
+        }
+        return requestMap.values();
+    }
+
+    private static String getGlobalCombiningAlgorithm() {
+
+        PolicyDataStore policyDataStore;
+        Map<PolicyDataStore, Properties> dataStoreModules = EntitlementServiceComponent.
+                getEntitlementConfig().getPolicyDataStore();
+        if (dataStoreModules != null && dataStoreModules.size() > 0) {
+            policyDataStore = dataStoreModules.entrySet().iterator().next().getKey();
+        } else {
+            policyDataStore = new DefaultPolicyDataStore();
+        }
+        PolicyCombiningAlgorithm algorithm = policyDataStore.getGlobalPolicyAlgorithm();
+        return algorithm != null ? algorithm.getIdentifier().toString() : null;
+    }
+
     /**
      * Helper method to get possible XACML requests with attributes
      *
@@ -520,6 +619,25 @@ public class PolicySearch {
         }
     }
 
+    /**
+     * Helper method to get XACML decision. The same request is built for many policies, hence the decisions of a
+     * search are kept.
+     *
+     * @param requestAttributes XACML request attributes
+     * @param decisions         decisions made so far in the search
+     * @return whether permit or deny
+     */
+    private boolean getResponse(List<AttributeDTO> requestAttributes, Map<Set<AttributeDTO>, Boolean> decisions) {
+
+        Set<AttributeDTO> request = new HashSet<AttributeDTO>(requestAttributes);
+        Boolean decision = decisions.get(request);
+        if (decision == null) {
+            decision = getResponse(requestAttributes);
+            decisions.put(request, decision);
+        }
+        return decision;
+    }
+
     /**
      * Helper method to get XACML decision
      *
@@ -531,7 +649,7 @@ public class PolicySearch {
         ResponseCtx responseCtx;
         AbstractRequestCtx requestCtx = EntitlementUtil.createRequestContext(requestAttributes);
 
-        responseCtx = EntitlementEngine.getInstance().evaluateByContext(requestCtx);
+        responseCtx = requestEvaluator.apply(requestCtx);
 
         if (responseCtx != null) {
             Set<AbstractResult> results = responseCtx.getResults();
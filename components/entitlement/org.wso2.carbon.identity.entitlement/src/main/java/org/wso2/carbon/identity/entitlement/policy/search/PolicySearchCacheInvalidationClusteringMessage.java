@@ -61,6 +61,7 @@ public class PolicySearchCacheInvalidationClusteringMessage extends ClusteringMe
             // Clear local cache for the tenant domain included with the cluster message.
             PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
 
+            EntitlementEngine.getInstance().getPolicySearch().invalidateSearchIndex();
             EntitlementEngine.getInstance().getPolicySearch().getPolicySearchCache().clearCache();
             if (log.isDebugEnabled()) {
                 log.debug("Local policy search cache is cleared for the tenant: "
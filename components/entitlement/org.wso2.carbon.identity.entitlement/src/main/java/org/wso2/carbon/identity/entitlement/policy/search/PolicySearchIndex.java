@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.policy.search;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.util.AXIOMUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.balana.XACMLConstants;
+import org.wso2.carbon.identity.entitlement.EntitlementUtil;
+import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.dto.AttributeDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Inverted index from subject attribute values to the policies, and through their search attributes to the resource
+ * and action values, that can permit a request of a subject. It is built from the policy targets of a policy finder
+ * module and is dropped whenever the policies of the tenant change.
+ * <p>
+ * A policy is restricted to a set of subject attribute values when every permit rule, together with the policy
+ * target, only matches a subject through string-equal matches on that attribute. Such a policy can not permit any
+ * request of a subject outside the set and its search attributes are left out of the search of that subject.
+ * <p>
+ * Leaving out search attributes is only safe when the remaining policies can not permit a resource or an action
+ * which is not in their own search attributes. Therefore a query is answered only if every candidate policy pins the
+ * resource id and the action id of each permit rule with string-equal matches on values found in its search
+ * attributes. XACML 2.0 policies, policy sets, the permit-unless-deny algorithms and environment attributes are not
+ * indexed and make the caller fall back to the full search.
+ */
+class PolicySearchIndex {
+
+    private static final Log log = LogFactory.getLog(PolicySearchIndex.class);
+
+    private static final String STRING_EQUAL = "urn:oasis:names:tc:xacml:1.0:function:string-equal";
+    private static final String PERMIT_UNLESS_DENY = "permit-unless-deny";
+    private static final String RULE_COMBINING_ALGORITHM = "RuleCombiningAlgId";
+    private static final String MATCH_ID = "MatchId";
+    private static final String EFFECT = "Effect";
+
+    private final List<IndexedPolicy> permittingPolicies = new ArrayList<>();
+    // Subject attribute id -> attribute value -> policies which only permit subjects with that value.
+    private final Map<String, Map<String, List<IndexedPolicy>>> restrictedPolicies = new HashMap<>();
+    // Subject attribute id -> policies which are not restricted by that attribute.
+    private final Map<String, List<IndexedPolicy>> unrestrictedPolicies = new HashMap<>();
+    private final boolean searchable;
+    private final int size;
+
+    private PolicySearchIndex(List<IndexedPolicy> policies, boolean searchable) {
+
+        this.searchable = searchable;
+        this.size = policies.size();
+        for (IndexedPolicy policy : policies) {
+            if (!policy.permits) {
+                continue;
+            }
+            permittingPolicies.add(policy);
+            for (Map.Entry<String, Set<String>> pin : policy.subjectPins.entrySet()) {
+                Map<String, List<IndexedPolicy>> policiesByValue =
+                        restrictedPolicies.computeIfAbsent(pin.getKey(), attributeId -> new HashMap<>());
+                for (String value : pin.getValue()) {
+                    policiesByValue.computeIfAbsent(value, attributeValue -> new ArrayList<>()).add(policy);
+                }
+            }
+        }
+        for (String attributeId : restrictedPolicies.keySet()) {
+            List<IndexedPolicy> unrestricted = new ArrayList<>();
+            for (IndexedPolicy policy : permittingPolicies) {
+                if (!policy.subjectPins.containsKey(attributeId)) {
+                    unrestricted.add(policy);
+                }
+            }
+            unrestrictedPolicies.put(attributeId, unrestricted);
+        }
+    }
+
+    /**
+     * Builds the index from the search attributes of a policy finder module.
+     *
+     * @param searchAttributes          search attributes of all policies of the module, keyed by policy id
+     * @param policyReader              returns the policy of the given id
+     * @param globalCombiningAlgorithm  identifier of the global policy combining algorithm
+     * @return index of the policies
+     */
+    static PolicySearchIndex build(Map<String, Set<AttributeDTO>> searchAttributes,
+                                   Function<String, String> policyReader, String globalCombiningAlgorithm) {
+
+        boolean searchable = globalCombiningAlgorithm == null || !globalCombiningAlgorithm.endsWith(PERMIT_UNLESS_DENY);
+        List<IndexedPolicy> policies = new ArrayList<>();
+        if (searchAttributes != null) {
+            for (Map.Entry<String, Set<AttributeDTO>> entry : searchAttributes.entrySet()) {
+                Set<AttributeDTO> attributes = entry.getValue() != null ? entry.getValue()
+                        : new HashSet<AttributeDTO>();
+                IndexedPolicy policy = new IndexedPolicy(entry.getKey(), attributes);
+                for (AttributeDTO attribute : attributes) {
+                    if (PDPConstants.ENVIRONMENT_CATEGORY_URI.equals(attribute.getCategory()) ||
+                            PDPConstants.ENVIRONMENT_ELEMENT.equals(attribute.getCategory())) {
+                        // Environment attributes of one policy are sent along with the requests built from its
+                        // resources, so the result depends on which policies are searched.
+                        searchable = false;
+                    }
+                }
+                analyze(policy, policyReader.apply(entry.getKey()));
+                policies.add(policy);
+            }
+        }
+        PolicySearchIndex index = new PolicySearchIndex(policies, searchable);
+        if (log.isDebugEnabled()) {
+            log.debug("Policy search index is built for " + policies.size() + " policies. Searchable: " +
+                    searchable);
+        }
+        return index;
+    }
+
+    /**
+     * Returns copies of the search attributes of the policies which can permit a request of the given subject.
+     *
+     * @param subjectAttributeId subject attribute id
+     * @param subjectValue       subject attribute value
+     * @return search attributes of the candidate policies, or null if the full search is required
+     */
+    List<Set<AttributeDTO>> getCandidateAttributes(String subjectAttributeId, String subjectValue) {
+
+        if (!searchable) {
+            return null;
+        }
+        List<IndexedPolicy> candidates = new ArrayList<>();
+        Map<String, List<IndexedPolicy>> policiesByValue = restrictedPolicies.get(subjectAttributeId);
+        if (policiesByValue == null) {
+            candidates.addAll(permittingPolicies);
+        } else {
+            candidates.addAll(unrestrictedPolicies.get(subjectAttributeId));
+            List<IndexedPolicy> restricted = policiesByValue.get(subjectValue);
+            if (restricted != null) {
+                candidates.addAll(restricted);
+            }
+        }
+
+        List<Set<AttributeDTO>> candidateAttributes = new ArrayList<>(candidates.size());
+        for (IndexedPolicy candidate : candidates) {
+            if (!candidate.closed) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Policy " + candidate.policyId + " can not be searched using the index.");
+                }
+                return null;
+            }
+            // The search rewrites the attribute ids and values, hence the copies.
+            Set<AttributeDTO> attributes = new HashSet<>();
+            for (AttributeDTO attribute : candidate.attributes) {
+                attributes.add(copy(attribute));
+            }
+            candidateAttributes.add(attributes);
+        }
+        return candidateAttributes;
+    }
+
+    /**
+     * @return number of policies in the index
+     */
+    int size() {
+
+        return size;
+    }
+
+    private static void analyze(IndexedPolicy policy, String policyString) {
+
+        if (policyString == null ||
+                !XACMLConstants.XACML_3_0_IDENTIFIER.equals(EntitlementUtil.getPolicyVersion(policyString))) {
+            return;
+        }
+        OMElement policyElement;
+        try {
+            policyElement = AXIOMUtil.stringToOM(policyString);
+        } catch (XMLStreamException e) {
+            log.warn("Policy " + policy.policyId + " can not be parsed to build the policy search index.");
+            return;
+        }
+        String ruleCombiningAlgorithm = policyElement.getAttributeValue(new QName(RULE_COMBINING_ALGORITHM));
+        if (!PDPConstants.POLICY_ELEMENT.equals(policyElement.getLocalName()) || ruleCombiningAlgorithm == null ||
+                ruleCombiningAlgorithm.endsWith(PERMIT_UNLESS_DENY)) {
+            return;
+        }
+
+        Set<String> resourceValues = new HashSet<>();
+        Set<String> actionValues = new HashSet<>();
+        for (AttributeDTO attribute : policy.attributes) {
+            if (PDPConstants.RESOURCE_CATEGORY_URI.equals(attribute.getCategory()) ||
+                    PDPConstants.RESOURCE_ELEMENT.equals(attribute.getCategory())) {
+                resourceValues.add(attribute.getAttributeValue());
+            } else if (PDPConstants.ACTION_CATEGORY_URI.equals(attribute.getCategory()) ||
+                    PDPConstants.ACTION_ELEMENT.equals(attribute.getCategory())) {
+                actionValues.add(attribute.getAttributeValue());
+            }
+        }
+
+        OMElement policyTarget = getChild(policyElement, PDPConstants.TARGET_ELEMENT);
+        Map<String, Set<String>> policySubjectPins = getPins(policyTarget, PDPConstants.SUBJECT_CATEGORY_URI);
+        Map<String, Set<String>> policyResourcePins = getPins(policyTarget, PDPConstants.RESOURCE_CATEGORY_URI);
+        Map<String, Set<String>> policyActionPins = getPins(policyTarget, PDPConstants.ACTION_CATEGORY_URI);
+
+        Map<String, Set<String>> subjectPins = null;
+        boolean closed = true;
+        Iterator rules = policyElement.getChildrenWithLocalName(PDPConstants.RULE_ELEMENT);
+        while (rules.hasNext()) {
+            OMElement rule = (OMElement) rules.next();
+            if (!PDPConstants.RULE_EFFECT_PERMIT.equals(rule.getAttributeValue(new QName(EFFECT)))) {
+                continue;
+            }
+            OMElement ruleTarget = getChild(rule, PDPConstants.TARGET_ELEMENT);
+            Map<String, Set<String>> ruleSubjectPins = intersect(policySubjectPins,
+                    getPins(ruleTarget, PDPConstants.SUBJECT_CATEGORY_URI));
+            Map<String, Set<String>> ruleResourcePins = intersect(policyResourcePins,
+                    getPins(ruleTarget, PDPConstants.RESOURCE_CATEGORY_URI));
+            Map<String, Set<String>> ruleActionPins = intersect(policyActionPins,
+                    getPins(ruleTarget, PDPConstants.ACTION_CATEGORY_URI));
+
+            closed = closed && isPinnedWithin(ruleResourcePins, PDPConstants.RESOURCE_ID_DEFAULT, resourceValues) &&
+                    isPinnedWithin(ruleActionPins, PDPConstants.ACTION_ID_DEFAULT, actionValues);
+
+            if (subjectPins == null) {
+                subjectPins = ruleSubjectPins;
+            } else {
+                // A subject is permitted by the policy if it is permitted by any of the rules.
+                subjectPins.keySet().retainAll(ruleSubjectPins.keySet());
+                for (Map.Entry<String, Set<String>> pin : subjectPins.entrySet()) {
+                    pin.getValue().addAll(ruleSubjectPins.get(pin.getKey()));
+                }
+            }
+        }
+
+        if (subjectPins == null) {
+            // Without a permit rule the policy can not permit any request.
+            policy.permits = false;
+            policy.closed = true;
+        } else {
+            policy.subjectPins = subjectPins;
+            policy.closed = closed;
+        }
+    }
+
+    /**
+     * Returns the values a target restricts the attributes of the given category to. An attribute is restricted if
+     * every AllOf of an AnyOf matches it with string-equal.
+     */
+    private static Map<String, Set<String>> getPins(OMElement target, String category) {
+
+        Map<String, Set<String>> targetPins = new HashMap<>();
+        if (target == null) {
+            return targetPins;
+        }
+        Iterator anyOfs = target.getChildrenWithLocalName(PDPConstants.ANY_OF);
+        while (anyOfs.hasNext()) {
+            Map<String, Set<String>> anyOfPins = null;
+            Iterator allOfs = ((OMElement) anyOfs.next()).getChildrenWithLocalName(PDPConstants.ALL_OF);
+            while (allOfs.hasNext()) {
+                Map<String, Set<String>> allOfPins = getAllOfPins((OMElement) allOfs.next(), category);
+                if (anyOfPins == null) {
+                    anyOfPins = allOfPins;
+                } else {
+                    anyOfPins.keySet().retainAll(allOfPins.keySet());
+                    for (Map.Entry<String, Set<String>> pin : anyOfPins.entrySet()) {
+                        pin.getValue().addAll(allOfPins.get(pin.getKey()));
+                    }
+                }
+            }
+            if (anyOfPins != null) {
+                targetPins = intersect(targetPins, anyOfPins);
+            }
+        }
+        return targetPins;
+    }
+
+    private static Map<String, Set<String>> getAllOfPins(OMElement allOf, String category) {
+
+        Map<String, Set<String>> allOfPins = new HashMap<>();
+        Iterator matches = allOf.getChildrenWithLocalName(PDPConstants.MATCH_ELEMENT);
+        while (matches.hasNext()) {
+            OMElement match = (OMElement) matches.next();
+            OMElement value = getChild(match, PDPConstants.ATTRIBUTE_VALUE);
+            OMElement designator = getChild(match, PDPConstants.ATTRIBUTE_DESIGNATOR);
+            if (!STRING_EQUAL.equals(match.getAttributeValue(new QName(MATCH_ID))) || value == null ||
+                    designator == null ||
+                    !category.equals(designator.getAttributeValue(new QName(PDPConstants.CATEGORY))) ||
+                    !PDPConstants.STRING_DATA_TYPE.equals(value.getAttributeValue(new QName(PDPConstants.DATA_TYPE))) ||
+                    !PDPConstants.STRING_DATA_TYPE.equals(
+                            designator.getAttributeValue(new QName(PDPConstants.DATA_TYPE)))) {
+                continue;
+            }
+            String attributeId = designator.getAttributeValue(new QName(PDPConstants.ATTRIBUTE_ID));
+            Set<String> values = new HashSet<>();
+            values.add(value.getText());
+            Set<String> pinnedValues = allOfPins.get(attributeId);
+            if (pinnedValues == null) {
+                allOfPins.put(attributeId, values);
+            } else {
+                pinnedValues.retainAll(values);
+            }
+        }
+        return allOfPins;
+    }
+
+    /**
+     * Combines two restrictions which must both hold.
+     */
+    private static Map<String, Set<String>> intersect(Map<String, Set<String>> first,
+                                                      Map<String, Set<String>> second) {
+
+        Map<String, Set<String>> result = new HashMap<>();
+        for (Map.Entry<String, Set<String>> pin : first.entrySet()) {
+            result.put(pin.getKey(), new HashSet<>(pin.getValue()));
+        }
+        for (Map.Entry<String, Set<String>> pin : second.entrySet()) {
+            Set<String> values = result.get(pin.getKey());
+            if (values == null) {
+                result.put(pin.getKey(), new HashSet<>(pin.getValue()));
+            } else {
+                values.retainAll(pin.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static boolean isPinnedWithin(Map<String, Set<String>> pins, String attributeId, Set<String> values) {
+
+        Set<String> pinnedValues = pins.get(attributeId);
+        return pinnedValues != null && values.containsAll(pinnedValues);
+    }
+
+    private static OMElement getChild(OMElement element, String localName) {
+
+        Iterator children = element.getChildrenWithLocalName(localName);
+        return children.hasNext() ? (OMElement) children.next() : null;
+    }
+
+    private static AttributeDTO copy(AttributeDTO attribute) {
+
+        AttributeDTO copy = new AttributeDTO();
+        copy.setCategory(attribute.getCategory());
+        copy.setAttributeId(attribute.getAttributeId());
+        copy.setAttributeValue(attribute.getAttributeValue());
+        copy.setAttributeDataType(attribute.getAttributeDataType());
+        return copy;
+    }
+
+    /**
+     * Search attributes of a policy and what is known about the requests it can permit.
+     */
+    private static class IndexedPolicy {
+
+        private final String policyId;
+        private final Set<AttributeDTO> attributes;
+        // Subject attribute id -> the only values of the attribute the policy can permit.
+        private Map<String, Set<String>> subjectPins = new HashMap<>();
+        private boolean permits = true;
+        // Whether the policy only permits resources and actions found in its search attributes.
+        private boolean closed;
+
+        private IndexedPolicy(String policyId, Set<AttributeDTO> attributes) {
+
+            this.policyId = policyId;
+            this.attributes = attributes;
+        }
+    }
+}
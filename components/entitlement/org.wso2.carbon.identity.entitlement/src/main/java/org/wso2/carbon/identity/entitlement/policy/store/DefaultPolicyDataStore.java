@@ -115,6 +115,7 @@ public class DefaultPolicyDataStore implements PolicyDataStore {
 
             // performing cache invalidation
             EntitlementEngine.getInstance().invalidatePolicyCache();
+            EntitlementEngine.getInstance().getPolicySearch().invalidateSearchIndex();
 
         } catch (RegistryException e) {
             log.error("Error while updating Global combing algorithm in policy store ", e);
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.cache;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.powermock.reflect.Whitebox;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.entitlement.listener.CacheClearingUserOperationListener;
+import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.config.RealmConfiguration;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the verified credential cache and its invalidation by {@link CacheClearingUserOperationListener}.
+ */
+@PrepareForTest({IdentityUtil.class, EntitlementEngine.class})
+public class CredentialCacheTest extends PowerMockTestCase {
+
+    private static final int TENANT_ID = MultitenantConstants.SUPER_TENANT_ID;
+    private static final String USER_NAME = "alice";
+    private static final String PASSWORD = "password";
+    private static final int TIMEOUT = 300;
+    private static final int ITERATIONS = 1000;
+    private static final String ACCOUNT_LOCKED_CLAIM = "http://wso2.org/claims/identity/accountLocked";
+
+    private UserStoreManager userStoreManager;
+
+    @BeforeClass
+    public void setUpCarbonHome() {
+
+        System.setProperty(CarbonBaseConstants.CARBON_HOME,
+                Paths.get(System.getProperty("user.dir"), "src", "test", "resources").toString());
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.readEventListenerProperty(anyString(), anyString())).thenReturn(null);
+
+        // No attribute finders, hence the listener only clears the credential cache.
+        EntitlementEngine entitlementEngine = mock(EntitlementEngine.class);
+        mockStatic(EntitlementEngine.class);
+        when(EntitlementEngine.getInstance()).thenReturn(entitlementEngine);
+
+        RealmConfiguration realmConfiguration = mock(RealmConfiguration.class);
+        when(realmConfiguration.getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME))
+                .thenReturn(null);
+        userStoreManager = mock(UserStoreManager.class);
+        when(userStoreManager.getRealmConfiguration()).thenReturn(realmConfiguration);
+        when(userStoreManager.getTenantId()).thenReturn(TENANT_ID);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        Whitebox.setInternalState(CredentialCache.class, "instance", (CredentialCache) null);
+    }
+
+    @Test
+    public void testVerifiedWithRightPassword() {
+
+        CredentialCache cache = new MapBackedCredentialCache(TIMEOUT);
+        cache.addVerified(TENANT_ID, USER_NAME, PASSWORD);
+
+        assertTrue(cache.isVerified(TENANT_ID, USER_NAME, PASSWORD));
+    }
+
+    @Test
+    public void testNotVerifiedWithWrongPassword() {
+
+        CredentialCache cache = new MapBackedCredentialCache(TIMEOUT);
+        cache.addVerified(TENANT_ID, USER_NAME, PASSWORD);
+
+        assertFalse(cache.isVerified(TENANT_ID, USER_NAME, "wrong-password"));
+        assertFalse(cache.isVerified(TENANT_ID, "bob", PASSWORD));
+        assertFalse(cache.isVerified(TENANT_ID + 1, USER_NAME, PASSWORD));
+    }
+
+    @Test
+    public void testNotVerifiedAfterCachingInterval() throws Exception {
+
+        CredentialCache cache = new MapBackedCredentialCache(1);
+        cache.addVerified(TENANT_ID, USER_NAME, PASSWORD);
+        assertTrue(cache.isVerified(TENANT_ID, USER_NAME, PASSWORD));
+
+        // The map backed cache never expires entries, hence this checks the interval enforced on read.
+        Thread.sleep(1100);
+        assertFalse(cache.isVerified(TENANT_ID, USER_NAME, PASSWORD));
+    }
+
+    @Test
+    public void testClearedOnCredentialUpdate() throws Exception {
+
+        CredentialCache cache = useAsInstance(new MapBackedCredentialCache(TIMEOUT));
+        cache.addVerified(TENANT_ID, USER_NAME, PASSWORD);
+
+        new CacheClearingUserOperationListener().doPostUpdateCredential(USER_NAME, "new-password",
+                userStoreManager);
+
+        assertFalse(cache.isVerified(TENANT_ID, USER_NAME, PASSWORD));
+    }
+
+    @Test
+    public void testClearedOnAccountLock() throws Exception {
+
+        CredentialCache cache = useAsInstance(new MapBackedCredentialCache(TIMEOUT));
+        cache.addVerified(TENANT_ID, USER_NAME, PASSWORD);
+
+        // The listener is invoked with the domain qualified name, while the entry was added without it.
+        new CacheClearingUserOperationListener().doPostSetUserClaimValues(
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME + UserCoreConstants.DOMAIN_SEPARATOR + USER_NAME,
+                Collections.singletonMap(ACCOUNT_LOCKED_CLAIM, "true"), null, userStoreManager);
+
+        assertFalse(cache.isVerified(TENANT_ID, USER_NAME, PASSWORD));
+    }
+
+    @Test
+    public void testOtherUsersKeptOnCredentialUpdate() throws Exception {
+
+        CredentialCache cache = useAsInstance(new MapBackedCredentialCache(TIMEOUT));
+        cache.addVerified(TENANT_ID, USER_NAME, PASSWORD);
+        cache.addVerified(TENANT_ID, "bob", PASSWORD);
+
+        new CacheClearingUserOperationListener().doPostUpdateCredential("bob", "new-password", userStoreManager);
+
+        assertTrue(cache.isVerified(TENANT_ID, USER_NAME, PASSWORD));
+        assertFalse(cache.isVerified(TENANT_ID, "bob", PASSWORD));
+    }
+
+    private static CredentialCache useAsInstance(CredentialCache cache) {
+
+        Whitebox.setInternalState(CredentialCache.class, "instance", cache);
+        return cache;
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    /**
+     * Credential cache kept in a map, since the carbon cache manager is not available in unit tests.
+     */
+    private static class MapBackedCredentialCache extends CredentialCache {
+
+        private final Map<IdentityCacheKey, CredentialCacheEntry> entries = new ConcurrentHashMap<>();
+
+        MapBackedCredentialCache(int timeOut) {
+
+            super(true, timeOut, ITERATIONS);
+        }
+
+        @Override
+        public void addToCache(IdentityCacheKey key, CredentialCacheEntry entry) {
+
+            entries.put(key, entry);
+        }
+
+        @Override
+        public CredentialCacheEntry getValueFromCache(IdentityCacheKey key) {
+
+            return entries.get(key);
+        }
+
+        @Override
+        public void clearCacheEntry(IdentityCacheKey key) {
+
+            entries.remove(key);
+        }
+    }
+}
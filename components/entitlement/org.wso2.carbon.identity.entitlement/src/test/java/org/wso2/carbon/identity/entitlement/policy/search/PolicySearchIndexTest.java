@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.policy.search;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.balana.PDP;
+import org.wso2.balana.PDPConfig;
+import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.ResponseCtx;
+import org.wso2.balana.finder.AttributeFinder;
+import org.wso2.balana.finder.PolicyFinder;
+import org.wso2.balana.finder.impl.FileBasedPolicyFinderModule;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.dto.AttributeDTO;
+import org.wso2.carbon.identity.entitlement.dto.EntitledAttributesDTO;
+import org.wso2.carbon.identity.entitlement.policy.PolicyAttributeBuilder;
+import org.wso2.carbon.identity.entitlement.policy.finder.PolicyFinderModule;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Compares the entitled attribute search answered from the policy search index with the full search over all
+ * policies, using a Balana PDP loaded with the same policies.
+ */
+public class PolicySearchIndexTest {
+
+    private static final String DENY_OVERRIDES = "urn:oasis:names:tc:xacml:3.0:rule-combining-algorithm:" +
+            "deny-overrides";
+    private static final String STRING_EQUAL = "urn:oasis:names:tc:xacml:1.0:function:string-equal";
+    private static final String STRING_REGEXP_MATCH = "urn:oasis:names:tc:xacml:1.0:function:string-regexp-match";
+    private static final String GLOBAL_ALGORITHM = "urn:oasis:names:tc:xacml:3.0:policy-combining-algorithm:" +
+            "deny-overrides";
+    private static final int USERS = 10;
+
+    private Path policyDirectory;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        policyDirectory = Files.createTempDirectory("policy-search-index");
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        try (Stream<Path> paths = Files.walk(policyDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testIndexedSearchIsEquivalentToFullSearch() throws Exception {
+
+        Map<String, String> policies = createIndexablePolicies();
+        Function<AbstractRequestCtx, ResponseCtx> pdp = createPDP(policies);
+
+        AtomicInteger fullRequests = new AtomicInteger();
+        AtomicInteger indexedRequests = new AtomicInteger();
+        PolicySearch fullSearch = createPolicySearch(policies, false, pdp, fullRequests);
+        PolicySearch indexedSearch = createPolicySearch(policies, true, pdp, indexedRequests);
+
+        for (String subject : getSubjects()) {
+            for (String action : new String[]{null, "read", "write"}) {
+                for (String resource : new String[]{null, "resource-3"}) {
+                    Set<String> expected = search(fullSearch, subject, PDPConstants.SUBJECT_ID_DEFAULT, resource,
+                            action);
+                    Set<String> actual = search(indexedSearch, subject, PDPConstants.SUBJECT_ID_DEFAULT, resource,
+                            action);
+                    assertEquals(actual, expected, "Search results differ for subject: " + subject +
+                            ", action: " + action + ", resource: " + resource);
+                }
+            }
+            assertEquals(search(indexedSearch, subject, PDPConstants.SUBJECT_ID_ROLE, null, null),
+                    search(fullSearch, subject, PDPConstants.SUBJECT_ID_ROLE, null, null));
+        }
+        assertEquals(search(indexedSearch, "admin", PDPConstants.SUBJECT_ID_ROLE, null, null),
+                search(fullSearch, "admin", PDPConstants.SUBJECT_ID_ROLE, null, null));
+
+        assertTrue(indexedRequests.get() < fullRequests.get(), "Index did not reduce the evaluated requests. " +
+                "Indexed: " + indexedRequests.get() + ", full: " + fullRequests.get());
+    }
+
+    @Test
+    public void testFallbackForPoliciesWhichCanNotBeIndexed() throws Exception {
+
+        Map<String, String> policies = createIndexablePolicies();
+        // Matches subjects with a regular expression and does not restrict the resource.
+        policies.put("regexp", policy("regexp", null,
+                permitRule("regexp-rule", anyOf(match(STRING_REGEXP_MATCH, PDPConstants.SUBJECT_CATEGORY_URI,
+                        PDPConstants.SUBJECT_ID_DEFAULT, "user-[0-4]")),
+                        anyOf(match(STRING_EQUAL, PDPConstants.ACTION_CATEGORY_URI, PDPConstants.ACTION_ID_DEFAULT,
+                                "delete")))));
+        Function<AbstractRequestCtx, ResponseCtx> pdp = createPDP(policies);
+
+        AtomicInteger fullRequests = new AtomicInteger();
+        AtomicInteger indexedRequests = new AtomicInteger();
+        PolicySearch fullSearch = createPolicySearch(policies, false, pdp, fullRequests);
+        PolicySearch indexedSearch = createPolicySearch(policies, true, pdp, indexedRequests);
+
+        for (String subject : getSubjects()) {
+            assertEquals(search(indexedSearch, subject, PDPConstants.SUBJECT_ID_DEFAULT, null, null),
+                    search(fullSearch, subject, PDPConstants.SUBJECT_ID_DEFAULT, null, null));
+        }
+        assertEquals(indexedRequests.get(), fullRequests.get());
+    }
+
+    @Test
+    public void testCandidatePolicies() throws Exception {
+
+        Map<String, String> policies = new LinkedHashMap<>();
+        policies.put("alice", policy("alice", "resource-a", permitRule("rule",
+                anyOf(match(STRING_EQUAL, PDPConstants.SUBJECT_CATEGORY_URI, PDPConstants.SUBJECT_ID_DEFAULT,
+                        "alice")), anyOf(match(STRING_EQUAL, PDPConstants.ACTION_CATEGORY_URI,
+                        PDPConstants.ACTION_ID_DEFAULT, "read")))));
+        policies.put("admin", policy("admin", "resource-b", permitRule("rule",
+                anyOf(match(STRING_EQUAL, PDPConstants.SUBJECT_CATEGORY_URI, PDPConstants.SUBJECT_ID_ROLE,
+                        "admin")), anyOf(match(STRING_EQUAL, PDPConstants.ACTION_CATEGORY_URI,
+                        PDPConstants.ACTION_ID_DEFAULT, "read")))));
+        policies.put("deny", policy("deny", "resource-c", denyRule("rule")));
+
+        PolicySearchIndex index = PolicySearchIndex.build(getSearchAttributes(policies), policies::get,
+                GLOBAL_ALGORITHM);
+        assertEquals(index.size(), 3);
+        // The role policy can still apply to alice through the role attribute.
+        assertEquals(index.getCandidateAttributes(PDPConstants.SUBJECT_ID_DEFAULT, "alice").size(), 2);
+        assertEquals(index.getCandidateAttributes(PDPConstants.SUBJECT_ID_DEFAULT, "bob").size(), 1);
+        assertEquals(index.getCandidateAttributes(PDPConstants.SUBJECT_ID_ROLE, "admin").size(), 2);
+        assertEquals(index.getCandidateAttributes(PDPConstants.SUBJECT_ID_ROLE, "user").size(), 1);
+
+        PolicySearchIndex permitUnlessDeny = PolicySearchIndex.build(getSearchAttributes(policies),
+                policies::get, "urn:oasis:names:tc:xacml:3.0:policy-combining-algorithm:permit-unless-deny");
+        assertNull(permitUnlessDeny.getCandidateAttributes(PDPConstants.SUBJECT_ID_DEFAULT, "alice"));
+
+        // Candidates are copies, as the search rewrites the attributes.
+        Set<AttributeDTO> attributes = index.getCandidateAttributes(PDPConstants.SUBJECT_ID_DEFAULT, "bob").get(0);
+        attributes.iterator().next().setAttributeValue("changed");
+        assertNotNull(index.getCandidateAttributes(PDPConstants.SUBJECT_ID_DEFAULT, "bob"));
+        for (AttributeDTO attribute : index.getCandidateAttributes(PDPConstants.SUBJECT_ID_DEFAULT, "bob").get(0)) {
+            assertTrue(!"changed".equals(attribute.getAttributeValue()));
+        }
+    }
+
+    @Test
+    public void testInvalidateSearchIndex() throws Exception {
+
+        Map<String, String> policies = createIndexablePolicies();
+        Function<AbstractRequestCtx, ResponseCtx> pdp = createPDP(policies);
+        AtomicInteger searchAttributeCalls = new AtomicInteger();
+        InMemoryPolicyFinderModule module = new InMemoryPolicyFinderModule(policies) {
+
+            @Override
+            public Map<String, Set<AttributeDTO>> getSearchAttributes(String identifier,
+                                                                      Set<AttributeDTO> givenAttribute) {
+
+                searchAttributeCalls.incrementAndGet();
+                return super.getSearchAttributes(identifier, givenAttribute);
+            }
+        };
+        PolicySearch search = new PolicySearch(Collections.<PolicyFinderModule>singletonList(module), true, pdp,
+                () -> GLOBAL_ALGORITHM);
+
+        search.getEntitledAttributes("user-1", null, null, null, false);
+        search.getEntitledAttributes("user-2", null, null, null, false);
+        assertEquals(searchAttributeCalls.get(), 1);
+
+        search.invalidateSearchIndex();
+        search.getEntitledAttributes("user-1", null, null, null, false);
+        assertEquals(searchAttributeCalls.get(), 2);
+    }
+
+    private Map<String, String> createIndexablePolicies() {
+
+        Map<String, String> policies = new LinkedHashMap<>();
+        for (int i = 0; i < 40; i++) {
+            String policyId = "policy-" + i;
+            String resource = "resource-" + (i % 15);
+            List<String> rules = new ArrayList<>();
+            if (i % 5 == 0) {
+                rules.add(permitRule(policyId + "-role", anyOf(match(STRING_EQUAL,
+                        PDPConstants.SUBJECT_CATEGORY_URI, PDPConstants.SUBJECT_ID_ROLE, "admin")),
+                        actions("read", "write", "delete")));
+            } else {
+                rules.add(permitRule(policyId + "-read", subjects("user-" + (i % USERS),
+                        "user-" + ((i + 3) % USERS)), actions("read")));
+                if (i % 2 == 0) {
+                    rules.add(permitRule(policyId + "-write", subjects("user-" + (i % USERS)),
+                            actions("write")));
+                }
+            }
+            if (i % 3 == 0) {
+                rules.add(denyRule(policyId + "-deny", subjects("user-" + (i % 7)), actions("write")));
+            }
+            if (i % 11 == 0) {
+                // A policy without permit rules.
+                rules.clear();
+                rules.add(denyRule(policyId + "-deny-all", subjects("user-" + (i % USERS)), actions("read")));
+            }
+            policies.put(policyId, policy(policyId, resource, rules.toArray(new String[0])));
+        }
+        return policies;
+    }
+
+    private static List<String> getSubjects() {
+
+        List<String> subjects = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            subjects.add("user-" + i);
+        }
+        subjects.add("unknown");
+        return subjects;
+    }
+
+    private Function<AbstractRequestCtx, ResponseCtx> createPDP(Map<String, String> policies) throws Exception {
+
+        Path directory = Files.createTempDirectory(policyDirectory, "pdp");
+        Set<String> locations = new HashSet<>();
+        for (Map.Entry<String, String> policy : policies.entrySet()) {
+            Path file = directory.resolve(policy.getKey() + ".xml");
+            Files.write(file, policy.getValue().getBytes(StandardCharsets.UTF_8));
+            locations.add(file.toString());
+        }
+        PolicyFinder policyFinder = new PolicyFinder();
+        Set<org.wso2.balana.finder.PolicyFinderModule> modules = new HashSet<>();
+        modules.add(new FileBasedPolicyFinderModule(locations));
+        policyFinder.setModules(modules);
+        policyFinder.init();
+        PDP pdp = new PDP(new PDPConfig(new AttributeFinder(), policyFinder, null));
+        return pdp::evaluate;
+    }
+
+    private static PolicySearch createPolicySearch(Map<String, String> policies, boolean indexEnable,
+                                                   Function<AbstractRequestCtx, ResponseCtx> pdp,
+                                                   AtomicInteger requests) {
+
+        Function<AbstractRequestCtx, ResponseCtx> countingPdp = requestCtx -> {
+            requests.incrementAndGet();
+            return pdp.apply(requestCtx);
+        };
+        return new PolicySearch(Collections.<PolicyFinderModule>singletonList(
+                new InMemoryPolicyFinderModule(policies)), indexEnable, countingPdp, () -> GLOBAL_ALGORITHM);
+    }
+
+    private static Set<String> search(PolicySearch search, String subject, String subjectId, String resource,
+                                      String action) throws EntitlementException {
+
+        return toStrings(search.getEntitledAttributes(subject, resource, subjectId, action, false)
+                .getEntitledAttributesDTOs());
+    }
+
+    private static Set<String> toStrings(EntitledAttributesDTO[] results) {
+
+        Set<String> strings = new HashSet<>();
+        for (EntitledAttributesDTO result : results) {
+            strings.add(result.getResourceName() + "|" + result.getAction() + "|" + result.isAllActions() + "|" +
+                    result.isAllResources());
+        }
+        return strings;
+    }
+
+    private static Map<String, Set<AttributeDTO>> getSearchAttributes(Map<String, String> policies) {
+
+        return new InMemoryPolicyFinderModule(policies).getSearchAttributes(null, new HashSet<AttributeDTO>());
+    }
+
+    private static String policy(String policyId, String resource, String... rules) {
+
+        StringBuilder policy = new StringBuilder();
+        policy.append("<Policy xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\" PolicyId=\"")
+                .append(policyId).append("\" RuleCombiningAlgId=\"").append(DENY_OVERRIDES)
+                .append("\" Version=\"1.0\"><Target>");
+        if (resource != null) {
+            policy.append(anyOf(match(STRING_EQUAL, PDPConstants.RESOURCE_CATEGORY_URI,
+                    PDPConstants.RESOURCE_ID_DEFAULT, resource)));
+        }
+        policy.append("</Target>");
+        for (String rule : rules) {
+            policy.append(rule);
+        }
+        return policy.append("</Policy>").toString();
+    }
+
+    private static String permitRule(String ruleId, String... anyOfs) {
+
+        return rule(ruleId, PDPConstants.RULE_EFFECT_PERMIT, anyOfs);
+    }
+
+    private static String denyRule(String ruleId, String... anyOfs) {
+
+        return rule(ruleId, PDPConstants.RULE_EFFECT_DENY, anyOfs);
+    }
+
+    private static String rule(String ruleId, String effect, String... anyOfs) {
+
+        StringBuilder rule = new StringBuilder();
+        rule.append("<Rule Effect=\"").append(effect).append("\" RuleId=\"").append(ruleId).append("\"><Target>");
+        for (String anyOf : anyOfs) {
+            rule.append(anyOf);
+        }
+        return rule.append("</Target></Rule>").toString();
+    }
+
+    private static String subjects(String... subjects) {
+
+        String[] matches = new String[subjects.length];
+        for (int i = 0; i < subjects.length; i++) {
+            matches[i] = match(STRING_EQUAL, PDPConstants.SUBJECT_CATEGORY_URI, PDPConstants.SUBJECT_ID_DEFAULT,
+                    subjects[i]);
+        }
+        return anyOf(matches);
+    }
+
+    private static String actions(String... actions) {
+
+        String[] matches = new String[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            matches[i] = match(STRING_EQUAL, PDPConstants.ACTION_CATEGORY_URI, PDPConstants.ACTION_ID_DEFAULT,
+                    actions[i]);
+        }
+        return anyOf(matches);
+    }
+
+    /**
+     * Each match is placed in its own AllOf, so that any of them matches.
+     */
+    private static String anyOf(String... matches) {
+
+        StringBuilder anyOf = new StringBuilder("<AnyOf>");
+        for (String match : matches) {
+            anyOf.append("<AllOf>").append(match).append("</AllOf>");
+        }
+        return anyOf.append("</AnyOf>").toString();
+    }
+
+    private static String match(String function, String category, String attributeId, String value) {
+
+        return "<Match MatchId=\"" + function + "\"><AttributeValue DataType=\"" + PDPConstants.STRING_DATA_TYPE +
+                "\">" + value + "</AttributeValue><AttributeDesignator AttributeId=\"" + attributeId +
+                "\" Category=\"" + category + "\" DataType=\"" + PDPConstants.STRING_DATA_TYPE +
+                "\" MustBePresent=\"false\"/></Match>";
+    }
+
+    /**
+     * Policy finder module which serves the given policies and builds their search attributes from the policy
+     * targets, like the registry policy store.
+     */
+    private static class InMemoryPolicyFinderModule implements PolicyFinderModule {
+
+        private final Map<String, String> policies;
+
+        private InMemoryPolicyFinderModule(Map<String, String> policies) {
+
+            this.policies = policies;
+        }
+
+        @Override
+        public void init(Properties properties) {
+
+        }
+
+        @Override
+        public String getModuleName() {
+
+            return "InMemoryPolicyFinderModule";
+        }
+
+        @Override
+        public String[] getActivePolicies() {
+
+            return policies.values().toArray(new String[0]);
+        }
+
+        @Override
+        public String[] getOrderedPolicyIdentifiers() {
+
+            return policies.keySet().toArray(new String[0]);
+        }
+
+        @Override
+        public String getPolicy(String policyId) {
+
+            return policies.get(policyId);
+        }
+
+        @Override
+        public int getPolicyOrder(String policyId) {
+
+            return 0;
+        }
+
+        @Override
+        public String getReferencedPolicy(String policyId) {
+
+            return null;
+        }
+
+        @Override
+        public Map<String, Set<AttributeDTO>> getSearchAttributes(String identifier,
+                                                                  Set<AttributeDTO> givenAttribute) {
+
+            Map<String, Set<AttributeDTO>> attributes = new HashMap<>();
+            for (Map.Entry<String, String> policy : policies.entrySet()) {
+                try {
+                    attributes.put(policy.getKey(), new HashSet<>(new PolicyAttributeBuilder(policy.getValue())
+                            .createPolicyMetaData(policy.getValue(), new ArrayList<AttributeDTO>())));
+                } catch (EntitlementException e) {
+                    throw new IllegalStateException("Invalid policy: " + policy.getKey(), e);
+                }
+            }
+            return attributes;
+        }
+
+        @Override
+        public int getSupportedSearchAttributesScheme() {
+
+            return PolicyFinderModule.COMBINATIONS_BY_CATEGORY_AND_PARAMETER;
+        }
+
+        @Override
+        public boolean isDefaultCategoriesSupported() {
+
+            return true;
+        }
+
+        @Override
+        public boolean isPolicyOrderingSupport() {
+
+            return false;
+        }
+
+        @Override
+        public boolean isPolicyDeActivationSupport() {
+
+            return false;
+        }
+    }
+}
@@ -22,6 +22,9 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.cache.CertificateCache;
+import org.wso2.carbon.identity.core.cache.CertificateCacheEntry;
+import org.wso2.carbon.identity.core.cache.CertificateCacheKey;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.user.api.Tenant;
@@ -49,14 +52,25 @@ public class DatabaseCertificateRetriever implements CertificateRetriever {
 
     /**
      * @param certificateId Database identifier of the certificate.
-     * @param tenant        Tenant where the certificate belongs to. But in this implementation the passed tenant is
-     *                      not considered since the database id is already there.
+     * @param tenant        Tenant where the certificate belongs to. The database id is enough to load the
+     *                      certificate, the tenant is only used to scope the cached entry.
      * @return The certificate for the given database identifier.
      * @throws CertificateRetrievingException
      */
     @Override
     public X509Certificate getCertificate(String certificateId, Tenant tenant) throws CertificateRetrievingException {
 
+        CertificateCacheKey cacheKey = null;
+        if (tenant != null) {
+            cacheKey = new CertificateCacheKey(tenant.getId(), CertificateCache.SOURCE_DATABASE, certificateId);
+            CertificateCacheEntry cacheEntry = CertificateCache.getInstance().getValueFromCache(cacheKey);
+            // Entries added by application management hold only the PEM content until the certificate is parsed.
+            if (cacheEntry != null && cacheEntry.getCertificate() != null) {
+                return cacheEntry.getCertificate();
+            }
+        }
+
+        long loadStartTime = System.nanoTime();
         Connection connection;
         try {
             connection = IdentityDatabaseUtil.getDBConnection(false);
@@ -80,7 +94,14 @@ public class DatabaseCertificateRetriever implements CertificateRetriever {
             }
 
             if (StringUtils.isNotBlank(certificateContent)) {
-                return (X509Certificate) IdentityUtil.convertPEMEncodedContentToCertificate(certificateContent);
+                X509Certificate certificate =
+                        (X509Certificate) IdentityUtil.convertPEMEncodedContentToCertificate(certificateContent);
+                if (cacheKey != null) {
+                    CertificateCache.getInstance().addToCache(cacheKey,
+                            new CertificateCacheEntry(certificate, certificateContent));
+                    CertificateCache.getInstance().recordLoad(System.nanoTime() - loadStartTime);
+                }
+                return certificate;
             }
         } catch (SQLException e) {
             String errorMessage = String.format("An error occurred while retrieving the certificate content from " +
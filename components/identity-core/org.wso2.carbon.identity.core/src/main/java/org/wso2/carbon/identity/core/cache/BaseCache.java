@@ -0,0 +1,486 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.caching.impl.CacheImpl;
+import org.wso2.carbon.caching.impl.CachingConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.cache.Cache;
+import javax.cache.CacheBuilder;
+import javax.cache.CacheConfiguration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.Status;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryListener;
+import javax.cache.event.CacheEntryListenerException;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+
+/**
+ * A base class for cache implementations of the identity components. Entries are kept in the super tenant cache
+ * space, hence keys are expected to carry the tenant they belong to. The cache is configured under the
+ * IdentityApplicationManagementCacheManager in identity.xml.
+ * <p>
+ * When CacheConfig.L1Cache.Enable is set to true, local (non distributed) caches are fronted by an {@link L1Cache}
+ * tier which serves hits without a tenant flow or a cache manager lookup. The tier is invalidated along with the
+ * underlying cache, and its entries are kept for at most CacheConfig.L1Cache.Timeout seconds, which bounds how long
+ * a value invalidated on another node of a cluster can be served. The tier is therefore disabled by default.
+ * <p>
+ * Hits, misses, puts and invalidations are counted against the tenant of the caller in
+ * {@link IdentityCacheStatistics}. Expired entries are counted as evictions against the super tenant, which owns the
+ * cache space the entries are kept in.
+ *
+ * @param <K> cache key type.
+ * @param <V> cache value type.
+ */
+public class BaseCache<K extends Serializable, V extends Serializable> {
+
+    private static final Log log = LogFactory.getLog(BaseCache.class);
+    private static final String CACHE_MANAGER_NAME = "IdentityApplicationManagementCacheManager";
+    private static final String L1_CACHE_ENABLE = "CacheConfig.L1Cache.Enable";
+    private static final String L1_CACHE_CAPACITY = "CacheConfig.L1Cache.Capacity";
+    private static final String L1_CACHE_TIMEOUT = "CacheConfig.L1Cache.Timeout";
+    private static final int DEFAULT_L1_CACHE_CAPACITY = 1000;
+    private static final int DEFAULT_L1_CACHE_TIMEOUT = 10;
+    private CacheBuilder<K, V> cacheBuilder;
+    private String cacheName;
+    private List<CacheEntryListener<K, V>> cacheListeners = new ArrayList<>();
+    private IdentityCacheConfig identityCacheConfig;
+    private volatile Cache<K, V> resolvedCache;
+    private L1Cache<K, V> l1Cache;
+    private IdentityCacheStatistics statistics;
+
+    public BaseCache(String cacheName) {
+
+        this.cacheName = cacheName;
+        statistics = IdentityCacheStatisticsRegistry.getInstance().getCacheStatistics(CACHE_MANAGER_NAME, cacheName);
+        identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
+        if (identityCacheConfig != null && !identityCacheConfig.isDistributed()) {
+            this.cacheName = CachingConstants.LOCAL_CACHE_PREFIX + cacheName;
+        }
+        initL1Cache();
+    }
+
+    public BaseCache(String cacheName, boolean isTemp) {
+
+        this.cacheName = cacheName;
+        statistics = IdentityCacheStatisticsRegistry.getInstance().getCacheStatistics(CACHE_MANAGER_NAME, cacheName);
+        identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
+        if (identityCacheConfig != null) {
+            if (!identityCacheConfig.isDistributed()) {
+                this.cacheName = CachingConstants.LOCAL_CACHE_PREFIX + cacheName;
+            }
+            identityCacheConfig.setTemporary(isTemp);
+        }
+        initL1Cache();
+    }
+
+    private Cache<K, V> getBaseCache() {
+
+        Cache<K, V> cache = resolvedCache;
+        if (cache != null && cache.getStatus() == Status.STARTED) {
+            return cache;
+        }
+        try {
+
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+            CacheManager cacheManager = Caching.getCacheManagerFactory()
+                    .getCacheManager(CACHE_MANAGER_NAME);
+
+            if (getCacheTimeout() > 0 && cacheBuilder == null) {
+                synchronized (cacheName.intern()) {
+                    if (cacheBuilder == null) {
+                        cacheManager.removeCache(cacheName);
+                        cacheBuilder = cacheManager.<K, V>createCacheBuilder(cacheName).
+                                setExpiry(CacheConfiguration.ExpiryType.ACCESSED,
+                                        new CacheConfiguration
+                                                .Duration(TimeUnit.SECONDS, getCacheTimeout())).
+                                setExpiry(CacheConfiguration.ExpiryType.MODIFIED,
+                                        new CacheConfiguration
+                                                .Duration(TimeUnit.SECONDS, getCacheTimeout())).
+                                setStoreByValue(false);
+                        cache = cacheBuilder.build();
+
+                        for (CacheEntryListener<K, V> cacheListener : cacheListeners) {
+                            if (isListenerEnabled(cacheListener)) {
+                                this.cacheBuilder.registerCacheEntryListener(cacheListener);
+                            }
+                        }
+                        if (l1Cache != null) {
+                            this.cacheBuilder.registerCacheEntryListener(new L1CacheInvalidator());
+                        }
+                        if (statistics != null) {
+                            this.cacheBuilder.registerCacheEntryListener(new ExpiryCounter());
+                        }
+
+                        setCapacity((CacheImpl) cache);
+                    } else {
+                        cache = cacheManager.getCache(cacheName);
+                        setCapacity((CacheImpl) cache);
+                    }
+                }
+
+            } else {
+                cache = cacheManager.getCache(cacheName);
+                setCapacity((CacheImpl) cache);
+
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+
+        if (l1Cache != null && resolvedCache != null && resolvedCache != cache) {
+            // The underlying cache was recreated, hence nothing in the first level tier can be trusted.
+            l1Cache.invalidateAll();
+        }
+        resolvedCache = cache;
+        return cache;
+    }
+
+    /**
+     * Add a cache entry.
+     *
+     * @param key   Key which cache entry is indexed.
+     * @param entry Actual object where cache entry is placed.
+     */
+    public void addToCache(K key, V entry) {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordPut();
+        }
+        boolean tenantFlowStarted = startSuperTenantFlow();
+        try {
+            // Element already in the cache. Remove it first
+            Cache<K, V> cache = getBaseCache();
+            if (cache != null) {
+                cache.put(key, entry);
+            }
+        } finally {
+            endSuperTenantFlow(tenantFlowStarted);
+            if (l1Cache != null) {
+                l1Cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Retrieves a cache entry.
+     *
+     * @param key CacheKey
+     * @return Cached entry.
+     */
+    public V getValueFromCache(K key) {
+
+        if (!isEnabled()) {
+            return null;
+        }
+
+        if (key == null) {
+            return null;
+        }
+
+        CacheStatistics tenantStatistics = statistics != null ? statistics.forCurrentTenant() : null;
+        long l1CacheStamp = 0;
+        if (l1Cache != null) {
+            V value = l1Cache.get(key);
+            if (value != null) {
+                if (tenantStatistics != null) {
+                    tenantStatistics.recordHit();
+                }
+                return value;
+            }
+            l1CacheStamp = l1Cache.getStamp();
+        }
+
+        V value = null;
+        boolean tenantFlowStarted = startSuperTenantFlow();
+        try {
+            Cache<K, V> cache = getBaseCache();
+            if (cache != null) {
+                value = cache.get(key);
+            }
+            if (value != null && l1Cache != null) {
+                l1Cache.put(key, value, l1CacheStamp);
+            }
+        } finally {
+            endSuperTenantFlow(tenantFlowStarted);
+        }
+        if (tenantStatistics != null) {
+            if (value != null) {
+                tenantStatistics.recordHit();
+            } else {
+                tenantStatistics.recordMiss();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Clears a cache entry.
+     *
+     * @param key Key to clear cache.
+     */
+    public void clearCacheEntry(K key) {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordInvalidation();
+        }
+        boolean tenantFlowStarted = startSuperTenantFlow();
+        try {
+            Cache<K, V> cache = getBaseCache();
+            if (cache != null) {
+                cache.remove(key);
+            }
+        } finally {
+            endSuperTenantFlow(tenantFlowStarted);
+            if (l1Cache != null) {
+                l1Cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Remove everything in the cache.
+     */
+    public void clear() {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordInvalidation();
+        }
+        boolean tenantFlowStarted = startSuperTenantFlow();
+        try {
+            Cache<K, V> cache = getBaseCache();
+            if (cache != null) {
+                cache.removeAll();
+            }
+        } finally {
+            endSuperTenantFlow(tenantFlowStarted);
+            if (l1Cache != null) {
+                l1Cache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Records the time taken to load a value which was added to the cache after a miss.
+     *
+     * @param loadTimeNanos Load time in nanoseconds.
+     */
+    public void recordLoad(long loadTimeNanos) {
+
+        if (statistics != null) {
+            statistics.forCurrentTenant().recordLoad(loadTimeNanos);
+        }
+    }
+
+    /**
+     * Adds a listener which is registered on the underlying cache when the cache is built. Listeners are only
+     * registered on caches configured with a timeout in identity.xml.
+     *
+     * @param listener Cache entry listener.
+     */
+    protected void addCacheEntryListener(CacheEntryListener<K, V> listener) {
+
+        cacheListeners.add(listener);
+    }
+
+    /**
+     * Whether a listener added through {@link #addCacheEntryListener(CacheEntryListener)} is registered.
+     *
+     * @param listener Cache entry listener.
+     * @return true if the listener has to be registered.
+     */
+    protected boolean isListenerEnabled(CacheEntryListener<K, V> listener) {
+
+        return true;
+    }
+
+    public boolean isEnabled() {
+
+        if (identityCacheConfig != null) {
+            return identityCacheConfig.isEnabled();
+        }
+        return true;
+    }
+
+    public int getCacheTimeout() {
+
+        if (identityCacheConfig != null && identityCacheConfig.getTimeout() > 0) {
+            return identityCacheConfig.getTimeout();
+        }
+        return -1;
+    }
+
+    public int getCapacity() {
+
+        if (identityCacheConfig != null && identityCacheConfig.getCapacity() > 0) {
+            return identityCacheConfig.getCapacity();
+        }
+        return -1;
+    }
+
+    public void setCapacity(CacheImpl cache) {
+
+        if (cache != null && getCapacity() > 0) {
+            cache.setCapacity(getCapacity());
+        }
+    }
+
+    /**
+     * Whether hits are served from the first level tier.
+     *
+     * @return true if the first level tier is enabled for this cache.
+     */
+    public boolean isL1CacheEnabled() {
+
+        return l1Cache != null;
+    }
+
+    /**
+     * The first level tier is only used for configured local caches when it is explicitly enabled, since invalidation
+     * listeners are registered on configured caches only and entries of distributed caches can change on other nodes.
+     */
+    private void initL1Cache() {
+
+        if (identityCacheConfig == null || identityCacheConfig.isDistributed() || getCacheTimeout() <= 0) {
+            return;
+        }
+        if (!Boolean.parseBoolean(StringUtils.trim(IdentityUtil.getProperty(L1_CACHE_ENABLE)))) {
+            return;
+        }
+
+        int capacity = getIntProperty(L1_CACHE_CAPACITY, DEFAULT_L1_CACHE_CAPACITY);
+        if (getCapacity() > 0) {
+            capacity = Math.min(capacity, getCapacity());
+        }
+        int timeout = Math.min(getIntProperty(L1_CACHE_TIMEOUT, DEFAULT_L1_CACHE_TIMEOUT), getCacheTimeout());
+        if (capacity <= 0 || timeout <= 0) {
+            return;
+        }
+        l1Cache = new L1Cache<>(capacity, TimeUnit.SECONDS.toMillis(timeout));
+    }
+
+    private int getIntProperty(String property, int defaultValue) {
+
+        String value = IdentityUtil.getProperty(property);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value: " + value + " configured for " + property + ". Using the default value: " +
+                    defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Starts a super tenant flow unless the thread already runs in the super tenant context.
+     *
+     * @return true if a tenant flow was started and has to be ended.
+     */
+    private boolean startSuperTenantFlow() {
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        if (carbonContext.getTenantId() == MultitenantConstants.SUPER_TENANT_ID &&
+                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(carbonContext.getTenantDomain())) {
+            return false;
+        }
+        PrivilegedCarbonContext.startTenantFlow();
+        carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        return true;
+    }
+
+    private void endSuperTenantFlow(boolean tenantFlowStarted) {
+
+        if (tenantFlowStarted) {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Drops entries of the first level tier when the underlying cache entry is updated, removed or expired.
+     */
+    private class L1CacheInvalidator implements CacheEntryUpdatedListener<K, V>, CacheEntryRemovedListener<K, V>,
+            CacheEntryExpiredListener<K, V> {
+
+        @Override
+        public void entryUpdated(CacheEntryEvent<? extends K, ? extends V> event) throws CacheEntryListenerException {
+
+            l1Cache.invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(CacheEntryEvent<? extends K, ? extends V> event) throws CacheEntryListenerException {
+
+            l1Cache.invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryExpired(CacheEntryEvent<? extends K, ? extends V> event) throws CacheEntryListenerException {
+
+            l1Cache.invalidate(event.getKey());
+        }
+    }
+
+    /**
+     * Counts expired entries as evictions against the tenant of the cache space, the super tenant. The tenant which
+     * put an entry is not known when it expires, and the thread which observes the expiry may run in any tenant.
+     */
+    class ExpiryCounter implements CacheEntryExpiredListener<K, V> {
+
+        @Override
+        public void entryExpired(CacheEntryEvent<? extends K, ? extends V> event) throws CacheEntryListenerException {
+
+            statistics.forTenant(MultitenantConstants.SUPER_TENANT_ID).recordEviction();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a cache for a single tenant. The counters are striped, hence recording is contention free and cheap
+ * enough for the hit path, while reads are only weakly consistent.
+ */
+public class CacheStatistics {
+
+    private final int tenantId;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder totalLoadTimeNanos = new LongAdder();
+
+    public CacheStatistics(int tenantId) {
+
+        this.tenantId = tenantId;
+    }
+
+    public void recordHit() {
+
+        hitCount.increment();
+    }
+
+    public void recordMiss() {
+
+        missCount.increment();
+    }
+
+    public void recordPut() {
+
+        putCount.increment();
+    }
+
+    public void recordEviction() {
+
+        evictionCount.increment();
+    }
+
+    public void recordInvalidation() {
+
+        invalidationCount.increment();
+    }
+
+    /**
+     * Records a value loaded into a read-through cache after a miss.
+     *
+     * @param loadTimeNanos Time taken to load the value, in nanoseconds.
+     */
+    public void recordLoad(long loadTimeNanos) {
+
+        loadCount.increment();
+        totalLoadTimeNanos.add(loadTimeNanos);
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    public long getHitCount() {
+
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+
+        return missCount.sum();
+    }
+
+    public long getPutCount() {
+
+        return putCount.sum();
+    }
+
+    public long getEvictionCount() {
+
+        return evictionCount.sum();
+    }
+
+    public long getInvalidationCount() {
+
+        return invalidationCount.sum();
+    }
+
+    public long getLoadCount() {
+
+        return loadCount.sum();
+    }
+
+    /**
+     * @return Total time spent on loading values, in milliseconds.
+     */
+    public long getTotalLoadTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(totalLoadTimeNanos.sum());
+    }
+
+    /**
+     * @return Ratio of hits to lookups, or 0 if there has been no lookup.
+     */
+    public double getHitRatio() {
+
+        return hitRatio(getHitCount(), getMissCount());
+    }
+
+    public void reset() {
+
+        hitCount.reset();
+        missCount.reset();
+        putCount.reset();
+        evictionCount.reset();
+        invalidationCount.reset();
+        loadCount.reset();
+        totalLoadTimeNanos.reset();
+    }
+
+    static double hitRatio(long hits, long misses) {
+
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Cache of parsed X509 certificates, keyed by tenant, certificate source and certificate identifier. Database
+ * backed entries must be cleared once the transaction which updates or deletes the certificate row is committed.
+ * Key store certificates are not cached here, since key stores can be updated outside of identity management and
+ * are already kept in memory by the KeyStoreManager.
+ */
+public class CertificateCache extends BaseCache<CertificateCacheKey, CertificateCacheEntry> {
+
+    public static final String SOURCE_DATABASE = "DB";
+
+    private static final Log log = LogFactory.getLog(CertificateCache.class);
+    private static final String CACHE_NAME = "CertificateCache";
+    private static volatile CertificateCache instance;
+
+    private CertificateCache() {
+
+        super(CACHE_NAME);
+    }
+
+    public static CertificateCache getInstance() {
+
+        if (instance == null) {
+            synchronized (CertificateCache.class) {
+                if (instance == null) {
+                    instance = new CertificateCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Clears the cached database certificate of the given id.
+     *
+     * @param tenantId      Tenant id the certificate belongs to.
+     * @param certificateId Database identifier of the certificate.
+     */
+    public void clearDatabaseCertificate(int tenantId, int certificateId) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing the cached certificate with id: " + certificateId + " of tenant: " + tenantId);
+        }
+        clearCacheEntry(new CertificateCacheKey(tenantId, SOURCE_DATABASE, String.valueOf(certificateId)));
+    }
+}
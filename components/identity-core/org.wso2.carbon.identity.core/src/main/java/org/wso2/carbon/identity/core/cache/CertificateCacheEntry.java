@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import java.io.Serializable;
+import java.security.cert.X509Certificate;
+
+/**
+ * Entry of the {@link CertificateCache}. Holds the parsed certificate and, for database backed certificates, the
+ * PEM content it was built from.
+ */
+public class CertificateCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 4902113271590340876L;
+
+    private final X509Certificate certificate;
+    private final String certificateContent;
+
+    public CertificateCacheEntry(X509Certificate certificate, String certificateContent) {
+
+        this.certificate = certificate;
+        this.certificateContent = certificateContent;
+    }
+
+    public X509Certificate getCertificate() {
+
+        return certificate;
+    }
+
+    public String getCertificateContent() {
+
+        return certificateContent;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import java.io.Serializable;
+
+/**
+ * Key of the {@link CertificateCache}. The source distinguishes certificate identifiers of different stores, e.g. a
+ * database id from a key store alias.
+ */
+public class CertificateCacheKey implements Serializable {
+
+    private static final long serialVersionUID = -2285912876549341027L;
+
+    private final int tenantId;
+    private final String source;
+    private final String certificateId;
+
+    public CertificateCacheKey(int tenantId, String source, String certificateId) {
+
+        this.tenantId = tenantId;
+        this.source = source;
+        this.certificateId = certificateId;
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    public String getSource() {
+
+        return source;
+    }
+
+    public String getCertificateId() {
+
+        return certificateId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CertificateCacheKey)) {
+            return false;
+        }
+
+        CertificateCacheKey that = (CertificateCacheKey) o;
+        return tenantId == that.tenantId && source.equals(that.source) && certificateId.equals(that.certificateId);
+    }
+
+    @Override
+    public int hashCode() {
+
+        int result = tenantId;
+        result = 31 * result + source.hashCode();
+        result = 31 * result + certificateId.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.wso2.carbon.context.CarbonContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statistics of a single identity cache, kept per tenant. Instances are obtained from
+ * {@link IdentityCacheStatisticsRegistry} and are registered as MBeans.
+ */
+public class IdentityCacheStatistics implements IdentityCacheStatisticsMXBean {
+
+    private final String cacheManagerName;
+    private final String cacheName;
+    private final Map<Integer, CacheStatistics> tenantStatistics = new ConcurrentHashMap<>();
+
+    IdentityCacheStatistics(String cacheManagerName, String cacheName) {
+
+        this.cacheManagerName = cacheManagerName;
+        this.cacheName = cacheName;
+    }
+
+    /**
+     * Returns the counters of the given tenant, creating them on first use.
+     *
+     * @param tenantId Tenant id.
+     * @return Counters of the tenant.
+     */
+    public CacheStatistics forTenant(int tenantId) {
+
+        CacheStatistics statistics = tenantStatistics.get(tenantId);
+        if (statistics == null) {
+            statistics = tenantStatistics.computeIfAbsent(tenantId, CacheStatistics::new);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the counters of the tenant of the current thread's carbon context.
+     *
+     * @return Counters of the tenant.
+     */
+    public CacheStatistics forCurrentTenant() {
+
+        return forTenant(CarbonContext.getThreadLocalCarbonContext().getTenantId());
+    }
+
+    @Override
+    public String getCacheManagerName() {
+
+        return cacheManagerName;
+    }
+
+    @Override
+    public String getCacheName() {
+
+        return cacheName;
+    }
+
+    @Override
+    public long getHitCount() {
+
+        long count = 0;
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            count += statistics.getHitCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getMissCount() {
+
+        long count = 0;
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            count += statistics.getMissCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getPutCount() {
+
+        long count = 0;
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            count += statistics.getPutCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getEvictionCount() {
+
+        long count = 0;
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            count += statistics.getEvictionCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getInvalidationCount() {
+
+        long count = 0;
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            count += statistics.getInvalidationCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getLoadCount() {
+
+        long count = 0;
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            count += statistics.getLoadCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getTotalLoadTime() {
+
+        long time = 0;
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            time += statistics.getTotalLoadTime();
+        }
+        return time;
+    }
+
+    @Override
+    public double getHitRatio() {
+
+        long hits = 0;
+        long misses = 0;
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            hits += statistics.getHitCount();
+            misses += statistics.getMissCount();
+        }
+        return CacheStatistics.hitRatio(hits, misses);
+    }
+
+    @Override
+    public int[] getTenantIds() {
+
+        return tenantStatistics.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    @Override
+    public CacheStatistics getTenantStatistics(int tenantId) {
+
+        return tenantStatistics.get(tenantId);
+    }
+
+    /**
+     * Resets the counters of every tenant. The counters are reset in place, as caches may hold on to the counters of
+     * a tenant.
+     */
+    @Override
+    public void reset() {
+
+        for (CacheStatistics statistics : tenantStatistics.values()) {
+            statistics.reset();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+/**
+ * JMX view of the statistics of an identity cache. Counters are aggregated over all tenants, the per tenant
+ * counters are available through {@link #getTenantStatistics(int)}.
+ */
+public interface IdentityCacheStatisticsMXBean {
+
+    String getCacheManagerName();
+
+    String getCacheName();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    long getPutCount();
+
+    long getEvictionCount();
+
+    long getInvalidationCount();
+
+    long getLoadCount();
+
+    long getTotalLoadTime();
+
+    double getHitRatio();
+
+    int[] getTenantIds();
+
+    CacheStatistics getTenantStatistics(int tenantId);
+
+    void reset();
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Holds the statistics of all identity caches. The statistics of each cache are registered as an MBean under the
+ * org.wso2.carbon.identity domain when first requested. Collection can be turned off with
+ * CacheConfig.Statistics.Enable in identity.xml, in which case no statistics are handed out.
+ */
+public class IdentityCacheStatisticsRegistry {
+
+    private static final Log log = LogFactory.getLog(IdentityCacheStatisticsRegistry.class);
+    private static final String STATISTICS_ENABLE = "CacheConfig.Statistics.Enable";
+    private static final String MBEAN_DOMAIN = "org.wso2.carbon.identity";
+    private static final IdentityCacheStatisticsRegistry instance = new IdentityCacheStatisticsRegistry();
+
+    private final Map<String, IdentityCacheStatistics> cacheStatistics = new ConcurrentHashMap<>();
+
+    private IdentityCacheStatisticsRegistry() {
+
+    }
+
+    public static IdentityCacheStatisticsRegistry getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Returns the statistics of the given cache, creating and registering them on first use.
+     *
+     * @param cacheManagerName Name of the cache manager.
+     * @param cacheName        Name of the cache.
+     * @return Statistics of the cache or null if statistics collection is disabled.
+     */
+    public IdentityCacheStatistics getCacheStatistics(String cacheManagerName, String cacheName) {
+
+        if (!isEnabled()) {
+            return null;
+        }
+        return cacheStatistics.computeIfAbsent(cacheManagerName + "/" + cacheName, key -> {
+            IdentityCacheStatistics statistics = new IdentityCacheStatistics(cacheManagerName, cacheName);
+            registerMBean(statistics);
+            return statistics;
+        });
+    }
+
+    /**
+     * @return Statistics of all caches which have been used so far.
+     */
+    public List<IdentityCacheStatistics> getAllCacheStatistics() {
+
+        return new ArrayList<>(cacheStatistics.values());
+    }
+
+    public boolean isEnabled() {
+
+        String enable = IdentityUtil.getProperty(STATISTICS_ENABLE);
+        return StringUtils.isBlank(enable) || Boolean.parseBoolean(enable);
+    }
+
+    private void registerMBean(IdentityCacheStatistics statistics) {
+
+        try {
+            ObjectName objectName = new ObjectName(MBEAN_DOMAIN + ":type=CacheStatistics,cacheManager=" +
+                    ObjectName.quote(statistics.getCacheManagerName()) + ",name=" +
+                    ObjectName.quote(statistics.getCacheName()));
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(statistics, objectName);
+            }
+        } catch (JMException e) {
+            log.warn("Error while registering the statistics MBean of cache: " + statistics.getCacheName(), e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process first level tier of {@link BaseCache}. Cache hits are served from a lock-free map, without starting a
+ * tenant flow or touching the underlying cache.
+ * <p>
+ * The tier is bounded. When it is full, entries are evicted in insertion order, but an entry which has been read
+ * since it was last considered gets a second chance, so frequently read entries stay resident.
+ * <p>
+ * A value read from the underlying cache is only kept if no invalidation happened while it was being read, so an
+ * invalidated value is never resurrected by a concurrent reader.
+ *
+ * @param <K> cache key type.
+ * @param <V> cache value type.
+ */
+public class L1Cache<K, V> {
+
+    private static final int MAX_SECOND_CHANCES = 16;
+
+    private final Map<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Node<K, V>> evictionQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger evictionQueueSize = new AtomicInteger();
+    private final AtomicLong invalidationStamp = new AtomicLong();
+    private final int capacity;
+    private final long timeToLiveMillis;
+
+    /**
+     * @param capacity         Maximum number of entries held.
+     * @param timeToLiveMillis Maximum time an entry is served after it was read from the underlying cache.
+     */
+    public L1Cache(int capacity, long timeToLiveMillis) {
+
+        this.capacity = capacity;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Returns the value cached against the given key.
+     *
+     * @param key Cache key.
+     * @return Cached value or null if not present or expired.
+     */
+    public V get(K key) {
+
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.expiryTime <= System.currentTimeMillis()) {
+            entries.remove(key, node);
+            return null;
+        }
+        node.referenced = true;
+        return node.value;
+    }
+
+    /**
+     * Returns the current invalidation stamp. Should be read before the underlying cache is read and passed to
+     * {@link #put(Object, Object, long)} along with the value read.
+     *
+     * @return Invalidation stamp.
+     */
+    public long getStamp() {
+
+        return invalidationStamp.get();
+    }
+
+    /**
+     * Caches a value read from the underlying cache, unless an invalidation happened after the given stamp was taken.
+     *
+     * @param key   Cache key.
+     * @param value Value read from the underlying cache.
+     * @param stamp Invalidation stamp taken before the underlying cache was read.
+     */
+    public void put(K key, V value, long stamp) {
+
+        if (value == null || invalidationStamp.get() != stamp) {
+            return;
+        }
+        Node<K, V> node = new Node<>(key, value, System.currentTimeMillis() + timeToLiveMillis);
+        entries.put(key, node);
+        // The new node is queued even when it replaced one, as a replaced node is dropped when it is polled.
+        evictionQueue.offer(node);
+        if (evictionQueueSize.incrementAndGet() > capacity) {
+            evict();
+        }
+        // An invalidation may have raced with the put, in which case the value must not stay.
+        if (invalidationStamp.get() != stamp) {
+            entries.remove(key, node);
+        }
+    }
+
+    /**
+     * Drops the value cached against the given key.
+     *
+     * @param key Cache key.
+     */
+    public void invalidate(K key) {
+
+        invalidationStamp.incrementAndGet();
+        entries.remove(key);
+    }
+
+    /**
+     * Drops all cached values.
+     */
+    public void invalidateAll() {
+
+        invalidationStamp.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+
+        return entries.size();
+    }
+
+    private void evict() {
+
+        int secondChances = 0;
+        while (evictionQueueSize.get() > capacity) {
+            Node<K, V> node = evictionQueue.poll();
+            if (node == null) {
+                return;
+            }
+            if (entries.get(node.key) != node) {
+                // Already invalidated or replaced.
+                evictionQueueSize.decrementAndGet();
+                continue;
+            }
+            if (node.referenced && secondChances < MAX_SECOND_CHANCES) {
+                node.referenced = false;
+                secondChances++;
+                evictionQueue.offer(node);
+                continue;
+            }
+            entries.remove(node.key, node);
+            evictionQueueSize.decrementAndGet();
+        }
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long expiryTime;
+        private volatile boolean referenced;
+
+        private Node(K key, V value, long expiryTime) {
+
+            this.key = key;
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
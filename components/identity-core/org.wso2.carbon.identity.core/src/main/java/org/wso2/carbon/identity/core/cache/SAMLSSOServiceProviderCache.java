@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
+
+/**
+ * Cache of SAML service providers read from the registry by
+ * {@link org.wso2.carbon.identity.core.dao.SAMLSSOServiceProviderDAO}, keyed by tenant and issuer. Entries of an
+ * issuer must be cleared whenever the service provider or its application certificate changes. Clearing an issuer
+ * also clears the cached service provider list of the tenant. Service providers are copied in and out of the cache,
+ * so callers may modify what they get without affecting other callers.
+ */
+public class SAMLSSOServiceProviderCache extends BaseCache<SAMLSSOServiceProviderCacheKey,
+        SAMLSSOServiceProviderCacheEntry> {
+
+    private static final Log log = LogFactory.getLog(SAMLSSOServiceProviderCache.class);
+    private static final String CACHE_NAME = "SAMLSSOServiceProviderCache";
+    private static volatile SAMLSSOServiceProviderCache instance;
+
+    private SAMLSSOServiceProviderCache() {
+
+        super(CACHE_NAME);
+    }
+
+    public static SAMLSSOServiceProviderCache getInstance() {
+
+        if (instance == null) {
+            synchronized (SAMLSSOServiceProviderCache.class) {
+                if (instance == null) {
+                    instance = new SAMLSSOServiceProviderCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cached service provider of the given issuer.
+     *
+     * @param tenantId Tenant id of the service provider.
+     * @param issuer   Issuer, including the qualifier if there is one.
+     * @return Copy of the cached service provider or null if it is not cached.
+     */
+    public SAMLSSOServiceProviderDO getServiceProvider(int tenantId, String issuer) {
+
+        SAMLSSOServiceProviderCacheEntry entry = getValueFromCache(new SAMLSSOServiceProviderCacheKey(tenantId,
+                issuer));
+        if (entry == null || entry.getServiceProvider() == null) {
+            return null;
+        }
+        return new SAMLSSOServiceProviderDO(entry.getServiceProvider());
+    }
+
+    public void addServiceProvider(int tenantId, String issuer, SAMLSSOServiceProviderDO serviceProvider) {
+
+        addToCache(new SAMLSSOServiceProviderCacheKey(tenantId, issuer),
+                new SAMLSSOServiceProviderCacheEntry(new SAMLSSOServiceProviderDO(serviceProvider)));
+    }
+
+    /**
+     * Returns the cached list of all service providers of the tenant.
+     *
+     * @param tenantId Tenant id.
+     * @return Copies of the cached service providers or null if they are not cached.
+     */
+    public SAMLSSOServiceProviderDO[] getServiceProviders(int tenantId) {
+
+        SAMLSSOServiceProviderCacheEntry entry = getValueFromCache(new SAMLSSOServiceProviderCacheKey(tenantId,
+                null));
+        if (entry == null || entry.getServiceProviders() == null) {
+            return null;
+        }
+        return copyOf(entry.getServiceProviders());
+    }
+
+    public void addServiceProviders(int tenantId, SAMLSSOServiceProviderDO[] serviceProviders) {
+
+        addToCache(new SAMLSSOServiceProviderCacheKey(tenantId, null),
+                new SAMLSSOServiceProviderCacheEntry(copyOf(serviceProviders)));
+    }
+
+    /**
+     * Clears the cached service provider of the given issuer and the service provider list of the tenant.
+     *
+     * @param tenantId Tenant id of the service provider.
+     * @param issuer   Issuer, including the qualifier if there is one.
+     */
+    public void clearServiceProvider(int tenantId, String issuer) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing the cached SAML service provider: " + issuer + " of tenant: " + tenantId);
+        }
+        clearCacheEntry(new SAMLSSOServiceProviderCacheKey(tenantId, issuer));
+        clearCacheEntry(new SAMLSSOServiceProviderCacheKey(tenantId, null));
+    }
+
+    private SAMLSSOServiceProviderDO[] copyOf(SAMLSSOServiceProviderDO[] serviceProviders) {
+
+        SAMLSSOServiceProviderDO[] copies = new SAMLSSOServiceProviderDO[serviceProviders.length];
+        for (int i = 0; i < serviceProviders.length; i++) {
+            copies[i] = new SAMLSSOServiceProviderDO(serviceProviders[i]);
+        }
+        return copies;
+    }
+}
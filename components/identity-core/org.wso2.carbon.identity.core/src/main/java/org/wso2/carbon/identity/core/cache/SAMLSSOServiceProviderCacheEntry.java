@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
+
+import java.io.Serializable;
+
+/**
+ * Entry of the {@link SAMLSSOServiceProviderCache}. Holds either a single service provider, with its tenant domain
+ * and request validation certificate resolved, or the list of all service providers of a tenant.
+ */
+public class SAMLSSOServiceProviderCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = -3398216741035468172L;
+
+    private final SAMLSSOServiceProviderDO serviceProvider;
+    private final SAMLSSOServiceProviderDO[] serviceProviders;
+
+    public SAMLSSOServiceProviderCacheEntry(SAMLSSOServiceProviderDO serviceProvider) {
+
+        this.serviceProvider = serviceProvider;
+        this.serviceProviders = null;
+    }
+
+    public SAMLSSOServiceProviderCacheEntry(SAMLSSOServiceProviderDO[] serviceProviders) {
+
+        this.serviceProvider = null;
+        this.serviceProviders = serviceProviders;
+    }
+
+    public SAMLSSOServiceProviderDO getServiceProvider() {
+
+        return serviceProvider;
+    }
+
+    public SAMLSSOServiceProviderDO[] getServiceProviders() {
+
+        return serviceProviders;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import java.io.Serializable;
+
+/**
+ * Key of the {@link SAMLSSOServiceProviderCache}. A key without an issuer identifies the list of all SAML service
+ * providers of the tenant.
+ */
+public class SAMLSSOServiceProviderCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 6154203381932570412L;
+
+    private final int tenantId;
+    private final String issuer;
+
+    public SAMLSSOServiceProviderCacheKey(int tenantId, String issuer) {
+
+        this.tenantId = tenantId;
+        this.issuer = issuer;
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    public String getIssuer() {
+
+        return issuer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SAMLSSOServiceProviderCacheKey)) {
+            return false;
+        }
+
+        SAMLSSOServiceProviderCacheKey that = (SAMLSSOServiceProviderCacheKey) o;
+        return tenantId == that.tenantId && (issuer != null ? issuer.equals(that.issuer) : that.issuer == null);
+    }
+
+    @Override
+    public int hashCode() {
+
+        int result = tenantId;
+        result = 31 * result + (issuer != null ? issuer.hashCode() : 0);
+        return result;
+    }
+}
@@ -27,6 +27,7 @@ import org.wso2.carbon.identity.core.CertificateRetrievingException;
 import org.wso2.carbon.identity.core.DatabaseCertificateRetriever;
 import org.wso2.carbon.identity.core.IdentityRegistryResources;
 import org.wso2.carbon.identity.core.KeyStoreCertificateRetriever;
+import org.wso2.carbon.identity.core.cache.SAMLSSOServiceProviderCache;
 import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
@@ -34,6 +35,7 @@ import org.wso2.carbon.registry.core.Collection;
 import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.registry.core.Resource;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.registry.core.exceptions.ResourceNotFoundException;
 import org.wso2.carbon.registry.core.jdbc.utils.Transaction;
 import org.wso2.carbon.registry.core.session.UserRegistry;
 import org.wso2.carbon.user.api.Tenant;
@@ -314,6 +316,7 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
             throw IdentityException.error(msg, e);
         } finally {
             commitOrRollbackTransaction(isErrorOccurred);
+            clearCache(serviceProviderDO.getIssuer());
         }
     }
 
@@ -475,6 +478,16 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
     }
 
     public SAMLSSOServiceProviderDO[] getServiceProviders() throws IdentityException {
+
+        Integer tenantId = getTenantId();
+        if (tenantId != null) {
+            SAMLSSOServiceProviderDO[] cachedServiceProviders = SAMLSSOServiceProviderCache.getInstance()
+                    .getServiceProviders(tenantId);
+            if (cachedServiceProviders != null) {
+                return cachedServiceProviders;
+            }
+        }
+
         List<SAMLSSOServiceProviderDO> serviceProvidersList = new ArrayList<>();
         try {
             if (registry.resourceExists(IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS)) {
@@ -492,7 +505,12 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
             log.error("Error reading Service Providers from Registry", e);
             throw IdentityException.error("Error reading Service Providers from Registry", e);
         }
-        return serviceProvidersList.toArray(new SAMLSSOServiceProviderDO[serviceProvidersList.size()]);
+        SAMLSSOServiceProviderDO[] serviceProviders =
+                serviceProvidersList.toArray(new SAMLSSOServiceProviderDO[serviceProvidersList.size()]);
+        if (tenantId != null) {
+            SAMLSSOServiceProviderCache.getInstance().addServiceProviders(tenantId, serviceProviders);
+        }
+        return serviceProviders;
     }
 
     /**
@@ -532,11 +550,13 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
             throw IdentityException.error(msg, e);
         } finally {
             commitOrRollbackTransaction(isErrorOccurred);
+            clearCache(issuer);
         }
     }
 
     /**
-     * Get the service provider.
+     * Get the service provider. Service providers found in the registry are cached together with their tenant
+     * domain and request validation certificate.
      *
      * @param issuer
      * @return
@@ -544,6 +564,15 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
      */
     public SAMLSSOServiceProviderDO getServiceProvider(String issuer) throws IdentityException {
 
+        Integer tenantId = getTenantId();
+        if (tenantId != null) {
+            SAMLSSOServiceProviderDO cachedServiceProvider = SAMLSSOServiceProviderCache.getInstance()
+                    .getServiceProvider(tenantId, issuer);
+            if (cachedServiceProvider != null) {
+                return cachedServiceProvider;
+            }
+        }
+
         String path = IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS + encodePath(issuer);
         SAMLSSOServiceProviderDO serviceProviderDO = null;
 
@@ -567,6 +596,8 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
                     serviceProviderDO.setX509Certificate(getApplicationCertificate(serviceProviderDO, tenant));
                 }
                 serviceProviderDO.setTenantDomain(tenantDomain);
+                SAMLSSOServiceProviderCache.getInstance().addServiceProvider(userRegistry.getTenantId(), issuer,
+                        serviceProviderDO);
             }
         } catch (RegistryException e) {
             throw IdentityException.error("Error occurred while checking if resource path \'" + path + "\' exists in " +
@@ -640,6 +671,12 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
     }
 
     public boolean isServiceProviderExists(String issuer) throws IdentityException {
+
+        Integer tenantId = getTenantId();
+        if (tenantId != null &&
+                SAMLSSOServiceProviderCache.getInstance().getServiceProvider(tenantId, issuer) != null) {
+            return true;
+        }
         String path = IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS + encodePath(issuer);
         try {
             return registry.resourceExists(path);
@@ -717,7 +754,34 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
             throw IdentityException.error("Error while adding Service Provider.", e);
         } finally {
             commitOrRollbackTransaction(isErrorOccurred);
+            clearCache(serviceProviderDO.getIssuer());
+        }
+    }
+
+    /**
+     * Clears the cached service provider of the given issuer, and the cached service provider list, of the tenant
+     * of the registry.
+     *
+     * @param issuer Issuer, including the qualifier if there is one.
+     */
+    private void clearCache(String issuer) {
+
+        Integer tenantId = getTenantId();
+        if (tenantId != null) {
+            SAMLSSOServiceProviderCache.getInstance().clearServiceProvider(tenantId, issuer);
+        }
+    }
+
+    /**
+     * Returns the tenant of the registry, or null if the registry is not tenant aware, in which case nothing is
+     * cached.
+     */
+    private Integer getTenantId() {
+
+        if (registry instanceof UserRegistry) {
+            return ((UserRegistry) registry).getTenantId();
         }
+        return null;
     }
 
     /**
@@ -740,7 +804,9 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
     }
 
     /**
-     * This helps to find resources in a recursive manner.
+     * This helps to find resources in a recursive manner. The given path is a child listed by its parent collection,
+     * so it is read directly instead of checking for its existence first, which would cost another registry call
+     * per service provider. A child removed after its parent was listed is skipped.
      *
      * @param parentResource      parent resource Name.
      * @param serviceProviderList child resource list.
@@ -749,17 +815,23 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
     private void getChildResources(String parentResource, List<SAMLSSOServiceProviderDO>
             serviceProviderList) throws RegistryException {
 
-        if (registry.resourceExists(parentResource)) {
-            Resource resource = registry.get(parentResource);
-            if (resource instanceof Collection) {
-                Collection collection = (Collection) resource;
-                String[] resources = collection.getChildren();
-                for (String res : resources) {
-                    getChildResources(res, serviceProviderList);
-                }
-            } else {
-                serviceProviderList.add(resourceToObject(resource));
+        Resource resource;
+        try {
+            resource = registry.get(parentResource);
+        } catch (ResourceNotFoundException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Service provider resource: " + parentResource + " was removed while listing.");
+            }
+            return;
+        }
+        if (resource instanceof Collection) {
+            Collection collection = (Collection) resource;
+            String[] resources = collection.getChildren();
+            for (String res : resources) {
+                getChildResources(res, serviceProviderList);
             }
+        } else {
+            serviceProviderList.add(resourceToObject(resource));
         }
     }
 }
@@ -44,8 +44,10 @@ import org.wso2.carbon.identity.core.util.IdentityCoreInitializedEvent;
 import org.wso2.carbon.identity.core.util.IdentityCoreInitializedEventImpl;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.core.util.TenantResolutionCache;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.registry.core.service.TenantRegistryLoader;
+import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
@@ -110,6 +112,7 @@ public class IdentityCoreServiceComponent {
         }
         try {
             IdentityUtil.populateProperties();
+            TenantResolutionCache.getInstance().init();
             bundleContext = ctxt.getBundleContext();
 
             // Identity database schema creation can be avoided by setting
@@ -176,6 +179,9 @@ public class IdentityCoreServiceComponent {
 
             defaultKeystoreManagerServiceRef = ctxt.getBundleContext().registerService(KeyProviderService.class,
                     defaultKeyProviderService, null);
+
+            ctxt.getBundleContext().registerService(TenantMgtListener.class.getName(),
+                    new TenantResolutionCacheInvalidationListener(), null);
         } catch (MigrationClientException e) {
             // Throwing migration client exception to wait till migration client implementation bundle starts if
             // -Dmigrate option is used.
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.internal;
+
+import org.apache.axis2.clustering.ClusteringAgent;
+import org.apache.axis2.clustering.ClusteringFault;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.AbstractIdentityTenantMgtListener;
+import org.wso2.carbon.identity.core.util.TenantResolutionCache;
+import org.wso2.carbon.identity.core.util.TenantResolutionCacheInvalidationClusteringMessage;
+import org.wso2.carbon.stratos.common.beans.TenantInfoBean;
+import org.wso2.carbon.stratos.common.exception.StratosException;
+
+/**
+ * Drops entries of the {@link TenantResolutionCache} when the state of a tenant changes, in this node and, through a
+ * cluster message, in the other nodes of the cluster.
+ */
+public class TenantResolutionCacheInvalidationListener extends AbstractIdentityTenantMgtListener {
+
+    private static final Log log = LogFactory.getLog(TenantResolutionCacheInvalidationListener.class);
+    private static final int EXEC_ORDER = 1;
+
+    @Override
+    public void onTenantUpdate(TenantInfoBean tenantInfoBean) throws StratosException {
+
+        invalidate(tenantInfoBean.getTenantId());
+    }
+
+    @Override
+    public void onTenantDelete(int tenantId) {
+
+        invalidate(tenantId);
+    }
+
+    @Override
+    public void onTenantRename(int tenantId, String oldDomainName, String newDomainName) throws StratosException {
+
+        invalidate(tenantId);
+    }
+
+    @Override
+    public void onTenantActivation(int tenantId) throws StratosException {
+
+        invalidate(tenantId);
+    }
+
+    @Override
+    public void onTenantDeactivation(int tenantId) throws StratosException {
+
+        invalidate(tenantId);
+    }
+
+    @Override
+    public int getListenerOrder() {
+
+        return EXEC_ORDER;
+    }
+
+    private void invalidate(int tenantId) {
+
+        TenantResolutionCache.getInstance().invalidate(tenantId);
+        ClusteringAgent clusteringAgent = getClusteringAgent();
+        if (clusteringAgent == null) {
+            return;
+        }
+        try {
+            clusteringAgent.sendMessage(new TenantResolutionCacheInvalidationClusteringMessage(tenantId), true);
+        } catch (ClusteringFault e) {
+            log.error("Error while sending the tenant resolution cache invalidation message for tenant id: " +
+                    tenantId, e);
+        }
+    }
+
+    private ClusteringAgent getClusteringAgent() {
+
+        if (IdentityCoreServiceComponent.getConfigurationContextService() == null) {
+            return null;
+        }
+        return IdentityCoreServiceComponent.getConfigurationContextService().getServerConfigContext()
+                .getAxisConfiguration().getClusteringAgent();
+    }
+}
@@ -24,6 +24,7 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 
 import java.io.Serializable;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -128,6 +129,71 @@ public class SAMLSSOServiceProviderDO implements Serializable {
         }
     }
 
+    /**
+     * Creates a copy of the given service provider. Arrays and lists are copied, so changes made to the copy do not
+     * reach the original.
+     *
+     * @param serviceProviderDO Service provider to copy.
+     */
+    public SAMLSSOServiceProviderDO(SAMLSSOServiceProviderDO serviceProviderDO) {
+
+        tenantDomain = serviceProviderDO.tenantDomain;
+        issuer = serviceProviderDO.issuer;
+        issuerQualifier = serviceProviderDO.issuerQualifier;
+        assertionConsumerUrl = serviceProviderDO.assertionConsumerUrl;
+        assertionConsumerUrls = copyOf(serviceProviderDO.assertionConsumerUrls);
+        assertionConsumerUrlList = copyOf(serviceProviderDO.assertionConsumerUrlList);
+        defaultAssertionConsumerUrl = serviceProviderDO.defaultAssertionConsumerUrl;
+        certAlias = serviceProviderDO.certAlias;
+        sloResponseURL = serviceProviderDO.sloResponseURL;
+        sloRequestURL = serviceProviderDO.sloRequestURL;
+        doSingleLogout = serviceProviderDO.doSingleLogout;
+        loginPageURL = serviceProviderDO.loginPageURL;
+        doSignResponse = serviceProviderDO.doSignResponse;
+        doSignAssertions = serviceProviderDO.doSignAssertions;
+        attributeConsumingServiceIndex = serviceProviderDO.attributeConsumingServiceIndex;
+        requestedClaims = copyOf(serviceProviderDO.requestedClaims);
+        requestedClaimsList = copyOf(serviceProviderDO.requestedClaimsList);
+        requestedAudiences = copyOf(serviceProviderDO.requestedAudiences);
+        requestedAudiencesList = copyOf(serviceProviderDO.requestedAudiencesList);
+        requestedRecipients = copyOf(serviceProviderDO.requestedRecipients);
+        requestedRecipientsList = copyOf(serviceProviderDO.requestedRecipientsList);
+        enableAttributesByDefault = serviceProviderDO.enableAttributesByDefault;
+        nameIdClaimUri = serviceProviderDO.nameIdClaimUri;
+        nameIDFormat = serviceProviderDO.nameIDFormat;
+        isIdPInitSSOEnabled = serviceProviderDO.isIdPInitSSOEnabled;
+        idPInitSLOEnabled = serviceProviderDO.idPInitSLOEnabled;
+        idpInitSLOReturnToURLs = copyOf(serviceProviderDO.idpInitSLOReturnToURLs);
+        idpInitSLOReturnToURLList = copyOf(serviceProviderDO.idpInitSLOReturnToURLList);
+        doEnableEncryptedAssertion = serviceProviderDO.doEnableEncryptedAssertion;
+        doValidateSignatureInRequests = serviceProviderDO.doValidateSignatureInRequests;
+        doValidateSignatureInArtifactResolve = serviceProviderDO.doValidateSignatureInArtifactResolve;
+        signingAlgorithmUri = serviceProviderDO.signingAlgorithmUri;
+        digestAlgorithmUri = serviceProviderDO.digestAlgorithmUri;
+        assertionEncryptionAlgorithmUri = serviceProviderDO.assertionEncryptionAlgorithmUri;
+        keyEncryptionAlgorithmUri = serviceProviderDO.keyEncryptionAlgorithmUri;
+        signingCertificate = serviceProviderDO.signingCertificate;
+        encryptionCertificate = serviceProviderDO.encryptionCertificate;
+        x509Certificate = serviceProviderDO.x509Certificate;
+        isAssertionQueryRequestProfileEnabled = serviceProviderDO.isAssertionQueryRequestProfileEnabled;
+        supportedAssertionQueryRequestTypes = serviceProviderDO.supportedAssertionQueryRequestTypes;
+        enableSAML2ArtifactBinding = serviceProviderDO.enableSAML2ArtifactBinding;
+        samlECP = serviceProviderDO.samlECP;
+        idpEntityIDAlias = serviceProviderDO.idpEntityIDAlias;
+        doFrontChannelLogout = serviceProviderDO.doFrontChannelLogout;
+        frontChannelLogoutBinding = serviceProviderDO.frontChannelLogoutBinding;
+    }
+
+    private static String[] copyOf(String[] values) {
+
+        return values != null ? values.clone() : null;
+    }
+
+    private static List<String> copyOf(List<String> values) {
+
+        return values != null ? new ArrayList<>(values) : null;
+    }
+
     public String getSigningCertificate() {
         return signingCertificate;
     }
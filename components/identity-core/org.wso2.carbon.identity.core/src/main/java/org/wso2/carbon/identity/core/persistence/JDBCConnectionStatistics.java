@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.persistence;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection usage statistics of the identity database. The instance is obtained from
+ * {@link JDBCStatisticsRegistry} and is registered as an MBean.
+ */
+public class JDBCConnectionStatistics implements JDBCConnectionStatisticsMXBean {
+
+    private final LatencyHistogram holdTimeHistogram = new LatencyHistogram();
+    private final LongAdder openConnectionCount = new LongAdder();
+    private final LongAdder statementCount = new LongAdder();
+    private final LongAccumulator maxStatementsPerConnection = new LongAccumulator(Long::max, 0);
+
+    JDBCConnectionStatistics() {
+
+    }
+
+    void recordOpen() {
+
+        openConnectionCount.increment();
+    }
+
+    void recordClose(long holdNanos, int statements) {
+
+        openConnectionCount.decrement();
+        holdTimeHistogram.record(holdNanos);
+        statementCount.add(statements);
+        maxStatementsPerConnection.accumulate(statements);
+    }
+
+    @Override
+    public long getConnectionCount() {
+
+        return holdTimeHistogram.getCount();
+    }
+
+    @Override
+    public long getOpenConnectionCount() {
+
+        return openConnectionCount.sum();
+    }
+
+    @Override
+    public long getTotalHoldTime() {
+
+        return holdTimeHistogram.getTotalTime();
+    }
+
+    @Override
+    public long getMaxHoldTime() {
+
+        return holdTimeHistogram.getMaxTime();
+    }
+
+    @Override
+    public double getAverageHoldTime() {
+
+        return holdTimeHistogram.getAverageTime();
+    }
+
+    @Override
+    public long[] getHoldTimeHistogram() {
+
+        return holdTimeHistogram.getBucketCounts();
+    }
+
+    @Override
+    public long[] getHoldTimeHistogramBounds() {
+
+        return LatencyHistogram.BUCKET_BOUNDS.clone();
+    }
+
+    @Override
+    public long getStatementCount() {
+
+        return statementCount.sum();
+    }
+
+    @Override
+    public long getMaxStatementsPerConnection() {
+
+        return maxStatementsPerConnection.get();
+    }
+
+    @Override
+    public double getAverageStatementsPerConnection() {
+
+        long connections = holdTimeHistogram.getCount();
+        return connections == 0 ? 0 : (double) statementCount.sum() / connections;
+    }
+
+    @Override
+    public void reset() {
+
+        // Connections which are currently open are still counted as open.
+        holdTimeHistogram.reset();
+        statementCount.reset();
+        maxStatementsPerConnection.reset();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.persistence;
+
+/**
+ * JMX view of the connection usage of the identity database. Hold time is measured from borrowing a connection
+ * until it is closed, in milliseconds. A high number of statements per connection for a single operation usually
+ * points to an N+1 query pattern.
+ */
+public interface JDBCConnectionStatisticsMXBean {
+
+    long getConnectionCount();
+
+    long getOpenConnectionCount();
+
+    long getTotalHoldTime();
+
+    long getMaxHoldTime();
+
+    double getAverageHoldTime();
+
+    long[] getHoldTimeHistogram();
+
+    long[] getHoldTimeHistogramBounds();
+
+    long getStatementCount();
+
+    long getMaxStatementsPerConnection();
+
+    double getAverageStatementsPerConnection();
+
+    void reset();
+}
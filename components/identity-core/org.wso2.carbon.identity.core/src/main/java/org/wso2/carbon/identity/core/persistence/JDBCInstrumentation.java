@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import javax.sql.DataSource;
+
+/**
+ * Dynamic proxies measuring the connections, statements and result sets handed out by an instrumented data source.
+ * Statements created with {@link Connection#createStatement()} are identified by the SQL passed on execution.
+ */
+final class JDBCInstrumentation {
+
+    private JDBCInstrumentation() {
+
+    }
+
+    static DataSource wrap(DataSource dataSource, JDBCStatisticsRegistry registry) {
+
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Connection) {
+                registry.getConnectionStatistics().recordOpen();
+                return proxy(Connection.class, result, new ConnectionHandler(registry));
+            }
+            return result;
+        });
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, TargetInvocationHandler handler) {
+
+        return type.cast(Proxy.newProxyInstance(JDBCInstrumentation.class.getClassLoader(), new Class[]{type},
+                (proxy, method, args) -> handler.invoke(target, method, args)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Object> returnType(Method method) {
+
+        return (Class<Object>) method.getReturnType();
+    }
+
+    private interface TargetInvocationHandler {
+
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    private static class ConnectionHandler implements TargetInvocationHandler {
+
+        private final JDBCStatisticsRegistry registry;
+        private final long openedAt = System.nanoTime();
+        private int statementCount;
+        private boolean closed;
+
+        ConnectionHandler(JDBCStatisticsRegistry registry) {
+
+            this.registry = registry;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if ("close".equals(name)) {
+                try {
+                    return invokeTarget(target, method, args);
+                } finally {
+                    if (!closed) {
+                        closed = true;
+                        registry.getConnectionStatistics().recordClose(System.nanoTime() - openedAt,
+                                statementCount);
+                    }
+                }
+            }
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Statement) {
+                JDBCStatementStatistics statistics = null;
+                if ("prepareStatement".equals(name) || "prepareCall".equals(name)) {
+                    statistics = registry.getStatementStatistics((String) args[0]);
+                }
+                return proxy(returnType(method), result, new StatementHandler(registry, this, statistics));
+            }
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements TargetInvocationHandler {
+
+        private final JDBCStatisticsRegistry registry;
+        private final ConnectionHandler connection;
+        private final JDBCStatementStatistics preparedStatistics;
+        private JDBCStatementStatistics lastStatistics;
+
+        StatementHandler(JDBCStatisticsRegistry registry, ConnectionHandler connection,
+                         JDBCStatementStatistics preparedStatistics) {
+
+            this.registry = registry;
+            this.connection = connection;
+            this.preparedStatistics = preparedStatistics;
+            this.lastStatistics = preparedStatistics;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if (preparedStatistics == null && args != null && args.length > 0 && args[0] instanceof String &&
+                    (name.startsWith("execute") || "addBatch".equals(name))) {
+                // Plain statements carry the SQL on execution. A batch is attributed to its last statement.
+                lastStatistics = registry.getStatementStatistics((String) args[0]);
+            }
+            if (!name.startsWith("execute") || lastStatistics == null) {
+                Object result = invokeTarget(target, method, args);
+                if ("getResultSet".equals(name) && result != null && lastStatistics != null) {
+                    return proxy(ResultSet.class, result, new ResultSetHandler(lastStatistics));
+                }
+                return result;
+            }
+
+            JDBCStatementStatistics statistics = lastStatistics;
+            connection.statementCount++;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(target, method, args);
+            } catch (Throwable e) {
+                statistics.recordError();
+                throw e;
+            } finally {
+                registry.recordExecution(statistics, System.nanoTime() - start);
+            }
+            if (result instanceof ResultSet) {
+                return proxy(ResultSet.class, result, new ResultSetHandler(statistics));
+            } else if (result instanceof Integer || result instanceof Long) {
+                statistics.recordRowsUpdated(((Number) result).longValue());
+            } else if (result instanceof int[]) {
+                for (int rows : (int[]) result) {
+                    statistics.recordRowsUpdated(rows);
+                }
+            } else if (result instanceof long[]) {
+                for (long rows : (long[]) result) {
+                    statistics.recordRowsUpdated(rows);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class ResultSetHandler implements TargetInvocationHandler {
+
+        private final JDBCStatementStatistics statistics;
+
+        ResultSetHandler(JDBCStatementStatistics statistics) {
+
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+
+            Object result = invokeTarget(target, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                statistics.recordRowReturned();
+            }
+            return result;
+        }
+    }
+}
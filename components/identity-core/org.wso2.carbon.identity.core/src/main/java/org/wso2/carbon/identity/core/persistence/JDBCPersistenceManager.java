@@ -19,6 +19,7 @@
 package org.wso2.carbon.identity.core.persistence;
 
 import org.apache.axiom.om.OMElement;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityException;
@@ -110,6 +111,40 @@ public class JDBCPersistenceManager {
             String errorMsg = "Error when looking up the Identity Data Source.";
             throw IdentityRuntimeException.error(errorMsg, e);
         }
+        initStatistics(persistenceManagerConfigElem);
+    }
+
+    /**
+     * Instruments the data source with statement and connection statistics if enabled in identity.xml. The data
+     * source is left untouched otherwise.
+     */
+    private void initStatistics(OMElement persistenceManagerConfigElem) {
+
+        OMElement statisticsElem = persistenceManagerConfigElem.getFirstChildWithName(
+                new QName(IdentityCoreConstants.IDENTITY_DEFAULT_NAMESPACE, "Statistics"));
+        if (dataSource == null || statisticsElem == null) {
+            return;
+        }
+        OMElement enableElem = statisticsElem.getFirstChildWithName(
+                new QName(IdentityCoreConstants.IDENTITY_DEFAULT_NAMESPACE, "Enable"));
+        if (enableElem == null || !Boolean.parseBoolean(enableElem.getText().trim())) {
+            return;
+        }
+
+        long slowQueryThreshold = JDBCStatisticsRegistry.DEFAULT_SLOW_QUERY_THRESHOLD;
+        OMElement thresholdElem = statisticsElem.getFirstChildWithName(
+                new QName(IdentityCoreConstants.IDENTITY_DEFAULT_NAMESPACE, "SlowQueryThreshold"));
+        if (thresholdElem != null && StringUtils.isNotBlank(thresholdElem.getText())) {
+            try {
+                slowQueryThreshold = Long.parseLong(thresholdElem.getText().trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid slow query threshold: " + thresholdElem.getText() + ". Using the default: " +
+                        slowQueryThreshold + " ms.");
+            }
+        }
+        dataSource = JDBCStatisticsRegistry.getInstance().instrument(dataSource, slowQueryThreshold);
+        log.info("JDBC statement statistics are enabled for the identity data source. Slow query threshold: " +
+                slowQueryThreshold + " ms.");
     }
 
     public void initializeDatabase() {
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.persistence;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of a single SQL statement. Instances are obtained from {@link JDBCStatisticsRegistry} and
+ * are registered as MBeans.
+ */
+public class JDBCStatementStatistics implements JDBCStatementStatisticsMXBean {
+
+    private final String sql;
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder slowExecutionCount = new LongAdder();
+    private final LongAdder rowsReturned = new LongAdder();
+    private final LongAdder rowsUpdated = new LongAdder();
+
+    JDBCStatementStatistics(String sql) {
+
+        this.sql = sql;
+    }
+
+    void recordExecution(long nanos, boolean slow) {
+
+        latencyHistogram.record(nanos);
+        if (slow) {
+            slowExecutionCount.increment();
+        }
+    }
+
+    void recordError() {
+
+        errorCount.increment();
+    }
+
+    void recordRowReturned() {
+
+        rowsReturned.increment();
+    }
+
+    void recordRowsUpdated(long rows) {
+
+        if (rows > 0) {
+            rowsUpdated.add(rows);
+        }
+    }
+
+    @Override
+    public String getSql() {
+
+        return sql;
+    }
+
+    @Override
+    public long getExecutionCount() {
+
+        return latencyHistogram.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+
+        return errorCount.sum();
+    }
+
+    @Override
+    public long getSlowExecutionCount() {
+
+        return slowExecutionCount.sum();
+    }
+
+    @Override
+    public long getTotalTime() {
+
+        return latencyHistogram.getTotalTime();
+    }
+
+    @Override
+    public long getMaxTime() {
+
+        return latencyHistogram.getMaxTime();
+    }
+
+    @Override
+    public double getAverageTime() {
+
+        return latencyHistogram.getAverageTime();
+    }
+
+    @Override
+    public long getRowsReturned() {
+
+        return rowsReturned.sum();
+    }
+
+    @Override
+    public long getRowsUpdated() {
+
+        return rowsUpdated.sum();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+
+        return latencyHistogram.getBucketCounts();
+    }
+
+    @Override
+    public long[] getLatencyHistogramBounds() {
+
+        return LatencyHistogram.BUCKET_BOUNDS.clone();
+    }
+
+    @Override
+    public void reset() {
+
+        latencyHistogram.reset();
+        errorCount.reset();
+        slowExecutionCount.reset();
+        rowsReturned.reset();
+        rowsUpdated.reset();
+    }
+}
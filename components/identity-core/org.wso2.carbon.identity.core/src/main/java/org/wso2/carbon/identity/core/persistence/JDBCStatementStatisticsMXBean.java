@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.persistence;
+
+/**
+ * JMX view of the execution statistics of a single SQL statement run against the identity database. Times are in
+ * milliseconds. The latency histogram holds one count per bucket of {@link #getLatencyHistogramBounds()}, plus a
+ * final count for executions slower than the last bound.
+ */
+public interface JDBCStatementStatisticsMXBean {
+
+    String getSql();
+
+    long getExecutionCount();
+
+    long getErrorCount();
+
+    long getSlowExecutionCount();
+
+    long getTotalTime();
+
+    long getMaxTime();
+
+    double getAverageTime();
+
+    long getRowsReturned();
+
+    long getRowsUpdated();
+
+    long[] getLatencyHistogram();
+
+    long[] getLatencyHistogramBounds();
+
+    void reset();
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.persistence;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+/**
+ * Holds the JDBC statement and connection statistics of the identity database. Collection is opt-in through
+ * JDBCPersistenceManager.Statistics.Enable in identity.xml. When it is disabled the data source is not instrumented
+ * at all, hence there is no overhead.
+ * <p>
+ * Statements are identified by their SQL text with whitespace collapsed. Each statement is registered as an MBean
+ * under the org.wso2.carbon.identity domain, and executions slower than the configured threshold are logged.
+ */
+public class JDBCStatisticsRegistry {
+
+    private static final Log log = LogFactory.getLog(JDBCStatisticsRegistry.class);
+    private static final String MBEAN_DOMAIN = "org.wso2.carbon.identity";
+    private static final JDBCStatisticsRegistry instance = new JDBCStatisticsRegistry();
+
+    static final long DEFAULT_SLOW_QUERY_THRESHOLD = 500;
+    // Bounds the number of tracked statements in case SQL is built dynamically, e.g. with variable IN lists.
+    static final int MAX_TRACKED_STATEMENTS = 1000;
+    static final String UNTRACKED_STATEMENTS = "[untracked statements]";
+
+    private final Map<String, JDBCStatementStatistics> statementStatistics = new ConcurrentHashMap<>();
+    private final Map<String, JDBCStatementStatistics> statementStatisticsBySql = new ConcurrentHashMap<>();
+    private final JDBCConnectionStatistics connectionStatistics = new JDBCConnectionStatistics();
+    private volatile boolean enabled;
+    private volatile long slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_QUERY_THRESHOLD);
+
+    private JDBCStatisticsRegistry() {
+
+    }
+
+    public static JDBCStatisticsRegistry getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Enables statistics collection and returns the given data source wrapped so that every connection, statement
+     * and result set obtained through it is measured.
+     *
+     * @param dataSource               Data source to instrument.
+     * @param slowQueryThresholdMillis Executions taking at least this long are logged as slow queries.
+     * @return Instrumented data source.
+     */
+    public DataSource instrument(DataSource dataSource, long slowQueryThresholdMillis) {
+
+        slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+        if (!enabled) {
+            enabled = true;
+            registerMBean(connectionStatistics, MBEAN_DOMAIN + ":type=JDBCConnectionStatistics");
+        }
+        return JDBCInstrumentation.wrap(dataSource, this);
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Returns the statistics of the given statement, creating and registering them on first use.
+     *
+     * @param sql SQL of the statement.
+     * @return Statistics of the statement.
+     */
+    public JDBCStatementStatistics getStatementStatistics(String sql) {
+
+        JDBCStatementStatistics statistics = statementStatisticsBySql.get(sql);
+        if (statistics != null) {
+            return statistics;
+        }
+        String normalizedSql = sql.trim().replaceAll("\\s+", " ");
+        statistics = statementStatistics.get(normalizedSql);
+        if (statistics == null) {
+            if (statementStatistics.size() >= MAX_TRACKED_STATEMENTS) {
+                normalizedSql = UNTRACKED_STATEMENTS;
+            }
+            statistics = statementStatistics.computeIfAbsent(normalizedSql, key -> {
+                JDBCStatementStatistics newStatistics = new JDBCStatementStatistics(key);
+                registerMBean(newStatistics, MBEAN_DOMAIN + ":type=JDBCStatementStatistics,name=" +
+                        ObjectName.quote(Integer.toHexString(key.hashCode())));
+                return newStatistics;
+            });
+        }
+        if (statementStatisticsBySql.size() < MAX_TRACKED_STATEMENTS) {
+            statementStatisticsBySql.put(sql, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return Statistics of all statements which have been executed so far.
+     */
+    public List<JDBCStatementStatistics> getAllStatementStatistics() {
+
+        return new ArrayList<>(statementStatistics.values());
+    }
+
+    public JDBCConnectionStatistics getConnectionStatistics() {
+
+        return connectionStatistics;
+    }
+
+    void recordExecution(JDBCStatementStatistics statistics, long nanos) {
+
+        boolean slow = nanos >= slowQueryThresholdNanos;
+        statistics.recordExecution(nanos, slow);
+        if (slow) {
+            log.warn("Slow query took " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms: " + statistics.getSql());
+        }
+    }
+
+    private void registerMBean(Object statistics, String name) {
+
+        try {
+            ObjectName objectName = new ObjectName(name);
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(statistics, objectName);
+            }
+        } catch (JMException e) {
+            log.warn("Error while registering the JDBC statistics MBean: " + name, e);
+        }
+    }
+}
@@ -194,6 +194,8 @@ public class IdentityTenantUtil {
     @Deprecated
     public static void setRealmService(RealmService realmService) {
         IdentityTenantUtil.realmService = realmService;
+        // Resolutions made through a previous tenant manager are no longer trustworthy.
+        TenantResolutionCache.getInstance().clear();
     }
 
     /**
@@ -252,9 +254,17 @@ public class IdentityTenantUtil {
 
     public static int getTenantId(String tenantDomain) throws IdentityRuntimeException {
 
+        TenantResolutionCache tenantResolutionCache = TenantResolutionCache.getInstance();
+        Integer cachedTenantId = tenantResolutionCache.getTenantId(tenantDomain);
+        if (cachedTenantId != null) {
+            return cachedTenantId;
+        }
+
+        long stamp = tenantResolutionCache.getStamp();
         int tenantId = MultitenantConstants.INVALID_TENANT_ID;
         try {
             if (realmService != null) {
+                tenantResolutionCache.recordTenantManagerLookup();
                 tenantId = realmService.getTenantManager().getTenantId(tenantDomain);
             }
         } catch (UserStoreException e) {
@@ -268,6 +278,7 @@ public class IdentityTenantUtil {
         if(tenantId == MultitenantConstants.INVALID_TENANT_ID){
             throw IdentityRuntimeException.error("Invalid tenant domain " + tenantDomain);
         } else {
+            tenantResolutionCache.put(tenantDomain, tenantId, stamp);
             return tenantId;
         }
 
@@ -275,8 +286,15 @@ public class IdentityTenantUtil {
 
     public static String getTenantDomain(int tenantId) throws IdentityRuntimeException {
 
-        String tenantDomain = null;
+        TenantResolutionCache tenantResolutionCache = TenantResolutionCache.getInstance();
+        String tenantDomain = tenantResolutionCache.getTenantDomain(tenantId);
+        if (tenantDomain != null) {
+            return tenantDomain;
+        }
+
+        long stamp = tenantResolutionCache.getStamp();
         try {
+            tenantResolutionCache.recordTenantManagerLookup();
             tenantDomain = realmService.getTenantManager().getDomain(tenantId);
         } catch (UserStoreException e) {
             // Ideally user.core should be throwing an unchecked exception, in which case no need to wrap at this
@@ -289,6 +307,7 @@ public class IdentityTenantUtil {
         if (tenantDomain == null) {
             throw IdentityRuntimeException.error("Can not find the tenant domain for the tenant id " + tenantId);
         } else {
+            tenantResolutionCache.put(tenantDomain, tenantId, stamp);
             return tenantDomain;
         }
 
@@ -305,9 +324,16 @@ public class IdentityTenantUtil {
 
         int tenantId = MultitenantConstants.INVALID_TENANT_ID;
         String domainName = MultitenantUtils.getTenantDomain(username);
+        TenantResolutionCache tenantResolutionCache = TenantResolutionCache.getInstance();
+        long stamp = tenantResolutionCache.getStamp();
         if (domainName != null) {
+            Integer cachedTenantId = tenantResolutionCache.getTenantId(domainName);
+            if (cachedTenantId != null) {
+                return cachedTenantId;
+            }
             try {
                 TenantManager tenantManager = IdentityTenantUtil.getRealmService().getTenantManager();
+                tenantResolutionCache.recordTenantManagerLookup();
                 tenantId = tenantManager.getTenantId(domainName);
             } catch (UserStoreException e) {
                 String errorMsg = "Error when getting the tenant id from the tenant domain : " + domainName;
@@ -317,6 +343,7 @@ public class IdentityTenantUtil {
         if(tenantId == MultitenantConstants.INVALID_TENANT_ID){
             throw IdentityRuntimeException.error("Invalid tenant domain of user " + username);
         } else {
+            tenantResolutionCache.put(domainName, tenantId, stamp);
             return tenantId;
         }
     }
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, lock-free cache of the tenant domain to tenant id mapping (and the reverse) used by
+ * {@link IdentityTenantUtil}. Only successful resolutions are cached, so a tenant created after a failed lookup is
+ * picked up on the next call. Entries are dropped by the tenant management listener when a tenant is renamed,
+ * deleted, activated or deactivated.
+ * <p>
+ * The cache is node local. The tenant management listener only runs in the node where the tenant was changed, hence
+ * it sends a {@link TenantResolutionCacheInvalidationClusteringMessage} so that the other nodes of the cluster drop
+ * their entries as well. A lookup that started before an invalidation does not cache its result, see
+ * {@link #getStamp()}.
+ */
+public class TenantResolutionCache {
+
+    private static final Log log = LogFactory.getLog(TenantResolutionCache.class);
+    private static final TenantResolutionCache instance = new TenantResolutionCache();
+
+    private final Map<String, Integer> domainToId = new ConcurrentHashMap<>();
+    private final Map<Integer, String> idToDomain = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong tenantManagerLookupCount = new AtomicLong();
+    private final AtomicLong invalidationStamp = new AtomicLong();
+
+    private volatile boolean enabled = true;
+
+    protected TenantResolutionCache() {
+
+    }
+
+    public static TenantResolutionCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Returns the cached tenant id of the given tenant domain.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Cached tenant id or null if the domain has not been resolved yet.
+     */
+    public Integer getTenantId(String tenantDomain) {
+
+        if (!isEnabled() || tenantDomain == null) {
+            return null;
+        }
+        Integer tenantId = domainToId.get(tenantDomain);
+        if (tenantId != null) {
+            hitCount.incrementAndGet();
+        }
+        return tenantId;
+    }
+
+    /**
+     * Returns the cached tenant domain of the given tenant id.
+     *
+     * @param tenantId Tenant id.
+     * @return Cached tenant domain or null if the id has not been resolved yet.
+     */
+    public String getTenantDomain(int tenantId) {
+
+        if (!isEnabled()) {
+            return null;
+        }
+        String tenantDomain = idToDomain.get(tenantId);
+        if (tenantDomain != null) {
+            hitCount.incrementAndGet();
+        }
+        return tenantDomain;
+    }
+
+    /**
+     * Returns the current invalidation stamp. Should be read before the tenant manager is consulted and passed to
+     * {@link #put(String, int, long)} along with the resolution.
+     *
+     * @return Invalidation stamp.
+     */
+    public long getStamp() {
+
+        return invalidationStamp.get();
+    }
+
+    /**
+     * Records a resolution obtained from the tenant manager, unless an invalidation happened after the given stamp
+     * was taken. Both directions of the mapping are populated.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param tenantId     Tenant id.
+     * @param stamp        Invalidation stamp taken before the tenant manager was consulted.
+     */
+    public void put(String tenantDomain, int tenantId, long stamp) {
+
+        if (!isEnabled() || StringUtils.isEmpty(tenantDomain) || invalidationStamp.get() != stamp) {
+            return;
+        }
+        domainToId.put(tenantDomain, tenantId);
+        idToDomain.put(tenantId, tenantDomain);
+        // An invalidation may have raced with the put, in which case the resolution must not stay.
+        if (invalidationStamp.get() != stamp) {
+            domainToId.remove(tenantDomain, tenantId);
+            idToDomain.remove(tenantId, tenantDomain);
+        }
+    }
+
+    /**
+     * Should be called every time the tenant manager is consulted, whether or not the result is cached.
+     */
+    public void recordTenantManagerLookup() {
+
+        tenantManagerLookupCount.incrementAndGet();
+    }
+
+    /**
+     * Removes both directions of the mapping for the given tenant id.
+     *
+     * @param tenantId Tenant id.
+     */
+    public void invalidate(int tenantId) {
+
+        invalidationStamp.incrementAndGet();
+        String tenantDomain = idToDomain.remove(tenantId);
+        if (tenantDomain != null) {
+            domainToId.remove(tenantDomain);
+        }
+        // A rename leaves the old domain pointing to this id, hence the sweep over the reverse map.
+        domainToId.values().removeIf(id -> id == tenantId);
+        if (log.isDebugEnabled()) {
+            log.debug("Tenant resolution cache invalidated for tenant id: " + tenantId);
+        }
+    }
+
+    /**
+     * Clears all cached mappings.
+     */
+    public void clear() {
+
+        invalidationStamp.incrementAndGet();
+        domainToId.clear();
+        idToDomain.clear();
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getTenantManagerLookupCount() {
+
+        return tenantManagerLookupCount.get();
+    }
+
+    public int size() {
+
+        return idToDomain.size();
+    }
+
+    /**
+     * Reads the cache configuration from identity.xml. The cache is enabled unless explicitly disabled.
+     */
+    public void init() {
+
+        String property = IdentityUtil.getProperty(IdentityCoreConstants.TENANT_RESOLUTION_CACHE_ENABLED);
+        enabled = StringUtils.isBlank(property) || Boolean.parseBoolean(property);
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.util;
+
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.ClusteringFault;
+import org.apache.axis2.clustering.ClusteringMessage;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Cluster message to drop the entries of a tenant from the {@link TenantResolutionCache} of the other nodes.
+ */
+public class TenantResolutionCacheInvalidationClusteringMessage extends ClusteringMessage {
+
+    private static final Log log = LogFactory.getLog(TenantResolutionCacheInvalidationClusteringMessage.class);
+    private static final long serialVersionUID = 4372946537611950316L;
+
+    private int tenantId;
+
+    public TenantResolutionCacheInvalidationClusteringMessage(int tenantId) {
+
+        this.tenantId = tenantId;
+    }
+
+    @Override
+    public ClusteringCommand getResponse() {
+
+        return null;
+    }
+
+    @Override
+    public void execute(ConfigurationContext configurationContext) throws ClusteringFault {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Received TenantResolutionCacheInvalidationClusteringMessage for tenant id: " + tenantId);
+        }
+        TenantResolutionCache.getInstance().invalidate(tenantId);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.cache.CertificateCache;
+import org.wso2.carbon.identity.core.cache.CertificateCacheEntry;
+import org.wso2.carbon.identity.core.cache.CertificateCacheKey;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.api.Tenant;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for DatabaseCertificateRetriever.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityUtil.class, CertificateCache.class})
+public class DatabaseCertificateRetrieverTest extends PowerMockTestCase {
+
+    private static final int TENANT_ID = 1;
+    private static final String CERTIFICATE_ID = "5";
+
+    private DatabaseCertificateRetriever certificateRetriever;
+    private Map<CertificateCacheKey, CertificateCacheEntry> cachedEntries;
+    private Map<String, X509Certificate> parsedCertificates;
+    private String storedContent;
+    private Tenant tenant;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        certificateRetriever = new DatabaseCertificateRetriever();
+        tenant = new Tenant();
+        tenant.setId(TENANT_ID);
+        storedContent = "content-1";
+        parsedCertificates = new HashMap<>();
+        mockDatabase();
+        mockCertificateParsing();
+        mockCertificateCache();
+    }
+
+    private void mockDatabase() throws Exception {
+
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection(anyBoolean())).thenAnswer(invocation -> {
+            Connection connection = mock(Connection.class);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(connection.prepareStatement(anyString())).thenReturn(statement);
+            when(statement.executeQuery()).thenReturn(resultSet);
+            when(resultSet.next()).thenReturn(true, false);
+            when(resultSet.getBinaryStream(1)).thenReturn(
+                    new ByteArrayInputStream(storedContent.getBytes(StandardCharsets.UTF_8)));
+            return connection;
+        });
+    }
+
+    private void mockCertificateParsing() throws Exception {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.convertPEMEncodedContentToCertificate(anyString())).thenAnswer(invocation -> {
+            String content = (String) invocation.getArguments()[0];
+            X509Certificate certificate = mock(X509Certificate.class);
+            parsedCertificates.put(content, certificate);
+            return certificate;
+        });
+    }
+
+    /**
+     * Backs the certificate cache with a map.
+     */
+    private void mockCertificateCache() {
+
+        cachedEntries = new HashMap<>();
+        CertificateCache mockCache = mock(CertificateCache.class);
+        mockStatic(CertificateCache.class);
+        when(CertificateCache.getInstance()).thenReturn(mockCache);
+        when(mockCache.getValueFromCache(any(CertificateCacheKey.class))).thenAnswer(
+                invocation -> cachedEntries.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> cachedEntries.put((CertificateCacheKey) invocation.getArguments()[0],
+                (CertificateCacheEntry) invocation.getArguments()[1])).when(mockCache)
+                .addToCache(any(CertificateCacheKey.class), any(CertificateCacheEntry.class));
+        doAnswer(invocation -> cachedEntries.remove(invocation.getArguments()[0])).when(mockCache)
+                .clearCacheEntry(any(CertificateCacheKey.class));
+        doCallRealMethod().when(mockCache).clearDatabaseCertificate(anyInt(), anyInt());
+    }
+
+    @Test
+    public void testCertificateIsServedFromCache() throws Exception {
+
+        X509Certificate certificate = certificateRetriever.getCertificate(CERTIFICATE_ID, tenant);
+        assertSame(certificate, parsedCertificates.get("content-1"));
+
+        assertSame(certificateRetriever.getCertificate(CERTIFICATE_ID, tenant), certificate,
+                "The cached certificate should be returned.");
+        verifyStatic(times(1));
+        IdentityDatabaseUtil.getDBConnection(anyBoolean());
+    }
+
+    @Test
+    public void testContentOnlyEntryIsParsed() throws Exception {
+
+        // Application management caches the PEM content without the parsed certificate.
+        CertificateCacheKey cacheKey =
+                new CertificateCacheKey(TENANT_ID, CertificateCache.SOURCE_DATABASE, CERTIFICATE_ID);
+        cachedEntries.put(cacheKey, new CertificateCacheEntry(null, "content-1"));
+
+        X509Certificate certificate = certificateRetriever.getCertificate(CERTIFICATE_ID, tenant);
+        assertSame(certificate, parsedCertificates.get("content-1"));
+        assertSame(cachedEntries.get(cacheKey).getCertificate(), certificate);
+    }
+
+    @Test
+    public void testClearedCertificateIsReloaded() throws Exception {
+
+        X509Certificate oldCertificate = certificateRetriever.getCertificate(CERTIFICATE_ID, tenant);
+
+        storedContent = "content-2";
+        CertificateCache.getInstance().clearDatabaseCertificate(TENANT_ID, Integer.parseInt(CERTIFICATE_ID));
+        X509Certificate newCertificate = certificateRetriever.getCertificate(CERTIFICATE_ID, tenant);
+
+        assertSame(newCertificate, parsedCertificates.get("content-2"));
+        assertTrue(oldCertificate != newCertificate, "The updated certificate should be loaded.");
+    }
+
+    @Test
+    public void testCertificateIsNotCachedWithoutTenant() throws Exception {
+
+        assertSame(certificateRetriever.getCertificate(CERTIFICATE_ID, null), parsedCertificates.get("content-1"));
+        assertEquals(cachedEntries.size(), 0);
+    }
+
+    @Test
+    public void testBlankContentIsNotCached() throws Exception {
+
+        storedContent = "";
+        assertNull(certificateRetriever.getCertificate(CERTIFICATE_ID, tenant));
+        assertEquals(cachedEntries.size(), 0);
+    }
+}
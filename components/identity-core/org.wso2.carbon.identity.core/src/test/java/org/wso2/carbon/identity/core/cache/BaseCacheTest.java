@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfigKey;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.lang.reflect.Field;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the first level tier and the eviction counting of {@link BaseCache}. Hit latencies are measured by
+ * the BaseCacheBenchmark of the benchmarks module.
+ */
+public class BaseCacheTest {
+
+    private static final String CACHE_MANAGER_NAME = "IdentityApplicationManagementCacheManager";
+    private static final String L1_CACHE_ENABLE = "CacheConfig.L1Cache.Enable";
+
+    private Map<IdentityCacheConfigKey, IdentityCacheConfig> originalCacheConfigs;
+    private Map<String, Object> originalConfiguration;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        System.setProperty(CarbonBaseConstants.CARBON_HOME,
+                Paths.get(System.getProperty("user.dir"), "src", "test", "resources").toString());
+        Map<IdentityCacheConfigKey, IdentityCacheConfig> cacheConfigs = new HashMap<>();
+        addCacheConfig(cacheConfigs, "DefaultCache");
+        addCacheConfig(cacheConfigs, "L1EnabledCache");
+        addCacheConfig(cacheConfigs, "InvalidationCache");
+        addCacheConfig(cacheConfigs, "ExpiryCache");
+        originalCacheConfigs = setStaticField("identityCacheConfigurationHolder", cacheConfigs);
+        originalConfiguration = setStaticField("configuration", new HashMap<String, Object>());
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        setStaticField("identityCacheConfigurationHolder", originalCacheConfigs);
+        setStaticField("configuration", originalConfiguration);
+    }
+
+    @Test
+    public void testL1CacheIsDisabledByDefault() throws Exception {
+
+        setL1CacheEnable(null);
+        assertFalse(new BaseCache<String, String>("DefaultCache").isL1CacheEnabled());
+    }
+
+    @Test
+    public void testL1CacheIsEnabledExplicitly() throws Exception {
+
+        setL1CacheEnable("true");
+        assertTrue(new BaseCache<String, String>("L1EnabledCache").isL1CacheEnabled());
+    }
+
+    @Test
+    public void testInvalidationReachesL1Cache() throws Exception {
+
+        setL1CacheEnable("true");
+        BaseCache<String, String> cache = new BaseCache<>("InvalidationCache");
+        try {
+            cache.addToCache("key", "value1");
+        } catch (RuntimeException | LinkageError e) {
+            throw new SkipException("Carbon caching is not available in this environment.", e);
+        }
+        assertEquals(cache.getValueFromCache("key"), "value1");
+
+        cache.addToCache("key", "value2");
+        assertEquals(cache.getValueFromCache("key"), "value2");
+
+        cache.clearCacheEntry("key");
+        assertNull(cache.getValueFromCache("key"));
+
+        cache.addToCache("key", "value3");
+        assertEquals(cache.getValueFromCache("key"), "value3");
+        cache.clear();
+        assertNull(cache.getValueFromCache("key"));
+    }
+
+    @Test
+    public void testEvictionsAreCountedAgainstCacheTenant() {
+
+        BaseCache<String, String> cache = new BaseCache<>("ExpiryCache");
+        IdentityCacheStatistics statistics = IdentityCacheStatisticsRegistry.getInstance()
+                .getCacheStatistics(CACHE_MANAGER_NAME, "ExpiryCache");
+        statistics.reset();
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            // Expiry may be observed by a thread of any tenant.
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(1);
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain("wso2.com");
+            cache.new ExpiryCounter().entryExpired(null);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+
+        assertEquals(statistics.getTenantStatistics(MultitenantConstants.SUPER_TENANT_ID).getEvictionCount(), 1);
+        assertNull(statistics.getTenantStatistics(1));
+    }
+
+    private void addCacheConfig(Map<IdentityCacheConfigKey, IdentityCacheConfig> cacheConfigs, String cacheName) {
+
+        IdentityCacheConfigKey key = new IdentityCacheConfigKey(CACHE_MANAGER_NAME, cacheName);
+        IdentityCacheConfig cacheConfig = new IdentityCacheConfig(key);
+        cacheConfig.setEnabled(true);
+        cacheConfig.setTimeout(900);
+        cacheConfig.setCapacity(5000);
+        cacheConfigs.put(key, cacheConfig);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setL1CacheEnable(String enable) throws Exception {
+
+        Field field = IdentityUtil.class.getDeclaredField("configuration");
+        field.setAccessible(true);
+        Map<String, Object> configuration = (Map<String, Object>) field.get(null);
+        if (enable == null) {
+            configuration.remove(L1_CACHE_ENABLE);
+        } else {
+            configuration.put(L1_CACHE_ENABLE, enable);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T setStaticField(String name, T value) throws Exception {
+
+        Field field = IdentityUtil.class.getDeclaredField(name);
+        field.setAccessible(true);
+        T original = (T) field.get(null);
+        field.set(null, value);
+        return original;
+    }
+}
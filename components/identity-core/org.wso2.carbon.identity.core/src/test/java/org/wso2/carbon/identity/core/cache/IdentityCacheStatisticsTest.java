@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class IdentityCacheStatisticsTest {
+
+    private static final String CACHE_MANAGER_NAME = "TestCacheManager";
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 10000;
+
+    @Test
+    public void testCountersUnderConcurrentAccess() throws Exception {
+
+        IdentityCacheStatistics statistics = IdentityCacheStatisticsRegistry.getInstance()
+                .getCacheStatistics(CACHE_MANAGER_NAME, "ConcurrentCache");
+        statistics.reset();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            // Two tenants, so that threads race on creating the per tenant counters too.
+            int tenantId = i % 2 == 0 ? -1234 : 1;
+            futures.add(executorService.submit(() -> {
+                start.await();
+                for (int j = 0; j < OPERATIONS; j++) {
+                    CacheStatistics tenantStatistics = statistics.forTenant(tenantId);
+                    tenantStatistics.recordHit();
+                    if (j % 2 == 0) {
+                        tenantStatistics.recordMiss();
+                        tenantStatistics.recordPut();
+                        tenantStatistics.recordLoad(TimeUnit.MILLISECONDS.toNanos(1));
+                    }
+                    if (j % 10 == 0) {
+                        tenantStatistics.recordInvalidation();
+                        tenantStatistics.recordEviction();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        assertEquals(statistics.getHitCount(), (long) THREADS * OPERATIONS);
+        assertEquals(statistics.getMissCount(), (long) THREADS * OPERATIONS / 2);
+        assertEquals(statistics.getPutCount(), (long) THREADS * OPERATIONS / 2);
+        assertEquals(statistics.getLoadCount(), (long) THREADS * OPERATIONS / 2);
+        assertEquals(statistics.getTotalLoadTime(), (long) THREADS * OPERATIONS / 2);
+        assertEquals(statistics.getInvalidationCount(), (long) THREADS * OPERATIONS / 10);
+        assertEquals(statistics.getEvictionCount(), (long) THREADS * OPERATIONS / 10);
+        assertEquals(statistics.getHitRatio(), 2.0 / 3, 0.0001);
+
+        assertEquals(statistics.getTenantIds(), new int[]{-1234, 1});
+        assertEquals(statistics.getTenantStatistics(1).getHitCount(), (long) THREADS / 2 * OPERATIONS);
+        assertEquals(statistics.getTenantStatistics(-1234).getHitCount(), (long) THREADS / 2 * OPERATIONS);
+    }
+
+    @Test
+    public void testRegistryReturnsSameStatistics() {
+
+        IdentityCacheStatisticsRegistry registry = IdentityCacheStatisticsRegistry.getInstance();
+        IdentityCacheStatistics statistics = registry.getCacheStatistics(CACHE_MANAGER_NAME, "SharedCache");
+        assertSame(registry.getCacheStatistics(CACHE_MANAGER_NAME, "SharedCache"), statistics);
+        assertSame(statistics.forTenant(5), statistics.forTenant(5));
+        assertTrue(registry.getAllCacheStatistics().contains(statistics));
+    }
+
+    @Test
+    public void testStatisticsAreExposedThroughJmx() throws Exception {
+
+        IdentityCacheStatistics statistics = IdentityCacheStatisticsRegistry.getInstance()
+                .getCacheStatistics(CACHE_MANAGER_NAME, "JmxCache");
+        statistics.reset();
+        statistics.forTenant(1).recordHit();
+        statistics.forTenant(2).recordMiss();
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("org.wso2.carbon.identity:type=CacheStatistics,cacheManager=" +
+                ObjectName.quote(CACHE_MANAGER_NAME) + ",name=" + ObjectName.quote("JmxCache"));
+        assertEquals(mBeanServer.getAttribute(objectName, "HitCount"), 1L);
+        assertEquals(mBeanServer.getAttribute(objectName, "MissCount"), 1L);
+        assertEquals(mBeanServer.getAttribute(objectName, "HitRatio"), 0.5);
+
+        mBeanServer.invoke(objectName, "reset", null, null);
+        assertEquals(statistics.getHitCount(), 0L);
+        assertEquals(statistics.getTenantStatistics(1).getHitCount(), 0L);
+    }
+
+    @Test
+    public void testResetKeepsHeldCountersRecording() {
+
+        IdentityCacheStatistics statistics = IdentityCacheStatisticsRegistry.getInstance()
+                .getCacheStatistics(CACHE_MANAGER_NAME, "HeldCache");
+        CacheStatistics heldStatistics = statistics.forTenant(1);
+        heldStatistics.recordHit();
+
+        statistics.reset();
+        assertEquals(statistics.getHitCount(), 0L);
+        heldStatistics.recordHit();
+        assertSame(statistics.forTenant(1), heldStatistics);
+        assertEquals(statistics.getHitCount(), 1L);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the first level tier of {@link BaseCache}.
+ */
+public class L1CacheTest {
+
+    @Test
+    public void testGetAfterPut() {
+
+        L1Cache<String, String> l1Cache = new L1Cache<>(10, 60000);
+        l1Cache.put("key", "value", l1Cache.getStamp());
+        assertEquals(l1Cache.get("key"), "value");
+        assertNull(l1Cache.get("other"));
+    }
+
+    @Test
+    public void testInvalidate() {
+
+        L1Cache<String, String> l1Cache = new L1Cache<>(10, 60000);
+        l1Cache.put("key1", "value1", l1Cache.getStamp());
+        l1Cache.put("key2", "value2", l1Cache.getStamp());
+
+        l1Cache.invalidate("key1");
+        assertNull(l1Cache.get("key1"));
+        assertEquals(l1Cache.get("key2"), "value2");
+
+        l1Cache.invalidateAll();
+        assertNull(l1Cache.get("key2"));
+        assertEquals(l1Cache.size(), 0);
+    }
+
+    @Test
+    public void testValueReadBeforeInvalidationIsNotKept() {
+
+        L1Cache<String, String> l1Cache = new L1Cache<>(10, 60000);
+        long stamp = l1Cache.getStamp();
+        // Another thread invalidates the key while the value is read from the underlying cache.
+        l1Cache.invalidate("key");
+        l1Cache.put("key", "stale", stamp);
+        assertNull(l1Cache.get("key"));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+
+        L1Cache<String, String> l1Cache = new L1Cache<>(10, 20);
+        l1Cache.put("key", "value", l1Cache.getStamp());
+        Thread.sleep(50);
+        assertNull(l1Cache.get("key"));
+    }
+
+    @Test
+    public void testReplacedEntriesStayBounded() {
+
+        L1Cache<String, String> l1Cache = new L1Cache<>(3, 60000);
+        for (int i = 0; i < 3; i++) {
+            l1Cache.put("key" + i, "value" + i, l1Cache.getStamp());
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 3; i++) {
+                l1Cache.put("key" + i, "value" + i + "-" + round, l1Cache.getStamp());
+            }
+        }
+        for (int i = 3; i < 20; i++) {
+            l1Cache.put("key" + i, "value" + i, l1Cache.getStamp());
+            assertTrue(l1Cache.size() <= 3, "Size " + l1Cache.size() + " exceeds the capacity.");
+        }
+        assertEquals(l1Cache.get("key19"), "value19");
+    }
+
+    @Test
+    public void testCapacityIsBoundedAndReadEntriesAreRetained() {
+
+        L1Cache<Integer, String> l1Cache = new L1Cache<>(4, 60000);
+        for (int i = 0; i < 4; i++) {
+            l1Cache.put(i, "value" + i, l1Cache.getStamp());
+        }
+        // Read the oldest entry so that it gets a second chance when the tier overflows.
+        assertNotNull(l1Cache.get(0));
+        for (int i = 4; i < 20; i++) {
+            l1Cache.put(i, "value" + i, l1Cache.getStamp());
+            assertNotNull(l1Cache.get(0));
+            assertTrue(l1Cache.size() <= 4);
+        }
+        assertEquals(l1Cache.get(0), "value0");
+    }
+
+    @Test
+    public void testConcurrentAccessStaysBounded() throws Exception {
+
+        L1Cache<Integer, Integer> l1Cache = new L1Cache<>(64, 60000);
+        int threads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            executorService.execute(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        int key = (i * 31 + seed) % 512;
+                        if (l1Cache.get(key) == null) {
+                            l1Cache.put(key, key, l1Cache.getStamp());
+                        }
+                        if (i % 97 == 0) {
+                            l1Cache.invalidate(key);
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executorService.shutdown();
+        assertTrue(l1Cache.size() <= 64);
+        for (int key = 0; key < 512; key++) {
+            Integer value = l1Cache.get(key);
+            assertTrue(value == null || value == key);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.IdentityRegistryResources;
+import org.wso2.carbon.identity.core.cache.SAMLSSOServiceProviderCache;
 import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
@@ -39,6 +40,7 @@ import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.registry.core.Resource;
 import org.wso2.carbon.registry.core.ResourceImpl;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.registry.core.exceptions.ResourceNotFoundException;
 import org.wso2.carbon.registry.core.jdbc.utils.Transaction;
 import org.wso2.carbon.registry.core.session.UserRegistry;
 import org.wso2.carbon.user.core.service.RealmService;
@@ -53,28 +55,34 @@ import java.util.Properties;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.doAnswer;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 /**
  * Test class for SAMLSSOServiceProviderDAO.
  */
-@PrepareForTest({Transaction.class, IdentityTenantUtil.class})
+@PrepareForTest({Transaction.class, IdentityTenantUtil.class, SAMLSSOServiceProviderCache.class})
 public class SAMLSSOServiceProviderDAOTest extends PowerMockTestCase {
 
     private SAMLSSOServiceProviderDAO objUnderTest;
     private boolean transactionStarted = false;
 
     private Registry mockRegistry;
+    private Map<String, Object> cachedEntries;
 
     private Map<String, List<String>> dummyBasicProperties;
     private Map<String, List<String>> dummyAdvProperties;
@@ -104,6 +112,30 @@ public class SAMLSSOServiceProviderDAOTest extends PowerMockTestCase {
 
         objUnderTest = new SAMLSSOServiceProviderDAO(mockRegistry);
         when(mockRegistry.newResource()).thenReturn(new ResourceImpl());
+        mockServiceProviderCache();
+    }
+
+    /**
+     * Backs the service provider cache with a map, keyed by issuer and by "*" for the service provider list.
+     */
+    private void mockServiceProviderCache() {
+
+        cachedEntries = new HashMap<>();
+        SAMLSSOServiceProviderCache mockCache = mock(SAMLSSOServiceProviderCache.class);
+        mockStatic(SAMLSSOServiceProviderCache.class);
+        when(SAMLSSOServiceProviderCache.getInstance()).thenReturn(mockCache);
+        when(mockCache.getServiceProvider(anyInt(), anyString())).thenAnswer(
+                invocation -> cachedEntries.get(invocation.getArguments()[1]));
+        doAnswer(invocation -> cachedEntries.put((String) invocation.getArguments()[1],
+                invocation.getArguments()[2])).when(mockCache).addServiceProvider(anyInt(), anyString(),
+                any(SAMLSSOServiceProviderDO.class));
+        when(mockCache.getServiceProviders(anyInt())).thenAnswer(invocation -> cachedEntries.get("*"));
+        doAnswer(invocation -> cachedEntries.put("*", invocation.getArguments()[1])).when(mockCache)
+                .addServiceProviders(anyInt(), any(SAMLSSOServiceProviderDO[].class));
+        doAnswer(invocation -> {
+            cachedEntries.remove(invocation.getArguments()[1]);
+            return cachedEntries.remove("*");
+        }).when(mockCache).clearServiceProvider(anyInt(), anyString());
     }
 
     private void setUpResources() throws Exception {
@@ -397,11 +429,26 @@ public class SAMLSSOServiceProviderDAOTest extends PowerMockTestCase {
         when(mockRegistry.get(paths[0])).thenReturn(spResources[0]);
         when(mockRegistry.get(paths[1])).thenReturn(spResources[1]);
         when(mockRegistry.get(paths[2])).thenReturn(spResources[2]);
-        when(mockRegistry.resourceExists(paths[0])).thenReturn(true);
-        when(mockRegistry.resourceExists(paths[1])).thenReturn(true);
-        when(mockRegistry.resourceExists(paths[2])).thenReturn(true);
         SAMLSSOServiceProviderDO[] serviceProviders = objUnderTest.getServiceProviders();
         assertEquals(serviceProviders.length, 3, "Should have returned 3 service providers.");
+        verify(mockRegistry, never()).resourceExists(paths[0]);
+    }
+
+    @Test
+    public void testGetServiceProvidersSkipsRemovedResource() throws Exception {
+        when(mockRegistry.resourceExists(IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS)).thenReturn(true);
+        Resource collection = new CollectionImpl();
+        String[] paths = new String[]{getPath("DummyIssuer"), getPath("RemovedIssuer")};
+        Properties dummyResourceProperties = new Properties();
+        dummyResourceProperties.putAll(dummyBasicProperties);
+        Resource dummyResource = new ResourceImpl();
+        dummyResource.setProperties(dummyResourceProperties);
+        collection.setContent(paths);
+        when(mockRegistry.get(IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS)).thenReturn(collection);
+        when(mockRegistry.get(paths[0])).thenReturn(dummyResource);
+        when(mockRegistry.get(paths[1])).thenThrow(new ResourceNotFoundException(paths[1]));
+        SAMLSSOServiceProviderDO[] serviceProviders = objUnderTest.getServiceProviders();
+        assertEquals(serviceProviders.length, 1, "Should have skipped the removed service provider.");
     }
 
     @Test
@@ -450,6 +497,67 @@ public class SAMLSSOServiceProviderDAOTest extends PowerMockTestCase {
         assertEquals(serviceProviderDO.getTenantDomain(), "test.com", "Retrieved resource's tenant domain mismatch");
     }
 
+    @Test
+    public void testGetServiceProviderFromCache() throws Exception {
+
+        setUpResources();
+        mockStatic(IdentityTenantUtil.class);
+        RealmService mockRealmService = mock(RealmService.class);
+        TenantManager mockTenantManager = mock(TenantManager.class);
+        when(IdentityTenantUtil.getRealmService()).thenReturn(mockRealmService);
+        when(mockRealmService.getTenantManager()).thenReturn(mockTenantManager);
+        when(mockTenantManager.getDomain(anyInt())).thenReturn("test.com");
+
+        Properties dummyResourceProperties = new Properties();
+        dummyResourceProperties.putAll(dummyBasicProperties);
+        Resource dummyResource = new ResourceImpl();
+        dummyResource.setProperties(dummyResourceProperties);
+        String issuer = dummyResource.getProperty(IdentityRegistryResources.PROP_SAML_SSO_ISSUER);
+        String path = getPath(issuer);
+        when(mockRegistry.resourceExists(path)).thenReturn(true);
+        when(mockRegistry.get(path)).thenReturn(dummyResource);
+
+        SAMLSSOServiceProviderDO serviceProviderDO = objUnderTest.getServiceProvider(issuer);
+        assertSame(objUnderTest.getServiceProvider(issuer), serviceProviderDO, "Cached SP should be returned.");
+        assertTrue(objUnderTest.isServiceProviderExists(issuer));
+        verify(mockRegistry, times(1)).get(path);
+        verify(mockRegistry, times(1)).resourceExists(path);
+        verify(mockTenantManager, times(1)).getDomain(anyInt());
+
+        // Removal clears the cached SP, hence the next lookup reads the registry.
+        objUnderTest.removeServiceProvider(issuer);
+        when(mockRegistry.resourceExists(path)).thenReturn(false);
+        assertNull(objUnderTest.getServiceProvider(issuer), "Removed SP should not be returned.");
+    }
+
+    @Test
+    public void testGetServiceProvidersFromCache() throws Exception {
+
+        setUpResources();
+        when(mockRegistry.resourceExists(IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS)).thenReturn(true);
+        Resource collection = new CollectionImpl();
+        String[] paths = new String[]{getPath("DummyIssuer")};
+        collection.setContent(paths);
+        Properties dummyResourceProperties = new Properties();
+        dummyResourceProperties.putAll(dummyBasicProperties);
+        Resource dummyResource = new ResourceImpl();
+        dummyResource.setProperties(dummyResourceProperties);
+        when(mockRegistry.get(IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS)).thenReturn(collection);
+        when(mockRegistry.get(paths[0])).thenReturn(dummyResource);
+        when(mockRegistry.resourceExists(paths[0])).thenReturn(true);
+
+        assertEquals(objUnderTest.getServiceProviders().length, 1);
+        assertEquals(objUnderTest.getServiceProviders().length, 1);
+        verify(mockRegistry, times(1)).get(IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS);
+
+        // Adding an SP clears the cached list.
+        SAMLSSOServiceProviderDO newServiceProvider = new SAMLSSOServiceProviderDO();
+        newServiceProvider.setIssuer("NewIssuer");
+        objUnderTest.addServiceProvider(newServiceProvider);
+        objUnderTest.getServiceProviders();
+        verify(mockRegistry, times(2)).get(IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS);
+    }
+
     @Test
     public void testIsServiceProviderExists() throws Exception {
         String validSP = "ValidSP";
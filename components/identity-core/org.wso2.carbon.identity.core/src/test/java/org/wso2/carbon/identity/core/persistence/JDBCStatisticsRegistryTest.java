@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.persistence;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class JDBCStatisticsRegistryTest {
+
+    private static final String SELECT_SQL = "SELECT NAME FROM IDN_TEST_STATISTICS WHERE TENANT_ID = ?";
+    private static final String UPDATE_SQL = "UPDATE IDN_TEST_STATISTICS SET NAME = ? WHERE TENANT_ID = ?";
+
+    private DataSource dataSource;
+    private PreparedStatement selectStatement;
+    private PreparedStatement updateStatement;
+    private ResultSet resultSet;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        selectStatement = mock(PreparedStatement.class);
+        when(selectStatement.executeQuery()).thenReturn(resultSet);
+        updateStatement = mock(PreparedStatement.class);
+        when(updateStatement.executeUpdate()).thenReturn(2);
+        Statement statement = mock(Statement.class);
+        when(statement.executeUpdate(anyString())).thenReturn(1);
+
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(SELECT_SQL)).thenReturn(selectStatement);
+        when(connection.prepareStatement(UPDATE_SQL)).thenReturn(updateStatement);
+        when(connection.createStatement()).thenReturn(statement);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+
+        dataSource = JDBCStatisticsRegistry.getInstance().instrument(target, 10000);
+        for (JDBCStatementStatistics statistics : JDBCStatisticsRegistry.getInstance().getAllStatementStatistics()) {
+            statistics.reset();
+        }
+        JDBCStatisticsRegistry.getInstance().getConnectionStatistics().reset();
+    }
+
+    @Test
+    public void testStatementStatistics() throws Exception {
+
+        for (int i = 0; i < 2; i++) {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString(1);
+                    }
+                }
+            }
+            when(resultSet.next()).thenReturn(true, true, true, false);
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            statement.executeUpdate();
+        }
+
+        JDBCStatisticsRegistry registry = JDBCStatisticsRegistry.getInstance();
+        JDBCStatementStatistics select = registry.getStatementStatistics(SELECT_SQL);
+        assertEquals(select.getExecutionCount(), 2L);
+        assertEquals(select.getRowsReturned(), 6L);
+        assertEquals(select.getErrorCount(), 0L);
+        assertEquals(sum(select.getLatencyHistogram()), 2L);
+        assertEquals(select.getLatencyHistogram().length, select.getLatencyHistogramBounds().length + 1);
+
+        JDBCStatementStatistics update = registry.getStatementStatistics(UPDATE_SQL);
+        assertEquals(update.getExecutionCount(), 1L);
+        assertEquals(update.getRowsUpdated(), 2L);
+
+        JDBCConnectionStatistics connections = registry.getConnectionStatistics();
+        assertEquals(connections.getConnectionCount(), 3L);
+        assertEquals(connections.getOpenConnectionCount(), 0L);
+        assertEquals(connections.getStatementCount(), 3L);
+        assertEquals(connections.getMaxStatementsPerConnection(), 1L);
+    }
+
+    @Test
+    public void testPlainStatementsAreIdentifiedBySql() throws Exception {
+
+        String sql = "DELETE FROM IDN_TEST_STATISTICS WHERE TENANT_ID = 1";
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+            statement.executeUpdate("DELETE   FROM IDN_TEST_STATISTICS\n WHERE TENANT_ID = 1");
+        }
+
+        JDBCStatementStatistics statistics = JDBCStatisticsRegistry.getInstance().getStatementStatistics(sql);
+        assertEquals(statistics.getExecutionCount(), 2L);
+        assertEquals(statistics.getRowsUpdated(), 2L);
+        assertEquals(JDBCStatisticsRegistry.getInstance().getConnectionStatistics().getMaxStatementsPerConnection(),
+                2L);
+    }
+
+    @Test
+    public void testErrorsAreCounted() throws Exception {
+
+        when(updateStatement.executeUpdate()).thenThrow(new SQLException("Deadlock"));
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            statement.executeUpdate();
+            fail("The driver error should be propagated.");
+        } catch (SQLException e) {
+            assertEquals(e.getMessage(), "Deadlock");
+        }
+
+        JDBCStatementStatistics statistics = JDBCStatisticsRegistry.getInstance().getStatementStatistics(UPDATE_SQL);
+        assertEquals(statistics.getErrorCount(), 1L);
+        assertEquals(statistics.getExecutionCount(), 1L);
+    }
+
+    @Test
+    public void testStatisticsAreExposedThroughJmx() throws Exception {
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            statement.executeUpdate();
+        }
+
+        JDBCStatementStatistics statistics = JDBCStatisticsRegistry.getInstance().getStatementStatistics(UPDATE_SQL);
+        assertSame(JDBCStatisticsRegistry.getInstance().getStatementStatistics(UPDATE_SQL), statistics);
+        assertTrue(JDBCStatisticsRegistry.getInstance().getAllStatementStatistics().contains(statistics));
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("org.wso2.carbon.identity:type=JDBCStatementStatistics,name=" +
+                ObjectName.quote(Integer.toHexString(UPDATE_SQL.hashCode())));
+        assertEquals(mBeanServer.getAttribute(objectName, "Sql"), UPDATE_SQL);
+        assertEquals(mBeanServer.getAttribute(objectName, "ExecutionCount"), 1L);
+        assertEquals(mBeanServer.getAttribute(new ObjectName("org.wso2.carbon.identity:type=JDBCConnectionStatistics"),
+                "ConnectionCount"), 1L);
+
+        mBeanServer.invoke(objectName, "reset", null, null);
+        assertEquals(statistics.getExecutionCount(), 0L);
+    }
+
+    private static long sum(long[] values) {
+
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
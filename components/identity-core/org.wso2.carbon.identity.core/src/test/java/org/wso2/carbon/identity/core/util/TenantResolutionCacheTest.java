@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TenantResolutionCacheTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final int TENANT_ID = 3;
+
+    private TenantManager tenantManager;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        tenantManager = mock(TenantManager.class);
+        RealmService realmService = mock(RealmService.class);
+        when(realmService.getTenantManager()).thenReturn(tenantManager);
+        when(tenantManager.getTenantId(TENANT_DOMAIN)).thenReturn(TENANT_ID);
+        when(tenantManager.getDomain(TENANT_ID)).thenReturn(TENANT_DOMAIN);
+        when(tenantManager.getTenantId("invalid.com")).thenReturn(MultitenantConstants.INVALID_TENANT_ID);
+        IdentityTenantUtil.setRealmService(realmService);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        IdentityTenantUtil.setRealmService(null);
+    }
+
+    @Test
+    public void testTenantIdIsResolvedOnce() throws Exception {
+
+        long lookups = TenantResolutionCache.getInstance().getTenantManagerLookupCount();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(IdentityTenantUtil.getTenantId(TENANT_DOMAIN), TENANT_ID);
+        }
+        verify(tenantManager, times(1)).getTenantId(TENANT_DOMAIN);
+        assertEquals(TenantResolutionCache.getInstance().getTenantManagerLookupCount(), lookups + 1);
+    }
+
+    @Test
+    public void testReverseMappingIsPopulated() throws Exception {
+
+        IdentityTenantUtil.getTenantId(TENANT_DOMAIN);
+        assertEquals(IdentityTenantUtil.getTenantDomain(TENANT_ID), TENANT_DOMAIN);
+        verify(tenantManager, times(0)).getDomain(TENANT_ID);
+    }
+
+    @Test
+    public void testInvalidTenantIsNotCached() throws Exception {
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                IdentityTenantUtil.getTenantId("invalid.com");
+            } catch (IdentityRuntimeException e) {
+                // Expected.
+            }
+        }
+        verify(tenantManager, times(2)).getTenantId("invalid.com");
+        assertNull(TenantResolutionCache.getInstance().getTenantId("invalid.com"));
+    }
+
+    @Test
+    public void testInvalidateAfterRename() throws Exception {
+
+        IdentityTenantUtil.getTenantId(TENANT_DOMAIN);
+        when(tenantManager.getDomain(TENANT_ID)).thenReturn("renamed.com");
+        TenantResolutionCache.getInstance().invalidate(TENANT_ID);
+
+        assertNull(TenantResolutionCache.getInstance().getTenantId(TENANT_DOMAIN));
+        assertEquals(IdentityTenantUtil.getTenantDomain(TENANT_ID), "renamed.com");
+    }
+
+    @Test
+    public void testLookupRacingWithInvalidationIsNotCached() throws Exception {
+
+        TenantResolutionCache cache = TenantResolutionCache.getInstance();
+        long stamp = cache.getStamp();
+        // The tenant is renamed while the old domain is being resolved.
+        cache.invalidate(TENANT_ID);
+        cache.put(TENANT_DOMAIN, TENANT_ID, stamp);
+
+        assertNull(cache.getTenantId(TENANT_DOMAIN));
+        assertNull(cache.getTenantDomain(TENANT_ID));
+
+        cache.put(TENANT_DOMAIN, TENANT_ID, cache.getStamp());
+        assertEquals(cache.getTenantId(TENANT_DOMAIN), Integer.valueOf(TENANT_ID));
+    }
+}
@@ -36,6 +36,13 @@ public class IdentityManagementEndpointConstants {
         public static final String SERVICE_CONTEXT_URL = "identity.server.service.contextURL";
         public static final String APP_NAME = "app.name";
         public static final String APP_PASSWORD = "app.password";
+        public static final String HTTP_CLIENT_MAX_CONNECTIONS = "http.client.max.connections";
+        public static final String HTTP_CLIENT_MAX_CONNECTIONS_PER_ROUTE = "http.client.max.connections.per.route";
+        public static final String HTTP_CLIENT_CONNECT_TIMEOUT = "http.client.connect.timeout";
+        public static final String HTTP_CLIENT_SOCKET_TIMEOUT = "http.client.socket.timeout";
+        public static final String HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT = "http.client.connection.request.timeout";
+        public static final String HTTP_CLIENT_KEEP_ALIVE_TIMEOUT = "http.client.keep.alive.timeout";
+        public static final String CONSENT_PURPOSE_CACHE_TIMEOUT = "consent.purpose.cache.timeout";
     }
 
     public static final class ServiceEndpoints {
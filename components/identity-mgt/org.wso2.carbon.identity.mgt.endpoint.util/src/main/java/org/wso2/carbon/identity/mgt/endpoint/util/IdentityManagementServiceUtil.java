@@ -59,6 +59,7 @@ public class IdentityManagementServiceUtil {
     private String contextURL;
     private String appName;
     private char[] appPassword;
+    private Properties serviceConfig = new Properties();
 
     private static final String DEFAULT_CALLBACK_HANDLER = "org.wso2.carbon.securevault.DefaultSecretCallbackHandler";
     private static final String SECRET_PROVIDER = "secretProvider";
@@ -115,6 +116,7 @@ public class IdentityManagementServiceUtil {
                 properties.load(inputStream);
             }
 
+            serviceConfig = properties;
             accessUsername = properties.getProperty(IdentityManagementEndpointConstants.ServiceConfigConstants
                                                             .SERVICE_ACCESS_USERNAME);
             accessPassword = properties.getProperty(IdentityManagementEndpointConstants.ServiceConfigConstants
@@ -265,6 +267,16 @@ public class IdentityManagementServiceUtil {
         return user;
     }
 
+    /**
+     * Returns the value of a property configured in RecoveryEndpointConfig.properties file.
+     *
+     * @param key property key
+     * @return property value or null if the property is not configured
+     */
+    public String getServiceConfigProperty(String key) {
+        return serviceConfig.getProperty(key);
+    }
+
     public String getAppName() {
         return appName;
     }
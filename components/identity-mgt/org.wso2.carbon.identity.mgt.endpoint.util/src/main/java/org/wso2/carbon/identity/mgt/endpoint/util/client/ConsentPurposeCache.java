@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.mgt.endpoint.util.client;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.mgt.endpoint.util.IdentityManagementEndpointConstants.ServiceConfigConstants;
+import org.wso2.carbon.identity.mgt.endpoint.util.IdentityManagementServiceUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tenant scoped, time bounded cache of the consent purpose data rendered in the self registration pages. Holds the
+ * purposes JSON built for a purpose group, the individual purposes with their PII categories and the default purpose
+ * category id.
+ * <p>
+ * The purposes are managed through the consent management API, which may run in another node, so this cache receives
+ * no change notifications. Entries are invalidated only by expiring after the timeout configured in
+ * RecoveryEndpointConfig.properties. A purpose added to a group or a changed default purpose category becomes
+ * visible in the self registration pages at most one timeout later.
+ */
+public class ConsentPurposeCache {
+
+    private static final Log log = LogFactory.getLog(ConsentPurposeCache.class);
+
+    private static final long DEFAULT_TIMEOUT = 60;
+    private static final int MAX_ENTRIES = 10000;
+    private static final String SEPARATOR = "\u0000";
+
+    private static volatile ConsentPurposeCache instance;
+
+    private final Map<String, CacheEntry> purposesJson = new ConcurrentHashMap<>();
+    private final Map<String, CacheEntry> purposes = new ConcurrentHashMap<>();
+    private final Map<String, CacheEntry> defaultPurposeIds = new ConcurrentHashMap<>();
+    private final long timeout;
+
+    private ConsentPurposeCache() {
+
+        this(TimeUnit.SECONDS.toMillis(readTimeout()));
+    }
+
+    ConsentPurposeCache(long timeout) {
+
+        this.timeout = timeout;
+    }
+
+    public static ConsentPurposeCache getInstance() {
+
+        if (instance == null) {
+            synchronized (ConsentPurposeCache.class) {
+                if (instance == null) {
+                    instance = new ConsentPurposeCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the purposes JSON built for the given purpose group.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param group        Purpose group.
+     * @param groupType    Purpose group type.
+     * @return Cached purposes JSON or null if not cached.
+     */
+    public String getPurposesJson(String tenantDomain, String group, String groupType) {
+
+        return (String) get(purposesJson, buildKey(tenantDomain, group, groupType));
+    }
+
+    public void addPurposesJson(String tenantDomain, String group, String groupType, String json) {
+
+        put(purposesJson, buildKey(tenantDomain, group, groupType), json);
+    }
+
+    /**
+     * Returns a purpose with its PII categories as returned by the consent management API.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param purposeId    Purpose id.
+     * @return Cached purpose JSON or null if not cached.
+     */
+    public String getPurpose(String tenantDomain, int purposeId) {
+
+        return (String) get(purposes, buildKey(tenantDomain, String.valueOf(purposeId)));
+    }
+
+    public void addPurpose(String tenantDomain, int purposeId, String json) {
+
+        put(purposes, buildKey(tenantDomain, String.valueOf(purposeId)), json);
+    }
+
+    /**
+     * Returns the id of the default purpose category of the tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Cached purpose category id or null if not cached.
+     */
+    public Integer getDefaultPurposeId(String tenantDomain) {
+
+        return (Integer) get(defaultPurposeIds, buildKey(tenantDomain));
+    }
+
+    public void addDefaultPurposeId(String tenantDomain, int purposeId) {
+
+        put(defaultPurposeIds, buildKey(tenantDomain), purposeId);
+    }
+
+    public boolean isEnabled() {
+
+        return timeout > 0;
+    }
+
+    private Object get(Map<String, CacheEntry> cache, String key) {
+
+        if (!isEnabled()) {
+            return null;
+        }
+        CacheEntry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiryTime < System.currentTimeMillis()) {
+            cache.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private void put(Map<String, CacheEntry> cache, String key, Object value) {
+
+        if (!isEnabled() || value == null) {
+            return;
+        }
+        if (cache.size() >= MAX_ENTRIES) {
+            long now = System.currentTimeMillis();
+            cache.values().removeIf(entry -> entry.expiryTime < now);
+            if (cache.size() >= MAX_ENTRIES) {
+                return;
+            }
+        }
+        cache.put(key, new CacheEntry(value, System.currentTimeMillis() + timeout));
+    }
+
+    private static String buildKey(String tenantDomain, String... parts) {
+
+        StringBuilder key = new StringBuilder(StringUtils.defaultString(tenantDomain));
+        for (String part : parts) {
+            key.append(SEPARATOR).append(StringUtils.defaultString(part));
+        }
+        return key.toString();
+    }
+
+    private static long readTimeout() {
+
+        String value = IdentityManagementServiceUtil.getInstance().getServiceConfigProperty(
+                ServiceConfigConstants.CONSENT_PURPOSE_CACHE_TIMEOUT);
+        if (StringUtils.isBlank(value)) {
+            return DEFAULT_TIMEOUT;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value: " + value + " configured for property: " +
+                    ServiceConfigConstants.CONSENT_PURPOSE_CACHE_TIMEOUT + ". Using the default value: " +
+                    DEFAULT_TIMEOUT);
+            return DEFAULT_TIMEOUT;
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final Object value;
+        private final long expiryTime;
+
+        CacheEntry(Object value, long expiryTime) {
+
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
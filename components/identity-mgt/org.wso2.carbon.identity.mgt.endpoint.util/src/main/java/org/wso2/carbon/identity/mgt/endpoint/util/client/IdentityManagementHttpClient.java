@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.mgt.endpoint.util.client;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.wso2.carbon.identity.mgt.endpoint.util.IdentityManagementEndpointConstants.ServiceConfigConstants;
+import org.wso2.carbon.identity.mgt.endpoint.util.IdentityManagementServiceUtil;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared, pooled HTTP client used for the REST calls made from the identity management endpoints to the identity
+ * server. Connections are kept alive and reused across requests instead of opening a new TLS connection per call.
+ * Pool sizes and timeouts are read from RecoveryEndpointConfig.properties.
+ */
+public class IdentityManagementHttpClient {
+
+    private static final Log log = LogFactory.getLog(IdentityManagementHttpClient.class);
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    private static final int DEFAULT_SOCKET_TIMEOUT = 30000;
+    private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 10000;
+    private static final long DEFAULT_KEEP_ALIVE_TIMEOUT = 30000;
+
+    private static volatile IdentityManagementHttpClient instance;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final long keepAliveTimeout;
+    private volatile long lastEvictionTime = System.currentTimeMillis();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failedRequestCount = new AtomicLong();
+    private final AtomicLong totalRequestTime = new AtomicLong();
+
+    private IdentityManagementHttpClient() {
+
+        keepAliveTimeout = getLongProperty(ServiceConfigConstants.HTTP_CLIENT_KEEP_ALIVE_TIMEOUT,
+                DEFAULT_KEEP_ALIVE_TIMEOUT);
+
+        // The builder ignores its own socket factory settings once a connection manager is given, hence the system
+        // socket factory is registered explicitly to keep honouring the javax.net.ssl system properties.
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build();
+
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(getIntProperty(ServiceConfigConstants.HTTP_CLIENT_MAX_CONNECTIONS,
+                DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(getIntProperty(
+                ServiceConfigConstants.HTTP_CLIENT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(getIntProperty(ServiceConfigConstants.HTTP_CLIENT_CONNECT_TIMEOUT,
+                        DEFAULT_CONNECT_TIMEOUT))
+                .setSocketTimeout(getIntProperty(ServiceConfigConstants.HTTP_CLIENT_SOCKET_TIMEOUT,
+                        DEFAULT_SOCKET_TIMEOUT))
+                .setConnectionRequestTimeout(getIntProperty(
+                        ServiceConfigConstants.HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT,
+                        DEFAULT_CONNECTION_REQUEST_TIMEOUT))
+                .build();
+
+        httpClient = HttpClientBuilder.create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new BoundedKeepAliveStrategy(keepAliveTimeout))
+                .build();
+    }
+
+    /**
+     * Returns the shared client.
+     *
+     * @return Shared identity management http client.
+     */
+    public static IdentityManagementHttpClient getInstance() {
+
+        if (instance == null) {
+            synchronized (IdentityManagementHttpClient.class) {
+                if (instance == null) {
+                    instance = new IdentityManagementHttpClient();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Executes the given request using a pooled connection. The caller must close the returned response, after
+     * fully consuming its entity, for the connection to be returned to the pool.
+     *
+     * @param request Request to execute.
+     * @return Response of the request.
+     * @throws IOException If the request fails.
+     */
+    public CloseableHttpResponse execute(HttpUriRequest request) throws IOException {
+
+        evictIdleConnections();
+        long startTime = System.currentTimeMillis();
+        requestCount.incrementAndGet();
+        try {
+            return httpClient.execute(request);
+        } catch (IOException e) {
+            failedRequestCount.incrementAndGet();
+            throw e;
+        } finally {
+            long requestTime = System.currentTimeMillis() - startTime;
+            totalRequestTime.addAndGet(requestTime);
+            if (log.isDebugEnabled()) {
+                log.debug(request.getMethod() + " request to URL: " + request.getURI() + " got the response in " +
+                        requestTime + "ms. Connection pool stats: " + getPoolStats());
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of the connection pool.
+     *
+     * @return Total leased, pending, available and max connections of the pool.
+     */
+    public PoolStats getPoolStats() {
+
+        return connectionManager.getTotalStats();
+    }
+
+    public long getRequestCount() {
+
+        return requestCount.get();
+    }
+
+    public long getFailedRequestCount() {
+
+        return failedRequestCount.get();
+    }
+
+    /**
+     * Returns the average time taken to receive a response, including the time spent waiting for a pooled
+     * connection.
+     *
+     * @return Average request time in milliseconds.
+     */
+    public long getAverageRequestTime() {
+
+        long count = requestCount.get();
+        return count == 0 ? 0 : totalRequestTime.get() / count;
+    }
+
+    /**
+     * Closes the shared client and all pooled connections. A new client is created on the next call to
+     * {@link #getInstance()}.
+     */
+    public static synchronized void shutdown() {
+
+        if (instance != null) {
+            try {
+                instance.httpClient.close();
+            } catch (IOException e) {
+                log.error("Error while closing the identity management http client.", e);
+            }
+            instance = null;
+        }
+    }
+
+    private void evictIdleConnections() {
+
+        long now = System.currentTimeMillis();
+        if (now - lastEvictionTime < keepAliveTimeout) {
+            return;
+        }
+        lastEvictionTime = now;
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(keepAliveTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+
+        return (int) getLongProperty(key, defaultValue);
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+
+        String value = IdentityManagementServiceUtil.getInstance().getServiceConfigProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value: " + value + " configured for property: " + key + ". Using the default value: "
+                    + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Keeps a connection alive for the duration advertised by the server, but never longer than the configured
+     * keep alive timeout, so idle connections are not reused after the server has dropped them.
+     */
+    private static class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+        private final long keepAliveTimeout;
+
+        BoundedKeepAliveStrategy(long keepAliveTimeout) {
+
+            this.keepAliveTimeout = keepAliveTimeout;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (duration <= 0 || duration > keepAliveTimeout) {
+                return keepAliveTimeout;
+            }
+            return duration;
+        }
+    }
+}
@@ -32,8 +32,7 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONTokener;
@@ -87,6 +86,12 @@ public class SelfRegistrationMgtClient {
         String purposesEndpoint;
         String purposesJsonString = "";
 
+        ConsentPurposeCache purposeCache = ConsentPurposeCache.getInstance();
+        String cachedPurposes = purposeCache.getPurposesJson(tenantDomain, group, groupType);
+        if (cachedPurposes != null) {
+            return cachedPurposes;
+        }
+
         purposesEndpoint = getPurposesEndpoint(tenantDomain);
         purposesEndpoint = purposesEndpoint + "?group=" + group + "&groupType=" + groupType;
         try {
@@ -108,6 +113,7 @@ public class SelfRegistrationMgtClient {
                 purposesJson.put(PURPOSES, purposesResponseArray);
                 purposesJsonString = purposesJson.toString();
             }
+            purposeCache.addPurposesJson(tenantDomain, group, groupType, purposesJsonString);
             return purposesJsonString;
         } catch (IOException e) {
             throw new SelfRegistrationMgtClientException("Error while retrieving purposes", e);
@@ -116,13 +122,20 @@ public class SelfRegistrationMgtClient {
 
     public int getDefaultPurposeId(String tenantDomain) throws SelfRegistrationMgtClientException {
 
+        ConsentPurposeCache purposeCache = ConsentPurposeCache.getInstance();
+        Integer cachedPurposeId = purposeCache.getDefaultPurposeId(tenantDomain);
+        if (cachedPurposeId != null) {
+            return cachedPurposeId;
+        }
         try {
             String purposesCategoriesResponse = executeGet(getPurposeCategoriesEndpoint(tenantDomain));
             JSONArray purposesCategories = new JSONArray(purposesCategoriesResponse);
             for (int purpseCatIndex = 0; purpseCatIndex < purposesCategories.length(); purpseCatIndex++) {
                 JSONObject purposeCategory = (JSONObject) purposesCategories.get(purpseCatIndex);
                 if (DEFAULT.equals(purposeCategory.getString(PURPOSE_CATEGORY))) {
-                    return purposeCategory.getInt(PURPOSE_CATEGORY_ID);
+                    int purposeCategoryId = purposeCategory.getInt(PURPOSE_CATEGORY_ID);
+                    purposeCache.addDefaultPurposeId(tenantDomain, purposeCategoryId);
+                    return purposeCategoryId;
                 }
             }
         } catch (IOException e) {
@@ -159,33 +172,32 @@ public class SelfRegistrationMgtClient {
     private String executeGet(String url) throws SelfRegistrationMgtClientException, IOException {
 
         boolean isDebugEnabled = log.isDebugEnabled();
-        try (CloseableHttpClient httpclient = HttpClientBuilder.create().useSystemProperties().build()) {
+        HttpGet httpGet = new HttpGet(url);
+        setAuthorizationHeader(httpGet);
 
-            HttpGet httpGet = new HttpGet(url);
-            setAuthorizationHeader(httpGet);
+        try (CloseableHttpResponse response = IdentityManagementHttpClient.getInstance().execute(httpGet)) {
 
-            try (CloseableHttpResponse response = httpclient.execute(httpGet)) {
-
-                if (isDebugEnabled) {
-                    log.debug("HTTP status " + response.getStatusLine().getStatusCode() + " when invoking GET for URL: "
-                            + url);
-                }
-                if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(response.getEntity().getContent()));
-                    String inputLine;
-                    StringBuilder responseString = new StringBuilder();
+            if (isDebugEnabled) {
+                log.debug("HTTP status " + response.getStatusLine().getStatusCode() + " when invoking GET for URL: "
+                        + url);
+            }
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(response.getEntity().getContent()));
+                String inputLine;
+                StringBuilder responseString = new StringBuilder();
 
-                    while ((inputLine = reader.readLine()) != null) {
-                        responseString.append(inputLine);
-                    }
-                    return responseString.toString();
-                } else {
-                    throw new SelfRegistrationMgtClientException("Error while retrieving data from " + url + ". " +
-                            "Found http status " + response.getStatusLine());
+                while ((inputLine = reader.readLine()) != null) {
+                    responseString.append(inputLine);
                 }
-            } finally {
-                httpGet.releaseConnection();
+                return responseString.toString();
+            } else {
+                // Consume the error response so the connection can be reused.
+                EntityUtils.consume(response.getEntity());
+                throw new SelfRegistrationMgtClientException("Error while retrieving data from " + url + ". " +
+                        "Found http status " + response.getStatusLine());
             }
+        } finally {
+            httpGet.releaseConnection();
         }
     }
 
@@ -236,7 +248,7 @@ public class SelfRegistrationMgtClient {
                     ". SkipSignUpCheck flag is set to " + skipSignUpCheck + ".");
         }
 
-        try (CloseableHttpClient httpclient = HttpClientBuilder.create().useSystemProperties().build()) {
+        try {
             JSONObject userObject = new JSONObject();
             userObject.put(USERNAME, user.getUsername());
 
@@ -263,7 +275,7 @@ public class SelfRegistrationMgtClient {
             post.setEntity(new StringEntity(userObject.toString(), ContentType.create(HTTPConstants
                     .MEDIA_TYPE_APPLICATION_JSON, Charset.forName(StandardCharsets.UTF_8.name()))));
 
-            try (CloseableHttpResponse response = httpclient.execute(post)) {
+            try (CloseableHttpResponse response = IdentityManagementHttpClient.getInstance().execute(post)) {
 
                 if (log.isDebugEnabled()) {
                     log.debug("HTTP status " + response.getStatusLine().getStatusCode() + " when validating username: "
@@ -273,6 +285,8 @@ public class SelfRegistrationMgtClient {
                 if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
                     JSONObject jsonResponse = new JSONObject(
                             new JSONTokener(new InputStreamReader(response.getEntity().getContent())));
+                    // Consume the rest of the response so the connection can be reused.
+                    EntityUtils.consume(response.getEntity());
                     if (log.isDebugEnabled()) {
                         log.debug("Username validation response: " + jsonResponse.toString(2)
                                 + " for username: " + user.getUsername());
@@ -289,10 +303,12 @@ public class SelfRegistrationMgtClient {
                         } else if (jsonResponse.get("description") != null) {
                             content = (String) jsonResponse.get("description");
                         }
+                        EntityUtils.consume(response.getEntity());
                         if (StringUtils.isNotBlank(content) && content.contains("invalid tenant domain")) {
                             return new Integer(SelfRegistrationStatusCodes.ERROR_CODE_INVALID_TENANT);
                         }
                     }
+                    EntityUtils.consume(response.getEntity());
                     // Logging and throwing since this is a client
                     if (log.isDebugEnabled()) {
                         log.debug("Unexpected response code found: " + response.getStatusLine().getStatusCode()
@@ -334,7 +350,13 @@ public class SelfRegistrationMgtClient {
     private JSONObject retrievePurpose(int purposeId, String tenantDomain) throws SelfRegistrationMgtClientException,
             IOException {
 
-        String purposeResponse = executeGet(getPurposesEndpoint(tenantDomain) + "/" + purposeId);
+        // Purposes can not be modified once created, so a cached purpose stays valid until it expires.
+        ConsentPurposeCache purposeCache = ConsentPurposeCache.getInstance();
+        String purposeResponse = purposeCache.getPurpose(tenantDomain, purposeId);
+        if (purposeResponse == null) {
+            purposeResponse = executeGet(getPurposesEndpoint(tenantDomain) + "/" + purposeId);
+            purposeCache.addPurpose(tenantDomain, purposeId, purposeResponse);
+        }
         JSONObject purpose = new JSONObject(purposeResponse);
         return purpose;
     }
@@ -19,6 +19,7 @@
 package org.wso2.carbon.identity.mgt.endpoint.util.listener;
 
 import org.wso2.carbon.identity.mgt.endpoint.util.IdentityManagementServiceUtil;
+import org.wso2.carbon.identity.mgt.endpoint.util.client.IdentityManagementHttpClient;
 
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
@@ -37,5 +38,6 @@ public class IdentityManagementEndpointContextListener implements ServletContext
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
 
+        IdentityManagementHttpClient.shutdown();
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.mgt.endpoint.util.client;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+public class ConsentPurposeCacheTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String OTHER_TENANT_DOMAIN = "abc.com";
+    private static final String GROUP = "SELF-SIGNUP";
+    private static final String GROUP_TYPE = "SYSTEM";
+    private static final long TIMEOUT = 60000;
+
+    private ConsentPurposeCache cache;
+
+    @BeforeMethod
+    public void setUp() {
+
+        cache = new ConsentPurposeCache(TIMEOUT);
+    }
+
+    @Test
+    public void testCachedValuesAreTenantScoped() {
+
+        cache.addPurposesJson(TENANT_DOMAIN, GROUP, GROUP_TYPE, "{\"purposes\":[]}");
+        cache.addPurpose(TENANT_DOMAIN, 2, "{\"purposeId\":2}");
+        cache.addDefaultPurposeId(TENANT_DOMAIN, 1);
+
+        assertEquals(cache.getPurposesJson(TENANT_DOMAIN, GROUP, GROUP_TYPE), "{\"purposes\":[]}");
+        assertEquals(cache.getPurpose(TENANT_DOMAIN, 2), "{\"purposeId\":2}");
+        assertEquals(cache.getDefaultPurposeId(TENANT_DOMAIN), Integer.valueOf(1));
+
+        assertNull(cache.getPurposesJson(OTHER_TENANT_DOMAIN, GROUP, GROUP_TYPE));
+        assertNull(cache.getPurposesJson(TENANT_DOMAIN, "JIT", GROUP_TYPE));
+        assertNull(cache.getPurpose(OTHER_TENANT_DOMAIN, 2));
+        assertNull(cache.getDefaultPurposeId(OTHER_TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception {
+
+        ConsentPurposeCache expiringCache = new ConsentPurposeCache(50);
+        expiringCache.addPurposesJson(TENANT_DOMAIN, GROUP, GROUP_TYPE, "{\"purposes\":[]}");
+        expiringCache.addPurpose(TENANT_DOMAIN, 2, "{\"purposeId\":2}");
+        expiringCache.addDefaultPurposeId(TENANT_DOMAIN, 1);
+        assertEquals(expiringCache.getDefaultPurposeId(TENANT_DOMAIN), Integer.valueOf(1));
+
+        Thread.sleep(100);
+
+        assertNull(expiringCache.getPurposesJson(TENANT_DOMAIN, GROUP, GROUP_TYPE));
+        assertNull(expiringCache.getPurpose(TENANT_DOMAIN, 2));
+        assertNull(expiringCache.getDefaultPurposeId(TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testDisabledCache() {
+
+        ConsentPurposeCache disabledCache = new ConsentPurposeCache(0);
+        disabledCache.addPurpose(TENANT_DOMAIN, 2, "{\"purposeId\":2}");
+
+        assertFalse(disabledCache.isEnabled());
+        assertNull(disabledCache.getPurpose(TENANT_DOMAIN, 2));
+    }
+}
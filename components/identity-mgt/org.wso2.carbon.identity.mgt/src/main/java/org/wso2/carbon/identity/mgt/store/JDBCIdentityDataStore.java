@@ -34,8 +34,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * //TODO remove method when user is deleted
@@ -43,6 +47,8 @@ import java.util.Map;
 public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
 
     private static Log log = LogFactory.getLog(JDBCIdentityDataStore.class);
+    // SQL state class of integrity constraint violations.
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
 
     @Override
     public void store(UserIdentityClaimsDO userIdentityDTO, UserStoreManager userStoreManager)
@@ -52,9 +58,6 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
             return;
         }
 
-        // Before putting to cache, has to check this whether this available in the database
-        // Putting into cache
-
         String userName = userIdentityDTO.getUserName();
         String domainName = ((org.wso2.carbon.user.core.UserStoreManager) userStoreManager).getRealmConfiguration().
                 getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME);
@@ -68,108 +71,167 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
             throw IdentityException.error("Error while getting tenant Id.", e);
         }
         userIdentityDTO.setTenantId(tenantId);
-        super.store(userIdentityDTO, userStoreManager);
-
-        Map<String, String> data = userIdentityDTO.getUserDataMap();
 
-        for (Map.Entry<String, String> entry : data.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            boolean isUserExists = false;
-            try {
-                isUserExists = isExistingUserDataValue(userName, tenantId, key);
-            } catch (SQLException e) {
-                throw IdentityException.error("Error occurred while checking if user existing", e);
-            }
-            try {
-                if (isUserExists) {
-                    updateUserDataValue(userName, tenantId, key, value);
-                } else {
-                    addUserDataValue(userName, tenantId, key, value);
-                }
-            } catch (SQLException e) {
-                throw IdentityException.error("Error occurred while persisting user data", e);
-            }
+        try {
+            storeUserData(userName, tenantId, userIdentityDTO.getUserDataMap());
+        } catch (SQLException e) {
+            throw IdentityException.error("Error occurred while persisting user data", e);
         }
+        // Put into the cache only once persisted, so that the cache does not serve data which is not in the database.
+        super.store(userIdentityDTO, userStoreManager);
     }
 
-    private boolean isExistingUserDataValue(String userName, int tenantId, String key) throws SQLException {
+    /**
+     * Persists the user data in a single transaction. The existing keys of the user are read with one query, and the
+     * values are then updated and added as batches. If a concurrent request added one of the new keys after they were
+     * read, the new keys are written one at a time, updating the ones which already exist.
+     */
+    private void storeUserData(String userName, int tenantId, Map<String, String> data) throws SQLException {
 
-        Connection connection = IdentityDatabaseUtil.getDBConnection(false);
-        PreparedStatement prepStmt = null;
-        ResultSet results;
         boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId);
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement updateStmt = null;
+        PreparedStatement insertStmt = null;
         try {
-            String query;
-            if (isUsernameCaseSensitive) {
-                query = SQLQuery.CHECK_EXIST_USER_DATA;
-            } else {
-                query = SQLQuery.CHECK_EXIST_USER_DATA_CASE_INSENSITIVE;
+            Set<String> existingKeys = getExistingUserDataKeys(connection, userName, tenantId,
+                    isUsernameCaseSensitive);
+            Map<String, String> newData = new HashMap<>();
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                if (existingKeys.contains(entry.getKey())) {
+                    if (updateStmt == null) {
+                        updateStmt = connection.prepareStatement(getUpdateQuery(isUsernameCaseSensitive));
+                    }
+                    setUpdateParameters(updateStmt, userName, tenantId, entry.getKey(), entry.getValue());
+                    updateStmt.addBatch();
+                } else {
+                    newData.put(entry.getKey(), entry.getValue());
+                }
             }
-            prepStmt = connection.prepareStatement(query);
-            prepStmt.setInt(1, tenantId);
-            prepStmt.setString(2, userName);
-            prepStmt.setString(3, key);
-            results = prepStmt.executeQuery();
-            if (results.next()) {
-                return true;
+            if (updateStmt != null) {
+                updateStmt.executeBatch();
             }
+            if (!newData.isEmpty()) {
+                insertStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
+                for (Map.Entry<String, String> entry : newData.entrySet()) {
+                    setInsertParameters(insertStmt, userName, tenantId, entry.getKey(), entry.getValue());
+                    insertStmt.addBatch();
+                }
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    insertStmt.executeBatch();
+                } catch (SQLException e) {
+                    if (!isDuplicateKeyError(e)) {
+                        throw e;
+                    }
+                    if (log.isDebugEnabled()) {
+                        log.debug("Identity data of user: " + userName + " in tenant: " + tenantId + " was added " +
+                                "concurrently. Storing the new keys one at a time.");
+                    }
+                    connection.rollback(savepoint);
+                    insertOrUpdateUserData(connection, insertStmt, userName, tenantId, newData,
+                            isUsernameCaseSensitive);
+                }
+            }
+            IdentityDatabaseUtil.commitTransaction(connection);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw e;
         } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
+            IdentityDatabaseUtil.closeStatement(insertStmt);
+            IdentityDatabaseUtil.closeStatement(updateStmt);
             IdentityDatabaseUtil.closeConnection(connection);
         }
-        return false;
     }
 
+    /**
+     * Inserts each of the given keys, and updates the keys which another request added in the meantime. An insert
+     * which fails on a constraint other than the key of an existing row also fails to update it, in which case the
+     * insert error is thrown.
+     */
+    private void insertOrUpdateUserData(Connection connection, PreparedStatement insertStmt, String userName,
+                                        int tenantId, Map<String, String> data, boolean isUsernameCaseSensitive)
+            throws SQLException {
+
+        insertStmt.clearBatch();
+        try (PreparedStatement updateStmt = connection.prepareStatement(getUpdateQuery(isUsernameCaseSensitive))) {
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                setInsertParameters(insertStmt, userName, tenantId, entry.getKey(), entry.getValue());
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    insertStmt.executeUpdate();
+                } catch (SQLException e) {
+                    if (!isDuplicateKeyError(e)) {
+                        throw e;
+                    }
+                    connection.rollback(savepoint);
+                    setUpdateParameters(updateStmt, userName, tenantId, entry.getKey(), entry.getValue());
+                    if (updateStmt.executeUpdate() == 0) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
 
-    private void addUserDataValue(String userName, int tenantId, String key, String value) throws SQLException {
+    private String getUpdateQuery(boolean isUsernameCaseSensitive) {
 
-        Connection connection = IdentityDatabaseUtil.getDBConnection();
-        PreparedStatement prepStmt = null;
+        return isUsernameCaseSensitive ? SQLQuery.UPDATE_USER_DATA : SQLQuery.UPDATE_USER_DATA_CASE_INSENSITIVE;
+    }
 
-        try {
-            prepStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
-            prepStmt.setInt(1, tenantId);
-            prepStmt.setString(2, userName);
-            prepStmt.setString(3, key);
-            prepStmt.setString(4, value);
-            prepStmt.execute();
-            IdentityDatabaseUtil.commitTransaction(connection);
-        } catch (SQLException e) {
-            IdentityDatabaseUtil.rollbackTransaction(connection);
-        } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeConnection(connection);
-        }
+    private void setUpdateParameters(PreparedStatement updateStmt, String userName, int tenantId, String key,
+                                     String value) throws SQLException {
+
+        updateStmt.setString(1, value);
+        updateStmt.setInt(2, tenantId);
+        updateStmt.setString(3, userName);
+        updateStmt.setString(4, key);
     }
 
+    private void setInsertParameters(PreparedStatement insertStmt, String userName, int tenantId, String key,
+                                     String value) throws SQLException {
 
-    private void updateUserDataValue(String userName, int tenantId, String key, String value) throws SQLException {
+        insertStmt.setInt(1, tenantId);
+        insertStmt.setString(2, userName);
+        insertStmt.setString(3, key);
+        insertStmt.setString(4, value);
+    }
 
-        Connection connection = IdentityDatabaseUtil.getDBConnection();
-        PreparedStatement prepStmt = null;
-        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId);
-        try {
-            String query;
-            if (isUsernameCaseSensitive) {
-                query = SQLQuery.UPDATE_USER_DATA;
-            } else {
-                query = SQLQuery.UPDATE_USER_DATA_CASE_INSENSITIVE;
+    /**
+     * Checks whether the error is an integrity constraint violation, which a primary key violation is. Some JDBC
+     * drivers do not throw SQLIntegrityConstraintViolationException, so the SQL state of the error and its chained
+     * errors is checked too. Not null and foreign key violations match as well, so callers confirm the row exists.
+     */
+    private boolean isDuplicateKeyError(SQLException e) {
+
+        for (SQLException error = e; error != null; error = error.getNextException()) {
+            if (error instanceof SQLIntegrityConstraintViolationException ||
+                    (error.getSQLState() != null && error.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION))) {
+                return true;
             }
-            prepStmt = connection.prepareStatement(query);
-            prepStmt.setString(1, value);
-            prepStmt.setInt(2, tenantId);
-            prepStmt.setString(3, userName);
-            prepStmt.setString(4, key);
-            prepStmt.executeUpdate();
-            IdentityDatabaseUtil.commitTransaction(connection);
-        } catch (SQLException e) {
-            IdentityDatabaseUtil.rollbackTransaction(connection);
-        } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeConnection(connection);
         }
+        return e.getCause() instanceof SQLIntegrityConstraintViolationException;
+    }
+
+    private Set<String> getExistingUserDataKeys(Connection connection, String userName, int tenantId,
+                                                boolean isUsernameCaseSensitive) throws SQLException {
 
+        Set<String> existingKeys = new HashSet<>();
+        String query;
+        if (isUsernameCaseSensitive) {
+            query = SQLQuery.LOAD_USER_DATA_KEYS;
+        } else {
+            query = SQLQuery.LOAD_USER_DATA_KEYS_CASE_INSENSITIVE;
+        }
+        try (PreparedStatement prepStmt = connection.prepareStatement(query)) {
+            prepStmt.setInt(1, tenantId);
+            prepStmt.setString(2, userName);
+            try (ResultSet results = prepStmt.executeQuery()) {
+                while (results.next()) {
+                    existingKeys.add(results.getString(1));
+                }
+            }
+        }
+        return existingKeys;
     }
 
     @Override
@@ -269,10 +331,10 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
      * The primary key is tenantId, userName, DatKey combination
      */
     private static class SQLQuery {
-        public static final String CHECK_EXIST_USER_DATA = "SELECT DATA_VALUE FROM IDN_IDENTITY_USER_DATA WHERE " +
-                "TENANT_ID = ? AND USER_NAME = ? AND DATA_KEY = ?";
-        public static final String CHECK_EXIST_USER_DATA_CASE_INSENSITIVE = "SELECT DATA_VALUE FROM " +
-                "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND LOWER(USER_NAME) = LOWER(?) AND DATA_KEY = ?";
+        public static final String LOAD_USER_DATA_KEYS = "SELECT DATA_KEY FROM IDN_IDENTITY_USER_DATA WHERE " +
+                "TENANT_ID = ? AND USER_NAME = ?";
+        public static final String LOAD_USER_DATA_KEYS_CASE_INSENSITIVE = "SELECT DATA_KEY FROM " +
+                "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND LOWER(USER_NAME) = LOWER(?)";
 
         public static final String STORE_USER_DATA = "INSERT INTO IDN_IDENTITY_USER_DATA (TENANT_ID, USER_NAME, " +
                 "DATA_KEY, DATA_VALUE) VALUES (?,?,?,?)";
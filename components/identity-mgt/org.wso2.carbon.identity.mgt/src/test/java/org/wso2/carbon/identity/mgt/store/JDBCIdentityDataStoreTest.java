@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.mgt.store;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.mgt.dto.UserIdentityClaimsDO;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.UserStoreManager;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.cache.Cache;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityUtil.class})
+public class JDBCIdentityDataStoreTest extends PowerMockTestCase {
+
+    private static final String DB_URL = "jdbc:h2:mem:IdentityUserDataDB;DB_CLOSE_DELAY=-1";
+    private static final int TENANT_ID = -1234;
+    private static final String FAILED_ATTEMPTS = "http://wso2.org/claims/identity/failedLoginAttempts";
+    private static final String LAST_LOGON_TIME = "http://wso2.org/claims/identity/lastLogonTime";
+    private static final String UNLOCK_TIME = "http://wso2.org/claims/identity/unlockTime";
+
+    @Mock
+    private UserStoreManager userStoreManager;
+    @Mock
+    private RealmConfiguration realmConfiguration;
+
+    private Connection connection;
+    private Connection spyConnection;
+    private JDBCIdentityDataStore identityDataStore;
+
+    @BeforeClass
+    public void init() {
+
+        System.setProperty(CarbonBaseConstants.CARBON_HOME,
+                Paths.get(System.getProperty("user.dir"), "src", "test", "resources").toString());
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        connection = DriverManager.getConnection(DB_URL);
+        // Connections with transactions applied are not in auto commit mode.
+        connection.setAutoCommit(false);
+        connection.createStatement().executeUpdate("RUNSCRIPT FROM '" + Paths.get(System.getProperty("user.dir"),
+                "src", "test", "resources", "dbscripts", "h2.sql").toString() + "'");
+        connection.createStatement().executeUpdate("DELETE FROM IDN_IDENTITY_USER_DATA");
+        addUserData("user1", FAILED_ATTEMPTS, "1");
+
+        spyConnection = spy(connection);
+        doNothing().when(spyConnection).close();
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection()).thenReturn(spyConnection);
+        when(IdentityDatabaseUtil.getDBConnection(anyBoolean())).thenReturn(spyConnection);
+
+        when(userStoreManager.getRealmConfiguration()).thenReturn(realmConfiguration);
+        when(realmConfiguration.getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME))
+                .thenReturn(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        when(userStoreManager.getTenantId()).thenReturn(TENANT_ID);
+
+        // Skip the in-memory layer so that the data is always read from the database.
+        identityDataStore = new JDBCIdentityDataStore() {
+            @Override
+            protected Cache<String, UserIdentityClaimsDO> getCache() {
+
+                return null;
+            }
+        };
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        connection.close();
+    }
+
+    @DataProvider(name = "usernameCaseSensitivity")
+    public Object[][] usernameCaseSensitivity() {
+
+        return new Object[][]{
+                // isUsernameCaseSensitive
+                // expectedRowCount
+                // expectedPreparedStatements
+                {true, 3, 2},
+                {false, 2, 3}
+        };
+    }
+
+    @Test(dataProvider = "usernameCaseSensitivity")
+    public void testStore(boolean isUsernameCaseSensitive, int expectedRowCount, int expectedPreparedStatements)
+            throws Exception {
+
+        mockUsernameCaseSensitivity(isUsernameCaseSensitive);
+        Map<String, String> data = new HashMap<>();
+        data.put(FAILED_ATTEMPTS, "2");
+        data.put(LAST_LOGON_TIME, "1600000000000");
+        identityDataStore.store(new UserIdentityClaimsDO("USER1", data), userStoreManager);
+
+        // The existing keys are read once and the changes are written as one batch per statement type.
+        verify(spyConnection, times(expectedPreparedStatements)).prepareStatement(anyString());
+        assertEquals(getRowCount(), expectedRowCount);
+        assertEquals(getUserData("USER1", LAST_LOGON_TIME), "1600000000000");
+        if (isUsernameCaseSensitive) {
+            assertEquals(getUserData("user1", FAILED_ATTEMPTS), "1");
+            assertEquals(getUserData("USER1", FAILED_ATTEMPTS), "2");
+        } else {
+            assertEquals(getUserData("user1", FAILED_ATTEMPTS), "2");
+        }
+    }
+
+    @DataProvider(name = "isUsernameCaseSensitive")
+    public Object[][] isUsernameCaseSensitive() {
+
+        return new Object[][]{{true}, {false}};
+    }
+
+    @Test(dataProvider = "isUsernameCaseSensitive")
+    public void testStoreAndLoad(boolean isUsernameCaseSensitive) throws Exception {
+
+        mockUsernameCaseSensitivity(isUsernameCaseSensitive);
+        Map<String, String> data = new HashMap<>();
+        data.put(FAILED_ATTEMPTS, "0");
+        data.put(UNLOCK_TIME, "0");
+        identityDataStore.store(new UserIdentityClaimsDO("user1", data), userStoreManager);
+
+        UserIdentityClaimsDO userIdentityClaimsDO = identityDataStore.load("user1", userStoreManager);
+        assertEquals(userIdentityClaimsDO.getUserDataMap().get(FAILED_ATTEMPTS), "0");
+        assertEquals(userIdentityClaimsDO.getUserDataMap().get(UNLOCK_TIME), "0");
+        assertEquals(getRowCount(), 2);
+    }
+
+    @Test(dataProvider = "isUsernameCaseSensitive")
+    public void testConcurrentStoreOfNewKeys(boolean isUsernameCaseSensitive) throws Exception {
+
+        mockUsernameCaseSensitivity(isUsernameCaseSensitive);
+        Map<String, String> concurrentData = new HashMap<>();
+        concurrentData.put(LAST_LOGON_TIME, "1600000000000");
+        Map<String, String> data = new HashMap<>();
+        data.put(LAST_LOGON_TIME, "1600000001000");
+        data.put(UNLOCK_TIME, "0");
+
+        // Let another request store one of the new keys after this request has read the existing keys, but before
+        // it adds them.
+        AtomicBoolean concurrentStoreDone = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (concurrentStoreDone.compareAndSet(false, true)) {
+                identityDataStore.store(new UserIdentityClaimsDO("user1", concurrentData), userStoreManager);
+            }
+            return invocation.callRealMethod();
+        }).when(spyConnection).prepareStatement(startsWith("INSERT"));
+
+        identityDataStore.store(new UserIdentityClaimsDO("user1", data), userStoreManager);
+
+        assertTrue(concurrentStoreDone.get());
+        assertEquals(getRowCount(), 3);
+        assertEquals(getUserData("user1", FAILED_ATTEMPTS), "1");
+        assertEquals(getUserData("user1", LAST_LOGON_TIME), "1600000001000");
+        assertEquals(getUserData("user1", UNLOCK_TIME), "0");
+    }
+
+    @Test
+    public void testConstraintViolationOtherThanDuplicateKeyIsThrown() throws Exception {
+
+        mockUsernameCaseSensitivity(true);
+        Map<String, String> data = new HashMap<>();
+        data.put(UNLOCK_TIME, "0");
+        // A null key violates the not null constraint, which is in the same SQL state class as a duplicate key.
+        data.put(null, "value");
+
+        try {
+            identityDataStore.store(new UserIdentityClaimsDO("user1", data), userStoreManager);
+            fail("Storing a null data key should fail.");
+        } catch (IdentityException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+            assertTrue(((SQLException) e.getCause()).getSQLState().startsWith("23"));
+        }
+    }
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    private void mockUsernameCaseSensitivity(boolean isUsernameCaseSensitive) {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.isUserStoreInUsernameCaseSensitive(anyString(), anyInt()))
+                .thenReturn(isUsernameCaseSensitive);
+        when(IdentityUtil.isUserStoreCaseSensitive(any(UserStoreManager.class))).thenReturn(isUsernameCaseSensitive);
+    }
+
+    private void addUserData(String userName, String key, String value) throws SQLException {
+
+        try (PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_IDENTITY_USER_DATA " +
+                "(TENANT_ID, USER_NAME, DATA_KEY, DATA_VALUE) VALUES (?,?,?,?)")) {
+            prepStmt.setInt(1, TENANT_ID);
+            prepStmt.setString(2, userName);
+            prepStmt.setString(3, key);
+            prepStmt.setString(4, value);
+            prepStmt.execute();
+        }
+    }
+
+    private String getUserData(String userName, String key) throws SQLException {
+
+        try (PreparedStatement prepStmt = connection.prepareStatement("SELECT DATA_VALUE FROM " +
+                "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND USER_NAME = ? AND DATA_KEY = ?")) {
+            prepStmt.setInt(1, TENANT_ID);
+            prepStmt.setString(2, userName);
+            prepStmt.setString(3, key);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    private int getRowCount() throws SQLException {
+
+        try (ResultSet resultSet = connection.createStatement()
+                .executeQuery("SELECT COUNT(*) FROM IDN_IDENTITY_USER_DATA")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
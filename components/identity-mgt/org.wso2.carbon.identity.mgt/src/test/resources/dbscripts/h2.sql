@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS IDN_IDENTITY_USER_DATA (
+            TENANT_ID INTEGER DEFAULT -1234,
+            USER_NAME VARCHAR(255) NOT NULL,
+            DATA_KEY VARCHAR(255) NOT NULL,
+            DATA_VALUE VARCHAR(2048),
+            PRIMARY KEY (TENANT_ID, USER_NAME, DATA_KEY)
+);
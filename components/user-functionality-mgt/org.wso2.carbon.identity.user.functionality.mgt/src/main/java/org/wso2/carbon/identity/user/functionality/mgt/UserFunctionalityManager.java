@@ -43,6 +43,24 @@ public interface UserFunctionalityManager {
     FunctionalityLockStatus getLockStatus(String userId, int tenantId, String functionalityIdentifier)
             throws UserFunctionalityManagementException;
 
+    /**
+     * Returns the status of the functionality, given the functionality identifier, the user id and the tenant id.
+     * Callers which have already authenticated the user can skip the user store lookup that validates the user id.
+     *
+     * @param userId                  Unique identifier of the user.
+     * @param tenantId                Unique identifier for the tenant domain.
+     * @param functionalityIdentifier Identifier of the the functionality.
+     * @param isUserIdValidated       Whether the existence of the user id is already validated by the caller.
+     * @return The status of the functionality.
+     * @throws UserFunctionalityManagementException
+     */
+    default FunctionalityLockStatus getLockStatus(String userId, int tenantId, String functionalityIdentifier,
+                                                  boolean isUserIdValidated)
+            throws UserFunctionalityManagementException {
+
+        return getLockStatus(userId, tenantId, functionalityIdentifier);
+    }
+
     /**
      * Returns the properties of the user-functionality mapping. These properties may include invalid attempts counts,
      * functionality lockout counts, etc.
@@ -24,6 +24,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.user.functionality.mgt.cache.FunctionalityLockStatusCache;
+import org.wso2.carbon.identity.user.functionality.mgt.cache.FunctionalityLockStatusCacheEntry;
+import org.wso2.carbon.identity.user.functionality.mgt.cache.FunctionalityLockStatusCacheKey;
 import org.wso2.carbon.identity.user.functionality.mgt.dao.UserFunctionalityManagerDAO;
 import org.wso2.carbon.identity.user.functionality.mgt.dao.UserFunctionalityPropertyDAO;
 import org.wso2.carbon.identity.user.functionality.mgt.dao.impl.UserFunctionalityManagerDAOImpl;
@@ -59,29 +62,40 @@ public class UserFunctionalityManagerImpl implements UserFunctionalityManager {
     public FunctionalityLockStatus getLockStatus(String userId, int tenantId, String functionalityIdentifier)
             throws UserFunctionalityManagementException {
 
+        return getLockStatus(userId, tenantId, functionalityIdentifier, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FunctionalityLockStatus getLockStatus(String userId, int tenantId, String functionalityIdentifier,
+                                                 boolean isUserIdValidated)
+            throws UserFunctionalityManagementException {
+
         if (!isPerUserFunctionalityLockingEnabled()) {
             throw new UnsupportedOperationException("Per-user functionality locking is not enabled.");
         }
 
-        if (StringUtils.isEmpty(userId) || !isUserIdExists(userId, tenantId)) {
+        if (StringUtils.isEmpty(userId) || (!isUserIdValidated && !isUserIdExists(userId, tenantId))) {
             if (log.isDebugEnabled()) {
                 log.debug("Cannot retrieve user from userId: " + userId);
             }
             throw buildUserNotFoundError();
         }
 
-        FunctionalityLockStatus
-                functionalityLockStatus =
-                userFunctionalityManagerDAO.getFunctionalityLockStatus(userId, tenantId, functionalityIdentifier);
-        if (functionalityLockStatus == null) {
-            return FunctionalityLockStatus.UNLOCKED_STATUS;
+        // Expired mappings are resolved in memory and purged by the scheduled clean up task.
+        FunctionalityLockStatusCacheKey cacheKey =
+                new FunctionalityLockStatusCacheKey(userId, tenantId, functionalityIdentifier);
+        FunctionalityLockStatusCacheEntry cacheEntry =
+                FunctionalityLockStatusCache.getInstance().getValueFromCache(cacheKey);
+        long currentTime = System.currentTimeMillis();
+        if (cacheEntry == null || cacheEntry.isStale(currentTime)) {
+            cacheEntry = new FunctionalityLockStatusCacheEntry(
+                    userFunctionalityManagerDAO.getFunctionalityLockStatus(userId, tenantId, functionalityIdentifier));
+            FunctionalityLockStatusCache.getInstance().addToCache(cacheKey, cacheEntry);
         }
-        long unlockTime = functionalityLockStatus.getUnlockTime();
-        if (unlockTime < System.currentTimeMillis()) {
-            userFunctionalityManagerDAO.deleteMappingForUser(userId, tenantId, functionalityIdentifier);
-            return FunctionalityLockStatus.UNLOCKED_STATUS;
-        }
-        return functionalityLockStatus;
+        return cacheEntry.getLockStatus(currentTime);
     }
 
     /**
@@ -121,7 +135,8 @@ public class UserFunctionalityManagerImpl implements UserFunctionalityManager {
             throw buildUserNotFoundError();
         }
 
-        Map<String, String> existingProperties = getProperties(userId, tenantId, functionalityIdentifier);
+        Map<String, String> existingProperties =
+                userFunctionalityPropertyDAO.getAllProperties(userId, tenantId, functionalityIdentifier);
         if (MapUtils.isNotEmpty(functionalityLockProperties)) {
             addOrUpdateProperties(functionalityLockProperties, existingProperties, userId, tenantId,
                     functionalityIdentifier);
@@ -161,7 +176,7 @@ public class UserFunctionalityManagerImpl implements UserFunctionalityManager {
                                 functionalityLockReason);
                 userFunctionalityManagerDAO
                         .updateLockStatusForUser(userId, tenantId, functionalityIdentifier, newFunctionalityLockStatus);
-
+                functionalityLockStatus = newFunctionalityLockStatus;
             } else if (oldUnlockTime < unlockTime) {
                 functionalityLockStatus.setLockReasonCode(functionalityLockReasonCode);
                 functionalityLockStatus.setLockReason(functionalityLockReason);
@@ -170,11 +185,14 @@ public class UserFunctionalityManagerImpl implements UserFunctionalityManager {
                         .updateLockStatusForUser(userId, tenantId, functionalityIdentifier, functionalityLockStatus);
             }
         } else {
-            FunctionalityLockStatus newFunctionalityLockStatus =
+            functionalityLockStatus =
                     new FunctionalityLockStatus(true, unlockTime, functionalityLockReasonCode, functionalityLockReason);
             userFunctionalityManagerDAO
-                    .addFunctionalityLock(userId, tenantId, functionalityIdentifier, newFunctionalityLockStatus);
+                    .addFunctionalityLock(userId, tenantId, functionalityIdentifier, functionalityLockStatus);
         }
+        // The stored status is cached rather than cleared, so that a lookup racing with the lock does not leave a
+        // stale unlocked entry until the next miss.
+        updateLockStatusCache(userId, tenantId, functionalityIdentifier, functionalityLockStatus);
     }
 
     /**
@@ -194,6 +212,7 @@ public class UserFunctionalityManagerImpl implements UserFunctionalityManager {
             throw buildUserNotFoundError();
         }
         userFunctionalityManagerDAO.deleteMappingForUser(userId, tenantId, functionalityIdentifier);
+        updateLockStatusCache(userId, tenantId, functionalityIdentifier, FunctionalityLockStatus.UNLOCKED_STATUS);
     }
 
     /**
@@ -244,6 +263,18 @@ public class UserFunctionalityManagerImpl implements UserFunctionalityManager {
     public void deleteAllMappingsForTenant(int tenantId) throws UserFunctionalityManagementServerException {
 
         userFunctionalityManagerDAO.deleteAllMappingsForTenant(tenantId);
+        // Entries are keyed per user, hence the whole cache is cleared on the rare tenant wide delete.
+        FunctionalityLockStatusCache.getInstance().clear();
+    }
+
+    /**
+     * Deletes the user-functionality mappings of all the tenants which have passed their unlock time.
+     *
+     * @throws UserFunctionalityManagementServerException If error occurs while deleting the expired mappings.
+     */
+    public void deleteExpiredMappings() throws UserFunctionalityManagementServerException {
+
+        userFunctionalityManagerDAO.deleteExpiredMappings(System.currentTimeMillis());
     }
 
     /**
@@ -282,6 +313,14 @@ public class UserFunctionalityManagerImpl implements UserFunctionalityManager {
         }
     }
 
+    private void updateLockStatusCache(String userId, int tenantId, String functionalityIdentifier,
+                                       FunctionalityLockStatus functionalityLockStatus) {
+
+        FunctionalityLockStatusCache.getInstance()
+                .addToCache(new FunctionalityLockStatusCacheKey(userId, tenantId, functionalityIdentifier),
+                        new FunctionalityLockStatusCacheEntry(functionalityLockStatus));
+    }
+
     private boolean isPerUserFunctionalityLockingEnabled() {
 
         return Boolean.parseBoolean(
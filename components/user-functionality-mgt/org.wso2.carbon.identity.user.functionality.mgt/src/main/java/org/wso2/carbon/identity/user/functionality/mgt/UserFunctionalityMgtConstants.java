@@ -24,6 +24,9 @@ package org.wso2.carbon.identity.user.functionality.mgt;
 public class UserFunctionalityMgtConstants {
 
     public static final String ENABLE_PER_USER_FUNCTIONALITY_LOCKING = "EnablePerUserFunctionalityLocking";
+    public static final String PER_USER_FUNCTIONALITY_LOCK_CLEANUP_PERIOD = "PerUserFunctionalityLockCleanUpPeriod";
+    // Clean up period of the expired functionality mappings in minutes.
+    public static final long DEFAULT_PER_USER_FUNCTIONALITY_LOCK_CLEANUP_PERIOD = 60;
 
     public static final String ORACLE = "oracle";
 
@@ -47,6 +50,8 @@ public class UserFunctionalityMgtConstants {
                 "DELETE FROM IDN_USER_FUNCTIONALITY_MAPPING WHERE USER_ID=? AND TENANT_ID=? AND FUNCTIONALITY_ID=?";
         public static final String DELETE_ALL_FUNCTIONALITY_MAPPINGS_FOR_TENANT =
                 "DELETE FROM IDN_USER_FUNCTIONALITY_MAPPING WHERE TENANT_ID=?";
+        public static final String DELETE_EXPIRED_FUNCTIONALITY_MAPPINGS =
+                "DELETE FROM IDN_USER_FUNCTIONALITY_MAPPING WHERE FUNCTIONALITY_UNLOCK_TIME < ?";
 
         public static final String INSERT_PROPERTY = "INSERT INTO IDN_USER_FUNCTIONALITY_PROPERTY (ID, USER_ID, " +
                 "TENANT_ID, FUNCTIONALITY_ID, PROPERTY_NAME, PROPERTY_VALUE) VALUES (?,?,?,?,?,?)";
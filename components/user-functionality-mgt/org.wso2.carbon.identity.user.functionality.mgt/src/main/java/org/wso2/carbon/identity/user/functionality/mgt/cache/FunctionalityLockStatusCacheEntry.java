@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.user.functionality.mgt.cache;
+
+import org.wso2.carbon.identity.user.functionality.mgt.model.FunctionalityLockStatus;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache entry of the {@link FunctionalityLockStatusCache}. The unlock time is kept with the entry so that the expiry
+ * of a lock is resolved in memory. An entry built from a missing mapping records that the functionality is not locked.
+ * Such unlocked entries are only trusted for a short time, as a lookup racing with a lock may cache the status read
+ * before the lock.
+ */
+public class FunctionalityLockStatusCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = -2167304685318542077L;
+    private static final long UNLOCKED_ENTRY_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final boolean lockStatus;
+    private final long unlockTime;
+    private final String lockReasonCode;
+    private final String lockReason;
+    private final long validUntil;
+
+    public FunctionalityLockStatusCacheEntry(FunctionalityLockStatus functionalityLockStatus) {
+
+        this(functionalityLockStatus, System.currentTimeMillis());
+    }
+
+    FunctionalityLockStatusCacheEntry(FunctionalityLockStatus functionalityLockStatus, long createdTime) {
+
+        if (functionalityLockStatus == null) {
+            functionalityLockStatus = FunctionalityLockStatus.UNLOCKED_STATUS;
+        }
+        this.lockStatus = functionalityLockStatus.getLockStatus();
+        this.unlockTime = functionalityLockStatus.getUnlockTime();
+        this.lockReasonCode = functionalityLockStatus.getLockReasonCode();
+        this.lockReason = functionalityLockStatus.getLockReason();
+        this.validUntil = lockStatus ? Long.MAX_VALUE : createdTime + UNLOCKED_ENTRY_TIMEOUT;
+    }
+
+    /**
+     * Checks whether the entry should be reloaded at the given time. Entries of locked functionalities stay valid until
+     * they are replaced or cleared, while unlocked entries are reloaded after a short timeout.
+     *
+     * @param currentTime Time in milliseconds to evaluate the entry against.
+     * @return True if the entry should be reloaded.
+     */
+    public boolean isStale(long currentTime) {
+
+        return validUntil < currentTime;
+    }
+
+    /**
+     * Checks whether the cached mapping has passed its unlock time at the given time.
+     *
+     * @param currentTime Time in milliseconds to evaluate the mapping against.
+     * @return True if the mapping has expired.
+     */
+    public boolean isExpired(long currentTime) {
+
+        return unlockTime < currentTime;
+    }
+
+    /**
+     * Resolves the lock status of the functionality at the given time. Expired mappings resolve to
+     * {@link FunctionalityLockStatus#UNLOCKED_STATUS}.
+     *
+     * @param currentTime Time in milliseconds to evaluate the mapping against.
+     * @return {@link FunctionalityLockStatus} at the given time.
+     */
+    public FunctionalityLockStatus getLockStatus(long currentTime) {
+
+        if (isExpired(currentTime)) {
+            return FunctionalityLockStatus.UNLOCKED_STATUS;
+        }
+        return new FunctionalityLockStatus(lockStatus, unlockTime, lockReasonCode, lockReason);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.user.functionality.mgt.cache;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Cache key of the {@link FunctionalityLockStatusCache}.
+ */
+public class FunctionalityLockStatusCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 4310478296017832417L;
+
+    private final String userId;
+    private final int tenantId;
+    private final String functionalityIdentifier;
+
+    public FunctionalityLockStatusCacheKey(String userId, int tenantId, String functionalityIdentifier) {
+
+        this.userId = userId;
+        this.tenantId = tenantId;
+        this.functionalityIdentifier = functionalityIdentifier;
+    }
+
+    public String getUserId() {
+
+        return userId;
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    public String getFunctionalityIdentifier() {
+
+        return functionalityIdentifier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FunctionalityLockStatusCacheKey that = (FunctionalityLockStatusCacheKey) o;
+        return tenantId == that.tenantId && Objects.equals(userId, that.userId) &&
+                Objects.equals(functionalityIdentifier, that.functionalityIdentifier);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(userId, tenantId, functionalityIdentifier);
+    }
+}
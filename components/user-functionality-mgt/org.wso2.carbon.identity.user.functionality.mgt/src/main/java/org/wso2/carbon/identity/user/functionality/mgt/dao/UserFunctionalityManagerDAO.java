@@ -86,4 +86,12 @@ public interface UserFunctionalityManagerDAO {
      * @throws UserFunctionalityManagementServerException
      */
     void deleteAllMappingsForTenant(int tenantId) throws UserFunctionalityManagementServerException;
+
+    /**
+     * Deletes all the user-functionality mappings which have passed their unlock time.
+     *
+     * @param currentTime Time in milliseconds against which the unlock time of the mappings is evaluated.
+     * @throws UserFunctionalityManagementServerException If error occurs while deleting the expired mappings.
+     */
+    void deleteExpiredMappings(long currentTime) throws UserFunctionalityManagementServerException;
 }
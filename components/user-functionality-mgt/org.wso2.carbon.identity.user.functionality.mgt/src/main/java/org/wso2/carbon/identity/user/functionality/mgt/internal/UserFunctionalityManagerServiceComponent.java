@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.user.functionality.mgt.internal;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.framework.BundleContext;
@@ -31,10 +32,17 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
 import org.wso2.carbon.identity.core.util.IdentityCoreInitializedEvent;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.user.functionality.mgt.UserFunctionalityManager;
 import org.wso2.carbon.identity.user.functionality.mgt.UserFunctionalityManagerImpl;
+import org.wso2.carbon.identity.user.functionality.mgt.UserFunctionalityMgtConstants;
+import org.wso2.carbon.identity.user.functionality.mgt.exception.UserFunctionalityManagementServerException;
 import org.wso2.carbon.user.core.service.RealmService;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * OSGi declarative services component which handles registration and un-registration of user functionality management
  * service.
@@ -48,6 +56,7 @@ public class UserFunctionalityManagerServiceComponent {
     private static final Log log = LogFactory.getLog(UserFunctionalityManagerServiceComponent.class);
 
     private ServiceRegistration userFunctionalityMgtService;
+    private ScheduledExecutorService expiredMappingCleanUpService;
 
     /**
      * Register User Functionality Manager as an OSGi service.
@@ -59,9 +68,13 @@ public class UserFunctionalityManagerServiceComponent {
 
         try {
             BundleContext bundleContext = componentContext.getBundleContext();
-            UserFunctionalityManager userFunctionalityManager = new UserFunctionalityManagerImpl();
+            UserFunctionalityManagerImpl userFunctionalityManager = new UserFunctionalityManagerImpl();
             userFunctionalityMgtService = bundleContext.registerService(UserFunctionalityManager.class,
                     userFunctionalityManager, null);
+            if (Boolean.parseBoolean(
+                    IdentityUtil.getProperty(UserFunctionalityMgtConstants.ENABLE_PER_USER_FUNCTIONALITY_LOCKING))) {
+                scheduleExpiredMappingCleanUp(userFunctionalityManager);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("User Functionality Manager bundle is activated.");
             }
@@ -73,6 +86,10 @@ public class UserFunctionalityManagerServiceComponent {
     @Deactivate
     protected void deactivate(ComponentContext componentContext) {
 
+        if (expiredMappingCleanUpService != null) {
+            expiredMappingCleanUpService.shutdownNow();
+            expiredMappingCleanUpService = null;
+        }
         BundleContext bundleContext = componentContext.getBundleContext();
         bundleContext.ungetService(userFunctionalityMgtService.getReference());
         if (log.isDebugEnabled()) {
@@ -80,6 +97,44 @@ public class UserFunctionalityManagerServiceComponent {
         }
     }
 
+    private void scheduleExpiredMappingCleanUp(UserFunctionalityManagerImpl userFunctionalityManager) {
+
+        long cleanUpPeriod = UserFunctionalityMgtConstants.DEFAULT_PER_USER_FUNCTIONALITY_LOCK_CLEANUP_PERIOD;
+        String cleanUpPeriodValue =
+                IdentityUtil.getProperty(UserFunctionalityMgtConstants.PER_USER_FUNCTIONALITY_LOCK_CLEANUP_PERIOD);
+        if (StringUtils.isNotBlank(cleanUpPeriodValue)) {
+            try {
+                cleanUpPeriod = Long.parseLong(cleanUpPeriodValue.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + cleanUpPeriodValue + " configured for " +
+                        UserFunctionalityMgtConstants.PER_USER_FUNCTIONALITY_LOCK_CLEANUP_PERIOD +
+                        ". Using the default value: " + cleanUpPeriod + " minutes.");
+            }
+        }
+        if (cleanUpPeriod <= 0) {
+            if (log.isDebugEnabled()) {
+                log.debug("Clean up of expired user functionality mappings is disabled.");
+            }
+            return;
+        }
+
+        expiredMappingCleanUpService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "UserFunctionalityMappingCleanUp");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiredMappingCleanUpService.scheduleWithFixedDelay(() -> {
+            try {
+                userFunctionalityManager.deleteExpiredMappings();
+            } catch (UserFunctionalityManagementServerException | RuntimeException e) {
+                log.error("Error while cleaning up the expired user functionality mappings.", e);
+            }
+        }, cleanUpPeriod, cleanUpPeriod, TimeUnit.MINUTES);
+        if (log.isDebugEnabled()) {
+            log.debug("Expired user functionality mappings are cleaned up every " + cleanUpPeriod + " minutes.");
+        }
+    }
+
     @Reference(
             name = "identityCoreInitializedEventService",
             service = IdentityCoreInitializedEvent.class,
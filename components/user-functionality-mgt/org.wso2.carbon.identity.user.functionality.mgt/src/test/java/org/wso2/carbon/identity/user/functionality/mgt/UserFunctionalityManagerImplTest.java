@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.mockito.Mock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
+import org.powermock.reflect.Whitebox;
 import org.testng.IObjectFactory;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -30,9 +31,14 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.ObjectFactory;
 import org.testng.annotations.Test;
 import org.wso2.carbon.context.internal.CarbonContextDataHolder;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfigKey;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.user.functionality.mgt.cache.FunctionalityLockStatusCache;
+import org.wso2.carbon.identity.user.functionality.mgt.cache.FunctionalityLockStatusCacheEntry;
+import org.wso2.carbon.identity.user.functionality.mgt.cache.FunctionalityLockStatusCacheKey;
 import org.wso2.carbon.identity.user.functionality.mgt.dao.UserFunctionalityManagerDAO;
 import org.wso2.carbon.identity.user.functionality.mgt.dao.UserFunctionalityPropertyDAO;
 import org.wso2.carbon.identity.user.functionality.mgt.dao.impl.UserFunctionalityManagerDAOImpl;
@@ -51,13 +57,25 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.spy;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @PrepareForTest({IdentityDatabaseUtil.class, CarbonContextDataHolder.class, IdentityUtil.class,
         IdentityTenantUtil.class, UserFunctionalityManagerComponentDataHolder.class})
@@ -86,6 +104,11 @@ public class UserFunctionalityManagerImplTest extends PowerMockTestCase {
         mockStatic(IdentityUtil.class);
         when(IdentityUtil.getProperty(UserFunctionalityMgtConstants.ENABLE_PER_USER_FUNCTIONALITY_LOCKING))
                 .thenReturn("true");
+        // Lock statuses are read from the DB, as the H2 base is recreated for each test.
+        IdentityCacheConfig identityCacheConfig =
+                new IdentityCacheConfig(new IdentityCacheConfigKey("CacheManager", "Cache"));
+        identityCacheConfig.setEnabled(false);
+        when(IdentityUtil.getIdentityCacheConfig(anyString(), anyString())).thenReturn(identityCacheConfig);
 
         try (Connection connection = TestUtils.getConnection()) {
             Connection spyConnection = TestUtils.spyConnection(connection);
@@ -440,12 +463,136 @@ public class UserFunctionalityManagerImplTest extends PowerMockTestCase {
 
     }
 
+    @Test
+    public void testGetLockStatusOfValidatedUser() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        TestUtils.mockDataSource(dataSource);
+        try (Connection connection = TestUtils.getConnection()) {
+            Connection spyConnection = TestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spyConnection);
+            FunctionalityLockStatus functionalityLockStatus =
+                    userFunctionalityManager.getLockStatus("user3", 1, "FunctionalityType3", true);
+
+            assertEquals(functionalityLockStatus.getLockStatus(), true);
+            assertEquals(functionalityLockStatus.getLockReason(), "Lock Reason 1");
+            verify(userStoreManager, never()).isExistingUserWithID(anyString());
+        }
+    }
+
+    @Test
+    public void testExpiredLockIsNotDeletedOnRead() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        TestUtils.mockDataSource(dataSource);
+        try (Connection connection = TestUtils.getConnection()) {
+            Connection spyConnection = TestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spyConnection);
+            userFunctionalityManagerDAO.addFunctionalityLock("user6", 1, "FunctionalityType6",
+                    new FunctionalityLockStatus(true, System.currentTimeMillis() - 1000, "E001", "Lock Reason 1"));
+            mockIsUserStoreManager("user6");
+
+            assertEquals(userFunctionalityManager.getLockStatus("user6", 1, "FunctionalityType6").getLockStatus(),
+                    false);
+            assertNotNull(userFunctionalityManagerDAO.getFunctionalityLockStatus("user6", 1, "FunctionalityType6"));
+
+            ((UserFunctionalityManagerImpl) userFunctionalityManager).deleteExpiredMappings();
+            assertNull(userFunctionalityManagerDAO.getFunctionalityLockStatus("user6", 1, "FunctionalityType6"));
+        }
+    }
+
+    @Test
+    public void testLockStatusIsServedFromCache() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        TestUtils.mockDataSource(dataSource);
+        UserFunctionalityManagerDAO spyDAO = spy(new UserFunctionalityManagerDAOImpl());
+        UserFunctionalityManager cachedManager = new UserFunctionalityManagerImpl();
+        Whitebox.setInternalState(cachedManager, "userFunctionalityManagerDAO", spyDAO);
+        Map<FunctionalityLockStatusCacheKey, FunctionalityLockStatusCacheEntry> cacheEntries = enableCache();
+        try (Connection connection = TestUtils.getConnection()) {
+            Connection spyConnection = TestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spyConnection);
+
+            // Locked and missing mappings are both read from the DB once.
+            assertTrue(cachedManager.getLockStatus("user3", 1, "FunctionalityType3", true).getLockStatus());
+            assertTrue(cachedManager.getLockStatus("user3", 1, "FunctionalityType3", true).getLockStatus());
+            verify(spyDAO, times(1)).getFunctionalityLockStatus("user3", 1, "FunctionalityType3");
+            assertFalse(cachedManager.getLockStatus("user4", 1, "FunctionalityType4", true).getLockStatus());
+            assertFalse(cachedManager.getLockStatus("user4", 1, "FunctionalityType4", true).getLockStatus());
+            verify(spyDAO, times(1)).getFunctionalityLockStatus("user4", 1, "FunctionalityType4");
+        } finally {
+            disableCache();
+        }
+        assertEquals(cacheEntries.size(), 2);
+    }
+
+    @Test
+    public void testLockAndUnlockUpdateCache() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        TestUtils.mockDataSource(dataSource);
+        UserFunctionalityManagerDAO spyDAO = spy(new UserFunctionalityManagerDAOImpl());
+        UserFunctionalityManager cachedManager = new UserFunctionalityManagerImpl();
+        Whitebox.setInternalState(cachedManager, "userFunctionalityManagerDAO", spyDAO);
+        Map<FunctionalityLockStatusCacheKey, FunctionalityLockStatusCacheEntry> cacheEntries = enableCache();
+        try (Connection connection = TestUtils.getConnection()) {
+            Connection spyConnection = TestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spyConnection);
+            mockIsUserStoreManager("user4");
+
+            assertFalse(cachedManager.getLockStatus("user4", 1, "FunctionalityType4", true).getLockStatus());
+            cachedManager.lock("user4", 1, "FunctionalityType4", 300000, "E001", "Lock Reason 1");
+
+            // The lock replaces the cached unlocked entry with the stored status.
+            FunctionalityLockStatus lockStatus = cachedManager.getLockStatus("user4", 1, "FunctionalityType4", true);
+            assertTrue(lockStatus.getLockStatus());
+            assertEquals(lockStatus.getLockReason(), "Lock Reason 1");
+            assertTrue(cacheEntries.get(new FunctionalityLockStatusCacheKey("user4", 1, "FunctionalityType4"))
+                    .getLockStatus(System.currentTimeMillis()).getLockStatus());
+
+            cachedManager.unlock("user4", 1, "FunctionalityType4");
+            assertFalse(cachedManager.getLockStatus("user4", 1, "FunctionalityType4", true).getLockStatus());
+
+            // One read for the first lookup and one by the lock, none for the lookups after the lock and unlock.
+            verify(spyDAO, times(2)).getFunctionalityLockStatus("user4", 1, "FunctionalityType4");
+            assertNull(userFunctionalityManagerDAO.getFunctionalityLockStatus("user4", 1, "FunctionalityType4"));
+        } finally {
+            disableCache();
+        }
+    }
+
     @ObjectFactory
     public IObjectFactory getObjectFactory() {
 
         return new org.powermock.modules.testng.PowerMockObjectFactory();
     }
 
+    /**
+     * Replaces the lock status cache with one backed by a map, as the carbon caching is not available in unit tests.
+     */
+    private Map<FunctionalityLockStatusCacheKey, FunctionalityLockStatusCacheEntry> enableCache() {
+
+        Map<FunctionalityLockStatusCacheKey, FunctionalityLockStatusCacheEntry> cacheEntries =
+                new ConcurrentHashMap<>();
+        FunctionalityLockStatusCache cache = mock(FunctionalityLockStatusCache.class);
+        when(cache.getValueFromCache(any(FunctionalityLockStatusCacheKey.class)))
+                .thenAnswer(invocation -> cacheEntries.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> cacheEntries.put((FunctionalityLockStatusCacheKey) invocation.getArguments()[0],
+                (FunctionalityLockStatusCacheEntry) invocation.getArguments()[1]))
+                .when(cache).addToCache(any(FunctionalityLockStatusCacheKey.class),
+                any(FunctionalityLockStatusCacheEntry.class));
+        doAnswer(invocation -> cacheEntries.remove(invocation.getArguments()[0]))
+                .when(cache).clearCacheEntry(any(FunctionalityLockStatusCacheKey.class));
+        Whitebox.setInternalState(FunctionalityLockStatusCache.class, "instance", cache);
+        return cacheEntries;
+    }
+
+    private void disableCache() {
+
+        Whitebox.setInternalState(FunctionalityLockStatusCache.class, "instance", (Object) null);
+    }
+
     private void mockIsUserStoreManager(String userId) throws UserStoreException {
 
         TestUtils.mockUserFunctionalityManagerComponentDataHolder(userFunctionalityManagerComponentDataHolder);
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.user.functionality.mgt.cache;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.user.functionality.mgt.model.FunctionalityLockStatus;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit test for functionality lock status cache entry.
+ */
+public class FunctionalityLockStatusCacheEntryTest {
+
+    @Test
+    public void testLockResolvedBeforeUnlockTime() {
+
+        long unlockTime = System.currentTimeMillis() + 300000;
+        FunctionalityLockStatusCacheEntry cacheEntry = new FunctionalityLockStatusCacheEntry(
+                new FunctionalityLockStatus(true, unlockTime, "E001", "Lock Reason"));
+
+        FunctionalityLockStatus functionalityLockStatus = cacheEntry.getLockStatus(unlockTime - 1);
+        assertFalse(cacheEntry.isExpired(unlockTime));
+        assertTrue(functionalityLockStatus.getLockStatus());
+        assertEquals(functionalityLockStatus.getUnlockTime(), unlockTime);
+        assertEquals(functionalityLockStatus.getLockReasonCode(), "E001");
+        assertEquals(functionalityLockStatus.getLockReason(), "Lock Reason");
+    }
+
+    @Test
+    public void testLockResolvedAfterUnlockTime() {
+
+        long unlockTime = System.currentTimeMillis() + 300000;
+        FunctionalityLockStatusCacheEntry cacheEntry = new FunctionalityLockStatusCacheEntry(
+                new FunctionalityLockStatus(true, unlockTime, "E001", "Lock Reason"));
+
+        assertTrue(cacheEntry.isExpired(unlockTime + 1));
+        assertSame(cacheEntry.getLockStatus(unlockTime + 1), FunctionalityLockStatus.UNLOCKED_STATUS);
+    }
+
+    @Test
+    public void testMissingMappingResolvedAsUnlocked() {
+
+        FunctionalityLockStatusCacheEntry cacheEntry = new FunctionalityLockStatusCacheEntry(null);
+
+        assertSame(cacheEntry.getLockStatus(System.currentTimeMillis()), FunctionalityLockStatus.UNLOCKED_STATUS);
+    }
+
+    @Test
+    public void testUnlockedEntryIsReloadedAfterTimeout() {
+
+        long createdTime = System.currentTimeMillis();
+        FunctionalityLockStatusCacheEntry unlockedEntry = new FunctionalityLockStatusCacheEntry(null, createdTime);
+        FunctionalityLockStatusCacheEntry lockedEntry = new FunctionalityLockStatusCacheEntry(
+                new FunctionalityLockStatus(true, Long.MAX_VALUE, "E002", "Lock Reason"), createdTime);
+
+        assertFalse(unlockedEntry.isStale(createdTime + 1000));
+        assertTrue(unlockedEntry.isStale(createdTime + 60000));
+        assertFalse(lockedEntry.isStale(createdTime + 60000));
+    }
+
+    @Test
+    public void testIndefiniteLock() {
+
+        FunctionalityLockStatusCacheEntry cacheEntry = new FunctionalityLockStatusCacheEntry(
+                new FunctionalityLockStatus(true, Long.MAX_VALUE, "E002", "Lock Reason"));
+
+        assertTrue(cacheEntry.getLockStatus(System.currentTimeMillis()).getLockStatus());
+    }
+
+    @Test
+    public void testCacheKeyIsTenantScoped() {
+
+        assertEquals(new FunctionalityLockStatusCacheKey("user1", 1, "Functionality1"),
+                new FunctionalityLockStatusCacheKey("user1", 1, "Functionality1"));
+        assertNotEquals(new FunctionalityLockStatusCacheKey("user1", 1, "Functionality1"),
+                new FunctionalityLockStatusCacheKey("user1", 2, "Functionality1"));
+    }
+}
@@ -343,6 +343,40 @@ public class UserFunctionalityManagerDAOImplTest extends PowerMockTestCase {
         }
     }
 
+    @Test
+    public void testDeleteExpiredMappings() {
+
+        DataSource dataSource = mock(DataSource.class);
+        TestUtils.mockDataSource(dataSource);
+        long currentTime = System.currentTimeMillis();
+        try (Connection connection = TestUtils.getConnection()) {
+            Connection spyConnection = TestUtils.spyConnection(connection);
+            when(dataSource.getConnection()).thenReturn(spyConnection);
+            try {
+                userFunctionalityManagerDAO.addFunctionalityLock("user1", 1, "functionality1",
+                        new FunctionalityLockStatus(true, currentTime - 1000, "E001", "Lock reason"));
+                userFunctionalityManagerDAO.addFunctionalityLock("user2", 2, "functionality1",
+                        new FunctionalityLockStatus(false, 0, null, null));
+                userFunctionalityManagerDAO.addFunctionalityLock("user3", 1, "functionality1",
+                        new FunctionalityLockStatus(true, currentTime + 300000, "E001", "Lock reason"));
+                userFunctionalityManagerDAO.addFunctionalityLock("user4", 1, "functionality1",
+                        new FunctionalityLockStatus(true, Long.MAX_VALUE, "E001", "Lock reason"));
+                userFunctionalityManagerDAO.deleteExpiredMappings(currentTime);
+
+                assertNull(userFunctionalityManagerDAO.getFunctionalityLockStatus("user1", 1, "functionality1"));
+                assertNull(userFunctionalityManagerDAO.getFunctionalityLockStatus("user2", 2, "functionality1"));
+                assertEquals(userFunctionalityManagerDAO.getFunctionalityLockStatus("user3", 1, "functionality1")
+                        .getUnlockTime(), currentTime + 300000);
+                assertEquals(userFunctionalityManagerDAO.getFunctionalityLockStatus("user4", 1, "functionality1")
+                        .getUnlockTime(), Long.MAX_VALUE);
+            } catch (UserFunctionalityManagementServerException e) {
+                log.error("FunctionalityManagementServer Exception", e);
+            }
+        } catch (SQLException e) {
+            //Mock behaviour. Hence ignored.
+        }
+    }
+
     @ObjectFactory
     public IObjectFactory getObjectFactory() {
 
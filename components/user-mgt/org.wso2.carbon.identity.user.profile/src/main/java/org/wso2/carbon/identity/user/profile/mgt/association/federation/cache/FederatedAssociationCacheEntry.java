@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.user.profile.mgt.association.federation.cache;
+
+import java.io.Serializable;
+
+/**
+ * Cache entry of the {@link FederatedAssociationCache}, holding the user store domain qualified name of the local user
+ * associated with a federated identity.
+ */
+public class FederatedAssociationCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 3391802768425467213L;
+
+    private final String username;
+
+    public FederatedAssociationCacheEntry(String username) {
+
+        this.username = username;
+    }
+
+    public String getUsername() {
+
+        return username;
+    }
+}
@@ -21,6 +21,8 @@ import org.wso2.carbon.identity.application.common.util.IdentityApplicationManag
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.user.profile.mgt.AssociatedAccountDTO;
 import org.wso2.carbon.identity.user.profile.mgt.UserProfileException;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.cache.FederatedAssociationCache;
+import org.wso2.carbon.identity.user.profile.mgt.association.federation.cache.FederatedAssociationCacheKey;
 import org.wso2.carbon.identity.user.profile.mgt.util.Constants;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
@@ -57,6 +59,8 @@ public class UserProfileMgtDAO {
             preparedStatement.setInt(3, tenantId);
             preparedStatement.executeUpdate();
             IdentityDatabaseUtil.commitTransaction(dbConnection);
+            // Cached associations hold the domain qualified name of the user.
+            FederatedAssociationCache.getInstance().clear();
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollbackTransaction(dbConnection);
             throw new UserProfileException(String.format("Database error occurred while updating user domain of " +
@@ -79,6 +83,7 @@ public class UserProfileMgtDAO {
             preparedStatement.setString(2, domainName);
             preparedStatement.executeUpdate();
             IdentityDatabaseUtil.commitTransaction(dbConnection);
+            FederatedAssociationCache.getInstance().clear();
 
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollbackTransaction(dbConnection);
@@ -153,6 +158,7 @@ public class UserProfileMgtDAO {
 
                 prepStmt.executeUpdate();
                 IdentityDatabaseUtil.commitTransaction(connection);
+                clearAssociationCacheEntry(tenantId, idpId, federatedUserId);
             } catch (SQLException e1) {
                 IdentityDatabaseUtil.rollbackTransaction(connection);
                 throw new UserProfileException("Error occurred while removing account association entry of user: " +
@@ -177,6 +183,8 @@ public class UserProfileMgtDAO {
     public void deleteFederatedAssociation(int tenantId, String userStoreDomain, String username)
             throws UserProfileException {
 
+        List<AssociatedAccountDTO> associatedAccounts = getAssociatedFederatedAccountsForUser(tenantId,
+                userStoreDomain, username);
         try (Connection connection = IdentityDatabaseUtil.getDBConnection()) {
             try (PreparedStatement prepStmt = connection.prepareStatement(
                     Constants.SQLQueries.DELETE_ALL_ASSOCIATIONS_FOR_USER)) {
@@ -185,6 +193,10 @@ public class UserProfileMgtDAO {
                 prepStmt.setString(3, username);
                 prepStmt.executeUpdate();
                 IdentityDatabaseUtil.commitTransaction(connection);
+                for (AssociatedAccountDTO associatedAccount : associatedAccounts) {
+                    clearAssociationCacheEntry(tenantId, associatedAccount.getIdentityProviderName(),
+                            associatedAccount.getUsername());
+                }
             } catch (SQLException e1) {
                 IdentityDatabaseUtil.rollbackTransaction(connection);
                 throw new UserProfileException("Error occurred while removing federated association entries of user: " +
@@ -209,6 +221,23 @@ public class UserProfileMgtDAO {
             throws UserProfileException {
 
         try (Connection connection = IdentityDatabaseUtil.getDBConnection()) {
+            FederatedAssociationCacheKey cacheKey = null;
+            try (PreparedStatement prepStmt = connection.prepareStatement(
+                    Constants.SQLQueries.RETRIEVE_ASSOCIATION_FOR_USER_BY_ID)) {
+                prepStmt.setString(1, userStoreDomain);
+                prepStmt.setString(2, username);
+                prepStmt.setString(3, federatedAssociationId);
+                try (ResultSet resultSet = prepStmt.executeQuery()) {
+                    if (resultSet.next()) {
+                        cacheKey = new FederatedAssociationCacheKey(resultSet.getInt("TENANT_ID"),
+                                resultSet.getString("NAME"), resultSet.getString("IDP_USER_ID"));
+                    }
+                }
+            } catch (SQLException e1) {
+                throw new UserProfileException("Error occurred while retrieving federated association: "
+                        + federatedAssociationId + ", for the user: " + username + ", in the user store " +
+                        "domain: " + userStoreDomain, e1);
+            }
             try (PreparedStatement prepStmt = connection.prepareStatement(
                     Constants.SQLQueries.DELETE_ASSOCIATION_FOR_USER_BY_ID)) {
                 prepStmt.setString(1, userStoreDomain);
@@ -216,6 +245,9 @@ public class UserProfileMgtDAO {
                 prepStmt.setString(3, federatedAssociationId);
                 prepStmt.executeUpdate();
                 IdentityDatabaseUtil.commitTransaction(connection);
+                if (cacheKey != null) {
+                    FederatedAssociationCache.getInstance().clearCacheEntry(cacheKey);
+                }
             } catch (SQLException e1) {
                 IdentityDatabaseUtil.rollbackTransaction(connection);
                 throw new UserProfileException("Error occurred while removing federated association: "
@@ -315,6 +347,12 @@ public class UserProfileMgtDAO {
     }
 
 
+    private void clearAssociationCacheEntry(int tenantId, String idpName, String federatedUserId) {
+
+        FederatedAssociationCache.getInstance().clearCacheEntry(new FederatedAssociationCacheKey(tenantId, idpName,
+                federatedUserId));
+    }
+
     private static class LazyHolder {
 
         private static final UserProfileMgtDAO INSTANCE = new UserProfileMgtDAO();
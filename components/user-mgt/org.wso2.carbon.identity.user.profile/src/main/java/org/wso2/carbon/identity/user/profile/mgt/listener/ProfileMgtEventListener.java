@@ -24,17 +24,15 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityValidationUtil;
 import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
-import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.user.profile.mgt.UserProfileException;
+import org.wso2.carbon.identity.user.profile.mgt.dao.UserProfileMgtDAO;
 import org.wso2.carbon.identity.user.profile.mgt.util.ServiceHodler;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
 import java.util.Map;
 
 public class ProfileMgtEventListener extends AbstractIdentityUserOperationEventListener {
@@ -134,8 +132,6 @@ public class ProfileMgtEventListener extends AbstractIdentityUserOperationEventL
             return;
         }
 
-        String sql = "DELETE FROM IDN_ASSOCIATED_ID WHERE USER_NAME=? AND DOMAIN_NAME=? AND TENANT_ID=?";
-
         String tenantDomain = IdentityTenantUtil.getTenantDomain(tenantId);
         // get tenant domain and user store domain appended username for logging
         String fullyQualifiedUsername = getFullQualifiedUsername(tenantAwareUsername, userStoreDomain, tenantDomain);
@@ -143,21 +139,13 @@ public class ProfileMgtEventListener extends AbstractIdentityUserOperationEventL
             log.debug("Deleting federated IDP user account associations of user:" + fullyQualifiedUsername);
         }
 
-        try (Connection connection = IdentityDatabaseUtil.getDBConnection()) {
-            try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
-                prepStmt.setString(1, tenantAwareUsername);
-                prepStmt.setString(2, userStoreDomain);
-                prepStmt.setInt(3, tenantId);
-                prepStmt.executeUpdate();
-                IdentityDatabaseUtil.commitTransaction(connection);
-            } catch (SQLException e1) {
-                IdentityDatabaseUtil.rollbackTransaction(connection);
-                throw new UserStoreException(String.format("Error when trying to delete the federated IDP user "
-                        + "account associations of user:%s", fullyQualifiedUsername), e1);
-            }
-        } catch (SQLException e) {
-            String msg = "Error when trying to delete the federated IDP user account associations of user:%s";
-            throw new UserStoreException(String.format(msg, fullyQualifiedUsername), e);
+        try {
+            // Deleting through the DAO also removes the associations from the federated association cache.
+            UserProfileMgtDAO.getInstance().deleteFederatedAssociation(tenantId, userStoreDomain,
+                    tenantAwareUsername);
+        } catch (UserProfileException e) {
+            throw new UserStoreException(String.format("Error when trying to delete the federated IDP user "
+                    + "account associations of user:%s", fullyQualifiedUsername), e);
         }
     }
 
@@ -45,6 +45,10 @@ public class Constants {
         public static final String DELETE_ASSOCIATION_FOR_USER_BY_ID = "DELETE FROM IDN_ASSOCIATED_ID " +
                 "WHERE DOMAIN_NAME = ? AND USER_NAME = ? AND ASSOCIATION_ID = ?";
 
+        public static final String RETRIEVE_ASSOCIATION_FOR_USER_BY_ID = "SELECT IDN_ASSOCIATED_ID.TENANT_ID, " +
+                "IDP.NAME, IDP_USER_ID FROM IDN_ASSOCIATED_ID JOIN IDP ON IDN_ASSOCIATED_ID.IDP_ID = IDP.ID " +
+                "WHERE DOMAIN_NAME = ? AND USER_NAME = ? AND ASSOCIATION_ID = ?";
+
         public static final String RETRIEVE_ASSOCIATIONS_FOR_USER = "SELECT IDP.NAME, IDP_USER_ID, ASSOCIATION_ID " +
                 "FROM IDN_ASSOCIATED_ID JOIN IDP ON IDN_ASSOCIATED_ID.IDP_ID = IDP.ID " +
                 "WHERE IDN_ASSOCIATED_ID.TENANT_ID = ? AND USER_NAME = ? AND DOMAIN_NAME = ?";
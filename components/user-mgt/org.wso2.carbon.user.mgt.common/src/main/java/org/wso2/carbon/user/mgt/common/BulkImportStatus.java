@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.user.mgt.common;
+
+/**
+ * Progress of an asynchronous bulk user import job. Row numbers count the data rows of the file, the header row
+ * excluded, starting from one.
+ */
+public class BulkImportStatus {
+
+    private String jobId;
+    private String status;
+    private String userStoreDomain;
+    private String fileName;
+    private long startTime;
+    private long endTime;
+    private int processedCount;
+    private int successCount;
+    private int failedCount;
+    private int duplicateCount;
+    private int lastCompletedRow;
+    private String[] duplicateUsers = new String[0];
+    private BulkImportFailure[] failures = new BulkImportFailure[0];
+
+    public String getJobId() {
+
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+
+        return status;
+    }
+
+    public void setStatus(String status) {
+
+        this.status = status;
+    }
+
+    public String getUserStoreDomain() {
+
+        return userStoreDomain;
+    }
+
+    public void setUserStoreDomain(String userStoreDomain) {
+
+        this.userStoreDomain = userStoreDomain;
+    }
+
+    public String getFileName() {
+
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+
+        this.fileName = fileName;
+    }
+
+    public long getStartTime() {
+
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+
+        this.startTime = startTime;
+    }
+
+    public long getEndTime() {
+
+        return endTime;
+    }
+
+    public void setEndTime(long endTime) {
+
+        this.endTime = endTime;
+    }
+
+    public int getProcessedCount() {
+
+        return processedCount;
+    }
+
+    public void setProcessedCount(int processedCount) {
+
+        this.processedCount = processedCount;
+    }
+
+    public int getSuccessCount() {
+
+        return successCount;
+    }
+
+    public void setSuccessCount(int successCount) {
+
+        this.successCount = successCount;
+    }
+
+    public int getFailedCount() {
+
+        return failedCount;
+    }
+
+    public void setFailedCount(int failedCount) {
+
+        this.failedCount = failedCount;
+    }
+
+    public int getDuplicateCount() {
+
+        return duplicateCount;
+    }
+
+    public void setDuplicateCount(int duplicateCount) {
+
+        this.duplicateCount = duplicateCount;
+    }
+
+    /**
+     * Rows up to and including this one have been fully processed. A resumed job starts after this row.
+     *
+     * @return Last completed row number.
+     */
+    public int getLastCompletedRow() {
+
+        return lastCompletedRow;
+    }
+
+    public void setLastCompletedRow(int lastCompletedRow) {
+
+        this.lastCompletedRow = lastCompletedRow;
+    }
+
+    public String[] getDuplicateUsers() {
+
+        return duplicateUsers.clone();
+    }
+
+    public void setDuplicateUsers(String[] duplicateUsers) {
+
+        this.duplicateUsers = duplicateUsers == null ? new String[0] : duplicateUsers.clone();
+    }
+
+    public BulkImportFailure[] getFailures() {
+
+        return failures.clone();
+    }
+
+    public void setFailures(BulkImportFailure[] failures) {
+
+        this.failures = failures == null ? new BulkImportFailure[0] : failures.clone();
+    }
+}
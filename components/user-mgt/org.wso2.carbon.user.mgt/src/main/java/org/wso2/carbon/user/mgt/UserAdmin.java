@@ -34,6 +34,7 @@ import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserRealm;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
+import org.wso2.carbon.user.mgt.common.BulkImportStatus;
 import org.wso2.carbon.user.mgt.common.ClaimValue;
 import org.wso2.carbon.user.mgt.common.FlaggedName;
 import org.wso2.carbon.user.mgt.common.UIPermissionNode;
@@ -568,6 +569,64 @@ public class UserAdmin {
 
     }
 
+    /**
+     * Starts importing the users of the file in the background.
+     *
+     * @param userStoreDomain User store domain. The primary user store if not given.
+     * @param fileName        Name of the CSV or Excel file.
+     * @param handler         Content of the file.
+     * @return Id of the import job, to be used to get its status.
+     * @throws UserAdminException If the file can not be read or the job can not be queued.
+     */
+    public String startBulkImportUsers(String userStoreDomain, String fileName, DataHandler handler)
+            throws UserAdminException {
+
+        if (fileName == null || handler == null) {
+            throw new UserAdminException("Required data not provided");
+        }
+        if (StringUtils.isEmpty(userStoreDomain)) {
+            userStoreDomain = IdentityUtil.getPrimaryDomainName();
+        }
+        try {
+            return getUserAdminProxy().startBulkImportUsers(userStoreDomain, fileName, handler.getInputStream());
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            throw new UserAdminException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Resumes a failed import job. The file must be the one the job was started with.
+     *
+     * @param jobId    Id of the failed job.
+     * @param fileName Name of the CSV or Excel file.
+     * @param handler  Content of the file.
+     * @throws UserAdminException If the job can not be resumed.
+     */
+    public void resumeBulkImportUsers(String jobId, String fileName, DataHandler handler)
+            throws UserAdminException {
+
+        if (jobId == null || fileName == null || handler == null) {
+            throw new UserAdminException("Required data not provided");
+        }
+        try {
+            getUserAdminProxy().resumeBulkImportUsers(jobId, fileName, handler.getInputStream());
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            throw new UserAdminException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param jobId Id of an import job of the tenant.
+     * @return Progress, counts and failed rows of the job.
+     * @throws UserAdminException If the job does not exist.
+     */
+    public BulkImportStatus getBulkImportStatus(String jobId) throws UserAdminException {
+
+        return getUserAdminProxy().getBulkImportStatus(jobId);
+    }
+
     /**
      * @param oldPassword
      * @param newPassword
@@ -46,6 +46,7 @@ public class UserMgtConstants {
     // Constants for log messages
     public static final String OPERATION_NAME = "bulk_user_import";
     public static final String OPERATION = "operation";
+    public static final String JOB_ID = "jobId";
     public static final String PERFORMED_BY = "performedBy";
     public static final String USER_STORE = "userStore";
     public static final String SUCCESS_COUNT = "successCount";
@@ -58,5 +59,12 @@ public class UserMgtConstants {
     public static final String AUDIT_LOG_FORMAT = "Initiator : %s | Action : %s | Target : %s | Data : %s | Result : %s";
     public static final String ERROR_MESSAGE = "Bulk User Import was completed with Errors. Success count : %d,  " +
             "Failed Count : %d, Duplicate Count : %d.";
+    public static final String BULK_IMPORT_BATCH_RESULT = "Job : %s, Rows : %d - %d";
+    public static final String BULK_IMPORT_JOB_DATA = "Job : %s, File : %s, Status : %s";
+
+    // identity.xml properties of the bulk user import
+    public static final String BULK_IMPORT_PARALLELISM = "UserBulkImport.Parallelism";
+    public static final String BULK_IMPORT_BATCH_SIZE = "UserBulkImport.BatchSize";
+    public static final String BULK_IMPORT_MAX_CONCURRENT_JOBS = "UserBulkImport.MaxConcurrentJobs";
     // component xml constants
 }
@@ -46,9 +46,13 @@ import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.jdbc.JDBCUserStoreManager;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.user.mgt.bulkimport.BulkImportConfig;
+import org.wso2.carbon.user.mgt.bulkimport.BulkImportJob;
+import org.wso2.carbon.user.mgt.bulkimport.BulkImportJobManager;
 import org.wso2.carbon.user.mgt.bulkimport.CSVUserBulkImport;
 import org.wso2.carbon.user.mgt.bulkimport.ExcelUserBulkImport;
 import org.wso2.carbon.user.mgt.bulkimport.UserBulkImport;
+import org.wso2.carbon.user.mgt.cache.UIPermissionTreeCache;
+import org.wso2.carbon.user.mgt.common.BulkImportStatus;
 import org.wso2.carbon.user.mgt.common.ClaimValue;
 import org.wso2.carbon.user.mgt.common.FlaggedName;
 import org.wso2.carbon.user.mgt.common.UIPermissionNode;
@@ -57,6 +61,7 @@ import org.wso2.carbon.user.mgt.common.UserRealmInfo;
 import org.wso2.carbon.user.mgt.common.UserStoreInfo;
 import org.wso2.carbon.user.mgt.internal.UserMgtDSComponent;
 import org.wso2.carbon.user.mgt.permission.ManagementPermissionUtil;
+import org.wso2.carbon.user.mgt.permission.UIPermissionTreeNode;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
@@ -2014,54 +2019,13 @@ public class UserRealmProxy {
     public UIPermissionNode getAllUIPermissions(int tenantId)
             throws UserAdminException {
 
-        UIPermissionNode nodeRoot;
-        Collection regRoot;
-        Collection parent = null;
-        Registry tenentRegistry = null;
-
         try {
-            Registry registry = UserMgtDSComponent.getRegistryService().getGovernanceSystemRegistry();
-            if (tenantId == MultitenantConstants.SUPER_TENANT_ID) {
-                if (CarbonContext.getThreadLocalCarbonContext().getTenantId() != MultitenantConstants.SUPER_TENANT_ID) {
-                    log.error("Illegal access attempt");
-                    throw new UserStoreException("Illegal access attempt");
-                }
-                regRoot = (Collection) registry.get(UserMgtConstants.UI_PERMISSION_ROOT);
-                String displayName = regRoot.getProperty(UserMgtConstants.DISPLAY_NAME);
-                nodeRoot = new UIPermissionNode(UserMgtConstants.UI_PERMISSION_ROOT, displayName);
-            } else {
-
-                regRoot = (Collection) registry.get(UserMgtConstants.UI_ADMIN_PERMISSION_ROOT);
-
-                tenentRegistry = UserMgtDSComponent.getRegistryService().getGovernanceSystemRegistry(tenantId);
-                Collection appRoot;
-
-                if (tenentRegistry.resourceExists(APPLICATIONS_PATH)) {
-                    appRoot = (Collection) tenentRegistry.get(APPLICATIONS_PATH);
-                    parent = (Collection) tenentRegistry.newCollection();
-                    parent.setProperty(UserMgtConstants.DISPLAY_NAME, "All Permissions");
-                    parent.setChildren(new String[]{regRoot.getPath(), appRoot.getPath()});
-                }
-
-                String displayName = null;
-
-                if (parent != null) {
-                    displayName = parent.getProperty(UserMgtConstants.DISPLAY_NAME);
-                } else {
-                    displayName = regRoot.getProperty(UserMgtConstants.DISPLAY_NAME);
-                }
-
-                nodeRoot = new UIPermissionNode(UserMgtConstants.UI_ADMIN_PERMISSION_ROOT,
-                        displayName);
+            if (tenantId == MultitenantConstants.SUPER_TENANT_ID &&
+                    CarbonContext.getThreadLocalCarbonContext().getTenantId() != MultitenantConstants.SUPER_TENANT_ID) {
+                log.error("Illegal access attempt");
+                throw new UserStoreException("Illegal access attempt");
             }
-
-            if (parent != null) {
-                buildUIPermissionNode(parent, nodeRoot, registry, tenentRegistry, null, null, null);
-            } else {
-                buildUIPermissionNode(regRoot, nodeRoot, registry, tenentRegistry, null, null, null);
-            }
-
-            return nodeRoot;
+            return getUIPermissionTree(tenantId).toUIPermissionNode();
         } catch (UserStoreException e) {
             // previously logged so logging not needed
             throw new UserAdminException(e.getMessage(), e);
@@ -2073,52 +2037,9 @@ public class UserRealmProxy {
 
     public UIPermissionNode getRolePermissions(String roleName, int tenantId)
             throws UserAdminException {
-        UIPermissionNode nodeRoot;
-        Collection regRoot;
-        Collection parent = null;
-        Registry tenentRegistry = null;
 
         try {
-            Registry registry = UserMgtDSComponent.getRegistryService().getGovernanceSystemRegistry();
-            if (tenantId == MultitenantConstants.SUPER_TENANT_ID) {
-                regRoot = (Collection) registry.get(UserMgtConstants.UI_PERMISSION_ROOT);
-                String displayName = regRoot.getProperty(UserMgtConstants.DISPLAY_NAME);
-                nodeRoot = new UIPermissionNode(UserMgtConstants.UI_PERMISSION_ROOT, displayName);
-            } else {
-
-                regRoot = (Collection) registry.get(UserMgtConstants.UI_ADMIN_PERMISSION_ROOT);
-
-                tenentRegistry = UserMgtDSComponent.getRegistryService().getGovernanceSystemRegistry(tenantId);
-                Collection appRoot;
-
-                if (tenentRegistry.resourceExists(APPLICATIONS_PATH)) {
-                    appRoot = (Collection) tenentRegistry.get(APPLICATIONS_PATH);
-                    parent = (Collection) tenentRegistry.newCollection();
-                    parent.setProperty(UserMgtConstants.DISPLAY_NAME, "All Permissions");
-                    parent.setChildren(new String[]{regRoot.getPath(), appRoot.getPath()});
-                }
-
-                String displayName = null;
-
-                if (parent != null) {
-                    displayName = parent.getProperty(UserMgtConstants.DISPLAY_NAME);
-                } else {
-                    displayName = regRoot.getProperty(UserMgtConstants.DISPLAY_NAME);
-                }
-
-                nodeRoot = new UIPermissionNode(UserMgtConstants.UI_ADMIN_PERMISSION_ROOT,
-                        displayName);
-            }
-
-            if (parent != null) {
-                buildUIPermissionNode(parent, nodeRoot, registry, tenentRegistry,
-                        realm.getAuthorizationManager(), roleName, null);
-            } else {
-                buildUIPermissionNode(regRoot, nodeRoot, registry, tenentRegistry,
-                        realm.getAuthorizationManager(), roleName, null);
-            }
-
-            return nodeRoot;
+            return getUIPermissionTree(tenantId).toUIPermissionNode(realm.getAuthorizationManager(), roleName);
         } catch (UserStoreException e) {
             // previously logged so logging not needed
             throw new UserAdminException(e.getMessage(), e);
@@ -2183,26 +2104,10 @@ public class UserRealmProxy {
     public void bulkImportUsers(String userStoreDomain, String fileName, InputStream inStream, String defaultPassword)
             throws UserAdminException {
         try {
-            BulkImportConfig config = new BulkImportConfig(inStream, fileName);
-            if (defaultPassword != null && defaultPassword.trim().length() > 0) {
-                config.setDefaultPassword(defaultPassword.trim());
-            }
-            if (StringUtils.isNotEmpty(userStoreDomain)) {
-                config.setUserStoreDomain(userStoreDomain);
-            }
-
+            BulkImportConfig config = createBulkImportConfig(userStoreDomain, fileName, inStream, defaultPassword);
             UserStoreManager userStore = this.realm.getUserStoreManager();
             userStore = userStore.getSecondaryUserStoreManager(userStoreDomain);
-
-            if (fileName.endsWith("csv")) {
-                UserBulkImport csvAdder = new CSVUserBulkImport(config);
-                csvAdder.addUserList(userStore);
-            } else if (fileName.endsWith("xls") || fileName.endsWith("xlsx")) {
-                UserBulkImport excelAdder = new ExcelUserBulkImport(config);
-                excelAdder.addUserList(userStore);
-            } else {
-                throw new UserAdminException("Unsupported format");
-            }
+            createBulkImport(config).addUserList(userStore);
         } catch (UserStoreException e) {
             // previously logged so logging not needed
             throw new UserAdminException(e.getMessage(), e);
@@ -2210,6 +2115,93 @@ public class UserRealmProxy {
 
     }
 
+    /**
+     * Starts importing the users of the file in the background.
+     *
+     * @param userStoreDomain User store domain to import the users to.
+     * @param fileName        Name of the CSV or Excel file.
+     * @param inStream        Content of the file.
+     * @return Id of the import job.
+     * @throws UserAdminException If the file format is not supported or the job can not be queued.
+     */
+    public String startBulkImportUsers(String userStoreDomain, String fileName, InputStream inStream)
+            throws UserAdminException {
+
+        try {
+            BulkImportConfig config = createBulkImportConfig(userStoreDomain, fileName, inStream, null);
+            UserStoreManager userStore = this.realm.getUserStoreManager().getSecondaryUserStoreManager(
+                    userStoreDomain);
+            return BulkImportJobManager.getInstance().submit(createBulkImport(config), userStore).getJobId();
+        } catch (UserStoreException e) {
+            throw new UserAdminException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Resumes a failed import job from the row after its last checkpoint.
+     *
+     * @param jobId    Id of the failed job.
+     * @param fileName Name of the file the job was started with.
+     * @param inStream Content of the same file.
+     * @throws UserAdminException If the job does not exist, is not failed or can not be queued.
+     */
+    public void resumeBulkImportUsers(String jobId, String fileName, InputStream inStream)
+            throws UserAdminException {
+
+        BulkImportJob job = BulkImportJobManager.getInstance().getJob(jobId);
+        if (job == null) {
+            throw new UserAdminException("Bulk user import job: " + jobId + " does not exist");
+        }
+        try {
+            BulkImportConfig config = createBulkImportConfig(job.getUserStoreDomain(), fileName, inStream, null);
+            UserStoreManager userStore = this.realm.getUserStoreManager().getSecondaryUserStoreManager(
+                    job.getUserStoreDomain());
+            BulkImportJobManager.getInstance().resume(jobId, createBulkImport(config), userStore);
+        } catch (UserStoreException e) {
+            throw new UserAdminException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the progress of an import job of the tenant.
+     *
+     * @param jobId Job id.
+     * @return Status of the job.
+     * @throws UserAdminException If the job does not exist.
+     */
+    public BulkImportStatus getBulkImportStatus(String jobId) throws UserAdminException {
+
+        BulkImportJob job = BulkImportJobManager.getInstance().getJob(jobId);
+        if (job == null) {
+            throw new UserAdminException("Bulk user import job: " + jobId + " does not exist");
+        }
+        return job.toStatus();
+    }
+
+    private BulkImportConfig createBulkImportConfig(String userStoreDomain, String fileName, InputStream inStream,
+                                                    String defaultPassword) {
+
+        BulkImportConfig config = new BulkImportConfig(inStream, fileName);
+        if (defaultPassword != null && defaultPassword.trim().length() > 0) {
+            config.setDefaultPassword(defaultPassword.trim());
+        }
+        if (StringUtils.isNotEmpty(userStoreDomain)) {
+            config.setUserStoreDomain(userStoreDomain);
+        }
+        return config;
+    }
+
+    private UserBulkImport createBulkImport(BulkImportConfig config) throws UserAdminException {
+
+        String fileName = config.getFileName();
+        if (fileName.endsWith("csv")) {
+            return new CSVUserBulkImport(config);
+        } else if (fileName.endsWith("xls") || fileName.endsWith("xlsx")) {
+            return new ExcelUserBulkImport(config);
+        }
+        throw new UserAdminException("Unsupported format");
+    }
+
 
     public void changePasswordByUser(String userName, String oldPassword, String newPassword)
             throws UserAdminException {
@@ -2241,66 +2233,60 @@ public class UserRealmProxy {
         }
     }
 
-    private void buildUIPermissionNode(Collection parent, UIPermissionNode parentNode,
-                                       Registry registry, Registry tenantRegistry, AuthorizationManager authMan,
-                                       String roleName, String userName)
-            throws RegistryException, UserStoreException {
-
-        boolean isSelected = false;
-        if (roleName != null) {
-            isSelected = authMan.isRoleAuthorized(roleName, parentNode.getResourcePath(),
-                    UserMgtConstants.EXECUTE_ACTION);
-        } else if (userName != null) {
-            isSelected = authMan.isUserAuthorized(userName, parentNode.getResourcePath(),
-                    UserMgtConstants.EXECUTE_ACTION);
-        }
-        if (isSelected) {
-            buildUIPermissionNodeAllSelected(parent, parentNode, registry, tenantRegistry);
-            parentNode.setSelected(true);
-        } else {
-            buildUIPermissionNodeNotAllSelected(parent, parentNode, registry, tenantRegistry,
-                    authMan, roleName, userName);
-        }
-    }
+    /**
+     * Returns the UI permission tree of the given tenant. The tree is read from the registry on the first request and
+     * served from {@link UIPermissionTreeCache} afterwards.
+     *
+     * @param tenantId Tenant id.
+     * @return Root of the permission tree.
+     * @throws RegistryException If an error occurs while reading the permission resources.
+     */
+    private UIPermissionTreeNode getUIPermissionTree(int tenantId) throws RegistryException {
 
-    private void buildUIPermissionNodeAllSelected(Collection parent, UIPermissionNode parentNode,
-                                                  Registry registry, Registry tenantRegistry) throws RegistryException,
-            UserStoreException {
+        UIPermissionTreeCache cache = UIPermissionTreeCache.getInstance();
+        UIPermissionTreeNode tree = cache.getValueFromCache(tenantId);
+        if (tree != null) {
+            return tree;
+        }
 
-        String[] children = parent.getChildren();
-        UIPermissionNode[] childNodes = new UIPermissionNode[children.length];
-        for (int i = 0; i < children.length; i++) {
-            String child = children[i];
-            Resource resource = null;
+        Collection regRoot;
+        Collection parent = null;
+        Registry tenantRegistry = null;
+        String rootPath;
 
-            if (registry.resourceExists(child)) {
-                resource = registry.get(child);
-            } else if (tenantRegistry != null) {
-                resource = tenantRegistry.get(child);
-            } else {
-                throw new RegistryException("Permission resource not found in the registry.");
-            }
+        Registry registry = UserMgtDSComponent.getRegistryService().getGovernanceSystemRegistry();
+        if (tenantId == MultitenantConstants.SUPER_TENANT_ID) {
+            regRoot = (Collection) registry.get(UserMgtConstants.UI_PERMISSION_ROOT);
+            rootPath = UserMgtConstants.UI_PERMISSION_ROOT;
+        } else {
+            regRoot = (Collection) registry.get(UserMgtConstants.UI_ADMIN_PERMISSION_ROOT);
+            tenantRegistry = UserMgtDSComponent.getRegistryService().getGovernanceSystemRegistry(tenantId);
 
-            childNodes[i] = getUIPermissionNode(resource, true);
-            if (resource instanceof Collection) {
-                buildUIPermissionNodeAllSelected((Collection) resource, childNodes[i], registry,
-                        tenantRegistry);
+            if (tenantRegistry.resourceExists(APPLICATIONS_PATH)) {
+                Collection appRoot = (Collection) tenantRegistry.get(APPLICATIONS_PATH);
+                parent = (Collection) tenantRegistry.newCollection();
+                parent.setProperty(UserMgtConstants.DISPLAY_NAME, "All Permissions");
+                parent.setChildren(new String[]{regRoot.getPath(), appRoot.getPath()});
             }
+            rootPath = UserMgtConstants.UI_ADMIN_PERMISSION_ROOT;
         }
-        parentNode.setNodeList(childNodes);
+
+        Collection root = parent != null ? parent : regRoot;
+        tree = new UIPermissionTreeNode(rootPath, root.getProperty(UserMgtConstants.DISPLAY_NAME),
+                buildUIPermissionTreeNodes(root, registry, tenantRegistry));
+        cache.addToCache(tenantId, tree);
+        return tree;
     }
 
-    private void buildUIPermissionNodeNotAllSelected(Collection parent, UIPermissionNode parentNode,
-                                                     Registry registry, Registry tenantRegistry,
-                                                     AuthorizationManager authMan, String roleName, String userName)
-            throws RegistryException, UserStoreException {
+    private UIPermissionTreeNode[] buildUIPermissionTreeNodes(Collection parent, Registry registry,
+                                                              Registry tenantRegistry) throws RegistryException {
 
         String[] children = parent.getChildren();
-        UIPermissionNode[] childNodes = new UIPermissionNode[children.length];
+        UIPermissionTreeNode[] childNodes = new UIPermissionTreeNode[children.length];
 
         for (int i = 0; i < children.length; i++) {
             String child = children[i];
-            Resource resource = null;
+            Resource resource;
 
             if (tenantRegistry != null && child.startsWith("/permission/applications")) {
                 resource = tenantRegistry.get(child);
@@ -2310,27 +2296,14 @@ public class UserRealmProxy {
                 throw new RegistryException("Permission resource not found in the registry.");
             }
 
-            boolean isSelected = false;
-            if (roleName != null) {
-                isSelected = authMan.isRoleAuthorized(roleName, child,
-                        UserMgtConstants.EXECUTE_ACTION);
-            } else if (userName != null) {
-                isSelected = authMan.isUserAuthorized(userName, child,
-                        UserMgtConstants.EXECUTE_ACTION);
-            }
-            childNodes[i] = getUIPermissionNode(resource, isSelected);
+            UIPermissionTreeNode[] grandChildren = null;
             if (resource instanceof Collection) {
-                buildUIPermissionNodeNotAllSelected((Collection) resource, childNodes[i],
-                        registry, tenantRegistry, authMan, roleName, userName);
+                grandChildren = buildUIPermissionTreeNodes((Collection) resource, registry, tenantRegistry);
             }
+            childNodes[i] = new UIPermissionTreeNode(resource.getPath(),
+                    resource.getProperty(UserMgtConstants.DISPLAY_NAME), grandChildren);
         }
-        parentNode.setNodeList(childNodes);
-    }
-
-    private UIPermissionNode getUIPermissionNode(Resource resource,
-                                                 boolean isSelected) throws RegistryException {
-        String displayName = resource.getProperty(UserMgtConstants.DISPLAY_NAME);
-        return new UIPermissionNode(resource.getPath(), displayName, isSelected);
+        return childNodes;
     }
 
     /**
@@ -2445,115 +2418,14 @@ public class UserRealmProxy {
      */
     public UIPermissionNode getRolePermissions(List<String> roleNames, int tenantId) throws UserAdminException {
 
-        UIPermissionNode nodeRoot;
-        Collection regRoot;
-        Collection parent = null;
-        Registry tenantRegistry = null;
-
         try {
-            Registry registry = UserMgtDSComponent.getRegistryService().getGovernanceSystemRegistry();
-            if (tenantId == MultitenantConstants.SUPER_TENANT_ID) {
-                regRoot = (Collection) registry.get(UserMgtConstants.UI_PERMISSION_ROOT);
-                String displayName = regRoot.getProperty(UserMgtConstants.DISPLAY_NAME);
-                nodeRoot = new UIPermissionNode(UserMgtConstants.UI_PERMISSION_ROOT, displayName);
-            } else {
-                regRoot = (Collection) registry.get(UserMgtConstants.UI_ADMIN_PERMISSION_ROOT);
-                tenantRegistry = UserMgtDSComponent.getRegistryService().getGovernanceSystemRegistry(tenantId);
-                Collection appRoot;
-
-                if (tenantRegistry.resourceExists(APPLICATIONS_PATH)) {
-                    appRoot = (Collection) tenantRegistry.get(APPLICATIONS_PATH);
-                    parent = (Collection) tenantRegistry.newCollection();
-                    parent.setProperty(UserMgtConstants.DISPLAY_NAME, "All Permissions");
-                    parent.setChildren(new String[] { regRoot.getPath(), appRoot.getPath() });
-                }
-
-                String displayName;
-                if (parent != null) {
-                    displayName = parent.getProperty(UserMgtConstants.DISPLAY_NAME);
-                } else {
-                    displayName = regRoot.getProperty(UserMgtConstants.DISPLAY_NAME);
-                }
-                nodeRoot = new UIPermissionNode(UserMgtConstants.UI_ADMIN_PERMISSION_ROOT, displayName);
-            }
-
-            if (parent != null) {
-                buildUIPermissionNode(parent, nodeRoot, registry, tenantRegistry, realm.getAuthorizationManager(),
-                        roleNames);
-            } else {
-                buildUIPermissionNode(regRoot, nodeRoot, registry, tenantRegistry, realm.getAuthorizationManager(),
-                        roleNames);
-            }
-            return nodeRoot;
+            return getUIPermissionTree(tenantId).toUIPermissionNode(realm.getAuthorizationManager(), roleNames);
         } catch (UserStoreException | RegistryException e) {
             log.error(e.getMessage(), e);
             throw new UserAdminException(e.getMessage(), e);
         }
     }
 
-    private void buildUIPermissionNode(Collection parent, UIPermissionNode parentNode,
-            Registry registry, Registry tenantRegistry, AuthorizationManager authMan,
-            List<String> roleNames)
-            throws RegistryException, UserStoreException {
-
-        boolean isSelected = false;
-        for (String roleName : roleNames) {
-            if (StringUtils.isNotBlank(roleName)) {
-                if (authMan.isRoleAuthorized(roleName, parentNode.getResourcePath(),
-                        UserMgtConstants.EXECUTE_ACTION)) {
-                    isSelected = true;
-                    break;
-                }
-            }
-        }
-
-        if (isSelected) {
-            buildUIPermissionNodeAllSelected(parent, parentNode, registry, tenantRegistry);
-            parentNode.setSelected(true);
-        } else {
-            buildUIPermissionNodeNotAllSelected(parent, parentNode, registry, tenantRegistry,
-                    authMan, roleNames);
-        }
-    }
-
-    private void buildUIPermissionNodeNotAllSelected(Collection parent, UIPermissionNode parentNode,
-            Registry registry, Registry tenantRegistry,
-            AuthorizationManager authMan, List<String> roleNames)
-            throws RegistryException, UserStoreException {
-
-        String[] children = parent.getChildren();
-        UIPermissionNode[] childNodes = new UIPermissionNode[children.length];
-
-        for (int i = 0; i < children.length; i++) {
-            String child = children[i];
-            Resource resource;
-
-            if (tenantRegistry != null && child.startsWith("/permission/applications")) {
-                resource = tenantRegistry.get(child);
-            } else if (registry.resourceExists(child)) {
-                resource = registry.get(child);
-            } else {
-                throw new RegistryException("Permission resource not found in the registry.");
-            }
-
-            boolean isSelected = false;
-            for (String roleName : roleNames) {
-                if (StringUtils.isNotBlank(roleName)) {
-                    if (authMan.isRoleAuthorized(roleName, child, UserMgtConstants.EXECUTE_ACTION)) {
-                        isSelected = true;
-                        break;
-                    }
-                }
-            }
-            childNodes[i] = getUIPermissionNode(resource, isSelected);
-            if (resource instanceof Collection) {
-                buildUIPermissionNodeNotAllSelected((Collection) resource, childNodes[i],
-                        registry, tenantRegistry, authMan, roleNames);
-            }
-        }
-        parentNode.setNodeList(childNodes);
-    }
-
     /**
      * Get hybrid role list of a group.
      *
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.user.mgt.bulkimport;
+
+import org.wso2.carbon.user.mgt.common.BulkImportFailure;
+import org.wso2.carbon.user.mgt.common.BulkImportStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * State of a bulk user import. Rows are imported in batches and the job is checkpointed after every batch, so a
+ * failed job can be resumed from the first row of the batch it failed in. Counters and reported rows are rolled back
+ * to the checkpoint on resume, while users already added in the unfinished batch are remembered so that they are not
+ * reported as duplicates when the batch is retried.
+ */
+public class BulkImportJob {
+
+    /**
+     * Lifecycle of a bulk import job.
+     */
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, FAILED
+    }
+
+    // Only this many failed and duplicate rows are kept for reporting, the counters are always accurate.
+    static final int MAX_REPORTED_ROWS = 1000;
+
+    private final String jobId;
+    private final int tenantId;
+    private final String tenantDomain;
+    private final String initiator;
+    private final String userStoreDomain;
+    private final String fileName;
+
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+    private volatile String errorMessage;
+    private volatile long startTime;
+    private volatile long endTime;
+
+    private final AtomicInteger processedCount = new AtomicInteger();
+    private final AtomicInteger successCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private final AtomicInteger duplicateCount = new AtomicInteger();
+    private final List<BulkImportFailure> failures = new ArrayList<>();
+    private final List<String> duplicateUsers = new ArrayList<>();
+    private final Set<String> usersAddedSinceCheckpoint = ConcurrentHashMap.newKeySet();
+
+    private volatile Checkpoint checkpoint = new Checkpoint(0, 0, 0, 0, 0, 0, 0);
+
+    public BulkImportJob(String jobId, int tenantId, String tenantDomain, String initiator, String userStoreDomain,
+                         String fileName) {
+
+        this.jobId = jobId;
+        this.tenantId = tenantId;
+        this.tenantDomain = tenantDomain;
+        this.initiator = initiator;
+        this.userStoreDomain = userStoreDomain;
+        this.fileName = fileName;
+    }
+
+    public String getJobId() {
+
+        return jobId;
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    public String getInitiator() {
+
+        return initiator;
+    }
+
+    public String getUserStoreDomain() {
+
+        return userStoreDomain;
+    }
+
+    public String getFileName() {
+
+        return fileName;
+    }
+
+    public Status getStatus() {
+
+        return status.get();
+    }
+
+    public String getErrorMessage() {
+
+        return errorMessage;
+    }
+
+    public long getEndTime() {
+
+        return endTime;
+    }
+
+    public int getProcessedCount() {
+
+        return processedCount.get();
+    }
+
+    public int getSuccessCount() {
+
+        return successCount.get();
+    }
+
+    public int getFailedCount() {
+
+        return failedCount.get();
+    }
+
+    public int getDuplicateCount() {
+
+        return duplicateCount.get();
+    }
+
+    public int getLastCompletedRow() {
+
+        return checkpoint.row;
+    }
+
+    public boolean isFinished() {
+
+        Status current = status.get();
+        return current != Status.QUEUED && current != Status.RUNNING;
+    }
+
+    public boolean hasErrors() {
+
+        return failedCount.get() > 0 || duplicateCount.get() > 0;
+    }
+
+    public synchronized List<BulkImportFailure> getFailures() {
+
+        return new ArrayList<>(failures);
+    }
+
+    public synchronized List<String> getDuplicateUsers() {
+
+        return new ArrayList<>(duplicateUsers);
+    }
+
+    void markRunning() {
+
+        if (startTime == 0) {
+            startTime = System.currentTimeMillis();
+        }
+        errorMessage = null;
+        endTime = 0;
+        status.set(Status.RUNNING);
+    }
+
+    void markFinished() {
+
+        endTime = System.currentTimeMillis();
+        status.set(hasErrors() ? Status.COMPLETED_WITH_ERRORS : Status.COMPLETED);
+    }
+
+    void markFailed(String errorMessage) {
+
+        this.errorMessage = errorMessage;
+        endTime = System.currentTimeMillis();
+        status.set(Status.FAILED);
+    }
+
+    void recordSuccess(String userName) {
+
+        usersAddedSinceCheckpoint.add(userName);
+        processedCount.incrementAndGet();
+        successCount.incrementAndGet();
+    }
+
+    /**
+     * Whether the user was added by this job in the batch which was being imported when the job failed.
+     *
+     * @param userName Domain qualified user name.
+     * @return True if the user was added after the last checkpoint.
+     */
+    boolean isAddedSinceCheckpoint(String userName) {
+
+        return usersAddedSinceCheckpoint.contains(userName);
+    }
+
+    void recordFailure(int rowNumber, String userName, String cause) {
+
+        processedCount.incrementAndGet();
+        failedCount.incrementAndGet();
+        synchronized (this) {
+            if (failures.size() < MAX_REPORTED_ROWS) {
+                BulkImportFailure failure = new BulkImportFailure();
+                failure.setRowNumber(rowNumber);
+                failure.setUserName(userName);
+                failure.setCause(cause);
+                failures.add(failure);
+            }
+        }
+    }
+
+    void recordDuplicate(String userName) {
+
+        processedCount.incrementAndGet();
+        duplicateCount.incrementAndGet();
+        synchronized (this) {
+            if (duplicateUsers.size() < MAX_REPORTED_ROWS) {
+                duplicateUsers.add(userName);
+            }
+        }
+    }
+
+    /**
+     * Marks all rows up to the given row as processed. Must only be called once every row of the batch is done.
+     *
+     * @param rowNumber Last row of the completed batch.
+     */
+    synchronized void checkpoint(int rowNumber) {
+
+        checkpoint = new Checkpoint(rowNumber, processedCount.get(), successCount.get(), failedCount.get(),
+                duplicateCount.get(), failures.size(), duplicateUsers.size());
+        usersAddedSinceCheckpoint.clear();
+    }
+
+    /**
+     * Moves a failed job back to the queued state and discards the progress made after the last checkpoint, so that
+     * the unfinished batch can be imported again. Only one of concurrent callers succeeds.
+     *
+     * @return False if the job was not in the failed state.
+     */
+    synchronized boolean resume() {
+
+        if (!status.compareAndSet(Status.FAILED, Status.QUEUED)) {
+            return false;
+        }
+        rollbackToCheckpoint();
+        return true;
+    }
+
+    private void rollbackToCheckpoint() {
+
+        Checkpoint last = checkpoint;
+        processedCount.set(last.processedCount);
+        successCount.set(last.successCount);
+        failedCount.set(last.failedCount);
+        duplicateCount.set(last.duplicateCount);
+        failures.subList(last.reportedFailures, failures.size()).clear();
+        duplicateUsers.subList(last.reportedDuplicates, duplicateUsers.size()).clear();
+    }
+
+    /**
+     * Creates a snapshot of the job which can be returned by the admin service.
+     *
+     * @return Status of the job.
+     */
+    public synchronized BulkImportStatus toStatus() {
+
+        BulkImportStatus importStatus = new BulkImportStatus();
+        importStatus.setJobId(jobId);
+        importStatus.setStatus(status.get().name());
+        importStatus.setUserStoreDomain(userStoreDomain);
+        importStatus.setFileName(fileName);
+        importStatus.setStartTime(startTime);
+        importStatus.setEndTime(endTime);
+        importStatus.setProcessedCount(processedCount.get());
+        importStatus.setSuccessCount(successCount.get());
+        importStatus.setFailedCount(failedCount.get());
+        importStatus.setDuplicateCount(duplicateCount.get());
+        importStatus.setLastCompletedRow(checkpoint.row);
+        importStatus.setDuplicateUsers(duplicateUsers.toArray(new String[0]));
+        importStatus.setFailures(failures.toArray(new BulkImportFailure[0]));
+        return importStatus;
+    }
+
+    private static class Checkpoint {
+
+        private final int row;
+        private final int processedCount;
+        private final int successCount;
+        private final int failedCount;
+        private final int duplicateCount;
+        private final int reportedFailures;
+        private final int reportedDuplicates;
+
+        Checkpoint(int row, int processedCount, int successCount, int failedCount, int duplicateCount,
+                   int reportedFailures, int reportedDuplicates) {
+
+            this.row = row;
+            this.processedCount = processedCount;
+            this.successCount = successCount;
+            this.failedCount = failedCount;
+            this.duplicateCount = duplicateCount;
+            this.reportedFailures = reportedFailures;
+            this.reportedDuplicates = reportedDuplicates;
+        }
+    }
+}
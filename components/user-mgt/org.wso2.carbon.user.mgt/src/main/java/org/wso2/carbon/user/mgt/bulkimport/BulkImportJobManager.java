@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.user.mgt.bulkimport;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.mgt.UserMgtConstants;
+import org.wso2.carbon.user.mgt.common.UserAdminException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bulk user imports and keeps track of their progress. Jobs run on a small pool, while the users of a batch are
+ * added by a shared, bounded pool of workers, so the number of concurrent user store writes does not depend on the
+ * number of running jobs. The queue of the worker pool never holds more than a batch per running job.
+ * <p>
+ * Jobs are kept in memory, hence a job can only be resumed on the node that ran it and until the node is restarted.
+ */
+public class BulkImportJobManager {
+
+    private static final Log log = LogFactory.getLog(BulkImportJobManager.class);
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_MAX_CONCURRENT_JOBS = 2;
+    private static final int MAX_QUEUED_JOBS = 100;
+    private static final int MAX_RETAINED_JOBS = 100;
+    private static final String SPOOL_FILE_PREFIX = "bulk-user-import-";
+
+    private static volatile BulkImportJobManager instance;
+
+    private final Map<String, BulkImportJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor jobExecutor;
+    private final ThreadPoolExecutor workerExecutor;
+    private final int batchSize;
+
+    BulkImportJobManager(int parallelism, int batchSize, int maxConcurrentJobs) {
+
+        this.batchSize = batchSize;
+        jobExecutor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_JOBS), new NamedThreadFactory("BulkUserImportJob"));
+        workerExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("BulkUserImportWorker"));
+    }
+
+    public static BulkImportJobManager getInstance() {
+
+        if (instance == null) {
+            synchronized (BulkImportJobManager.class) {
+                if (instance == null) {
+                    instance = new BulkImportJobManager(
+                            getIntProperty(UserMgtConstants.BULK_IMPORT_PARALLELISM, DEFAULT_PARALLELISM),
+                            getIntProperty(UserMgtConstants.BULK_IMPORT_BATCH_SIZE, DEFAULT_BATCH_SIZE),
+                            getIntProperty(UserMgtConstants.BULK_IMPORT_MAX_CONCURRENT_JOBS,
+                                    DEFAULT_MAX_CONCURRENT_JOBS));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the pools. Running jobs are interrupted and end up failed.
+     */
+    public static void shutdown() {
+
+        synchronized (BulkImportJobManager.class) {
+            if (instance != null) {
+                instance.stop();
+                instance = null;
+            }
+        }
+    }
+
+    void stop() {
+
+        jobExecutor.shutdownNow();
+        workerExecutor.shutdownNow();
+    }
+
+    /**
+     * Queues a new import job.
+     *
+     * @param bulkImport Import to run.
+     * @param userStore  User store to add the users to.
+     * @return The queued job.
+     * @throws UserAdminException If too many jobs are already queued.
+     */
+    public BulkImportJob submit(UserBulkImport bulkImport, UserStoreManager userStore) throws UserAdminException {
+
+        BulkImportJob job = createJob(bulkImport.getConfig());
+        queue(job, bulkImport, userStore);
+        return job;
+    }
+
+    /**
+     * Queues a failed job again. The file must be the same as the one the job was started with, as the rows up to
+     * the last checkpoint of the job are skipped.
+     *
+     * @param jobId      Id of the failed job.
+     * @param bulkImport Import of the same file.
+     * @param userStore  User store to add the users to.
+     * @return The queued job.
+     * @throws UserAdminException If the job does not exist for the tenant or is not in the failed state.
+     */
+    public BulkImportJob resume(String jobId, UserBulkImport bulkImport, UserStoreManager userStore)
+            throws UserAdminException {
+
+        BulkImportJob job = getJob(jobId);
+        if (job == null) {
+            throw new UserAdminException("Bulk user import job: " + jobId + " does not exist");
+        }
+        // The job leaves the failed state before it is queued, so concurrent resumes cannot queue it twice.
+        if (!job.resume()) {
+            throw new UserAdminException("Bulk user import job: " + jobId + " is in " + job.getStatus() +
+                    " state. Only failed jobs can be resumed");
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Resuming bulk user import job: " + jobId + " after row " + job.getLastCompletedRow());
+        }
+        queue(job, bulkImport, userStore);
+        return job;
+    }
+
+    /**
+     * Runs a new import job on the calling thread.
+     *
+     * @param bulkImport Import to run.
+     * @param userStore  User store to add the users to.
+     * @return The finished job.
+     */
+    BulkImportJob importUsers(UserBulkImport bulkImport, UserStoreManager userStore) {
+
+        BulkImportJob job = createJob(bulkImport.getConfig());
+        run(job, bulkImport, userStore);
+        return job;
+    }
+
+    /**
+     * Returns the job with the given id, if it was started in the tenant of the caller.
+     *
+     * @param jobId Job id.
+     * @return The job, or null if there is no such job in the tenant.
+     */
+    public BulkImportJob getJob(String jobId) {
+
+        if (StringUtils.isBlank(jobId)) {
+            return null;
+        }
+        BulkImportJob job = jobs.get(jobId);
+        if (job == null || job.getTenantId() != PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId()) {
+            return null;
+        }
+        return job;
+    }
+
+    private BulkImportJob createJob(BulkImportConfig config) {
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        BulkImportJob job = new BulkImportJob(UUID.randomUUID().toString(), carbonContext.getTenantId(),
+                carbonContext.getTenantDomain(), carbonContext.getUsername(), config.getUserStoreDomain(),
+                config.getFileName());
+        evictFinishedJobs();
+        jobs.put(job.getJobId(), job);
+        return job;
+    }
+
+    private void queue(BulkImportJob job, UserBulkImport bulkImport, UserStoreManager userStore)
+            throws UserAdminException {
+
+        // The uploaded stream does not outlive the request, so the job reads a copy of it.
+        InputStream spooledStream;
+        try {
+            spooledStream = spool(bulkImport.getConfig().getInStream());
+        } catch (UserAdminException e) {
+            job.markFailed(e.getMessage());
+            throw e;
+        }
+        bulkImport.getConfig().setInStream(spooledStream);
+        try {
+            jobExecutor.execute(() -> {
+                startTenantFlow(job);
+                try {
+                    run(job, bulkImport, userStore);
+                } finally {
+                    endTenantFlow();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            IdentityIOStreamUtils.closeInputStream(spooledStream);
+            job.markFailed("Too many bulk user import jobs are queued");
+            throw new UserAdminException("Too many bulk user import jobs are queued. Try again later", e);
+        }
+    }
+
+    private void run(BulkImportJob job, UserBulkImport bulkImport, UserStoreManager userStore) {
+
+        job.markRunning();
+        try {
+            bulkImport.importUsers(userStore, job, workerExecutor, batchSize);
+            job.markFinished();
+        } catch (UserAdminException | RuntimeException e) {
+            log.error("Bulk user import job: " + job.getJobId() + " failed after row " + job.getLastCompletedRow(),
+                    e);
+            job.markFailed(e.getMessage());
+        }
+
+        String summaryLog = UserBulkImport.buildBulkImportSummary(job);
+        UserBulkImport.auditLog.info(String.format(UserMgtConstants.AUDIT_LOG_FORMAT,
+                UserBulkImport.getInitiator(job), UserMgtConstants.OPERATION_NAME, job.getUserStoreDomain(),
+                String.format(UserMgtConstants.BULK_IMPORT_JOB_DATA, job.getJobId(), job.getFileName(),
+                        job.getStatus()), summaryLog));
+        log.info(summaryLog);
+    }
+
+    private static InputStream spool(InputStream inStream) throws UserAdminException {
+
+        Path file = null;
+        try {
+            file = Files.createTempFile(SPOOL_FILE_PREFIX, null);
+            Files.copy(inStream, file, StandardCopyOption.REPLACE_EXISTING);
+            return new SpooledFileInputStream(file);
+        } catch (IOException e) {
+            deleteSpoolFile(file);
+            throw new UserAdminException("Error occurred while reading the bulk import file", e);
+        } finally {
+            IdentityIOStreamUtils.closeInputStream(inStream);
+        }
+    }
+
+    private static void deleteSpoolFile(Path file) {
+
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Error occurred while deleting the bulk import file: " + file, e);
+        }
+    }
+
+    /**
+     * Keeps at most {@link #MAX_RETAINED_JOBS} finished jobs, dropping the ones which finished first.
+     */
+    private void evictFinishedJobs() {
+
+        int excess = jobs.size() - MAX_RETAINED_JOBS + 1;
+        if (excess <= 0) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(BulkImportJob::isFinished)
+                .sorted(Comparator.comparingLong(BulkImportJob::getEndTime))
+                .limit(excess)
+                .forEach(job -> jobs.remove(job.getJobId()));
+    }
+
+    /**
+     * Sets up the carbon context of the thread which works on the job, as the user store and its listeners rely on
+     * it. Must be followed by {@link #endTenantFlow()}.
+     *
+     * @param job Job being worked on.
+     */
+    static void startTenantFlow(BulkImportJob job) {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(job.getTenantId());
+        carbonContext.setTenantDomain(job.getTenantDomain());
+        carbonContext.setUsername(job.getInitiator());
+    }
+
+    static void endTenantFlow() {
+
+        PrivilegedCarbonContext.endTenantFlow();
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+
+        String value = IdentityUtil.getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue > 0) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            // Falls back to the default below.
+        }
+        log.warn("Invalid value: " + value + " for " + key + ". Using the default value: " + defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * Stream of a spooled upload, which deletes the file once read.
+     */
+    private static class SpooledFileInputStream extends FileInputStream {
+
+        private final Path file;
+
+        SpooledFileInputStream(Path file) throws IOException {
+
+            super(file.toFile());
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            try {
+                super.close();
+            } finally {
+                deleteSpoolFile(file);
+            }
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        NamedThreadFactory(String namePrefix) {
+
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.user.mgt.bulkimport;
+
+import org.wso2.carbon.user.mgt.common.UserAdminException;
+
+import java.io.Closeable;
+
+/**
+ * Reads the rows of a bulk import file one at a time, so that the file does not have to be held in memory.
+ */
+interface BulkImportRowReader extends Closeable {
+
+    /**
+     * Reads the next data row. The header row is never returned.
+     *
+     * @return Cells of the row, or null at the end of the file.
+     * @throws UserAdminException If the file can not be read.
+     */
+    String[] readNext() throws UserAdminException;
+}
@@ -18,105 +18,63 @@
 
 package org.wso2.carbon.user.mgt.bulkimport;
 
-import org.apache.commons.lang.StringUtils;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
-import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
-import org.wso2.carbon.user.core.UserStoreException;
-import org.wso2.carbon.user.core.UserStoreManager;
-import org.wso2.carbon.user.core.util.UserCoreUtil;
-import org.wso2.carbon.user.mgt.UserMgtConstants;
-import org.wso2.carbon.user.mgt.bulkimport.util.JSONConverter;
 import org.wso2.carbon.user.mgt.common.UserAdminException;
 
 import java.io.IOException;
 import java.io.InputStream;
 
 /**
- * Class to import users from Excel format files.
+ * Class to import users from Excel format files. Only the user name, in the first column, is imported.
  */
 public class ExcelUserBulkImport extends UserBulkImport {
 
-    private static final Log log = LogFactory.getLog(ExcelUserBulkImport.class);
-    private BulkImportConfig config;
-
     public ExcelUserBulkImport(BulkImportConfig config) {
 
-        super();
-        this.config = config;
+        super(config);
     }
 
-    public void addUserList(UserStoreManager userStore) throws UserAdminException {
+    @Override
+    BulkImportRowReader createRowReader() throws UserAdminException {
 
         Workbook wb = this.createWorkbook();
         Sheet sheet = wb.getSheet(wb.getSheetName(0));
-        userStoreDomain = config.getUserStoreDomain();
-
         if (sheet == null || sheet.getLastRowNum() == -1) {
             throw new UserAdminException("The first sheet is empty");
         }
         int limit = sheet.getLastRowNum();
-        boolean isDuplicate = false;
-        boolean fail = false;
-        for (int i = 1; i < limit + 1; i++) {
-            Row row = sheet.getRow(i);
-            Cell cell = row.getCell(0);
-            String userName = cell.getStringCellValue();
+        DataFormatter formatter = new DataFormatter();
+        return new BulkImportRowReader() {
 
-            int index;
-            index = userName.indexOf(CarbonConstants.DOMAIN_SEPARATOR);
-            if (index > 0) {
-                String domainFreeName = userName.substring(index + 1);
-                userName = UserCoreUtil.addDomainToName(domainFreeName, userStoreDomain);
-            } else {
-                userName = UserCoreUtil.addDomainToName(userName, userStoreDomain);
-            }
+            // The first row is the header.
+            private int index = 1;
+
+            @Override
+            public String[] readNext() {
 
-            if (StringUtils.isNotBlank(userName)) {
-                try {
-                    if (!userStore.isExistingUser(userName)) {
-                        userStore.addUser(userName, null, null, null, null, true);
-                        successCount++;
-                        if (log.isDebugEnabled()) {
-                            log.debug("User import successful - Username : " + userName);
-                        }
-                    } else {
-                        duplicateCount++;
-                        duplicateUsers.add(userName);
-                        isDuplicate = true;
-                        log.error("User import unsuccessful - Username : " + userName + " - Error: Duplicate user");
-                        duplicateUsers.add(userName);
-                    }
-                } catch (UserStoreException e) {
-                    fail = true;
-                    failCount++;
-                    log.error("User import unsuccessful - Username : " + userName + " - Error: " +
-                            e.getMessage());
-                    errorUsersMap.put(userName, e.getMessage());
+                if (index > limit) {
+                    return null;
                 }
+                Row row = sheet.getRow(index++);
+                if (row == null || row.getCell(0) == null) {
+                    return new String[0];
+                }
+                return new String[]{formatter.formatCellValue(row.getCell(0))};
             }
-        }
-
-        String summeryLog = super.buildBulkImportSummary();
-        log.info(summeryLog);
 
-        JSONConverter jsonConverter = new JSONConverter();
-        String importedUsers = jsonConverter.xlsToJSON(sheet);
-        auditLog.info(String.format(UserMgtConstants.AUDIT_LOG_FORMAT, tenantUser, UserMgtConstants.OPERATION_NAME,
-                userStoreDomain, importedUsers, summeryLog));
+            @Override
+            public void close() throws IOException {
 
-        if (fail || isDuplicate) {
-            throw new UserAdminException(String.format(UserMgtConstants.ERROR_MESSAGE, successCount, failCount,
-                    duplicateCount));
-        }
+                wb.close();
+            }
+        };
     }
 
     /**
@@ -21,41 +21,256 @@ package org.wso2.carbon.user.mgt.bulkimport;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.CarbonConstants;
-import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.user.mgt.UserMgtConstants;
+import org.wso2.carbon.user.mgt.common.BulkImportFailure;
 import org.wso2.carbon.user.mgt.common.UserAdminException;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Class to import multiple users to the Identity user store.
  * The users can be added in the format of CSV or Excel format.
+ * <p>
+ * The file is read row by row. Rows are validated as they are read and the valid rows are added in batches, the users
+ * of a batch being added in parallel by the workers of {@link BulkImportJobManager}. The job is checkpointed after
+ * each batch.
  */
 public abstract class UserBulkImport {
 
+    private static final Log log = LogFactory.getLog(UserBulkImport.class);
     static final Log auditLog = CarbonConstants.AUDIT_LOG;
-    static final Map<String, String> errorUsersMap = new HashMap<>();
-    static final List<String> duplicateUsers = new ArrayList<>();
-    String userStoreDomain = "";
-    int successCount = 0;
-    int failCount = 0;
-    int duplicateCount = 0;
-    String tenantUser = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername() + "@"
-            + PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+    private static final String ROLE_CLAIM = "role";
+    private static final String INVALID_CLAIMS_MESSAGE = "Claims and values are not in correct format";
+    private static final String DUPLICATE_USER_MESSAGE = "Duplicate user";
+
+    protected final BulkImportConfig config;
+
+    protected UserBulkImport(BulkImportConfig config) {
+
+        this.config = config;
+    }
+
+    public BulkImportConfig getConfig() {
+
+        return config;
+    }
 
     /**
-     * Method to add users to the given user store.
+     * Opens the file of this import for reading.
+     *
+     * @return Reader of the data rows.
+     * @throws UserAdminException If the file can not be opened.
+     */
+    abstract BulkImportRowReader createRowReader() throws UserAdminException;
+
+    /**
+     * Method to add users to the given user store. The users are imported on the calling thread, which waits until
+     * every row is processed.
      *
      * @param userStore : The UserStore that the users should be imported to.
-     * @throws UserAdminException :
+     * @throws UserAdminException : If the import fails or some of the users could not be imported.
      */
-    public abstract void addUserList(UserStoreManager userStore) throws UserAdminException;
+    public void addUserList(UserStoreManager userStore) throws UserAdminException {
+
+        BulkImportJob job = BulkImportJobManager.getInstance().importUsers(this, userStore);
+        if (job.getStatus() == BulkImportJob.Status.FAILED) {
+            throw new UserAdminException("Error occurred while adding user list. " + job.getErrorMessage());
+        }
+        if (job.hasErrors()) {
+            throw new UserAdminException(String.format(UserMgtConstants.ERROR_MESSAGE, job.getSuccessCount(),
+                    job.getFailedCount(), job.getDuplicateCount()));
+        }
+    }
+
+    /**
+     * Imports the rows of the file which come after the last checkpoint of the job.
+     *
+     * @param userStore User store to add the users to.
+     * @param job       Job to record the progress in.
+     * @param workers   Executor which adds the users of a batch.
+     * @param batchSize Number of rows between two checkpoints.
+     * @throws UserAdminException If the file can not be read or the import is interrupted.
+     */
+    void importUsers(UserStoreManager userStore, BulkImportJob job, ExecutorService workers, int batchSize)
+            throws UserAdminException {
+
+        int resumeAfter = job.getLastCompletedRow();
+        try (BulkImportRowReader reader = createRowReader()) {
+            int rowNumber = 0;
+            int batchStartRow = resumeAfter + 1;
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            Set<String> batchUsers = new HashSet<>();
+            String[] line = reader.readNext();
+            while (line != null) {
+                rowNumber++;
+                if (rowNumber > resumeAfter) {
+                    ImportRow row = parseRow(rowNumber, line, job);
+                    if (row != null) {
+                        if (batchUsers.add(row.userName)) {
+                            batch.add(row);
+                        } else {
+                            recordDuplicate(row.userName, job);
+                        }
+                    }
+                    if (rowNumber - batchStartRow + 1 >= batchSize) {
+                        importBatch(userStore, batch, job, workers, batchStartRow, rowNumber);
+                        batch.clear();
+                        batchUsers.clear();
+                        batchStartRow = rowNumber + 1;
+                    }
+                }
+                line = reader.readNext();
+            }
+            if (rowNumber >= batchStartRow) {
+                importBatch(userStore, batch, job, workers, batchStartRow, rowNumber);
+            }
+        } catch (IOException e) {
+            log.error("Error occurred while closing the bulk import file: " + job.getFileName(), e);
+        }
+    }
+
+    /**
+     * Adds the users of a batch in parallel and checkpoints the job once all of them are done.
+     */
+    private void importBatch(UserStoreManager userStore, List<ImportRow> rows, BulkImportJob job,
+                             ExecutorService workers, int firstRow, int lastRow) throws UserAdminException {
+
+        List<Callable<Void>> tasks = new ArrayList<>(rows.size());
+        JsonArray users = new JsonArray();
+        for (ImportRow row : rows) {
+            tasks.add(() -> {
+                importUser(userStore, row, job);
+                return null;
+            });
+            users.add(new JsonPrimitive(row.userName));
+        }
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UserAdminException("Bulk user import was interrupted at row " + firstRow, e);
+        } catch (ExecutionException e) {
+            throw new UserAdminException("Error occurred while importing rows " + firstRow + " to " + lastRow,
+                    e.getCause());
+        }
+        job.checkpoint(lastRow);
+
+        JsonObject importedUsers = new JsonObject();
+        importedUsers.add(UserMgtConstants.USERS, users);
+        auditLog.info(String.format(UserMgtConstants.AUDIT_LOG_FORMAT, getInitiator(job),
+                UserMgtConstants.OPERATION_NAME, job.getUserStoreDomain(), importedUsers.toString(),
+                String.format(UserMgtConstants.BULK_IMPORT_BATCH_RESULT, job.getJobId(), firstRow, lastRow)));
+        if (log.isDebugEnabled()) {
+            log.debug("Bulk user import job: " + job.getJobId() + " completed rows " + firstRow + " to " + lastRow);
+        }
+    }
+
+    private void importUser(UserStoreManager userStore, ImportRow row, BulkImportJob job) {
+
+        BulkImportJobManager.startTenantFlow(job);
+        try {
+            if (userStore.isExistingUser(row.userName)) {
+                if (job.isAddedSinceCheckpoint(row.userName)) {
+                    // Added by this job before it failed in the middle of the batch.
+                    job.recordSuccess(row.userName);
+                } else {
+                    recordDuplicate(row.userName, job);
+                }
+                return;
+            }
+            userStore.addUser(row.userName, row.password, row.roles, row.claims, null, true);
+            job.recordSuccess(row.userName);
+            if (log.isDebugEnabled()) {
+                log.debug("User import successful - Username : " + row.userName);
+            }
+        } catch (UserStoreException e) {
+            job.recordFailure(row.rowNumber, row.userName, e.getMessage());
+            log.error("User import unsuccessful - Username : " + row.userName + " - Error: " + e.getMessage(), e);
+        } finally {
+            BulkImportJobManager.endTenantFlow();
+        }
+    }
+
+    /**
+     * Validates a row without touching the user store.
+     *
+     * @return The row to import, or null if the row is blank or invalid. Invalid rows are recorded as failures.
+     */
+    private ImportRow parseRow(int rowNumber, String[] line, BulkImportJob job) {
+
+        if (line.length == 0 || StringUtils.isBlank(line[0])) {
+            return null;
+        }
+        String userName = line[0];
+        int index = userName.indexOf(CarbonConstants.DOMAIN_SEPARATOR);
+        if (index > 0) {
+            userName = userName.substring(index + 1);
+        }
+        userName = UserCoreUtil.addDomainToName(userName, job.getUserStoreDomain());
+
+        ImportRow row = new ImportRow(rowNumber, userName);
+        if (line.length == 1) {
+            return row;
+        }
+        row.password = line[1];
+        row.claims = new HashMap<>();
+        String roleString = null;
+        for (int i = 2; i < line.length; i++) {
+            if (StringUtils.isBlank(line[i])) {
+                continue;
+            }
+            String[] claimStrings = line[i].split("=");
+            if (claimStrings.length != 2) {
+                job.recordFailure(rowNumber, userName, INVALID_CLAIMS_MESSAGE);
+                log.error("User import unsuccessful - Username : " + userName + " - Error: " +
+                        INVALID_CLAIMS_MESSAGE);
+                return null;
+            }
+            String claimURI = claimStrings[0];
+            String claimValue = claimStrings[1];
+            if (claimURI.contains(ROLE_CLAIM)) {
+                roleString = claimValue;
+            } else if (!claimURI.isEmpty()) {
+                // Not trimming the claim values as we should not restrict the claim values not to have
+                // leading or trailing whitespaces.
+                row.claims.put(claimURI.trim(), claimValue);
+            }
+        }
+        if (StringUtils.isNotBlank(roleString)) {
+            row.roles = roleString.split(":");
+        }
+        return row;
+    }
+
+    private void recordDuplicate(String userName, BulkImportJob job) {
+
+        job.recordDuplicate(userName);
+        log.error("User import unsuccessful - Username : " + userName + " - Error: " + DUPLICATE_USER_MESSAGE);
+    }
+
+    static String getInitiator(BulkImportJob job) {
+
+        return job.getInitiator() + "@" + job.getTenantDomain();
+    }
 
     /**
      * Build the summery log for the bulk user import operation.
@@ -63,51 +278,44 @@ public abstract class UserBulkImport {
      *
      * {
      *     operation : bulk_user_import
+     *     jobId : <Bulk Import Job Id>
      *     performedBy : <Logged in User>
      *     userStore : <User Store Domain>
      *     successCount : x
      *     duplicateUsers : {count: x, users: [userName_1, userName_2, ..., userName_n]}
      *     failedUsers : {count: x, users: [{name: userName, cause: cause_for_the_failure}, ...]}
      * }
+     *
+     * Only the first {@link BulkImportJob#MAX_REPORTED_ROWS} duplicate and failed users are listed.
      */
-    String buildBulkImportSummary() {
+    static String buildBulkImportSummary(BulkImportJob job) {
 
-        JsonArray duplicateUsersJsonArray;
-        JsonArray errorUsersJsonArray;
-        JsonObject duplicateUsersJson;
-        JsonObject errorUsersJson;
-        JsonObject errorUserJson;
         JsonObject summaryJson = new JsonObject();
-
         summaryJson.addProperty(UserMgtConstants.OPERATION, UserMgtConstants.OPERATION_NAME);
-        summaryJson.addProperty(UserMgtConstants.PERFORMED_BY,
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername());
-        summaryJson.addProperty(UserMgtConstants.USER_STORE, userStoreDomain);
-        summaryJson.addProperty(UserMgtConstants.SUCCESS_COUNT, successCount);
-
-        if (duplicateCount > 0) {
-            duplicateUsersJson = new JsonObject();
-            duplicateUsersJsonArray = new JsonArray();
-            duplicateUsersJson.addProperty(UserMgtConstants.COUNT, duplicateCount);
-
-            for (String user : duplicateUsers) {
-                JsonPrimitive userJson = new JsonPrimitive(user);
-                duplicateUsersJsonArray.add(userJson);
-            }
+        summaryJson.addProperty(UserMgtConstants.JOB_ID, job.getJobId());
+        summaryJson.addProperty(UserMgtConstants.PERFORMED_BY, job.getInitiator());
+        summaryJson.addProperty(UserMgtConstants.USER_STORE, job.getUserStoreDomain());
+        summaryJson.addProperty(UserMgtConstants.SUCCESS_COUNT, job.getSuccessCount());
 
+        if (job.getDuplicateCount() > 0) {
+            JsonObject duplicateUsersJson = new JsonObject();
+            JsonArray duplicateUsersJsonArray = new JsonArray();
+            duplicateUsersJson.addProperty(UserMgtConstants.COUNT, job.getDuplicateCount());
+            for (String user : job.getDuplicateUsers()) {
+                duplicateUsersJsonArray.add(new JsonPrimitive(user));
+            }
             duplicateUsersJson.add(UserMgtConstants.USERS, duplicateUsersJsonArray);
             summaryJson.add(UserMgtConstants.DUPLICATE_USERS, duplicateUsersJson);
         }
 
-        if (failCount > 0) {
-            errorUsersJson = new JsonObject();
-            errorUsersJsonArray = new JsonArray();
-            errorUsersJson.addProperty(UserMgtConstants.COUNT, failCount);
-            for (Object o : errorUsersMap.entrySet()) {
-                Map.Entry pair = (Map.Entry) o;
-                errorUserJson = new JsonObject();
-                errorUserJson.addProperty(UserMgtConstants.NAME, pair.getKey().toString());
-                errorUserJson.addProperty(UserMgtConstants.CAUSE, pair.getValue().toString());
+        if (job.getFailedCount() > 0) {
+            JsonObject errorUsersJson = new JsonObject();
+            JsonArray errorUsersJsonArray = new JsonArray();
+            errorUsersJson.addProperty(UserMgtConstants.COUNT, job.getFailedCount());
+            for (BulkImportFailure failure : job.getFailures()) {
+                JsonObject errorUserJson = new JsonObject();
+                errorUserJson.addProperty(UserMgtConstants.NAME, failure.getUserName());
+                errorUserJson.addProperty(UserMgtConstants.CAUSE, String.valueOf(failure.getCause()));
                 errorUsersJsonArray.add(errorUserJson);
             }
             errorUsersJson.add(UserMgtConstants.USERS, errorUsersJsonArray);
@@ -116,4 +324,22 @@ public abstract class UserBulkImport {
 
         return summaryJson.toString();
     }
+
+    /**
+     * A validated row of the import file.
+     */
+    private static class ImportRow {
+
+        private final int rowNumber;
+        private final String userName;
+        private String password;
+        private String[] roles;
+        private Map<String, String> claims;
+
+        ImportRow(int rowNumber, String userName) {
+
+            this.rowNumber = rowNumber;
+            this.userName = userName;
+        }
+    }
 }
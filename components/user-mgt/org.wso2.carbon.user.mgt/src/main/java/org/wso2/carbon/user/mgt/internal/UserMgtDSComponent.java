@@ -37,6 +37,7 @@ import org.wso2.carbon.user.core.listener.UserOperationEventListener;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.mgt.RolePermissionManagementService;
 import org.wso2.carbon.user.mgt.RolePermissionManagementServiceImpl;
+import org.wso2.carbon.user.mgt.bulkimport.BulkImportJobManager;
 import org.wso2.carbon.user.mgt.listeners.PermissionAuthorizationListener;
 import org.wso2.carbon.user.mgt.listeners.UserClaimsAuditLogger;
 import org.wso2.carbon.user.mgt.listeners.UserDeletionEventListener;
@@ -186,6 +187,7 @@ public class UserMgtDSComponent {
 
     @Deactivate
     protected void deactivate(ComponentContext ctxt) {
+        BulkImportJobManager.shutdown();
         log.debug("User Mgt bundle is deactivated ");
     }
 
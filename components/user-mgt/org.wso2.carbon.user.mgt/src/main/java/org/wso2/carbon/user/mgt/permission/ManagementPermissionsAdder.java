@@ -29,6 +29,7 @@ import org.wso2.carbon.registry.api.Resource;
 import org.wso2.carbon.registry.core.Collection;
 import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.user.mgt.UserMgtConstants;
+import org.wso2.carbon.user.mgt.cache.UIPermissionTreeCache;
 import org.wso2.carbon.user.mgt.internal.UserMgtDSComponent;
 import org.wso2.carbon.utils.component.xml.Component;
 import org.wso2.carbon.utils.component.xml.ComponentConfigFactory;
@@ -106,6 +107,8 @@ public class ManagementPermissionsAdder implements BundleListener {
                 resource.setProperty(UserMgtConstants.DISPLAY_NAME, uiPermission.getDisplayName());
                 registry.put(uiPermission.getResourceId(), resource);
             }
+            // Tenant permission trees include the admin permissions of the super tenant.
+            UIPermissionTreeCache.getInstance().clear();
         }
     }
 
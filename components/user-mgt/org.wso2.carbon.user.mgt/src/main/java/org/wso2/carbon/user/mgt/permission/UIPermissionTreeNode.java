@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.user.mgt.permission;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.user.core.AuthorizationManager;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.mgt.UserMgtConstants;
+import org.wso2.carbon.user.mgt.common.UIPermissionNode;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Role independent snapshot of a UI permission tree read from the registry. The snapshot is built once per tenant
+ * and turned into {@link UIPermissionNode} trees on request, marking the nodes authorized for the given roles.
+ */
+public class UIPermissionTreeNode implements Serializable {
+
+    private static final long serialVersionUID = 4393204385071209437L;
+
+    private final String resourcePath;
+    private final String displayName;
+    private final UIPermissionTreeNode[] children;
+
+    public UIPermissionTreeNode(String resourcePath, String displayName, UIPermissionTreeNode[] children) {
+
+        this.resourcePath = resourcePath;
+        this.displayName = displayName;
+        this.children = children != null ? Arrays.copyOf(children, children.length) : new UIPermissionTreeNode[0];
+    }
+
+    public String getResourcePath() {
+
+        return resourcePath;
+    }
+
+    public String getDisplayName() {
+
+        return displayName;
+    }
+
+    public UIPermissionTreeNode[] getChildren() {
+
+        return children.clone();
+    }
+
+    /**
+     * Builds a permission tree with none of the nodes selected.
+     *
+     * @return Root of the permission tree.
+     */
+    public UIPermissionNode toUIPermissionNode() {
+
+        UIPermissionNode root = new UIPermissionNode(resourcePath, displayName);
+        root.setNodeList(toUIPermissionNodes(children, false));
+        return root;
+    }
+
+    /**
+     * Builds a permission tree marking the nodes on which any of the given roles is authorized. If the root is
+     * authorized the whole tree is selected without checking the descendants.
+     *
+     * @param authMan   Authorization manager of the tenant.
+     * @param roleNames Roles to evaluate.
+     * @return Root of the permission tree.
+     * @throws UserStoreException If an error occurs while checking the authorization.
+     */
+    public UIPermissionNode toUIPermissionNode(AuthorizationManager authMan, List<String> roleNames)
+            throws UserStoreException {
+
+        UIPermissionNode root = new UIPermissionNode(resourcePath, displayName);
+        if (isAuthorized(authMan, roleNames, resourcePath)) {
+            root.setNodeList(toUIPermissionNodes(children, true));
+            root.setSelected(true);
+        } else {
+            root.setNodeList(toUIPermissionNodes(children, authMan, roleNames));
+        }
+        return root;
+    }
+
+    /**
+     * Builds a permission tree marking the nodes on which the given role is authorized.
+     *
+     * @param authMan  Authorization manager of the tenant.
+     * @param roleName Role to evaluate.
+     * @return Root of the permission tree.
+     * @throws UserStoreException If an error occurs while checking the authorization.
+     */
+    public UIPermissionNode toUIPermissionNode(AuthorizationManager authMan, String roleName)
+            throws UserStoreException {
+
+        return toUIPermissionNode(authMan, Collections.singletonList(roleName));
+    }
+
+    private static UIPermissionNode[] toUIPermissionNodes(UIPermissionTreeNode[] treeNodes, boolean isSelected) {
+
+        UIPermissionNode[] nodes = new UIPermissionNode[treeNodes.length];
+        for (int i = 0; i < treeNodes.length; i++) {
+            UIPermissionTreeNode treeNode = treeNodes[i];
+            nodes[i] = new UIPermissionNode(treeNode.resourcePath, treeNode.displayName, isSelected);
+            nodes[i].setNodeList(toUIPermissionNodes(treeNode.children, isSelected));
+        }
+        return nodes;
+    }
+
+    private static UIPermissionNode[] toUIPermissionNodes(UIPermissionTreeNode[] treeNodes, AuthorizationManager authMan,
+                                                          List<String> roleNames) throws UserStoreException {
+
+        UIPermissionNode[] nodes = new UIPermissionNode[treeNodes.length];
+        for (int i = 0; i < treeNodes.length; i++) {
+            UIPermissionTreeNode treeNode = treeNodes[i];
+            boolean isSelected = isAuthorized(authMan, roleNames, treeNode.resourcePath);
+            nodes[i] = new UIPermissionNode(treeNode.resourcePath, treeNode.displayName, isSelected);
+            nodes[i].setNodeList(toUIPermissionNodes(treeNode.children, authMan, roleNames));
+        }
+        return nodes;
+    }
+
+    private static boolean isAuthorized(AuthorizationManager authMan, List<String> roleNames, String resourcePath)
+            throws UserStoreException {
+
+        if (authMan == null || roleNames == null) {
+            return false;
+        }
+        for (String roleName : roleNames) {
+            if (StringUtils.isNotBlank(roleName)
+                    && authMan.isRoleAuthorized(roleName, resourcePath, UserMgtConstants.EXECUTE_ACTION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.user.mgt.bulkimport;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.mgt.common.BulkImportFailure;
+import org.wso2.carbon.user.mgt.common.BulkImportStatus;
+import org.wso2.carbon.user.mgt.common.UserAdminException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test cases for the bulk user import jobs.
+ */
+public class BulkImportJobManagerTest {
+
+    private static final String USER_STORE_DOMAIN = "TESTSTORE";
+    private static final String CSV_HEADER = "UserName,Password,Claims\n";
+    private static final String EMAIL_CLAIM = "http://wso2.org/claims/emailaddress";
+    private static final int PARALLELISM = 4;
+    private static final int BATCH_SIZE = 50;
+
+    private BulkImportJobManager jobManager;
+    private UserStoreManager userStoreManager;
+    private Set<String> users;
+    private Map<String, Integer> addUserCalls;
+    private AtomicInteger concurrentAdds;
+    private AtomicInteger maxConcurrentAdds;
+    private volatile String failingUser;
+
+    @BeforeClass
+    public void init() {
+
+        System.setProperty("carbon.home", Paths.get(System.getProperty("user.dir"), "target").toString());
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain("carbon.super");
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(-1234);
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername("admin");
+    }
+
+    @AfterClass
+    public void cleanUp() {
+
+        PrivilegedCarbonContext.endTenantFlow();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        jobManager = new BulkImportJobManager(PARALLELISM, BATCH_SIZE, 1);
+        users = ConcurrentHashMap.newKeySet();
+        addUserCalls = new ConcurrentHashMap<>();
+        concurrentAdds = new AtomicInteger();
+        maxConcurrentAdds = new AtomicInteger();
+        failingUser = null;
+
+        userStoreManager = mock(UserStoreManager.class);
+        when(userStoreManager.isExistingUser(anyString()))
+                .thenAnswer(invocation -> users.contains(invocation.getArgumentAt(0, String.class)));
+        doAnswer(invocation -> {
+            String userName = invocation.getArgumentAt(0, String.class);
+            addUserCalls.merge(userName, 1, Integer::sum);
+            if (userName.equals(failingUser)) {
+                failingUser = null;
+                throw new IllegalStateException("Connection to the user store was lost");
+            }
+            int running = concurrentAdds.incrementAndGet();
+            maxConcurrentAdds.accumulateAndGet(running, Math::max);
+            try {
+                Thread.sleep(1);
+                users.add(userName);
+            } finally {
+                concurrentAdds.decrementAndGet();
+            }
+            return null;
+        }).when(userStoreManager).addUser(anyString(), anyString(), any(String[].class), any(Map.class),
+                any(String.class), eq(true));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        jobManager.stop();
+    }
+
+    @Test(description = "Every row of a large file is imported, in parallel and checkpointed per batch.")
+    public void testImportUsersInParallel() throws Exception {
+
+        int userCount = 1000;
+        BulkImportJob job = jobManager.importUsers(csvImport(generateUsers(1, userCount)), userStoreManager);
+
+        assertEquals(job.getStatus(), BulkImportJob.Status.COMPLETED);
+        assertEquals(job.getSuccessCount(), userCount);
+        assertEquals(job.getProcessedCount(), userCount);
+        assertEquals(job.getLastCompletedRow(), userCount);
+        assertEquals(users.size(), userCount);
+        assertTrue(maxConcurrentAdds.get() > 1, "Users were not added in parallel.");
+        assertTrue(maxConcurrentAdds.get() <= PARALLELISM, "More users than allowed were added in parallel.");
+        verify(userStoreManager).addUser(eq("TESTSTORE/user7"), eq("password7"), any(String[].class),
+                eq(Collections.singletonMap(EMAIL_CLAIM, "user7@wso2.com")), any(String.class),
+                eq(true));
+    }
+
+    @Test(description = "Invalid rows fail validation and duplicates are reported without failing the job.")
+    public void testInvalidAndDuplicateRows() throws Exception {
+
+        users.add("TESTSTORE/existing");
+        String content = CSV_HEADER +
+                "valid1,pass1," + EMAIL_CLAIM + "=valid1@wso2.com\n" +
+                "invalid,pass2,not-a-claim\n" +
+                "existing,pass3\n" +
+                "\n" +
+                "valid1,pass4\n" +
+                "OTHER/valid2,pass5,role=admin:manager\n";
+
+        BulkImportJob job = jobManager.importUsers(csvImport(content), userStoreManager);
+
+        assertEquals(job.getStatus(), BulkImportJob.Status.COMPLETED_WITH_ERRORS);
+        assertEquals(job.getSuccessCount(), 2);
+        assertEquals(job.getFailedCount(), 1);
+        assertEquals(job.getDuplicateCount(), 2);
+        assertEquals(job.getLastCompletedRow(), 6);
+        BulkImportFailure failure = job.getFailures().get(0);
+        assertEquals(failure.getRowNumber(), 2);
+        assertEquals(failure.getUserName(), "TESTSTORE/invalid");
+        assertTrue(job.getDuplicateUsers().contains("TESTSTORE/existing"));
+        verify(userStoreManager, times(0)).addUser(eq("TESTSTORE/invalid"), anyString(), any(String[].class),
+                any(Map.class), any(String.class), eq(true));
+        verify(userStoreManager).addUser(eq("TESTSTORE/valid2"), eq("pass5"), eq(new String[]{"admin", "manager"}),
+                any(Map.class), any(String.class), eq(true));
+    }
+
+    @Test(description = "A job runs in the background and reports its progress.")
+    public void testSubmitJob() throws Exception {
+
+        BulkImportJob job = jobManager.submit(csvImport(generateUsers(1, 120)), userStoreManager);
+        assertNotNull(jobManager.getJob(job.getJobId()));
+        waitUntilFinished(job);
+
+        BulkImportStatus status = jobManager.getJob(job.getJobId()).toStatus();
+        assertEquals(status.getStatus(), BulkImportJob.Status.COMPLETED.name());
+        assertEquals(status.getSuccessCount(), 120);
+        assertEquals(status.getLastCompletedRow(), 120);
+        assertEquals(status.getUserStoreDomain(), USER_STORE_DOMAIN);
+        assertTrue(status.getEndTime() >= status.getStartTime());
+    }
+
+    @Test(description = "A failed job resumes from its last checkpoint without adding a user twice.")
+    public void testResumeFailedJob() throws Exception {
+
+        String content = generateUsers(1, 200);
+        failingUser = "TESTSTORE/user130";
+        BulkImportJob job = jobManager.submit(csvImport(content), userStoreManager);
+        waitUntilFinished(job);
+
+        assertEquals(job.getStatus(), BulkImportJob.Status.FAILED);
+        assertEquals(job.getLastCompletedRow(), 100);
+
+        jobManager.resume(job.getJobId(), csvImport(content), userStoreManager);
+        waitUntilFinished(job);
+
+        assertEquals(job.getStatus(), BulkImportJob.Status.COMPLETED);
+        assertEquals(job.getSuccessCount(), 200);
+        assertEquals(job.getDuplicateCount(), 0);
+        assertEquals(job.getLastCompletedRow(), 200);
+        assertEquals(users.size(), 200);
+        for (int i = 1; i <= 200; i++) {
+            String userName = "TESTSTORE/user" + i;
+            int expectedCalls = userName.equals("TESTSTORE/user130") ? 2 : 1;
+            assertEquals(addUserCalls.get(userName).intValue(), expectedCalls, "Unexpected adds of " + userName);
+        }
+    }
+
+    @Test(description = "A failed job is queued only once when it is resumed concurrently.")
+    public void testConcurrentResumeQueuesJobOnce() throws Exception {
+
+        String content = generateUsers(1, 200);
+        failingUser = "TESTSTORE/user130";
+        BulkImportJob job = jobManager.submit(csvImport(content), userStoreManager);
+        waitUntilFinished(job);
+        assertEquals(job.getStatus(), BulkImportJob.Status.FAILED);
+
+        int callers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger resumed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            for (int i = 0; i < callers; i++) {
+                executor.execute(() -> {
+                    PrivilegedCarbonContext.startTenantFlow();
+                    try {
+                        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain("carbon.super");
+                        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(-1234);
+                        start.await();
+                        jobManager.resume(job.getJobId(), csvImport(content), userStoreManager);
+                        resumed.incrementAndGet();
+                    } catch (UserAdminException e) {
+                        rejected.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        PrivilegedCarbonContext.endTenantFlow();
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        waitUntilFinished(job);
+
+        assertEquals(resumed.get(), 1);
+        assertEquals(rejected.get(), callers - 1);
+        assertEquals(job.getStatus(), BulkImportJob.Status.COMPLETED);
+        assertEquals(job.getSuccessCount(), 200);
+        for (int i = 101; i <= 200; i++) {
+            String userName = "TESTSTORE/user" + i;
+            int expectedCalls = userName.equals("TESTSTORE/user130") ? 2 : 1;
+            assertEquals(addUserCalls.get(userName).intValue(), expectedCalls, "Unexpected adds of " + userName);
+        }
+    }
+
+    @Test(description = "Jobs are only visible to the tenant which started them.")
+    public void testJobIsTenantScoped() throws Exception {
+
+        BulkImportJob job = jobManager.importUsers(csvImport(generateUsers(1, 1)), userStoreManager);
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain("wso2.com");
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(1);
+            assertNull(jobManager.getJob(job.getJobId()));
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        assertNotNull(jobManager.getJob(job.getJobId()));
+    }
+
+    private static UserBulkImport csvImport(String content) {
+
+        BulkImportConfig config = new BulkImportConfig(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "users.csv");
+        config.setUserStoreDomain(USER_STORE_DOMAIN);
+        return new CSVUserBulkImport(config);
+    }
+
+    private static String generateUsers(int from, int to) {
+
+        StringBuilder content = new StringBuilder(CSV_HEADER);
+        for (int i = from; i <= to; i++) {
+            content.append("user").append(i).append(",password").append(i).append(',').append(EMAIL_CLAIM)
+                    .append("=user").append(i).append("@wso2.com\n");
+        }
+        return content.toString();
+    }
+
+    private static void waitUntilFinished(BulkImportJob job) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "Bulk import job did not finish in time.");
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.user.mgt.permission;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.user.core.AuthorizationManager;
+import org.wso2.carbon.user.mgt.UserMgtConstants;
+import org.wso2.carbon.user.mgt.common.UIPermissionNode;
+
+import java.util.Arrays;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class UIPermissionTreeNodeTest {
+
+    private static final String ROOT = "/permission/admin";
+    private static final String MANAGE = "/permission/admin/manage";
+    private static final String USERS = "/permission/admin/manage/users";
+    private static final String LOGIN = "/permission/admin/login";
+
+    private UIPermissionTreeNode tree;
+    private AuthorizationManager authorizationManager;
+
+    @BeforeMethod
+    public void setUp() {
+
+        UIPermissionTreeNode users = new UIPermissionTreeNode(USERS, "Users", null);
+        UIPermissionTreeNode manage = new UIPermissionTreeNode(MANAGE, "Manage", new UIPermissionTreeNode[]{users});
+        UIPermissionTreeNode login = new UIPermissionTreeNode(LOGIN, "Login", null);
+        tree = new UIPermissionTreeNode(ROOT, "Admin", new UIPermissionTreeNode[]{manage, login});
+        authorizationManager = mock(AuthorizationManager.class);
+    }
+
+    @Test
+    public void testToUIPermissionNodeWithoutRoles() {
+
+        UIPermissionNode root = tree.toUIPermissionNode();
+
+        assertEquals(root.getResourcePath(), ROOT);
+        assertEquals(root.getDisplayName(), "Admin");
+        assertFalse(root.isSelected());
+        assertEquals(root.getNodeList().length, 2);
+        assertEquals(root.getNodeList()[0].getNodeList()[0].getResourcePath(), USERS);
+        assertFalse(root.getNodeList()[0].getNodeList()[0].isSelected());
+        assertEquals(root.getNodeList()[1].getNodeList().length, 0);
+    }
+
+    @Test
+    public void testToUIPermissionNodeWithAuthorizedRoot() throws Exception {
+
+        when(authorizationManager.isRoleAuthorized("admin", ROOT, UserMgtConstants.EXECUTE_ACTION))
+                .thenReturn(true);
+
+        UIPermissionNode root = tree.toUIPermissionNode(authorizationManager, "admin");
+
+        assertTrue(root.isSelected());
+        assertTrue(root.getNodeList()[0].isSelected());
+        assertTrue(root.getNodeList()[0].getNodeList()[0].isSelected());
+        assertTrue(root.getNodeList()[1].isSelected());
+        verify(authorizationManager, times(1)).isRoleAuthorized(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testToUIPermissionNodeWithRoles() throws Exception {
+
+        when(authorizationManager.isRoleAuthorized("role2", USERS, UserMgtConstants.EXECUTE_ACTION))
+                .thenReturn(true);
+
+        UIPermissionNode root = tree.toUIPermissionNode(authorizationManager, Arrays.asList("role1", " ", "role2"));
+
+        assertFalse(root.isSelected());
+        assertFalse(root.getNodeList()[0].isSelected());
+        assertTrue(root.getNodeList()[0].getNodeList()[0].isSelected());
+        assertFalse(root.getNodeList()[1].isSelected());
+        verify(authorizationManager, never()).isRoleAuthorized(" ", ROOT, UserMgtConstants.EXECUTE_ACTION);
+    }
+}